@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.api;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Index of the annotated classes of a model package, generated at compile time by the
+ * annotation processing tool of the <code>olingo-odata2-annotation-processor-apt</code> module.
+ * <p>The generated class is named {@link #GENERATED_CLASS_NAME} and is placed into every package
+ * that contains classes annotated with <code>EdmEntityType</code>, <code>EdmComplexType</code>
+ * or <code>EdmEntitySet</code>. If it is present, the {@link AnnotationServiceFactory} uses it
+ * instead of scanning the class path for the model package and accesses the property values
+ * through the generated {@link PropertyAccessor}s.</p>
+ */
+public interface AnnotationModelIndex {
+
+  /**
+   * Simple name of the generated index class in the model package.
+   */
+  String GENERATED_CLASS_NAME = "ODataModelIndex";
+
+  /**
+   * Returns the annotated classes of the model package and its sub-packages.
+   * @return the annotated classes
+   */
+  Collection<Class<?>> getAnnotatedClasses();
+
+  /**
+   * Returns the property accessor for an annotated class.
+   * @param annotatedClass the exact class of the data objects
+   * @return the accessor or <code>null</code> if none has been generated for this class
+   */
+  PropertyAccessor getPropertyAccessor(Class<?> annotatedClass);
+
+  /**
+   * Typed access to the values of the fields annotated with <code>EdmProperty</code>
+   * and <code>EdmKey</code>, including the fields inherited from super classes.
+   * Properties are identified by their EDM property name.
+   */
+  interface PropertyAccessor {
+
+    /**
+     * @param propertyName the EDM property name
+     * @return <code>true</code> if the property can be accessed
+     */
+    boolean hasProperty(String propertyName);
+
+    /**
+     * @param propertyName the EDM property name
+     * @return the declared Java type of the property field
+     */
+    Class<?> getType(String propertyName);
+
+    /**
+     * @param data the data object
+     * @param propertyName the EDM property name
+     * @return the value of the property field
+     */
+    Object getValue(Object data, String propertyName);
+
+    /**
+     * @param data the data object
+     * @param propertyName the EDM property name
+     * @param value the new value; it must be assignable to the property field
+     */
+    void setValue(Object data, String propertyName, Object value);
+
+    /**
+     * Extracts the values of the fields annotated with <code>EdmKey</code>, in the order
+     * the fields are declared (fields of super classes last).
+     * @param data the data object
+     * @return the key values
+     */
+    List<Object> getKeyValues(Object data);
+  }
+}
@@ -0,0 +1,493 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.apt;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+import org.apache.olingo.odata2.annotation.processor.api.AnnotationModelIndex;
+import org.apache.olingo.odata2.api.annotation.edm.EdmComplexType;
+import org.apache.olingo.odata2.api.annotation.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.annotation.edm.EdmEntityType;
+import org.apache.olingo.odata2.api.annotation.edm.EdmKey;
+import org.apache.olingo.odata2.api.annotation.edm.EdmProperty;
+
+/**
+ * Annotation processor which generates an {@link AnnotationModelIndex} for every package
+ * containing classes annotated with {@link EdmEntityType}, {@link EdmComplexType} or
+ * {@link EdmEntitySet}.
+ * <p>The index lists the annotated classes of the package and its sub-packages, so that no
+ * class path scanning is necessary at runtime, and contains a property accessor for each of
+ * these classes. Fields which are accessible from the package are read and written directly;
+ * for all other fields the reflective {@link java.lang.reflect.Field} is resolved once when the
+ * index is loaded.</p>
+ * <p>Next to each index a resource with the names of the listed classes is written to the class
+ * output. An incremental compilation which recompiles only some classes of a package reads it and
+ * keeps the classes of earlier compilations in the index, as long as they still exist and are
+ * still annotated.</p>
+ * <p>The processor is discovered by the Java compiler if this module is on the compile class path.</p>
+ */
+public class ModelIndexProcessor extends AbstractProcessor {
+
+  private static final String[] TYPE_ANNOTATIONS = {
+    EdmEntityType.class.getName(), EdmComplexType.class.getName(), EdmEntitySet.class.getName() };
+  private static final String TYPE_LIST = AnnotationModelIndex.GENERATED_CLASS_NAME + ".types";
+
+  private final Map<String, TypeElement> annotatedTypes = new TreeMap<String, TypeElement>();
+  private final Set<String> generatedPackages = new HashSet<String>();
+
+  /**
+   * All classes are inspected: a recompiled class may have lost its annotations
+   * and must then be removed from the index of an earlier compilation.
+   */
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Collections.singleton("*");
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+    Set<String> annotatedPackages = new TreeSet<String>();
+    for (String annotationName : TYPE_ANNOTATIONS) {
+      final TypeElement annotation = processingEnv.getElementUtils().getTypeElement(annotationName);
+      if (annotation == null) {
+        continue;
+      }
+      for (TypeElement type : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(annotation))) {
+        annotatedTypes.put(type.getQualifiedName().toString(), type);
+        annotatedPackages.add(getPackageName(type));
+      }
+    }
+
+    // indexes of earlier compilations listing classes of this round, also those of the parent packages
+    Set<String> packages = new TreeSet<String>(annotatedPackages);
+    Set<String> checkedPackages = new HashSet<String>();
+    for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+      for (String packageName = getPackageName(type); checkedPackages.add(packageName);
+          packageName = packageName.substring(0, Math.max(packageName.lastIndexOf('.'), 0))) {
+        if (!generatedPackages.contains(packageName) && !readTypeList(packageName).isEmpty()) {
+          packages.add(packageName);
+        }
+      }
+    }
+
+    for (String packageName : packages) {
+      if (generatedPackages.add(packageName)) {
+        generateIndex(packageName);
+      } else if (annotatedPackages.contains(packageName)) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+            "Annotated classes of package '" + packageName + "' found in a later processing round "
+                + "are not contained in its " + AnnotationModelIndex.GENERATED_CLASS_NAME + ".");
+      }
+    }
+    // other processors may handle the same annotations
+    return false;
+  }
+
+  private void generateIndex(final String packageName) {
+    for (String name : readTypeList(packageName)) {
+      if (!annotatedTypes.containsKey(name)) {
+        final TypeElement type = processingEnv.getElementUtils().getTypeElement(name);
+        if (type != null && isAnnotated(type)) {
+          annotatedTypes.put(name, type);
+        }
+      }
+    }
+
+    List<TypeElement> types = new ArrayList<TypeElement>();
+    for (TypeElement type : annotatedTypes.values()) {
+      final String typePackage = getPackageName(type);
+      if (typePackage.equals(packageName) || typePackage.startsWith(packageName + '.')) {
+        types.add(type);
+      }
+    }
+
+    StringBuilder source = new StringBuilder();
+    source.append("package ").append(packageName).append(";\n\n")
+        .append("/**\n * Generated by ").append(getClass().getName()).append(". Do not edit.\n */\n")
+        .append("public final class ").append(AnnotationModelIndex.GENERATED_CLASS_NAME)
+        .append(" implements ").append(AnnotationModelIndex.class.getName()).append(" {\n\n")
+        .append("  private static final java.util.List<Class<?>> ANNOTATED_CLASSES =\n")
+        .append("      java.util.Collections.unmodifiableList(java.util.Arrays.<Class<?>> asList(\n");
+    for (int i = 0; i < types.size(); i++) {
+      source.append("          ").append(getClassExpression(types.get(i), packageName))
+          .append(i < types.size() - 1 ? ",\n" : "");
+    }
+    source.append("));\n\n");
+    source.append("  private static final java.util.Map<Class<?>, PropertyAccessor> ACCESSORS =\n")
+        .append("      new java.util.HashMap<Class<?>, PropertyAccessor>();\n\n")
+        .append("  static {\n");
+    List<String> accessors = new ArrayList<String>();
+    for (TypeElement type : types) {
+      if (isAccessible(type, packageName)) {
+        source.append("    ACCESSORS.put(").append(type.getQualifiedName()).append(".class, new Accessor")
+            .append(accessors.size()).append("());\n");
+        accessors.add(createAccessor(type, packageName, accessors.size()));
+      }
+    }
+    source.append("  }\n\n")
+        .append("  @Override\n")
+        .append("  public java.util.Collection<Class<?>> getAnnotatedClasses() {\n")
+        .append("    return ANNOTATED_CLASSES;\n")
+        .append("  }\n\n")
+        .append("  @Override\n")
+        .append("  public PropertyAccessor getPropertyAccessor(final Class<?> annotatedClass) {\n")
+        .append("    return ACCESSORS.get(annotatedClass);\n")
+        .append("  }\n\n");
+    for (String accessor : accessors) {
+      source.append(accessor);
+    }
+    appendHelpers(source);
+    source.append("}\n");
+
+    StringBuilder typeList = new StringBuilder();
+    for (TypeElement type : types) {
+      typeList.append(type.getQualifiedName()).append('\n');
+    }
+
+    try {
+      final Element[] originatingElements = types.toArray(new Element[types.size()]);
+      JavaFileObject file = processingEnv.getFiler().createSourceFile(
+          packageName + '.' + AnnotationModelIndex.GENERATED_CLASS_NAME, originatingElements);
+      write(file, source);
+      write(processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, packageName, TYPE_LIST,
+          originatingElements), typeList);
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+          "Could not generate " + AnnotationModelIndex.GENERATED_CLASS_NAME + " for package '" + packageName
+              + "': " + e.getMessage());
+    }
+  }
+
+  private static void write(final FileObject file, final CharSequence content) throws IOException {
+    Writer writer = file.openWriter();
+    try {
+      writer.append(content);
+    } finally {
+      writer.close();
+    }
+  }
+
+  /**
+   * Reads the names of the classes listed by the index of an earlier compilation.
+   * @return the class names; empty if the package has no index in the class output
+   */
+  private List<String> readTypeList(final String packageName) {
+    List<String> names = new ArrayList<String>();
+    try {
+      final FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, packageName,
+          TYPE_LIST);
+      BufferedReader reader = new BufferedReader(file.openReader(true));
+      try {
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+          if (!line.trim().isEmpty()) {
+            names.add(line.trim());
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (IOException e) {
+      // no index generated so far
+    }
+    return names;
+  }
+
+  private boolean isAnnotated(final TypeElement type) {
+    final List<String> typeAnnotations = Arrays.asList(TYPE_ANNOTATIONS);
+    for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+      final TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+      if (typeAnnotations.contains(annotationType.getQualifiedName().toString())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private String createAccessor(final TypeElement type, final String packageName, final int number) {
+    // property name -> field; fields of the class win over inherited fields with the same property name
+    Map<String, VariableElement> properties = new LinkedHashMap<String, VariableElement>();
+    List<VariableElement> keys = new ArrayList<VariableElement>();
+    List<VariableElement> fields = new ArrayList<VariableElement>();
+    for (TypeElement current = type; current != null; current = getSuperclass(current)) {
+      for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+        if (field.getModifiers().contains(Modifier.STATIC)) {
+          continue;
+        }
+        final EdmProperty property = field.getAnnotation(EdmProperty.class);
+        if (property != null) {
+          final String name = property.name().isEmpty() ? getCanonicalName(field) : property.name();
+          if (!properties.containsKey(name)) {
+            properties.put(name, field);
+            addField(fields, field);
+          }
+        }
+        if (field.getAnnotation(EdmKey.class) != null) {
+          keys.add(field);
+          addField(fields, field);
+        }
+      }
+    }
+
+    final String typeName = type.getQualifiedName().toString();
+    StringBuilder source = new StringBuilder();
+    source.append("  /** Accessor for {@link ").append(typeName).append("}. */\n")
+        .append("  private static final class Accessor").append(number).append(" implements PropertyAccessor {\n\n")
+        .append("    private static final java.util.Map<String, Integer> PROPERTIES =\n")
+        .append("        new java.util.HashMap<String, Integer>();\n");
+    for (int i = 0; i < fields.size(); i++) {
+      if (!isDirectlyAccessible(fields.get(i), packageName)) {
+        final TypeElement declaringType = (TypeElement) fields.get(i).getEnclosingElement();
+        source.append("    private static final java.lang.reflect.Field FIELD").append(i).append(" = field(")
+            .append(getClassExpression(declaringType, packageName)).append(", \"").append(fields.get(i).getSimpleName())
+            .append("\");\n");
+      }
+    }
+    source.append("\n    static {\n");
+    for (Map.Entry<String, VariableElement> property : properties.entrySet()) {
+      source.append("      PROPERTIES.put(\"").append(property.getKey()).append("\", ")
+          .append(fields.indexOf(property.getValue())).append(");\n");
+    }
+    source.append("    }\n\n");
+
+    source.append("    private static int index(final String propertyName) {\n")
+        .append("      final Integer index = PROPERTIES.get(propertyName);\n")
+        .append("      if (index == null) {\n")
+        .append("        throw new IllegalArgumentException(\"No field for property '\" + propertyName\n")
+        .append("            + \"' found at class '").append(typeName).append("'.\");\n")
+        .append("      }\n")
+        .append("      return index;\n")
+        .append("    }\n\n");
+
+    source.append("    @Override\n")
+        .append("    public boolean hasProperty(final String propertyName) {\n")
+        .append("      return PROPERTIES.containsKey(propertyName);\n")
+        .append("    }\n\n");
+
+    source.append("    @Override\n")
+        .append("    public Class<?> getType(final String propertyName) {\n")
+        .append("      switch (index(propertyName)) {\n");
+    for (int i = 0; i < fields.size(); i++) {
+      source.append("      case ").append(i).append(":\n")
+          .append("        return ").append(getErasure(fields.get(i).asType())).append(".class;\n");
+    }
+    source.append("      default:\n")
+        .append("        throw new IllegalArgumentException(propertyName);\n")
+        .append("      }\n")
+        .append("    }\n\n");
+
+    source.append("    @Override\n")
+        .append("    public Object getValue(final Object data, final String propertyName) {\n")
+        .append("      return get((").append(typeName).append(") data, index(propertyName));\n")
+        .append("    }\n\n")
+        .append("    private static Object get(final ").append(typeName).append(" data, final int index) {\n")
+        .append("      switch (index) {\n");
+    for (int i = 0; i < fields.size(); i++) {
+      source.append("      case ").append(i).append(":\n")
+          .append("        return ").append(isDirectlyAccessible(fields.get(i), packageName)
+              ? "data." + fields.get(i).getSimpleName()
+              : "getField(FIELD" + i + ", data)").append(";\n");
+    }
+    source.append("      default:\n")
+        .append("        throw new IllegalArgumentException(String.valueOf(index));\n")
+        .append("      }\n")
+        .append("    }\n\n");
+
+    source.append("    @Override\n")
+        .append("    public void setValue(final Object data, final String propertyName, final Object value) {\n")
+        .append("      final ").append(typeName).append(" typedData = (").append(typeName).append(") data;\n")
+        .append("      switch (index(propertyName)) {\n");
+    for (int i = 0; i < fields.size(); i++) {
+      source.append("      case ").append(i).append(":\n");
+      if (isDirectlyAccessible(fields.get(i), packageName)) {
+        source.append("        typedData.").append(fields.get(i).getSimpleName()).append(" = ")
+            .append(getConversion(fields.get(i).asType())).append(";\n");
+      } else {
+        source.append("        setField(FIELD").append(i).append(", typedData, value);\n");
+      }
+      source.append("        break;\n");
+    }
+    source.append("      default:\n")
+        .append("        throw new IllegalArgumentException(propertyName);\n")
+        .append("      }\n")
+        .append("    }\n\n");
+
+    source.append("    @Override\n")
+        .append("    public java.util.List<Object> getKeyValues(final Object data) {\n")
+        .append("      final ").append(typeName).append(" typedData = (").append(typeName).append(") data;\n")
+        .append("      return java.util.Arrays.asList(new Object[] {");
+    for (int i = 0; i < keys.size(); i++) {
+      source.append(i == 0 ? " " : ", ").append("get(typedData, ").append(fields.indexOf(keys.get(i))).append(")");
+    }
+    source.append(" });\n")
+        .append("    }\n")
+        .append("  }\n\n");
+    return source.toString();
+  }
+
+  private void appendHelpers(final StringBuilder source) {
+    source.append("  private static Class<?> loadClass(final String name) {\n")
+        .append("    try {\n")
+        .append("      return Class.forName(name, false, ").append(AnnotationModelIndex.GENERATED_CLASS_NAME)
+        .append(".class.getClassLoader());\n")
+        .append("    } catch (final ClassNotFoundException e) {\n")
+        .append("      throw new IllegalStateException(e);\n")
+        .append("    }\n")
+        .append("  }\n\n");
+    source.append("  private static java.lang.reflect.Field field(final Class<?> declaringClass,")
+        .append(" final String name) {\n")
+        .append("    try {\n")
+        .append("      final java.lang.reflect.Field field = declaringClass.getDeclaredField(name);\n")
+        .append("      field.setAccessible(true);\n")
+        .append("      return field;\n")
+        .append("    } catch (final NoSuchFieldException e) {\n")
+        .append("      throw new IllegalStateException(e);\n")
+        .append("    }\n")
+        .append("  }\n\n")
+        .append("  private static Object getField(final java.lang.reflect.Field field, final Object data) {\n")
+        .append("    try {\n")
+        .append("      return field.get(data);\n")
+        .append("    } catch (final IllegalAccessException e) {\n")
+        .append("      throw new IllegalStateException(e);\n")
+        .append("    }\n")
+        .append("  }\n\n")
+        .append("  private static void setField(final java.lang.reflect.Field field, final Object data,")
+        .append(" final Object value) {\n")
+        .append("    try {\n")
+        .append("      field.set(data, value);\n")
+        .append("    } catch (final IllegalAccessException e) {\n")
+        .append("      throw new IllegalStateException(e);\n")
+        .append("    }\n")
+        .append("  }\n");
+  }
+
+  private static void addField(final List<VariableElement> fields, final VariableElement field) {
+    if (!fields.contains(field)) {
+      fields.add(field);
+    }
+  }
+
+  private TypeElement getSuperclass(final TypeElement type) {
+    final TypeMirror superclass = type.getSuperclass();
+    if (superclass.getKind() != TypeKind.DECLARED) {
+      return null;
+    }
+    final TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+    return Object.class.getName().equals(element.getQualifiedName().toString()) ? null : element;
+  }
+
+  private String getPackageName(final Element element) {
+    return processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+  }
+
+  /**
+   * The class (and all enclosing classes) must be visible from the generated index.
+   */
+  private boolean isAccessible(final TypeElement type, final String packageName) {
+    for (Element element = type; element.getKind() != ElementKind.PACKAGE; element = element.getEnclosingElement()) {
+      final Set<Modifier> modifiers = element.getModifiers();
+      if (modifiers.contains(Modifier.PRIVATE)
+          || !modifiers.contains(Modifier.PUBLIC) && !getPackageName(element).equals(packageName)
+          || element instanceof TypeElement && ((TypeElement) element).getNestingKind() == NestingKind.MEMBER
+          && !modifiers.contains(Modifier.STATIC)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isDirectlyAccessible(final VariableElement field, final String packageName) {
+    final Set<Modifier> modifiers = field.getModifiers();
+    if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL)) {
+      return false;
+    }
+    final TypeElement declaringType = (TypeElement) field.getEnclosingElement();
+    return getPackageName(declaringType).equals(packageName)
+        || modifiers.contains(Modifier.PUBLIC) && isAccessible(declaringType, "");
+  }
+
+  /**
+   * Classes which are not visible from the generated index are loaded by name.
+   */
+  private String getClassExpression(final TypeElement type, final String packageName) {
+    if (isAccessible(type, packageName)) {
+      return type.getQualifiedName() + ".class";
+    }
+    return "loadClass(\"" + processingEnv.getElementUtils().getBinaryName(type) + "\")";
+  }
+
+  private String getErasure(final TypeMirror type) {
+    return processingEnv.getTypeUtils().erasure(type).toString();
+  }
+
+  /**
+   * Numeric primitive fields accept any number, like the widening conversion of reflective access.
+   */
+  private String getConversion(final TypeMirror type) {
+    final TypeKind kind = type.getKind();
+    if (kind == TypeKind.BOOLEAN || kind == TypeKind.CHAR) {
+      return "(" + processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName() + ") value";
+    } else if (kind.isPrimitive()) {
+      return "((java.lang.Number) value)." + type.toString() + "Value()";
+    }
+    return "(" + getErasure(type) + ") value";
+  }
+
+  private static String getCanonicalName(final VariableElement field) {
+    final String name = field.getSimpleName().toString();
+    return name.substring(0, 1).toUpperCase(Locale.ENGLISH) + name.substring(1);
+  }
+}
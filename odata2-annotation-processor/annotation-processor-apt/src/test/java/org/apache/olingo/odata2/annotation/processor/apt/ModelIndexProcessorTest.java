@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.apt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.apache.olingo.odata2.annotation.processor.api.AnnotationModelIndex;
+import org.apache.olingo.odata2.annotation.processor.api.AnnotationModelIndex.PropertyAccessor;
+import org.apache.olingo.odata2.api.annotation.edm.EdmKey;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class ModelIndexProcessorTest {
+
+  private static final String ANNOTATIONS = "org.apache.olingo.odata2.api.annotation.edm.";
+
+  private File directory;
+  private URLClassLoader classLoader;
+
+  @Before
+  public void before() throws IOException {
+    directory = File.createTempFile("apt", "");
+    directory.delete();
+    directory.mkdirs();
+  }
+
+  @After
+  public void after() {
+    delete(directory);
+  }
+
+  private void delete(final File file) {
+    final File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  private void writeSource(final String className, final String... lines) throws IOException {
+    File file = new File(directory, className.replace('.', File.separatorChar) + ".java");
+    file.getParentFile().mkdirs();
+    Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+    try {
+      for (String line : lines) {
+        writer.write(line);
+        writer.write('\n');
+      }
+    } finally {
+      writer.close();
+    }
+  }
+
+  private void compile(final String... classNames) throws Exception {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+    StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+    List<File> files = new ArrayList<File>();
+    for (String className : classNames) {
+      files.add(new File(directory, className.replace('.', File.separatorChar) + ".java"));
+    }
+    CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+        Arrays.asList("-d", directory.getPath(), "-s", directory.getPath(),
+            "-classpath", directory.getPath() + File.pathSeparator + getClassPath(EdmKey.class)
+                + File.pathSeparator + getClassPath(AnnotationModelIndex.class)),
+        null, fileManager.getJavaFileObjectsFromFiles(files));
+    task.setProcessors(Collections.singletonList(new ModelIndexProcessor()));
+    final boolean success = task.call();
+    fileManager.close();
+    assertTrue(diagnostics.getDiagnostics().toString(), success);
+    classLoader = new URLClassLoader(new URL[] { directory.toURI().toURL() }, getClass().getClassLoader());
+  }
+
+  private String getClassPath(final Class<?> clazz) throws Exception {
+    return new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+  }
+
+  private AnnotationModelIndex loadIndex(final String packageName) throws Exception {
+    return (AnnotationModelIndex) classLoader.loadClass(packageName + '.'
+        + AnnotationModelIndex.GENERATED_CLASS_NAME).newInstance();
+  }
+
+  private void writeModel() throws Exception {
+    writeSource("model.Base",
+        "package model;",
+        "public abstract class Base {",
+        "  @" + ANNOTATIONS + "EdmKey @" + ANNOTATIONS + "EdmProperty",
+        "  protected String id;",
+        "  @" + ANNOTATIONS + "EdmProperty(name = \"Label\")",
+        "  private String name;",
+        "}");
+    writeSource("model.Item",
+        "package model;",
+        "@" + ANNOTATIONS + "EdmEntityType @" + ANNOTATIONS + "EdmEntitySet",
+        "public class Item extends Base {",
+        "  @" + ANNOTATIONS + "EdmProperty",
+        "  int count;",
+        "  @" + ANNOTATIONS + "EdmProperty",
+        "  private java.util.List<String> tags;",
+        "  @" + ANNOTATIONS + "EdmKey @" + ANNOTATIONS + "EdmProperty",
+        "  private final Long version = 1L;",
+        "  private String notAProperty;",
+        "  public String getName() { return notAProperty; }",
+        "}");
+    writeSource("model.sub.Detail",
+        "package model.sub;",
+        "@" + ANNOTATIONS + "EdmComplexType",
+        "public class Detail {",
+        "  @" + ANNOTATIONS + "EdmProperty",
+        "  public double value;",
+        "  @" + ANNOTATIONS + "EdmProperty",
+        "  String text;",
+        "}");
+    compile("model.Base", "model.Item", "model.sub.Detail");
+  }
+
+  @Test
+  public void annotatedClasses() throws Exception {
+    writeModel();
+    final AnnotationModelIndex index = loadIndex("model");
+    assertEquals(Arrays.asList(classLoader.loadClass("model.Item"), classLoader.loadClass("model.sub.Detail")),
+        index.getAnnotatedClasses());
+    assertEquals(Collections.singletonList(classLoader.loadClass("model.sub.Detail")),
+        loadIndex("model.sub").getAnnotatedClasses());
+    assertNull(index.getPropertyAccessor(classLoader.loadClass("model.Base")));
+  }
+
+  @Test
+  public void propertyAccess() throws Exception {
+    writeModel();
+    final Class<?> itemClass = classLoader.loadClass("model.Item");
+    final PropertyAccessor accessor = loadIndex("model").getPropertyAccessor(itemClass);
+    assertNotNull(accessor);
+    final Object item = itemClass.newInstance();
+
+    assertTrue(accessor.hasProperty("Id"));
+    assertTrue(accessor.hasProperty("Label"));
+    assertTrue(accessor.hasProperty("Count"));
+    assertFalse(accessor.hasProperty("Name"));
+    assertFalse(accessor.hasProperty("NotAProperty"));
+
+    assertEquals(String.class, accessor.getType("Label"));
+    assertEquals(int.class, accessor.getType("Count"));
+    assertEquals(List.class, accessor.getType("Tags"));
+
+    accessor.setValue(item, "Id", "1");
+    accessor.setValue(item, "Label", "first");
+    accessor.setValue(item, "Count", Short.valueOf((short) 3));
+    accessor.setValue(item, "Tags", Arrays.asList("a"));
+    assertEquals("1", accessor.getValue(item, "Id"));
+    assertEquals("first", accessor.getValue(item, "Label"));
+    assertEquals(3, accessor.getValue(item, "Count"));
+    assertEquals(Arrays.asList("a"), accessor.getValue(item, "Tags"));
+    assertEquals(1L, accessor.getValue(item, "Version"));
+
+    // key fields of the class first, then the ones of the super class
+    assertEquals(Arrays.<Object> asList(1L, "1"), accessor.getKeyValues(item));
+  }
+
+  @Test
+  public void subPackage() throws Exception {
+    writeModel();
+    final Class<?> detailClass = classLoader.loadClass("model.sub.Detail");
+    final Object detail = detailClass.newInstance();
+    // the package-private field is accessed reflectively from the index of the parent package
+    final PropertyAccessor accessor = loadIndex("model").getPropertyAccessor(detailClass);
+    accessor.setValue(detail, "Value", 2.5);
+    accessor.setValue(detail, "Text", "text");
+    assertEquals(2.5, accessor.getValue(detail, "Value"));
+    assertEquals("text", loadIndex("model.sub").getPropertyAccessor(detailClass).getValue(detail, "Text"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unknownProperty() throws Exception {
+    writeModel();
+    final Class<?> itemClass = classLoader.loadClass("model.Item");
+    loadIndex("model").getPropertyAccessor(itemClass).getValue(itemClass.newInstance(), "Name");
+  }
+
+  @Test
+  public void incrementalCompilation() throws Exception {
+    writeModel();
+    writeSource("model.Other",
+        "package model;",
+        "@" + ANNOTATIONS + "EdmEntityType",
+        "public class Other {",
+        "  @" + ANNOTATIONS + "EdmKey @" + ANNOTATIONS + "EdmProperty",
+        "  public String id;",
+        "}");
+    writeSource("model.sub.Extra",
+        "package model.sub;",
+        "@" + ANNOTATIONS + "EdmComplexType",
+        "public class Extra {",
+        "}");
+    // second compilation with the new classes only; the classes of the first one are on the class path
+    compile("model.Other", "model.sub.Extra");
+
+    final Class<?> itemClass = classLoader.loadClass("model.Item");
+    final AnnotationModelIndex index = loadIndex("model");
+    assertEquals(Arrays.asList(itemClass, classLoader.loadClass("model.Other"),
+        classLoader.loadClass("model.sub.Detail"), classLoader.loadClass("model.sub.Extra")),
+        index.getAnnotatedClasses());
+    assertEquals(Arrays.asList(classLoader.loadClass("model.sub.Detail"), classLoader.loadClass("model.sub.Extra")),
+        loadIndex("model.sub").getAnnotatedClasses());
+    assertTrue(index.getPropertyAccessor(itemClass).hasProperty("Label"));
+    assertTrue(index.getPropertyAccessor(classLoader.loadClass("model.Other")).hasProperty("Id"));
+  }
+
+  @Test
+  public void incrementalCompilationRemovesClass() throws Exception {
+    writeModel();
+    writeSource("model.Item",
+        "package model;",
+        "public class Item extends Base {",
+        "}");
+    compile("model.Item");
+    assertEquals(Collections.singletonList(classLoader.loadClass("model.sub.Detail")),
+        loadIndex("model").getAnnotatedClasses());
+
+    writeSource("model.sub.Detail",
+        "package model.sub;",
+        "public class Detail {",
+        "}");
+    compile("model.sub.Detail");
+
+    assertTrue(loadIndex("model").getAnnotatedClasses().isEmpty());
+    assertTrue(loadIndex("model.sub").getAnnotatedClasses().isEmpty());
+  }
+}
@@ -31,6 +31,7 @@ import java.util.Map;
 
 import org.apache.olingo.odata2.annotation.processor.core.datasource.DataSource;
 import org.apache.olingo.odata2.annotation.processor.core.datasource.DataSource.BinaryData;
+import org.apache.olingo.odata2.annotation.processor.core.datasource.PersistingDataSource;
 import org.apache.olingo.odata2.annotation.processor.core.datasource.ValueAccess;
 import org.apache.olingo.odata2.api.ODataCallback;
 import org.apache.olingo.odata2.api.batch.BatchHandler;
@@ -417,6 +418,7 @@ public class ListsProcessor extends DataSourceProcessor {
     final ODataEntry entryValues = parseEntry(entitySet, content, requestContentType, properties);
 
     setStructuralTypeValuesFromMap(data, entityType, entryValues.getProperties(), merge);
+    persistData(entitySet, data);
 
     return ODataResponse.newBuilder().eTag(constructETag(entitySet, data)).build();
   }
@@ -614,23 +616,24 @@ public class ListsProcessor extends DataSourceProcessor {
   @Override
   public ODataResponse deleteEntitySimplePropertyValue(final DeleteUriInfo uriInfo, final String contentType)
       throws ODataException {
-    Object data = retrieveData(
+    final Object entity = retrieveData(
         uriInfo.getStartEntitySet(),
         uriInfo.getKeyPredicates(),
         uriInfo.getFunctionImport(),
         mapFunctionParameters(uriInfo.getFunctionImportParameters()),
         uriInfo.getNavigationSegments());
 
-    if (data == null) {
+    if (entity == null) {
       throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
     }
 
     final List<EdmProperty> propertyPath = uriInfo.getPropertyPath();
     final EdmProperty property = propertyPath.get(propertyPath.size() - 1);
 
-    data = getPropertyValue(data, propertyPath.subList(0, propertyPath.size() - 1));
+    final Object data = getPropertyValue(entity, propertyPath.subList(0, propertyPath.size() - 1));
     valueAccess.setPropertyValue(data, property, null);
     valueAccess.setMappingValue(data, property.getMapping(), null);
+    persistData(uriInfo.getTargetEntitySet(), entity);
 
     return ODataResponse.newBuilder().build();
   }
@@ -638,21 +641,21 @@ public class ListsProcessor extends DataSourceProcessor {
   @Override
   public ODataResponse updateEntityComplexProperty(final PutMergePatchUriInfo uriInfo, final InputStream content,
       final String requestContentType, final boolean merge, final String contentType) throws ODataException {
-    Object data = retrieveData(
+    final Object entity = retrieveData(
         uriInfo.getStartEntitySet(),
         uriInfo.getKeyPredicates(),
         uriInfo.getFunctionImport(),
         mapFunctionParameters(uriInfo.getFunctionImportParameters()),
         uriInfo.getNavigationSegments());
 
-    if (!appliesFilter(data, uriInfo.getFilter())) {
+    if (!appliesFilter(entity, uriInfo.getFilter())) {
       throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
     }
 
     final List<EdmProperty> propertyPath = uriInfo.getPropertyPath();
     final EdmProperty property = propertyPath.get(propertyPath.size() - 1);
 
-    data = getPropertyValue(data, propertyPath.subList(0, propertyPath.size() - 1));
+    final Object data = getPropertyValue(entity, propertyPath.subList(0, propertyPath.size() - 1));
 
     ODataContext context = getContext();
     int timingHandle = context.startRuntimeMeasurement("EntityConsumer", "readProperty");
@@ -677,6 +680,7 @@ public class ListsProcessor extends DataSourceProcessor {
       setStructuralTypeValuesFromMap(valueAccess.getPropertyValue(data, property),
           (EdmStructuralType) property.getType(), propertyValue, merge);
     }
+    persistData(uriInfo.getTargetEntitySet(), entity);
 
     return ODataResponse.newBuilder().eTag(constructETag(uriInfo.getTargetEntitySet(), data)).build();
   }
@@ -690,21 +694,21 @@ public class ListsProcessor extends DataSourceProcessor {
   @Override
   public ODataResponse updateEntitySimplePropertyValue(final PutMergePatchUriInfo uriInfo, final InputStream content,
       final String requestContentType, final String contentType) throws ODataException {
-    Object data = retrieveData(
+    final Object entity = retrieveData(
         uriInfo.getStartEntitySet(),
         uriInfo.getKeyPredicates(),
         uriInfo.getFunctionImport(),
         mapFunctionParameters(uriInfo.getFunctionImportParameters()),
         uriInfo.getNavigationSegments());
 
-    if (!appliesFilter(data, uriInfo.getFilter())) {
+    if (!appliesFilter(entity, uriInfo.getFilter())) {
       throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
     }
 
     final List<EdmProperty> propertyPath = uriInfo.getPropertyPath();
     final EdmProperty property = propertyPath.get(propertyPath.size() - 1);
 
-    data = getPropertyValue(data, propertyPath.subList(0, propertyPath.size() - 1));
+    final Object data = getPropertyValue(entity, propertyPath.subList(0, propertyPath.size() - 1));
 
     ODataContext context = getContext();
     int timingHandle = context.startRuntimeMeasurement("EntityConsumer", "readPropertyValue");
@@ -720,6 +724,7 @@ public class ListsProcessor extends DataSourceProcessor {
 
     valueAccess.setPropertyValue(data, property, value);
     valueAccess.setMappingValue(data, property.getMapping(), requestContentType);
+    persistData(uriInfo.getTargetEntitySet(), entity);
 
     return ODataResponse.newBuilder().eTag(constructETag(uriInfo.getTargetEntitySet(), data)).build();
   }
@@ -892,6 +897,15 @@ public class ListsProcessor extends DataSourceProcessor {
     }
   }
 
+  /**
+   * Data objects are modified in place; a persisting data source has to be told about it.
+   */
+  private void persistData(final EdmEntitySet entitySet, final Object data) throws ODataException {
+    if (dataSource instanceof PersistingDataSource) {
+      ((PersistingDataSource) dataSource).persistData(entitySet, data);
+    }
+  }
+
   private Object retrieveData(final EdmEntitySet startEntitySet, final List<KeyPredicate> keyPredicates,
       final EdmFunctionImport functionImport, final Map<String, Object> functionImportParameters,
       final List<NavigationSegment> navigationSegments) throws ODataException {
@@ -22,6 +22,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.olingo.odata2.annotation.processor.api.AnnotationModelIndex;
 import org.apache.olingo.odata2.annotation.processor.core.datasource.DataStore.DataStoreException;
 import org.apache.olingo.odata2.annotation.processor.core.util.AnnotationHelper;
 import org.apache.olingo.odata2.annotation.processor.core.util.AnnotationHelper.AnnotatedNavInfo;
@@ -53,7 +54,20 @@ public class AnnotationInMemoryDs implements DataSource {
   public AnnotationInMemoryDs(final Collection<Class<?>> annotatedClasses, final boolean persistInMemory)
       throws ODataException {
     this.persistInMemory = persistInMemory;
-    init(annotatedClasses);
+    init(annotatedClasses, null);
+  }
+
+  /**
+   * Creates the data stores for the classes of a model index generated at compile time;
+   * the key values are extracted with the generated accessors.
+   * @param modelIndex the generated index of the model
+   * @param persistInMemory whether existing data stores for the classes are kept
+   * @throws ODataException if a class is not annotated or has no key fields
+   */
+  public AnnotationInMemoryDs(final AnnotationModelIndex modelIndex, final boolean persistInMemory)
+      throws ODataException {
+    this.persistInMemory = persistInMemory;
+    init(modelIndex.getAnnotatedClasses(), modelIndex);
   }
 
   public AnnotationInMemoryDs(final String packageToScan) throws ODataException {
@@ -69,16 +83,18 @@ public class AnnotationInMemoryDs implements DataSource {
       }
     });
 
-    init(foundClasses);
+    init(foundClasses, null);
   }
 
   @SuppressWarnings("unchecked")
-  private void init(final Collection<Class<?>> annotatedClasses) throws ODataException {
+  private void init(final Collection<Class<?>> annotatedClasses, final AnnotationModelIndex modelIndex)
+      throws ODataException {
     try {
       for (Class<?> clz : annotatedClasses) {
         String entitySetName = ANNOTATION_HELPER.extractEntitySetName(clz);
         if (entitySetName != null) {
-          DataStore<Object> dhs = (DataStore<Object>) DataStore.createInMemory(clz, persistInMemory);
+          DataStore<Object> dhs = (DataStore<Object>) DataStore.createInMemory(clz, persistInMemory,
+              modelIndex == null ? null : modelIndex.getPropertyAccessor(clz));
           dataStores.put(entitySetName, dhs);
         } else if (!ANNOTATION_HELPER.isEdmAnnotated(clz)) {
           throw new ODataException("Found not annotated class during DataStore initilization of type: "
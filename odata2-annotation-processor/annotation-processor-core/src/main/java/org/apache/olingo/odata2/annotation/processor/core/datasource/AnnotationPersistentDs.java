@@ -0,0 +1,365 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.core.datasource;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.odata2.annotation.processor.core.datasource.DataStore.DataStoreException;
+import org.apache.olingo.odata2.annotation.processor.core.datasource.RecordLayout.Reference;
+import org.apache.olingo.odata2.annotation.processor.core.util.AnnotationHelper;
+import org.apache.olingo.odata2.annotation.processor.core.util.AnnotationHelper.AnnotatedNavInfo;
+import org.apache.olingo.odata2.annotation.processor.core.util.AnnotationRuntimeException;
+import org.apache.olingo.odata2.api.annotation.edm.EdmMediaResourceContent;
+import org.apache.olingo.odata2.api.annotation.edm.EdmMediaResourceMimeType;
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.exception.ODataApplicationException;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.exception.ODataNotFoundException;
+import org.apache.olingo.odata2.api.exception.ODataNotImplementedException;
+
+/**
+ * Data source which keeps the data of the annotated classes in memory like the {@link AnnotationInMemoryDs}
+ * and additionally persists all modifications in a directory, so that the data survive a restart.
+ * <p>
+ * Every entity set has a {@link MappedJournal} of memory-mapped segment files, to which each created,
+ * updated, or deleted entity is appended as one record in the {@link RecordLayout} of its class.
+ * On creation the existing journals of the directory are read to restore the data; a record written
+ * only partially by a crash is discarded. Navigation properties are persisted as the keys of the
+ * related entities and resolved after all journals have been read.
+ * <p>
+ * Modifications are written under one lock and forced to the storage device before they return;
+ * reads are served from memory without locking. A modification is journaled before it is applied in
+ * memory or, where the record can only be built from the modified objects, undone in memory if it
+ * cannot be journaled. Modifications of the returned data objects must be persisted with
+ * {@link #persistData(EdmEntitySet, Object)}.
+ * <p>
+ * All data are kept on the heap, as in the {@link AnnotationInMemoryDs}; the journals are not compacted,
+ * so a restart replays every modification ever made.
+ */
+public class AnnotationPersistentDs extends AnnotationInMemoryDs implements PersistingDataSource {
+
+  private static final AnnotationHelper ANNOTATION_HELPER = new AnnotationHelper();
+  private final Map<String, PersistentStore> stores = new HashMap<String, PersistentStore>();
+  private final Object modificationLock = new Object();
+
+  /**
+   * Creates the data source and restores the data persisted in the given directory.
+   * @param annotatedClasses the annotated classes of the model
+   * @param directory the directory of the journals; it is created if it does not exist
+   * @throws ODataException if a class is not annotated or the persisted data cannot be read
+   */
+  public AnnotationPersistentDs(final Collection<Class<?>> annotatedClasses, final File directory)
+      throws ODataException {
+    this(annotatedClasses, directory, MappedJournal.DEFAULT_SEGMENT_SIZE);
+  }
+
+  AnnotationPersistentDs(final Collection<Class<?>> annotatedClasses, final File directory, final int segmentSize)
+      throws ODataException {
+    super(annotatedClasses, false);
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new ODataException("Unable to create directory '" + directory + "' for the persisted data.");
+    }
+    Map<Object, List<Reference>> references = new IdentityHashMap<Object, List<Reference>>();
+    boolean restored = false;
+    try {
+      for (Class<?> clazz : annotatedClasses) {
+        final String entitySetName = ANNOTATION_HELPER.extractEntitySetName(clazz);
+        if (entitySetName != null) {
+          PersistentStore store = new PersistentStore(getDataStore(clazz), directory, entitySetName, segmentSize);
+          stores.put(entitySetName, store);
+          store.open(references);
+        }
+      }
+      resolve(references);
+      restored = true;
+    } catch (IOException e) {
+      throw new ODataException("Error in reading the persisted data with message: " + e.getMessage(), e);
+    } catch (AnnotationRuntimeException e) {
+      throw new ODataException("Error in reading the persisted data with message: " + e.getMessage(), e);
+    } finally {
+      if (!restored) {
+        // also if a record cannot be applied; the data source is not returned to the caller
+        close();
+      }
+    }
+  }
+
+  /**
+   * Sets the related entities at the restored entities; references to entities which no longer
+   * exist are dropped.
+   */
+  private void resolve(final Map<Object, List<Reference>> references) throws DataStoreException {
+    for (PersistentStore store : stores.values()) {
+      for (Object source : store.dataStore.read()) {
+        final List<Reference> sourceReferences = references.get(source);
+        if (sourceReferences != null) {
+          for (Reference reference : sourceReferences) {
+            final DataStore<?> targetStore = getDataStore(reference.getTargetClass());
+            final Object target = targetStore == null ? null : readTarget(targetStore, reference);
+            if (target != null) {
+              reference.resolve(target);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T readTarget(final DataStore<T> targetStore, final Reference reference) {
+    return targetStore.read((T) RecordLayout.createKeyInstance(reference.getTargetClass(),
+        reference.getKeyValues()));
+  }
+
+  /**
+   * Persists the current state of a data object which has been modified in place.
+   * @param entitySet the {@link EdmEntitySet} the object belongs to
+   * @param data the modified data object
+   * @throws EdmException
+   * @throws ODataApplicationException if the data cannot be persisted
+   */
+  @Override
+  public void persistData(final EdmEntitySet entitySet, final Object data)
+      throws EdmException, ODataApplicationException {
+    synchronized (modificationLock) {
+      getStore(entitySet).put(data);
+    }
+  }
+
+  /**
+   * Forces all journals to the storage device and closes them; further modifications fail.
+   */
+  public void close() {
+    synchronized (modificationLock) {
+      for (PersistentStore store : stores.values()) {
+        store.journal.close();
+      }
+    }
+  }
+
+  @Override
+  public void createData(final EdmEntitySet entitySet, final Object data)
+      throws ODataNotImplementedException, EdmException, ODataApplicationException {
+    synchronized (modificationLock) {
+      // the key may be generated by the in-memory store, so the record can only be built afterwards
+      super.createData(entitySet, data);
+      final PersistentStore store = getStore(entitySet);
+      try {
+        store.put(data);
+      } catch (final DataStoreException e) {
+        store.dataStore.delete(data);
+        throw e;
+      }
+    }
+  }
+
+  @Override
+  public Object updateData(final EdmEntitySet entitySet, final Object data)
+      throws ODataNotImplementedException, EdmException, ODataApplicationException {
+    synchronized (modificationLock) {
+      getStore(entitySet).put(data);
+      return super.updateData(entitySet, data);
+    }
+  }
+
+  @Override
+  public void deleteData(final EdmEntitySet entitySet, final Map<String, Object> keys)
+      throws ODataNotImplementedException, ODataNotFoundException, EdmException, ODataApplicationException {
+    synchronized (modificationLock) {
+      final PersistentStore store = getStore(entitySet);
+      store.delete(ANNOTATION_HELPER.setKeyFields(store.dataStore.createInstance(), keys));
+      super.deleteData(entitySet, keys);
+    }
+  }
+
+  @Override
+  public void writeBinaryData(final EdmEntitySet entitySet, final Object mediaEntityInstance,
+      final BinaryData binaryData)
+      throws ODataNotImplementedException, ODataNotFoundException, EdmException, ODataApplicationException {
+    synchronized (modificationLock) {
+      final PersistentStore store = getStore(entitySet);
+      final FieldValues previous = new FieldValues();
+      for (Field field : ANNOTATION_HELPER.getAnnotatedFields(mediaEntityInstance, EdmMediaResourceContent.class)) {
+        previous.save(mediaEntityInstance, field);
+      }
+      for (Field field : ANNOTATION_HELPER.getAnnotatedFields(mediaEntityInstance, EdmMediaResourceMimeType.class)) {
+        previous.save(mediaEntityInstance, field);
+      }
+      super.writeBinaryData(entitySet, mediaEntityInstance, binaryData);
+      try {
+        store.put(store.dataStore.read(mediaEntityInstance));
+      } catch (final DataStoreException e) {
+        previous.restore();
+        throw e;
+      }
+    }
+  }
+
+  @Override
+  public void writeRelation(final EdmEntitySet sourceEntitySet, final Object sourceEntity,
+      final EdmEntitySet targetEntitySet, final Map<String, Object> targetEntityValues)
+      throws ODataNotImplementedException, ODataNotFoundException, EdmException, ODataApplicationException {
+    synchronized (modificationLock) {
+      final PersistentStore sourceStore = getStore(sourceEntitySet);
+      final PersistentStore targetStore = getStore(targetEntitySet);
+      final Object targetEntity = targetStore.dataStore.read(
+          ANNOTATION_HELPER.setKeyFields(targetStore.dataStore.createInstance(), targetEntityValues));
+      final AnnotatedNavInfo navInfo = ANNOTATION_HELPER.getCommonNavigationInfo(
+          sourceStore.dataStore.getDataTypeClass(), targetStore.dataStore.getDataTypeClass());
+      final FieldValues previous = new FieldValues();
+      if (navInfo != null && navInfo.getFromField() != null) {
+        previous.save(sourceEntity, navInfo.getFromField());
+      }
+      if (navInfo != null && navInfo.getToField() != null && targetEntity != null) {
+        previous.save(targetEntity, navInfo.getToField());
+      }
+      super.writeRelation(sourceEntitySet, sourceEntity, targetEntitySet, targetEntityValues);
+      boolean sourceJournaled = false;
+      try {
+        sourceStore.put(sourceEntity);
+        sourceJournaled = true;
+        targetStore.put(targetEntity);
+      } catch (final DataStoreException e) {
+        previous.restore();
+        if (sourceJournaled) {
+          sourceStore.put(sourceEntity);
+        }
+        throw e;
+      }
+    }
+  }
+
+  private PersistentStore getStore(final EdmEntitySet entitySet) throws EdmException {
+    final PersistentStore store = stores.get(entitySet.getName());
+    if (store == null) {
+      throw new AnnotationRuntimeException("No DataStore found for entity set '" + entitySet + "'.");
+    }
+    return store;
+  }
+
+  /**
+   * Values of fields of data objects which are modified in place, so that the modification can be
+   * undone if it cannot be persisted. The elements of collection values are saved as well.
+   */
+  private static class FieldValues {
+    private final List<Object> instances = new ArrayList<Object>();
+    private final List<Field> fields = new ArrayList<Field>();
+    private final List<Object> values = new ArrayList<Object>();
+    private final List<List<Object>> elements = new ArrayList<List<Object>>();
+
+    void save(final Object instance, final Field field) {
+      field.setAccessible(true);
+      final Object value = get(instance, field);
+      instances.add(instance);
+      fields.add(field);
+      values.add(value);
+      elements.add(value instanceof Collection ? new ArrayList<Object>((Collection<?>) value) : null);
+    }
+
+    @SuppressWarnings("unchecked")
+    void restore() {
+      for (int i = 0; i < fields.size(); i++) {
+        final Object value = values.get(i);
+        try {
+          fields.get(i).set(instances.get(i), value);
+        } catch (IllegalAccessException e) { // should never happen
+          throw new AnnotationRuntimeException(e);
+        }
+        if (elements.get(i) != null) {
+          ((Collection<Object>) value).clear();
+          ((Collection<Object>) value).addAll(elements.get(i));
+        }
+      }
+    }
+
+    private static Object get(final Object instance, final Field field) {
+      try {
+        return field.get(instance);
+      } catch (IllegalAccessException e) { // should never happen
+        throw new AnnotationRuntimeException(e);
+      }
+    }
+  }
+
+  /**
+   * The in-memory data store of an entity set together with its journal.
+   */
+  private static class PersistentStore {
+    private final DataStore<Object> dataStore;
+    private final RecordLayout layout;
+    private final MappedJournal journal;
+
+    @SuppressWarnings("unchecked")
+    PersistentStore(final DataStore<?> dataStore, final File directory, final String entitySetName,
+        final int segmentSize) {
+      this.dataStore = (DataStore<Object>) dataStore;
+      layout = new RecordLayout(dataStore.getDataTypeClass());
+      journal = new MappedJournal(directory, entitySetName, layout.getSignature(), segmentSize);
+    }
+
+    void open(final Map<Object, List<Reference>> references) throws IOException, DataStoreException {
+      journal.open(new MappedJournal.RecordHandler() {
+        @Override
+        public void handle(final byte type, final ByteBuffer payload) throws DataStoreException {
+          if (type == MappedJournal.PUT) {
+            List<Reference> instanceReferences = new ArrayList<Reference>();
+            final Object instance = layout.fromRecord(payload, instanceReferences);
+            dataStore.update(instance);
+            if (!instanceReferences.isEmpty()) {
+              references.put(instance, instanceReferences);
+            }
+          } else if (type == MappedJournal.DELETE) {
+            dataStore.delete(layout.fromKeyRecord(payload));
+          } else {
+            throw new DataStoreException("Unknown type " + type + " of persisted record.");
+          }
+        }
+      });
+    }
+
+    void put(final Object data) throws DataStoreException {
+      if (data != null) {
+        append(MappedJournal.PUT, layout.toRecord(data));
+      }
+    }
+
+    void delete(final Object keyInstance) throws DataStoreException {
+      append(MappedJournal.DELETE, layout.toKeyRecord(keyInstance));
+    }
+
+    private void append(final byte type, final byte[] record) throws DataStoreException {
+      try {
+        journal.append(type, record);
+      } catch (IOException e) {
+        throw new DataStoreException("Unable to persist data of '" + dataStore.getDataTypeClass()
+            + "' with message: " + e.getMessage(), e);
+      }
+    }
+  }
+}
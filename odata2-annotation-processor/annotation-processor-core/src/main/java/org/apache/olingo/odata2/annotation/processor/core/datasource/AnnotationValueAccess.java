@@ -18,6 +18,8 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.annotation.processor.core.datasource;
 
+import org.apache.olingo.odata2.annotation.processor.api.AnnotationModelIndex;
+import org.apache.olingo.odata2.annotation.processor.api.AnnotationModelIndex.PropertyAccessor;
 import org.apache.olingo.odata2.annotation.processor.core.util.AnnotationHelper;
 import org.apache.olingo.odata2.api.edm.EdmMapping;
 import org.apache.olingo.odata2.api.edm.EdmProperty;
@@ -29,6 +31,28 @@ import org.apache.olingo.odata2.api.exception.ODataNotImplementedException;
  */
 public class AnnotationValueAccess implements ValueAccess {
   private final AnnotationHelper annotationHelper = new AnnotationHelper();
+  private final AnnotationModelIndex modelIndex;
+
+  public AnnotationValueAccess() {
+    this(null);
+  }
+
+  /**
+   * Uses the property accessors generated at compile time where available
+   * and falls back to reflective access otherwise.
+   * @param modelIndex the generated index of the model; may be <code>null</code>
+   */
+  public AnnotationValueAccess(final AnnotationModelIndex modelIndex) {
+    this.modelIndex = modelIndex;
+  }
+
+  private PropertyAccessor getAccessor(final Object data, final String propertyName) {
+    if (modelIndex == null) {
+      return null;
+    }
+    final PropertyAccessor accessor = modelIndex.getPropertyAccessor(data.getClass());
+    return accessor != null && accessor.hasProperty(propertyName) ? accessor : null;
+  }
 
   /**
    * Retrieves the value of an EDM property for the given data object.
@@ -40,6 +64,10 @@ public class AnnotationValueAccess implements ValueAccess {
   public <T> Object getPropertyValue(final T data, final EdmProperty property) throws ODataException {
     if (data == null) {
       return null;
+    }
+    final PropertyAccessor accessor = getAccessor(data, property.getName());
+    if (accessor != null) {
+      return accessor.getValue(data, property.getName());
     } else if (annotationHelper.isEdmAnnotated(data)) {
       return annotationHelper.getValueForProperty(data, property.getName());
     }
@@ -55,7 +83,12 @@ public class AnnotationValueAccess implements ValueAccess {
   @Override
   public <T, V> void setPropertyValue(final T data, final EdmProperty property, final V value) throws ODataException {
     if (data != null) {
-      if (annotationHelper.isEdmAnnotated(data)) {
+      final PropertyAccessor accessor = getAccessor(data, property.getName());
+      if (accessor != null
+          && (!(value instanceof String) || accessor.getType(property.getName()) == String.class)) {
+        accessor.setValue(data, property.getName(), value);
+      } else if (annotationHelper.isEdmAnnotated(data)) {
+        // string values are converted to the field type by the helper
         annotationHelper.setValueForProperty(data, property.getName(), value);
       } else {
         throw new ODataNotImplementedException(ODataNotImplementedException.COMMON);
@@ -73,6 +106,10 @@ public class AnnotationValueAccess implements ValueAccess {
   public <T> Class<?> getPropertyType(final T data, final EdmProperty property) throws ODataException {
     if (data == null) {
       return null;
+    }
+    final PropertyAccessor accessor = getAccessor(data, property.getName());
+    if (accessor != null) {
+      return accessor.getType(property.getName());
     } else if (annotationHelper.isEdmAnnotated(data)) {
       Class<?> fieldType = annotationHelper.getFieldTypeForProperty(data, property.getName());
       if (fieldType == null) {
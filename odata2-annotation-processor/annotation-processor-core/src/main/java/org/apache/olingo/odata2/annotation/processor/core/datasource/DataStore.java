@@ -18,41 +18,56 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.annotation.processor.core.datasource;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.apache.olingo.odata2.annotation.processor.api.AnnotationModelIndex.PropertyAccessor;
 import org.apache.olingo.odata2.annotation.processor.core.util.AnnotationHelper;
 import org.apache.olingo.odata2.annotation.processor.core.util.AnnotationRuntimeException;
-import org.apache.olingo.odata2.annotation.processor.core.util.ClassHelper;
-import org.apache.olingo.odata2.api.annotation.edm.EdmKey;
+import org.apache.olingo.odata2.annotation.processor.core.util.KeyDescriptor;
 import org.apache.olingo.odata2.api.exception.ODataApplicationException;
 
 /**
- *
+ * In-memory store for the instances of one annotated class.
+ * <p>
+ * Objects are kept in a concurrent map by key, so that reads by key never lock and
+ * writes to different keys proceed in parallel. {@link #read()} returns a snapshot of
+ * all objects at one point in time. The snapshot is shared by all readers until the
+ * next modification. To take it, the store waits for running modifications and holds
+ * back new ones while the objects are copied.
  */
 public class DataStore<T> {
 
   private static final AnnotationHelper ANNOTATION_HELPER = new AnnotationHelper();
-  private final Map<KeyElement, T> dataStore;
+  private final ConcurrentMap<KeyElement, T> dataStore;
   private final Class<T> dataTypeClass;
   private final KeyAccess keyAccess;
+  // modifications share the read lock; a snapshot is taken under the exclusive write lock
+  private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+  private final AtomicLong version = new AtomicLong();
+  private volatile Snapshot<T> snapshot;
 
   private static class InMemoryDataStore {
     private static final Map<Class<?>, DataStore<?>> c2ds = new HashMap<Class<?>, DataStore<?>>();
 
     @SuppressWarnings("unchecked")
-    static synchronized DataStore<?> getInstance(final Class<?> clz, final boolean createNewInstance)
-        throws DataStoreException {
+    static synchronized DataStore<?> getInstance(final Class<?> clz, final boolean createNewInstance,
+        final PropertyAccessor accessor) throws DataStoreException {
       DataStore<?> ds = c2ds.get(clz);
       if (createNewInstance || ds == null) {
-        ds = new DataStore<Object>((Class<Object>) clz);
+        ds = new DataStore<Object>((Class<Object>) clz, accessor);
         c2ds.put(clz, ds);
       }
       return ds;
@@ -61,23 +76,33 @@ public class DataStore<T> {
 
   @SuppressWarnings("unchecked")
   public static <T> DataStore<T> createInMemory(final Class<T> clazz) throws DataStoreException {
-    return (DataStore<T>) InMemoryDataStore.getInstance(clazz, true);
+    return (DataStore<T>) InMemoryDataStore.getInstance(clazz, true, null);
   }
 
   @SuppressWarnings("unchecked")
   public static <T> DataStore<T> createInMemory(final Class<T> clazz, final boolean keepExisting)
       throws DataStoreException {
-    return (DataStore<T>) InMemoryDataStore.getInstance(clazz, !keepExisting);
+    return (DataStore<T>) InMemoryDataStore.getInstance(clazz, !keepExisting, null);
   }
 
-  private DataStore(final Map<KeyElement, T> wrapStore, final Class<T> clz) throws DataStoreException {
-    dataStore = Collections.synchronizedMap(wrapStore);
-    dataTypeClass = clz;
-    keyAccess = new KeyAccess(clz);
+  /**
+   * Creates an in-memory data store which extracts the key values with the given accessor.
+   * @param clazz the annotated class of the stored objects
+   * @param keepExisting whether an existing data store for the class is kept
+   * @param accessor the accessor generated for the class; may be <code>null</code>
+   * @return the data store
+   * @throws DataStoreException if the class has no key fields
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> DataStore<T> createInMemory(final Class<T> clazz, final boolean keepExisting,
+      final PropertyAccessor accessor) throws DataStoreException {
+    return (DataStore<T>) InMemoryDataStore.getInstance(clazz, !keepExisting, accessor);
   }
 
-  private DataStore(final Class<T> clz) throws DataStoreException {
-    this(new HashMap<KeyElement, T>(), clz);
+  private DataStore(final Class<T> clz, final PropertyAccessor accessor) throws DataStoreException {
+    dataStore = new ConcurrentHashMap<KeyElement, T>();
+    dataTypeClass = clz;
+    keyAccess = new KeyAccess(clz, accessor);
   }
 
   public Class<T> getDataTypeClass() {
@@ -103,39 +128,70 @@ public class DataStore<T> {
     return dataStore.get(objKeys);
   }
 
+  /**
+   * Returns all stored objects as they were at one point in time.
+   * Later modifications of the store are not reflected in the returned collection.
+   * @return an unmodifiable collection of the stored objects
+   */
   public Collection<T> read() {
-    return Collections.unmodifiableCollection(dataStore.values());
+    Snapshot<T> current = snapshot;
+    if (current == null || current.version != version.get()) {
+      final Lock lock = snapshotLock.writeLock();
+      lock.lock();
+      try {
+        current = snapshot;
+        final long currentVersion = version.get();
+        if (current == null || current.version != currentVersion) {
+          current = new Snapshot<T>(currentVersion, new ArrayList<T>(dataStore.values()));
+          snapshot = current;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    return current.values;
   }
 
   public T create(final T object) throws DataStoreException {
     KeyElement keyElement = getKeys(object);
-    return create(object, keyElement);
-  }
-
-  private T create(final T object, final KeyElement keyElement) throws DataStoreException {
-    synchronized (dataStore) {
-      if (keyElement.keyValuesMissing() || dataStore.containsKey(keyElement)) {
-        KeyElement newKey = createSetAndGetKeys(object);
-        return this.create(object, newKey);
+    final Lock lock = snapshotLock.readLock();
+    lock.lock();
+    try {
+      while (keyElement.keyValuesMissing() || dataStore.putIfAbsent(keyElement, object) != null) {
+        keyElement = createSetAndGetKeys(object);
       }
-      dataStore.put(keyElement, object);
+      version.incrementAndGet();
+    } finally {
+      lock.unlock();
     }
     return object;
   }
 
   public T update(final T object) {
     KeyElement keyElement = getKeys(object);
-    synchronized (dataStore) {
-      dataStore.remove(keyElement);
+    final Lock lock = snapshotLock.readLock();
+    lock.lock();
+    try {
       dataStore.put(keyElement, object);
+      version.incrementAndGet();
+    } finally {
+      lock.unlock();
     }
     return object;
   }
 
   public T delete(final T object) {
     KeyElement keyElement = getKeys(object);
-    synchronized (dataStore) {
-      return dataStore.remove(keyElement);
+    final Lock lock = snapshotLock.readLock();
+    lock.lock();
+    try {
+      final T deleted = dataStore.remove(keyElement);
+      if (deleted != null) {
+        version.incrementAndGet();
+      }
+      return deleted;
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -178,85 +234,92 @@ public class DataStore<T> {
     return isKeyEqual((T) first, (T) second);
   }
 
-  private class KeyElement {
-    private int cachedHashCode = 42;
-    private final List<Object> keyValues;
+  private static final class Snapshot<T> {
+    private final long version;
+    private final Collection<T> values;
 
-    public KeyElement(final int size) {
-      keyValues = new ArrayList<Object>(size);
+    Snapshot(final long version, final List<T> values) {
+      this.version = version;
+      this.values = Collections.unmodifiableList(values);
     }
+  }
+
+  /**
+   * The key values of a stored object; the hash code is computed once.
+   */
+  private static final class KeyElement {
+    private final Object[] keyValues;
+    private final int hashCode;
 
-    private void addValue(final Object keyValue) {
-      keyValues.add(keyValue);
-      cachedHashCode = 89 * cachedHashCode + (keyValue != null ? keyValue.hashCode() : 0);
+    KeyElement(final Object[] keyValues) {
+      this.keyValues = keyValues;
+      hashCode = Arrays.hashCode(keyValues);
     }
 
     boolean keyValuesMissing() {
-      return keyValues.contains(null);
+      for (Object keyValue : keyValues) {
+        if (keyValue == null) {
+          return true;
+        }
+      }
+      return false;
     }
 
     @Override
     public int hashCode() {
-      return cachedHashCode;
+      return hashCode;
     }
 
     @Override
     public boolean equals(final Object obj) {
-      if (obj == null) {
-        return false;
+      if (this == obj) {
+        return true;
       }
-      if (getClass() != obj.getClass()) {
+      if (obj == null || getClass() != obj.getClass()) {
         return false;
       }
-      @SuppressWarnings("unchecked")
       final KeyElement other = (KeyElement) obj;
-      if (this.keyValues != other.keyValues && (this.keyValues == null || !this.keyValues.equals(other.keyValues))) {
-        return false;
-      }
-      return true;
+      return hashCode == other.hashCode && Arrays.equals(keyValues, other.keyValues);
     }
 
     @Override
     public String toString() {
-      return "KeyElement{" + "cachedHashCode=" + cachedHashCode + ", keyValues=" + keyValues + '}';
+      return "KeyElement{" + "hashCode=" + hashCode + ", keyValues=" + Arrays.toString(keyValues) + '}';
     }
   }
 
   private class KeyAccess {
-    final List<Field> keyFields;
+    final KeyDescriptor keyDescriptor;
+    final PropertyAccessor accessor;
     final AtomicInteger idCounter = new AtomicInteger(1);
 
-    KeyAccess(final Class<?> clazz) throws DataStoreException {
-      keyFields = ANNOTATION_HELPER.getAnnotatedFields(clazz, EdmKey.class);
-      if (keyFields.isEmpty()) {
+    KeyAccess(final Class<?> clazz, final PropertyAccessor accessor) throws DataStoreException {
+      this.accessor = accessor;
+      keyDescriptor = KeyDescriptor.getInstance(clazz);
+      if (keyDescriptor.size() == 0) {
         throw new DataStoreException("No EdmKey annotated fields found for class " + clazz);
       }
     }
 
     KeyElement getKeyValues(final T object) {
-      KeyElement keyElement = new KeyElement(keyFields.size());
-      for (Field field : keyFields) {
-        Object keyValue = ClassHelper.getFieldValue(object, field);
-        keyElement.addValue(keyValue);
+      if (accessor != null) {
+        return new KeyElement(accessor.getKeyValues(object).toArray());
       }
-
-      return keyElement;
+      return new KeyElement(keyDescriptor.getValues(object));
     }
 
     KeyElement createSetAndGetKeys(final T object) throws DataStoreException {
-      KeyElement keyElement = new KeyElement(keyFields.size());
-      for (Field field : keyFields) {
-        Object key = createKey(field);
-        ClassHelper.setFieldValue(object, field, key);
-        keyElement.addValue(key);
+      Object[] keyValues = new Object[keyDescriptor.size()];
+      for (int i = 0; i < keyValues.length; i++) {
+        Object key = createKey(keyDescriptor.getField(i).getType(), i);
+        keyDescriptor.setValue(object, i, key);
+        keyValues[i] = key;
       }
 
-      return keyElement;
+      return new KeyElement(keyValues);
     }
 
-    private Object createKey(final Field field) {
-      Class<?> type = field.getType();
-
+    private Object createKey(final Class<?> type, final int index) {
       if (type == String.class) {
         return String.valueOf(idCounter.getAndIncrement());
       } else if (type == Integer.class || type == int.class) {
@@ -266,7 +329,7 @@ public class DataStore<T> {
       }
 
       throw new UnsupportedOperationException("Automated key generation for type '" + type
-          + "' is not supported (caused on field '" + field + "').");
+          + "' is not supported (caused on field '" + keyDescriptor.getField(index) + "').");
     }
   }
 
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.core.datasource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import org.apache.olingo.odata2.annotation.processor.core.datasource.DataStore.DataStoreException;
+
+/**
+ * Append-only journal of records in memory-mapped segment files.
+ * <p>
+ * The segment files are named <code>&lt;name&gt;.&lt;index&gt;.journal</code> and start with a header
+ * containing the signature of the record layout. Each record consists of its length, a CRC32 checksum,
+ * its type, and its payload. The length is written last and the segment is forced to the storage device
+ * after each record, so that a record written only partially by a crash is detected by its length or
+ * checksum. {@link #open(RecordHandler)} stops at such a record and overwrites it with the next one.
+ * <p>
+ * Records are handed to the {@link RecordHandler} as buffers on the mapped segments, so they are decoded
+ * without copying them from the files first.
+ */
+final class MappedJournal {
+
+  static final byte PUT = 1;
+  static final byte DELETE = 2;
+  static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+  private static final int MAGIC = 0x4F444A31;
+  // length and checksum
+  private static final int RECORD_HEADER_SIZE = 8;
+  private static final String SUFFIX = ".journal";
+
+  /**
+   * Handles the records read from a journal.
+   */
+  interface RecordHandler {
+    /**
+     * @param type the type of the record
+     * @param payload the payload of the record, valid only during the call
+     * @throws DataStoreException if the record cannot be applied
+     */
+    void handle(byte type, ByteBuffer payload) throws DataStoreException;
+  }
+
+  private final File directory;
+  private final String name;
+  private final byte[] signature;
+  private final int segmentSize;
+  private final CRC32 checksum = new CRC32();
+  private final byte[] checksumBuffer = new byte[8192];
+  private MappedByteBuffer segment;
+  private int segmentIndex = -1;
+  private boolean opened;
+  private boolean closed;
+
+  MappedJournal(final File directory, final String name, final String signature, final int segmentSize) {
+    this.directory = directory;
+    this.name = name;
+    this.signature = signature.getBytes(Charset.forName("UTF-8"));
+    this.segmentSize = segmentSize;
+  }
+
+  /**
+   * Reads all records of the existing segments; the journal can be appended to afterwards.
+   * @param handler the handler of the records
+   * @throws IOException if a segment cannot be read or has been written with another signature
+   * @throws DataStoreException if the handler fails
+   */
+  public synchronized void open(final RecordHandler handler) throws IOException, DataStoreException {
+    if (opened) {
+      throw new IllegalStateException("Journal '" + name + "' has already been opened.");
+    }
+    opened = true;
+    for (int index = 0; getFile(index).exists(); index++) {
+      final File file = getFile(index);
+      final boolean last = !getFile(index + 1).exists();
+      // a segment created by a crashed run may be shorter than its header
+      segment = map(file, last && file.length() < getHeaderSize() ? Math.max(segmentSize, getHeaderSize()) : 0);
+      segmentIndex = index;
+      if (segment.getInt(0) == 0 && last) {
+        // the header has not been written completely when the segment was created
+        writeHeader();
+      } else {
+        checkHeader(file);
+      }
+      segment.position(replay(handler, file, last));
+    }
+  }
+
+  /**
+   * Appends a record and forces it to the storage device.
+   * @param type the type of the record
+   * @param payload the payload of the record
+   * @throws IOException if the record cannot be written
+   */
+  public synchronized void append(final byte type, final byte[] payload) throws IOException {
+    if (!opened || closed) {
+      throw new IOException("Journal '" + name + "' is not open.");
+    }
+    final int length = payload.length + 1;
+    if (segment == null || segment.remaining() < RECORD_HEADER_SIZE + length) {
+      createSegment(RECORD_HEADER_SIZE + length);
+    }
+    checksum.reset();
+    checksum.update(type);
+    checksum.update(payload);
+
+    final int position = segment.position();
+    segment.position(position + RECORD_HEADER_SIZE);
+    segment.put(type);
+    segment.put(payload);
+    segment.putInt(position + 4, (int) checksum.getValue());
+    segment.putInt(position, length);
+    segment.force();
+  }
+
+  public synchronized void close() {
+    if (segment != null) {
+      segment.force();
+      segment = null;
+    }
+    closed = true;
+  }
+
+  private int replay(final RecordHandler handler, final File file, final boolean last)
+      throws IOException, DataStoreException {
+    int position = getHeaderSize();
+    final int capacity = segment.capacity();
+    while (position + RECORD_HEADER_SIZE <= capacity) {
+      final int length = segment.getInt(position);
+      if (length == 0) {
+        return position;
+      }
+      if (length < 0 || length > capacity - position - RECORD_HEADER_SIZE
+          || segment.getInt(position + 4) != computeChecksum(position + RECORD_HEADER_SIZE, length)) {
+        if (!last) {
+          throw new IOException("Journal segment '" + file + "' is corrupt at position " + position + ".");
+        }
+        // the last record has been written partially; it is removed so that it cannot be mistaken for data
+        final byte[] zeros = new byte[checksumBuffer.length];
+        segment.position(position);
+        while (segment.hasRemaining()) {
+          segment.put(zeros, 0, Math.min(zeros.length, segment.remaining()));
+        }
+        segment.force();
+        return position;
+      }
+      ByteBuffer payload = segment.duplicate();
+      payload.limit(position + RECORD_HEADER_SIZE + length);
+      payload.position(position + RECORD_HEADER_SIZE + 1);
+      handler.handle(segment.get(position + RECORD_HEADER_SIZE), payload.slice());
+      position += RECORD_HEADER_SIZE + length;
+    }
+    return position;
+  }
+
+  private int computeChecksum(final int offset, final int length) {
+    checksum.reset();
+    ByteBuffer buffer = segment.duplicate();
+    buffer.position(offset);
+    for (int remaining = length; remaining > 0;) {
+      final int chunk = Math.min(remaining, checksumBuffer.length);
+      buffer.get(checksumBuffer, 0, chunk);
+      checksum.update(checksumBuffer, 0, chunk);
+      remaining -= chunk;
+    }
+    return (int) checksum.getValue();
+  }
+
+  private void createSegment(final int recordSize) throws IOException {
+    if (segment != null) {
+      segment.force();
+    }
+    segmentIndex++;
+    segment = map(getFile(segmentIndex), Math.max(segmentSize, getHeaderSize() + recordSize));
+    writeHeader();
+  }
+
+  private void writeHeader() {
+    segment.putInt(4, signature.length);
+    segment.position(8);
+    segment.put(signature);
+    segment.putInt(0, MAGIC);
+    segment.force();
+  }
+
+  private void checkHeader(final File file) throws IOException {
+    if (segment.getInt(0) != MAGIC) {
+      throw new IOException("File '" + file + "' is no journal segment.");
+    }
+    final int length = segment.getInt(4);
+    byte[] storedSignature = new byte[length < 0 || length > segment.capacity() - 8 ? 0 : length];
+    segment.position(8);
+    segment.get(storedSignature);
+    if (!Arrays.equals(signature, storedSignature)) {
+      throw new IOException("Journal segment '" + file + "' has been written for another layout: "
+          + new String(storedSignature, Charset.forName("UTF-8")));
+    }
+  }
+
+  private int getHeaderSize() {
+    return 8 + signature.length;
+  }
+
+  private File getFile(final int index) {
+    return new File(directory, name + '.' + index + SUFFIX);
+  }
+
+  private static MappedByteBuffer map(final File file, final long size) throws IOException {
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    try {
+      if (size > 0) {
+        randomAccessFile.setLength(size);
+      }
+      // the mapping stays valid after the file has been closed
+      return randomAccessFile.getChannel().map(MapMode.READ_WRITE, 0, randomAccessFile.length());
+    } finally {
+      randomAccessFile.close();
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.core.datasource;
+
+import java.util.Map;
+
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.exception.ODataApplicationException;
+import org.apache.olingo.odata2.api.exception.ODataNotImplementedException;
+
+/**
+ * Optional extension of a {@link DataSource} which does not keep the returned data objects
+ * themselves but stores copies of them. The processor modifies returned data objects in place,
+ * for example when updating a single property, and calls {@link #persistData(EdmEntitySet, Object)}
+ * afterwards if the data source implements this interface.
+ */
+public interface PersistingDataSource extends DataSource {
+
+  /**
+   * Saves a data object which has been modified in place, for example by setting
+   * property values at an object returned by {@link #readData(EdmEntitySet, Map)}.
+   * @param entitySet the {@link EdmEntitySet} the object corresponds to
+   * @param data the modified data object
+   */
+  void persistData(EdmEntitySet entitySet, Object data) throws ODataNotImplementedException, EdmException,
+      ODataApplicationException;
+}
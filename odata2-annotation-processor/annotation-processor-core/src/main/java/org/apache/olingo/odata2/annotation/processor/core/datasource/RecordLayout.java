@@ -0,0 +1,575 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.core.datasource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import org.apache.olingo.odata2.annotation.processor.core.util.AnnotationRuntimeException;
+import org.apache.olingo.odata2.annotation.processor.core.util.KeyDescriptor;
+import org.apache.olingo.odata2.api.annotation.edm.EdmComplexType;
+import org.apache.olingo.odata2.api.annotation.edm.EdmMediaResourceContent;
+import org.apache.olingo.odata2.api.annotation.edm.EdmMediaResourceMimeType;
+import org.apache.olingo.odata2.api.annotation.edm.EdmMediaResourceSource;
+import org.apache.olingo.odata2.api.annotation.edm.EdmNavigationProperty;
+import org.apache.olingo.odata2.api.annotation.edm.EdmProperty;
+
+/**
+ * The binary record layout of an annotated class as used for the journals of the {@link AnnotationPersistentDs}.
+ * <p>
+ * The persisted fields are the fields annotated with {@link EdmProperty}, {@link EdmNavigationProperty}
+ * or one of the media resource annotations, including the fields of super classes. They are written
+ * in a fixed order, each with a fixed encoding for its type. Navigation properties are written as
+ * references, i.e., as the class and the key values of the related instances; the references are
+ * resolved after all records have been read.
+ * <p>
+ * The layout is computed once per class and data source. It is not cached statically, as it references
+ * its class through the fields and would keep the classes of an undeployed application alive.
+ */
+final class RecordLayout {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private enum Kind {
+    STRING, BOOLEAN, BYTE, SHORT, INTEGER, LONG, FLOAT, DOUBLE, CHARACTER, BIG_DECIMAL, BIG_INTEGER,
+    DATE, CALENDAR, UUID, BINARY, ENUM, COMPLEX, REFERENCE, REFERENCES
+  }
+
+  private final Class<?> clazz;
+  private final Constructor<?> constructor;
+  private final Field[] fields;
+  private final Kind[] kinds;
+  private final RecordLayout[] complexLayouts;
+  private final String signature;
+
+  RecordLayout(final Class<?> clazz) {
+    this.clazz = clazz;
+    constructor = getDefaultConstructor(clazz);
+
+    final List<Field> persistedFields = getPersistedFields(clazz);
+    fields = persistedFields.toArray(new Field[persistedFields.size()]);
+    kinds = new Kind[fields.length];
+    complexLayouts = new RecordLayout[fields.length];
+    StringBuilder signatureBuilder = new StringBuilder(clazz.getName());
+    for (int i = 0; i < fields.length; i++) {
+      final Field field = fields[i];
+      field.setAccessible(true);
+      kinds[i] = getKind(field);
+      signatureBuilder.append(';').append(field.getName()).append(':').append(kinds[i]);
+      if (kinds[i] == Kind.COMPLEX) {
+        complexLayouts[i] = new RecordLayout(field.getType());
+        signatureBuilder.append('(').append(complexLayouts[i].signature).append(')');
+      }
+    }
+    signature = signatureBuilder.toString();
+  }
+
+  private static Constructor<?> getDefaultConstructor(final Class<?> clazz) {
+    try {
+      final Constructor<?> constructor = clazz.getDeclaredConstructor();
+      constructor.setAccessible(true);
+      return constructor;
+    } catch (NoSuchMethodException e) {
+      throw new AnnotationRuntimeException("Class '" + clazz + "' has no default constructor.", e);
+    }
+  }
+
+  /**
+   * Returns a description of the persisted fields and their encodings;
+   * data written with a different signature cannot be read with this layout.
+   * @return the signature
+   */
+  public String getSignature() {
+    return signature;
+  }
+
+  /**
+   * Encodes the persisted fields of the given instance.
+   * @param instance an instance of the class of this layout
+   * @return the record
+   */
+  public byte[] toRecord(final Object instance) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    try {
+      write(out, instance);
+      out.flush();
+    } catch (IOException e) { // should never happen
+      throw new AnnotationRuntimeException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Encodes the key values of the given instance.
+   * @param instance an instance of the class of this layout
+   * @return the record
+   */
+  public byte[] toKeyRecord(final Object instance) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    try {
+      writeKey(out, clazz, KeyDescriptor.getInstance(clazz).getValues(instance));
+      out.flush();
+    } catch (IOException e) { // should never happen
+      throw new AnnotationRuntimeException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Creates an instance from a record written by {@link #toRecord(Object)}; the values are
+   * decoded directly from the given buffer.
+   * @param buffer the buffer positioned at the start of the record
+   * @param references the list the references to related instances are added to
+   * @return the new instance
+   */
+  public Object fromRecord(final ByteBuffer buffer, final List<Reference> references) {
+    final Object instance = newInstance(constructor);
+    for (int i = 0; i < fields.length; i++) {
+      final Field field = fields[i];
+      switch (kinds[i]) {
+      case COMPLEX:
+        setValue(field, instance, buffer.get() == 0 ? null : complexLayouts[i].fromRecord(buffer, references));
+        break;
+      case REFERENCE:
+        setValue(field, instance, null);
+        final Reference reference = readReference(buffer, instance, field, null);
+        if (reference != null) {
+          references.add(reference);
+        }
+        break;
+      case REFERENCES:
+        final Collection<Object> collection = newCollection(field);
+        setValue(field, instance, collection);
+        for (int count = buffer.getInt(); count > 0; count--) {
+          references.add(readReference(buffer, instance, field, collection));
+        }
+        break;
+      default:
+        setValue(field, instance, readValue(buffer, kinds[i], field.getType()));
+        break;
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Creates an instance with the key values of a record written by {@link #toKeyRecord(Object)}.
+   * @param buffer the buffer positioned at the start of the record
+   * @return the new instance
+   */
+  public Object fromKeyRecord(final ByteBuffer buffer) {
+    return setKeyValues(newInstance(constructor), readKey(buffer, clazz));
+  }
+
+  private void write(final DataOutputStream out, final Object instance) throws IOException {
+    for (int i = 0; i < fields.length; i++) {
+      final Object value = getValue(fields[i], instance);
+      switch (kinds[i]) {
+      case COMPLEX:
+        out.writeBoolean(value != null);
+        if (value != null) {
+          complexLayouts[i].write(out, value);
+        }
+        break;
+      case REFERENCE:
+        writeReference(out, value);
+        break;
+      case REFERENCES:
+        final Collection<?> collection = (Collection<?>) value;
+        out.writeInt(collection == null ? 0 : collection.size());
+        if (collection != null) {
+          for (Object element : collection) {
+            writeReference(out, element);
+          }
+        }
+        break;
+      default:
+        writeValue(out, kinds[i], value);
+        break;
+      }
+    }
+  }
+
+  private static List<Field> getPersistedFields(final Class<?> clazz) {
+    List<Field> persistedFields = new ArrayList<Field>();
+    for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+      Field[] declaredFields = current.getDeclaredFields();
+      // the order of declared fields is not specified, so the layout sorts them by name
+      Arrays.sort(declaredFields, new Comparator<Field>() {
+        @Override
+        public int compare(final Field field1, final Field field2) {
+          return field1.getName().compareTo(field2.getName());
+        }
+      });
+      for (Field field : declaredFields) {
+        if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()
+            && (field.getAnnotation(EdmProperty.class) != null
+                || field.getAnnotation(EdmNavigationProperty.class) != null
+                || field.getAnnotation(EdmMediaResourceContent.class) != null
+                || field.getAnnotation(EdmMediaResourceMimeType.class) != null
+                || field.getAnnotation(EdmMediaResourceSource.class) != null)) {
+          persistedFields.add(field);
+        }
+      }
+    }
+    return persistedFields;
+  }
+
+  private static Kind getKind(final Field field) {
+    final Class<?> type = field.getType();
+    if (field.getAnnotation(EdmNavigationProperty.class) != null) {
+      return Collection.class.isAssignableFrom(type) ? Kind.REFERENCES : Kind.REFERENCE;
+    }
+    final Kind kind = getSimpleKind(type);
+    if (kind != null) {
+      return kind;
+    } else if (type.getAnnotation(EdmComplexType.class) != null) {
+      return Kind.COMPLEX;
+    }
+    throw new AnnotationRuntimeException("Persisting field '" + field + "' of type '" + type
+        + "' is not supported.");
+  }
+
+  private static Kind getSimpleKind(final Class<?> type) {
+    if (type == String.class) {
+      return Kind.STRING;
+    } else if (type == Boolean.class || type == boolean.class) {
+      return Kind.BOOLEAN;
+    } else if (type == Byte.class || type == byte.class) {
+      return Kind.BYTE;
+    } else if (type == Short.class || type == short.class) {
+      return Kind.SHORT;
+    } else if (type == Integer.class || type == int.class) {
+      return Kind.INTEGER;
+    } else if (type == Long.class || type == long.class) {
+      return Kind.LONG;
+    } else if (type == Float.class || type == float.class) {
+      return Kind.FLOAT;
+    } else if (type == Double.class || type == double.class) {
+      return Kind.DOUBLE;
+    } else if (type == Character.class || type == char.class) {
+      return Kind.CHARACTER;
+    } else if (type == BigDecimal.class) {
+      return Kind.BIG_DECIMAL;
+    } else if (type == BigInteger.class) {
+      return Kind.BIG_INTEGER;
+    } else if (type == Date.class) {
+      return Kind.DATE;
+    } else if (Calendar.class.isAssignableFrom(type)) {
+      return Kind.CALENDAR;
+    } else if (type == UUID.class) {
+      return Kind.UUID;
+    } else if (type == byte[].class) {
+      return Kind.BINARY;
+    } else if (type.isEnum()) {
+      return Kind.ENUM;
+    }
+    return null;
+  }
+
+  private static void writeValue(final DataOutputStream out, final Kind kind, final Object value)
+      throws IOException {
+    out.writeBoolean(value != null);
+    if (value == null) {
+      return;
+    }
+    switch (kind) {
+    case STRING:
+      writeBytes(out, ((String) value).getBytes(UTF_8));
+      break;
+    case BOOLEAN:
+      out.writeBoolean((Boolean) value);
+      break;
+    case BYTE:
+      out.writeByte((Byte) value);
+      break;
+    case SHORT:
+      out.writeShort((Short) value);
+      break;
+    case INTEGER:
+      out.writeInt((Integer) value);
+      break;
+    case LONG:
+      out.writeLong((Long) value);
+      break;
+    case FLOAT:
+      out.writeFloat((Float) value);
+      break;
+    case DOUBLE:
+      out.writeDouble((Double) value);
+      break;
+    case CHARACTER:
+      out.writeChar((Character) value);
+      break;
+    case BIG_DECIMAL:
+      writeBytes(out, value.toString().getBytes(UTF_8));
+      break;
+    case BIG_INTEGER:
+      writeBytes(out, ((BigInteger) value).toByteArray());
+      break;
+    case DATE:
+      out.writeLong(((Date) value).getTime());
+      break;
+    case CALENDAR:
+      out.writeLong(((Calendar) value).getTimeInMillis());
+      writeBytes(out, ((Calendar) value).getTimeZone().getID().getBytes(UTF_8));
+      break;
+    case UUID:
+      out.writeLong(((UUID) value).getMostSignificantBits());
+      out.writeLong(((UUID) value).getLeastSignificantBits());
+      break;
+    case BINARY:
+      writeBytes(out, (byte[]) value);
+      break;
+    case ENUM:
+      writeBytes(out, ((Enum<?>) value).name().getBytes(UTF_8));
+      break;
+    default:
+      throw new AnnotationRuntimeException("Unexpected kind of value '" + kind + "'.");
+    }
+  }
+
+  private static Object readValue(final ByteBuffer buffer, final Kind kind, final Class<?> type) {
+    if (buffer.get() == 0) {
+      return null;
+    }
+    switch (kind) {
+    case STRING:
+      return new String(readBytes(buffer), UTF_8);
+    case BOOLEAN:
+      return buffer.get() != 0;
+    case BYTE:
+      return buffer.get();
+    case SHORT:
+      return buffer.getShort();
+    case INTEGER:
+      return buffer.getInt();
+    case LONG:
+      return buffer.getLong();
+    case FLOAT:
+      return buffer.getFloat();
+    case DOUBLE:
+      return buffer.getDouble();
+    case CHARACTER:
+      return buffer.getChar();
+    case BIG_DECIMAL:
+      return new BigDecimal(new String(readBytes(buffer), UTF_8));
+    case BIG_INTEGER:
+      return new BigInteger(readBytes(buffer));
+    case DATE:
+      return new Date(buffer.getLong());
+    case CALENDAR:
+      final long millis = buffer.getLong();
+      Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone(new String(readBytes(buffer), UTF_8)));
+      calendar.setTimeInMillis(millis);
+      return calendar;
+    case UUID:
+      return new UUID(buffer.getLong(), buffer.getLong());
+    case BINARY:
+      return readBytes(buffer);
+    case ENUM:
+      return getEnumConstant(type, new String(readBytes(buffer), UTF_8));
+    default:
+      throw new AnnotationRuntimeException("Unexpected kind of value '" + kind + "'.");
+    }
+  }
+
+  private static void writeBytes(final DataOutputStream out, final byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static byte[] readBytes(final ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static Object getEnumConstant(final Class<?> type, final String name) {
+    return Enum.valueOf((Class<? extends Enum>) type, name);
+  }
+
+  private static void writeKey(final DataOutputStream out, final Class<?> clazz, final Object[] keyValues)
+      throws IOException {
+    final KeyDescriptor keyDescriptor = KeyDescriptor.getInstance(clazz);
+    for (int i = 0; i < keyValues.length; i++) {
+      writeValue(out, getKeyKind(keyDescriptor, i), keyValues[i]);
+    }
+  }
+
+  private static Object[] readKey(final ByteBuffer buffer, final Class<?> clazz) {
+    final KeyDescriptor keyDescriptor = KeyDescriptor.getInstance(clazz);
+    Object[] keyValues = new Object[keyDescriptor.size()];
+    for (int i = 0; i < keyValues.length; i++) {
+      keyValues[i] = readValue(buffer, getKeyKind(keyDescriptor, i), keyDescriptor.getField(i).getType());
+    }
+    return keyValues;
+  }
+
+  private static Kind getKeyKind(final KeyDescriptor keyDescriptor, final int index) {
+    final Kind kind = getSimpleKind(keyDescriptor.getField(index).getType());
+    if (kind == null) {
+      throw new AnnotationRuntimeException("Persisting key field '" + keyDescriptor.getField(index)
+          + "' is not supported.");
+    }
+    return kind;
+  }
+
+  private static void writeReference(final DataOutputStream out, final Object target) throws IOException {
+    out.writeBoolean(target != null);
+    if (target != null) {
+      writeBytes(out, target.getClass().getName().getBytes(UTF_8));
+      writeKey(out, target.getClass(), KeyDescriptor.getInstance(target.getClass()).getValues(target));
+    }
+  }
+
+  private Reference readReference(final ByteBuffer buffer, final Object source, final Field field,
+      final Collection<Object> collection) {
+    if (buffer.get() == 0) {
+      return null;
+    }
+    final String className = new String(readBytes(buffer), UTF_8);
+    try {
+      final Class<?> targetClass = Class.forName(className, false, clazz.getClassLoader());
+      return new Reference(source, field, collection, targetClass, readKey(buffer, targetClass));
+    } catch (ClassNotFoundException e) {
+      throw new AnnotationRuntimeException("Class '" + className + "' of related data not found.", e);
+    }
+  }
+
+  private static Collection<Object> newCollection(final Field field) {
+    final Class<?> type = field.getType();
+    if (type.isAssignableFrom(ArrayList.class)) {
+      return new ArrayList<Object>();
+    } else if (type.isAssignableFrom(HashSet.class)) {
+      return new HashSet<Object>();
+    }
+    throw new AnnotationRuntimeException("Persisting navigation field '" + field + "' of type '" + type
+        + "' is not supported.");
+  }
+
+  static Object createKeyInstance(final Class<?> clazz, final Object[] keyValues) {
+    return setKeyValues(newInstance(getDefaultConstructor(clazz)), keyValues);
+  }
+
+  private static Object setKeyValues(final Object instance, final Object[] keyValues) {
+    final KeyDescriptor keyDescriptor = KeyDescriptor.getInstance(instance.getClass());
+    for (int i = 0; i < keyValues.length; i++) {
+      keyDescriptor.setValue(instance, i, keyValues[i]);
+    }
+    return instance;
+  }
+
+  private static Object newInstance(final Constructor<?> constructor) {
+    try {
+      return constructor.newInstance();
+    } catch (InstantiationException e) {
+      throw new AnnotationRuntimeException("Unable to create instance of '" + constructor.getDeclaringClass()
+          + "'.", e);
+    } catch (IllegalAccessException e) {
+      throw new AnnotationRuntimeException("Unable to create instance of '" + constructor.getDeclaringClass()
+          + "'.", e);
+    } catch (InvocationTargetException e) {
+      throw new AnnotationRuntimeException("Unable to create instance of '" + constructor.getDeclaringClass()
+          + "'.", e);
+    }
+  }
+
+  private static Object getValue(final Field field, final Object instance) {
+    try {
+      return field.get(instance);
+    } catch (IllegalArgumentException e) { // should never happen
+      throw new AnnotationRuntimeException(e);
+    } catch (IllegalAccessException e) { // should never happen
+      throw new AnnotationRuntimeException(e);
+    }
+  }
+
+  private static void setValue(final Field field, final Object instance, final Object value) {
+    try {
+      field.set(instance, value);
+    } catch (IllegalArgumentException e) { // should never happen
+      throw new AnnotationRuntimeException(e);
+    } catch (IllegalAccessException e) { // should never happen
+      throw new AnnotationRuntimeException(e);
+    }
+  }
+
+  /**
+   * A persisted navigation from a source instance to a target instance identified by its class and key values.
+   */
+  static final class Reference {
+    private final Object source;
+    private final Field field;
+    private final Collection<Object> collection;
+    private final Class<?> targetClass;
+    private final Object[] keyValues;
+
+    Reference(final Object source, final Field field, final Collection<Object> collection,
+        final Class<?> targetClass, final Object[] keyValues) {
+      this.source = source;
+      this.field = field;
+      this.collection = collection;
+      this.targetClass = targetClass;
+      this.keyValues = keyValues;
+    }
+
+    public Class<?> getTargetClass() {
+      return targetClass;
+    }
+
+    public Object[] getKeyValues() {
+      return keyValues;
+    }
+
+    /**
+     * Sets the target at the navigation field of the source or adds it to the collection of the source.
+     * @param target the target instance
+     */
+    public void resolve(final Object target) {
+      if (collection == null) {
+        setValue(field, source, target);
+      } else {
+        collection.add(target);
+      }
+    }
+  }
+}
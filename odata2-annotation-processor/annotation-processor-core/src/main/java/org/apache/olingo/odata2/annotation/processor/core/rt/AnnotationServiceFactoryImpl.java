@@ -20,6 +20,7 @@ package org.apache.olingo.odata2.annotation.processor.core.rt;
 
 import java.util.Collection;
 
+import org.apache.olingo.odata2.annotation.processor.api.AnnotationModelIndex;
 import org.apache.olingo.odata2.annotation.processor.api.AnnotationServiceFactory.AnnotationServiceFactoryInstance;
 import org.apache.olingo.odata2.annotation.processor.core.ListsProcessor;
 import org.apache.olingo.odata2.annotation.processor.core.datasource.AnnotationInMemoryDs;
@@ -39,6 +40,14 @@ public class AnnotationServiceFactoryImpl implements AnnotationServiceFactoryIns
    */
   @Override
   public ODataService createAnnotationService(final String modelPackage) throws ODataException {
+    final AnnotationModelIndex modelIndex = loadModelIndex(modelPackage);
+    if (modelIndex != null) {
+      // index generated at compile time: no class path scanning and typed property access
+      return RuntimeDelegate.createODataSingleProcessorService(
+          new AnnotationEdmProvider(modelIndex.getAnnotatedClasses()),
+          new ListsProcessor(new AnnotationInMemoryDs(modelIndex, true), new AnnotationValueAccess(modelIndex)));
+    }
+
     AnnotationEdmProvider edmProvider = new AnnotationEdmProvider(modelPackage);
     AnnotationInMemoryDs dataSource = new AnnotationInMemoryDs(modelPackage);
     AnnotationValueAccess valueAccess = new AnnotationValueAccess();
@@ -61,4 +70,27 @@ public class AnnotationServiceFactoryImpl implements AnnotationServiceFactoryIns
     return RuntimeDelegate.createODataSingleProcessorService(edmProvider,
         new ListsProcessor(dataSource, valueAccess));
   }
+
+  /**
+   * Loads the {@link AnnotationModelIndex} generated for the model package, if present.
+   * @param modelPackage the model package
+   * @return the index or <code>null</code>
+   * @throws ODataException if the generated class cannot be instantiated
+   */
+  static AnnotationModelIndex loadModelIndex(final String modelPackage) throws ODataException {
+    final String className = modelPackage + '.' + AnnotationModelIndex.GENERATED_CLASS_NAME;
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    if (classLoader == null) {
+      classLoader = AnnotationServiceFactoryImpl.class.getClassLoader();
+    }
+    try {
+      return (AnnotationModelIndex) Class.forName(className, true, classLoader).newInstance();
+    } catch (ClassNotFoundException e) {
+      return null;
+    } catch (InstantiationException e) {
+      throw new ODataException("Unable to create instance of class '" + className + "'.", e);
+    } catch (IllegalAccessException e) {
+      throw new ODataException("Unable to create instance of class '" + className + "'.", e);
+    }
+  }
 }
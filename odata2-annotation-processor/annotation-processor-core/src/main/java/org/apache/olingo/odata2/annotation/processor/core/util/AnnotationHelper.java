@@ -23,7 +23,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
 
 import org.apache.olingo.odata2.api.annotation.edm.EdmComplexType;
 import org.apache.olingo.odata2.api.annotation.edm.EdmEntitySet;
@@ -60,15 +59,21 @@ public class AnnotationHelper {
       return false;
     }
 
-    Map<String, Object> firstKeyFields = getValueForAnnotatedFields(firstInstance, EdmKey.class);
-    Map<String, Object> secondKeyFields = getValueForAnnotatedFields(secondInstance, EdmKey.class);
-    if (firstKeyFields.isEmpty() && secondKeyFields.isEmpty()) {
+    final KeyDescriptor keyDescriptor = KeyDescriptor.getInstance(firstInstance.getClass());
+    if (keyDescriptor.size() == 0) {
       throw new AnnotationRuntimeException("Both object instances does not have EdmKey fields defined ["
           + "firstClass=" + firstInstance.getClass().getName()
           + " secondClass=" + secondInstance.getClass().getName() + "].");
     }
 
-    return keyValuesMatch(firstKeyFields, secondKeyFields);
+    final Object[] firstKeyValues = keyDescriptor.getValues(firstInstance);
+    final Object[] secondKeyValues = keyDescriptor.getValues(secondInstance);
+    for (int i = 0; i < firstKeyValues.length; i++) {
+      if (!isEqual(firstKeyValues[i], secondKeyValues[i])) {
+        return false;
+      }
+    }
+    return true;
   }
 
   /**
@@ -79,26 +84,20 @@ public class AnnotationHelper {
    * @return
    */
   public boolean keyMatch(final Object instance, final Map<String, Object> keyName2Value) {
-    Map<String, Object> instanceKeyFields = getValueForAnnotatedFields(instance, EdmKey.class);
-    return keyValuesMatch(instanceKeyFields, keyName2Value);
-  }
-
-  private boolean keyValuesMatch(final Map<String, Object> firstKeyValues, final Map<String, Object> secondKeyValues) {
-    if (firstKeyValues.size() != secondKeyValues.size()) {
+    final KeyDescriptor keyDescriptor = KeyDescriptor.getInstance(instance.getClass());
+    if (keyDescriptor.size() != keyName2Value.size()) {
       return false;
-    } else if (firstKeyValues.isEmpty()) {
+    } else if (keyDescriptor.size() == 0) {
       throw new AnnotationRuntimeException("No keys given for key value matching.");
-    } else {
-      Set<Map.Entry<String, Object>> entries = firstKeyValues.entrySet();
-      for (Map.Entry<String, Object> entry : entries) {
-        Object firstKey = entry.getValue();
-        Object secondKey = secondKeyValues.get(entry.getKey());
-        if (!isEqual(firstKey, secondKey)) {
-          return false;
-        }
+    }
+
+    final Object[] keyValues = keyDescriptor.getValues(instance);
+    for (int i = 0; i < keyValues.length; i++) {
+      if (!isEqual(keyValues[i], keyName2Value.get(keyDescriptor.getPropertyName(i)))) {
+        return false;
       }
-      return true;
     }
+    return true;
   }
 
   private boolean isEqual(final Object firstKey, final Object secondKey) {
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.core.util;
+
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.olingo.odata2.api.annotation.edm.EdmKey;
+import org.apache.olingo.odata2.api.annotation.edm.EdmProperty;
+
+/**
+ * The {@link EdmKey} annotated fields of a class (including the fields of its super classes).
+ * The fields are looked up and made accessible once per class, so that reading and writing
+ * key values needs no field lookup.
+ * <p>Key matching looks up a descriptor for every compared instance, so the lookup takes no
+ * lock: the descriptors are registered in an immutable hash table, and a new table is published
+ * when a class is added. The table holds the classes weakly and the descriptors softly; since a
+ * descriptor references its class through the fields, the class loader of an undeployed
+ * application stays reachable until the garbage collector clears the soft references.</p>
+ */
+public final class KeyDescriptor {
+
+  private static volatile Registration[] registrations = new Registration[16];
+
+  private final Field[] fields;
+  private final String[] propertyNames;
+
+  private KeyDescriptor(final Class<?> clazz) {
+    final AnnotationHelper annotationHelper = new AnnotationHelper();
+    final List<Field> keyFields = annotationHelper.getAnnotatedFields(clazz, EdmKey.class);
+    fields = new Field[keyFields.size()];
+    propertyNames = new String[keyFields.size()];
+    for (int i = 0; i < fields.length; i++) {
+      final Field field = keyFields.get(i);
+      field.setAccessible(true);
+      fields[i] = field;
+      final EdmProperty property = field.getAnnotation(EdmProperty.class);
+      propertyNames[i] = property == null || property.name().isEmpty() ?
+          annotationHelper.getCanonicalName(field) : property.name();
+    }
+  }
+
+  /**
+   * Returns the key descriptor of the given class.
+   * @param clazz the annotated class
+   * @return the key descriptor; it has no fields if the class has no key fields
+   */
+  public static KeyDescriptor getInstance(final Class<?> clazz) {
+    final KeyDescriptor descriptor = find(registrations, clazz);
+    return descriptor == null ? register(clazz) : descriptor;
+  }
+
+  private static KeyDescriptor find(final Registration[] table, final Class<?> clazz) {
+    for (Registration registration = table[indexFor(clazz, table.length)]; registration != null;
+        registration = registration.next) {
+      if (registration.get() == clazz) {
+        return registration.descriptor.get();
+      }
+    }
+    return null;
+  }
+
+  private static int indexFor(final Class<?> clazz, final int tableLength) {
+    return System.identityHashCode(clazz) & (tableLength - 1);
+  }
+
+  private static synchronized KeyDescriptor register(final Class<?> clazz) {
+    KeyDescriptor descriptor = find(registrations, clazz);
+    if (descriptor != null) {
+      return descriptor;
+    }
+    descriptor = new KeyDescriptor(clazz);
+
+    // rehash the registrations still in use into a new table with room for the new one
+    List<Registration> live = new ArrayList<Registration>();
+    for (Registration head : registrations) {
+      for (Registration registration = head; registration != null; registration = registration.next) {
+        if (registration.get() != null && registration.get() != clazz && registration.descriptor.get() != null) {
+          live.add(registration);
+        }
+      }
+    }
+    int length = registrations.length;
+    while (length < 2 * (live.size() + 1)) {
+      length *= 2;
+    }
+    Registration[] table = new Registration[length];
+    for (Registration registration : live) {
+      final Class<?> registeredClass = registration.get();
+      if (registeredClass != null) {
+        final int index = indexFor(registeredClass, length);
+        table[index] = new Registration(registeredClass, registration.descriptor, table[index]);
+      }
+    }
+    final int index = indexFor(clazz, length);
+    table[index] = new Registration(clazz, new SoftReference<KeyDescriptor>(descriptor), table[index]);
+    registrations = table;
+    return descriptor;
+  }
+
+  public int size() {
+    return fields.length;
+  }
+
+  public Field getField(final int index) {
+    return fields[index];
+  }
+
+  /**
+   * Returns the EDM property name of a key field, which is the name given in the
+   * {@link EdmProperty} annotation or else the canonical name of the field.
+   * @param index the position of the key field
+   * @return the property name
+   */
+  public String getPropertyName(final int index) {
+    return propertyNames[index];
+  }
+
+  /**
+   * Returns the key values of the given instance in the order of the key fields.
+   * @param instance an instance of the described class
+   * @return the key values
+   */
+  public Object[] getValues(final Object instance) {
+    Object[] values = new Object[fields.length];
+    try {
+      for (int i = 0; i < fields.length; i++) {
+        values[i] = fields[i].get(instance);
+      }
+    } catch (IllegalArgumentException e) { // should never happen
+      throw new AnnotationRuntimeException(e);
+    } catch (IllegalAccessException e) { // should never happen
+      throw new AnnotationRuntimeException(e);
+    }
+    return values;
+  }
+
+  public void setValue(final Object instance, final int index, final Object value) {
+    try {
+      fields[index].set(instance, value);
+    } catch (IllegalArgumentException e) { // should never happen
+      throw new AnnotationRuntimeException(e);
+    } catch (IllegalAccessException e) { // should never happen
+      throw new AnnotationRuntimeException(e);
+    }
+  }
+
+  /**
+   * Immutable entry of the registration table; weak reference to the class.
+   */
+  private static final class Registration extends WeakReference<Class<?>> {
+    private final SoftReference<KeyDescriptor> descriptor;
+    private final Registration next;
+
+    Registration(final Class<?> clazz, final SoftReference<KeyDescriptor> descriptor, final Registration next) {
+      super(clazz);
+      this.descriptor = descriptor;
+      this.next = next;
+    }
+  }
+}
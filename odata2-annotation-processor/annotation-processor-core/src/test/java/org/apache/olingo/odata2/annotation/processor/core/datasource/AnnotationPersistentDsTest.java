@@ -0,0 +1,308 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.core.datasource;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import org.apache.olingo.odata2.annotation.processor.core.model.Building;
+import org.apache.olingo.odata2.annotation.processor.core.model.Room;
+import org.apache.olingo.odata2.api.annotation.edm.EdmComplexType;
+import org.apache.olingo.odata2.api.annotation.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.annotation.edm.EdmEntityType;
+import org.apache.olingo.odata2.api.annotation.edm.EdmKey;
+import org.apache.olingo.odata2.api.annotation.edm.EdmProperty;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ *
+ */
+public class AnnotationPersistentDsTest {
+
+  public enum Status {
+    OPEN, SHIPPED
+  }
+
+  @EdmComplexType
+  public static class Address {
+    @EdmProperty
+    String street;
+    @EdmProperty
+    Integer number;
+  }
+
+  @EdmEntityType
+  @EdmEntitySet(name = "Orders")
+  public static class Order {
+    @EdmKey
+    @EdmProperty
+    Long id;
+    @EdmProperty
+    String customer;
+    @EdmProperty
+    int quantity;
+    @EdmProperty
+    BigDecimal amount;
+    @EdmProperty
+    Calendar date;
+    @EdmProperty
+    byte[] note;
+    @EdmProperty
+    Status status;
+    @EdmProperty
+    Address address;
+  }
+
+  @EdmEntityType
+  @EdmEntitySet(name = "Orders")
+  public static class OtherOrder {
+    @EdmKey
+    @EdmProperty
+    String id;
+  }
+
+  private File directory;
+  private final org.apache.olingo.odata2.api.edm.EdmEntitySet buildings = mockEntitySet("Buildings");
+  private final org.apache.olingo.odata2.api.edm.EdmEntitySet rooms = mockEntitySet("Rooms");
+  private final org.apache.olingo.odata2.api.edm.EdmEntitySet orders = mockEntitySet("Orders");
+
+  @Before
+  public void before() throws IOException {
+    directory = File.createTempFile("journal", "");
+    directory.delete();
+  }
+
+  @After
+  public void after() {
+    final File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  private static org.apache.olingo.odata2.api.edm.EdmEntitySet mockEntitySet(final String name) {
+    org.apache.olingo.odata2.api.edm.EdmEntitySet entitySet =
+        Mockito.mock(org.apache.olingo.odata2.api.edm.EdmEntitySet.class);
+    try {
+      Mockito.when(entitySet.getName()).thenReturn(name);
+    } catch (final ODataException e) {
+      throw new IllegalStateException(e);
+    }
+    return entitySet;
+  }
+
+  private AnnotationPersistentDs createDataSource(final int segmentSize) throws ODataException {
+    return new AnnotationPersistentDs(Arrays.<Class<?>> asList(Building.class, Room.class, Order.class),
+        directory, segmentSize);
+  }
+
+  private Map<String, Object> key(final String name, final Object value) {
+    return Collections.singletonMap(name, value);
+  }
+
+  private Order createOrder(final String customer) {
+    Order order = new Order();
+    order.customer = customer;
+    return order;
+  }
+
+  @Test
+  public void restore() throws Exception {
+    AnnotationPersistentDs dataSource = createDataSource(MappedJournal.DEFAULT_SEGMENT_SIZE);
+    Building building = new Building();
+    building.setName("Building");
+    dataSource.createData(buildings, building);
+    Room room = new Room(42, "Room");
+    room.setSeats(12);
+    dataSource.createData(rooms, room);
+    dataSource.writeRelation(buildings, building, rooms, key("Id", 42));
+    dataSource.createData(rooms, new Room(43, "Deleted"));
+    dataSource.deleteData(rooms, key("Id", 43));
+    room.setSeats(20);
+    dataSource.persistData(rooms, room);
+    dataSource.close();
+
+    dataSource = createDataSource(MappedJournal.DEFAULT_SEGMENT_SIZE);
+    assertEquals(1, dataSource.readData(rooms).size());
+    final Building readBuilding = (Building) dataSource.readData(buildings).get(0);
+    assertEquals(building.getId(), readBuilding.getId());
+    assertEquals("Building", readBuilding.getName());
+    final Room readRoom = (Room) dataSource.readData(rooms, key("Id", 42));
+    assertEquals(20, readRoom.getSeats());
+    assertEquals("Room", readRoom.getName());
+    assertSame(readBuilding, readRoom.getBuilding());
+    assertEquals(1, readBuilding.getRooms().size());
+    assertSame(readRoom, readBuilding.getRooms().get(0));
+    dataSource.close();
+  }
+
+  @Test
+  public void values() throws Exception {
+    AnnotationPersistentDs dataSource = createDataSource(MappedJournal.DEFAULT_SEGMENT_SIZE);
+    Order order = createOrder("Customer");
+    order.quantity = 3;
+    order.amount = new BigDecimal("12.345");
+    order.date = Calendar.getInstance(TimeZone.getTimeZone("GMT+02:00"));
+    order.date.setTimeInMillis(1234567890123L);
+    order.note = new byte[] { 1, 2, 3 };
+    order.status = Status.SHIPPED;
+    order.address = new Address();
+    order.address.street = "Street";
+    dataSource.createData(orders, order);
+    dataSource.createData(orders, createOrder(null));
+    dataSource.close();
+
+    dataSource = createDataSource(MappedJournal.DEFAULT_SEGMENT_SIZE);
+    final Order readOrder = (Order) dataSource.readData(orders, key("Id", order.id));
+    assertEquals("Customer", readOrder.customer);
+    assertEquals(3, readOrder.quantity);
+    assertEquals(new BigDecimal("12.345"), readOrder.amount);
+    assertEquals(1234567890123L, readOrder.date.getTimeInMillis());
+    assertEquals("GMT+02:00", readOrder.date.getTimeZone().getID());
+    assertArrayEquals(new byte[] { 1, 2, 3 }, readOrder.note);
+    assertEquals(Status.SHIPPED, readOrder.status);
+    assertEquals("Street", readOrder.address.street);
+    assertNull(readOrder.address.number);
+
+    final List<?> readOrders = dataSource.readData(orders);
+    assertEquals(2, readOrders.size());
+    final Order emptyOrder = (Order) (readOrders.get(0) == readOrder ? readOrders.get(1) : readOrders.get(0));
+    assertNull(emptyOrder.customer);
+    assertNull(emptyOrder.date);
+    assertNull(emptyOrder.address);
+    dataSource.close();
+  }
+
+  @Test
+  public void partiallyWrittenRecord() throws Exception {
+    AnnotationPersistentDs dataSource = createDataSource(4096);
+    dataSource.createData(orders, createOrder("first"));
+    dataSource.createData(orders, createOrder("second"));
+    dataSource.close();
+
+    // damage the last byte of the second record as if the run had crashed while writing it
+    RandomAccessFile file = new RandomAccessFile(new File(directory, "Orders.0.journal"), "rw");
+    try {
+      long position = file.length() - 1;
+      file.seek(position);
+      while (file.read() == 0) {
+        file.seek(--position);
+      }
+      file.seek(position);
+      file.write(0x7F);
+    } finally {
+      file.close();
+    }
+
+    dataSource = createDataSource(4096);
+    assertEquals(1, dataSource.readData(orders).size());
+    assertEquals("first", ((Order) dataSource.readData(orders).get(0)).customer);
+    dataSource.createData(orders, createOrder("third"));
+    dataSource.close();
+
+    dataSource = createDataSource(4096);
+    assertEquals(2, dataSource.readData(orders).size());
+    dataSource.close();
+  }
+
+  @Test
+  public void segments() throws Exception {
+    AnnotationPersistentDs dataSource = createDataSource(1024);
+    for (int i = 0; i < 100; i++) {
+      dataSource.createData(orders, createOrder("Customer " + i));
+    }
+    dataSource.close();
+    assertTrue(new File(directory, "Orders.1.journal").exists());
+
+    dataSource = createDataSource(1024);
+    assertEquals(100, dataSource.readData(orders).size());
+    dataSource.close();
+  }
+
+  @Test
+  public void failedModificationNotApplied() throws Exception {
+    AnnotationPersistentDs dataSource = createDataSource(MappedJournal.DEFAULT_SEGMENT_SIZE);
+    Building building = new Building();
+    dataSource.createData(buildings, building);
+    dataSource.createData(rooms, new Room(42, "Room"));
+    Order order = createOrder("Customer");
+    dataSource.createData(orders, order);
+    // a closed journal fails every modification
+    dataSource.close();
+
+    try {
+      dataSource.createData(orders, createOrder("Other"));
+      fail("Expected DataStoreException");
+    } catch (final DataStore.DataStoreException e) {
+      assertEquals(1, dataSource.readData(orders).size());
+    }
+    Order changed = createOrder("Changed");
+    changed.id = order.id;
+    try {
+      dataSource.updateData(orders, changed);
+      fail("Expected DataStoreException");
+    } catch (final DataStore.DataStoreException e) {
+      assertSame(order, dataSource.readData(orders, key("Id", order.id)));
+    }
+    try {
+      dataSource.deleteData(orders, key("Id", order.id));
+      fail("Expected DataStoreException");
+    } catch (final DataStore.DataStoreException e) {
+      assertSame(order, dataSource.readData(orders, key("Id", order.id)));
+    }
+    try {
+      dataSource.writeRelation(buildings, building, rooms, key("Id", 42));
+      fail("Expected DataStoreException");
+    } catch (final DataStore.DataStoreException e) {
+      assertTrue(building.getRooms().isEmpty());
+      assertNull(((Room) dataSource.readData(rooms, key("Id", 42))).getBuilding());
+    }
+  }
+
+  @Test(expected = ODataException.class)
+  public void otherLayout() throws Exception {
+    AnnotationPersistentDs dataSource = createDataSource(MappedJournal.DEFAULT_SEGMENT_SIZE);
+    dataSource.createData(orders, createOrder("Customer"));
+    dataSource.close();
+
+    new AnnotationPersistentDs(Collections.<Class<?>> singletonList(OtherOrder.class), directory);
+  }
+}
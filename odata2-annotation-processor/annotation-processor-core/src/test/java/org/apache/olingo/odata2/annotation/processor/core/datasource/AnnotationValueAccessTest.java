@@ -15,8 +15,14 @@
  */
 package org.apache.olingo.odata2.annotation.processor.core.datasource;
 
+import java.util.Arrays;
+
 import junit.framework.Assert;
 
+import org.apache.olingo.odata2.annotation.processor.api.AnnotationModelIndex;
+import org.apache.olingo.odata2.annotation.processor.core.model.Employee;
+import org.apache.olingo.odata2.annotation.processor.core.model.Manager;
+import org.apache.olingo.odata2.annotation.processor.core.model.Team;
 import org.apache.olingo.odata2.api.annotation.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.edm.EdmException;
 import org.apache.olingo.odata2.api.edm.EdmMapping;
@@ -231,6 +237,32 @@ public class AnnotationValueAccessTest {
     Assert.assertEquals("mapped property value", data.myMappedProperty);
   }
 
+  @Test
+  public void generatedModelIndex() throws Exception {
+    // generated at test compile time by the annotation processing tool
+    AnnotationModelIndex index = (AnnotationModelIndex) Class.forName(Employee.class.getPackage().getName()
+        + "." + AnnotationModelIndex.GENERATED_CLASS_NAME).newInstance();
+    Assert.assertTrue(index.getAnnotatedClasses().contains(Employee.class));
+    Assert.assertNotNull(index.getPropertyAccessor(Employee.class));
+
+    AnnotationValueAccess ava = new AnnotationValueAccess(index);
+    // private fields inherited from Employee
+    Manager manager = new Manager("1", null);
+    ava.setPropertyValue(manager, mockProperty("EmployeeName"), "A Name");
+    ava.setPropertyValue(manager, mockProperty("Age"), 42);
+    Assert.assertEquals("A Name", manager.getEmployeeName());
+    Assert.assertEquals(42, manager.getAge());
+    Assert.assertEquals("A Name", ava.getPropertyValue(manager, mockProperty("EmployeeName")));
+    Assert.assertEquals(int.class, ava.getPropertyType(manager, mockProperty("Age")));
+    Assert.assertEquals(Arrays.<Object> asList("1"), index.getPropertyAccessor(Manager.class).getKeyValues(manager));
+
+    // protected field inherited from RefBase
+    Team team = new Team();
+    ava.setPropertyValue(team, mockProperty("Id"), 7);
+    Assert.assertEquals("7", team.getId());
+    Assert.assertEquals(7, ava.getPropertyValue(team, mockProperty("Id")));
+  }
+
   private EdmProperty mockProperty(final String name) throws EdmException {
     EdmProperty property = Mockito.mock(EdmProperty.class);
     Mockito.when(property.getName()).thenReturn(name);
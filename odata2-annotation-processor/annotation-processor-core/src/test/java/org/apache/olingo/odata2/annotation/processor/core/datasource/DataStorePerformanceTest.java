@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.core.datasource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.olingo.odata2.api.annotation.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.annotation.edm.EdmEntityType;
+import org.apache.olingo.odata2.api.annotation.edm.EdmKey;
+import org.apache.olingo.odata2.api.annotation.edm.EdmProperty;
+import org.apache.olingo.odata2.testutil.fit.BaseTest;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Throughput of the in-memory data store for a mix of reads and updates
+ * with different numbers of threads.
+ */
+public class DataStorePerformanceTest extends BaseTest {
+
+  private static final int TIMES = 1000; // increase for manual performance testing
+  private static final int ENTITIES = 100;
+  private static final int[] THREADS = { 1, 2, 4, 8 };
+
+  @EdmEntitySet
+  @EdmEntityType
+  private static class Item {
+    @EdmKey
+    @EdmProperty
+    String name;
+    @EdmKey
+    @EdmProperty
+    Integer version;
+  }
+
+  private DataStore<Item> store;
+
+  @Before
+  public void before() throws Exception {
+    store = DataStore.createInMemory(Item.class);
+    for (int i = 0; i < ENTITIES; i++) {
+      store.create(createItem(i));
+    }
+  }
+
+  private static Item createItem(final int index) {
+    Item item = new Item();
+    item.name = "Item " + index;
+    item.version = Integer.valueOf(1);
+    return item;
+  }
+
+  @Test
+  public void readAndUpdate() throws Exception {
+    for (final int threads : THREADS) {
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      long t = startTimer();
+      for (int thread = 0; thread < threads; thread++) {
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            for (int i = 0; i < TIMES; i++) {
+              final Item item = createItem(i % ENTITIES);
+              if (i % 10 == 0) {
+                store.update(item);
+              } else if (i % 10 == 1) {
+                // updates replace entities but never change the number of entities in a snapshot
+                final Collection<Item> all = store.read();
+                assertEquals(ENTITIES, all.size());
+              } else {
+                assertNotNull(store.read(item));
+              }
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+      stopTimer(t, threads, "readAndUpdate with " + threads + " thread(s)");
+      executor.shutdown();
+    }
+    assertEquals(ENTITIES, store.read().size());
+  }
+
+  private long startTimer() {
+    return System.nanoTime();
+  }
+
+  private void stopTimer(final long t, final int threads, final String msg) {
+    final long millis = (System.nanoTime() - t) / (1000L * 1000L);
+    final long operations = (long) TIMES * threads;
+    log.debug(msg + ": " + operations + " operations in " + millis + " [ms] ("
+        + (operations * 1000L / Math.max(millis, 1L)) + " operations/s)");
+  }
+}
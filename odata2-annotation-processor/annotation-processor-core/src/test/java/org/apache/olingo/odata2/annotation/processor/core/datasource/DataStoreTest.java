@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.core.datasource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.olingo.odata2.annotation.processor.core.model.Photo;
+import org.apache.olingo.odata2.annotation.processor.core.util.KeyDescriptor;
+import org.apache.olingo.odata2.api.annotation.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.annotation.edm.EdmEntityType;
+import org.apache.olingo.odata2.api.annotation.edm.EdmKey;
+import org.apache.olingo.odata2.api.annotation.edm.EdmProperty;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class DataStoreTest {
+
+  @EdmEntitySet
+  @EdmEntityType
+  private static class SimpleEntity {
+    @EdmKey
+    @EdmProperty
+    Integer id;
+    @EdmProperty
+    String name;
+  }
+
+  private Photo createPhoto(final String name, final String type) {
+    Photo photo = new Photo();
+    photo.setName(name);
+    photo.setType(type);
+    return photo;
+  }
+
+  @Test
+  public void keyDescriptor() {
+    final KeyDescriptor descriptor = KeyDescriptor.getInstance(Photo.class);
+    assertSame(descriptor, KeyDescriptor.getInstance(Photo.class));
+    assertEquals(2, descriptor.size());
+    assertEquals("Name", descriptor.getPropertyName(0));
+    assertEquals("ImageFormat", descriptor.getPropertyName(1));
+    final Object[] values = descriptor.getValues(createPhoto("a", "png"));
+    assertEquals("a", values[0]);
+    assertEquals("png", values[1]);
+    assertEquals(0, KeyDescriptor.getInstance(String.class).size());
+  }
+
+  @Test
+  public void compositeKey() throws Exception {
+    DataStore<Photo> store = DataStore.createInMemory(Photo.class);
+    final Photo first = createPhoto("a", "png");
+    store.create(first);
+    store.create(createPhoto("a", "jpg"));
+    store.create(createPhoto("b", "png"));
+    assertEquals(3, store.read().size());
+
+    assertSame(first, store.read(createPhoto("a", "png")));
+    assertNull(store.read(createPhoto("b", "jpg")));
+    assertTrue(store.isKeyEqual(first, createPhoto("a", "png")));
+    assertFalse(store.isKeyEqual(first, createPhoto("png", "a")));
+
+    final Photo replacement = createPhoto("a", "png");
+    store.update(replacement);
+    assertSame(replacement, store.read(first));
+    assertSame(replacement, store.delete(first));
+    assertEquals(2, store.read().size());
+  }
+
+  @Test
+  public void snapshot() throws Exception {
+    DataStore<Photo> store = DataStore.createInMemory(Photo.class);
+    store.create(createPhoto("a", "png"));
+    final Collection<Photo> snapshot = store.read();
+    assertSame(snapshot, store.read());
+
+    store.create(createPhoto("b", "png"));
+    assertEquals(1, snapshot.size());
+    assertEquals(2, store.read().size());
+    store.delete(createPhoto("c", "png"));
+    assertSame(store.read(), store.read());
+  }
+
+  @Test
+  public void generatedKeys() throws Exception {
+    final DataStore<SimpleEntity> store = DataStore.createInMemory(SimpleEntity.class);
+    final int threads = 8;
+    final int entitiesPerThread = 250;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    Set<Future<Void>> futures = new HashSet<Future<Void>>();
+    for (int t = 0; t < threads; t++) {
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          for (int i = 0; i < entitiesPerThread; i++) {
+            SimpleEntity entity = new SimpleEntity();
+            // every second entity asks for an existing key and gets a generated one instead
+            entity.id = i % 2 == 0 ? null : Integer.valueOf(1);
+            store.create(entity);
+          }
+          return null;
+        }
+      }));
+    }
+    for (Future<Void> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    assertEquals(threads * entitiesPerThread, store.read().size());
+    Set<Integer> ids = new HashSet<Integer>();
+    for (SimpleEntity entity : store.read()) {
+      assertNotNull(entity.id);
+      ids.add(entity.id);
+      assertSame(entity, store.read(entity));
+    }
+    assertEquals(threads * entitiesPerThread, ids.size());
+  }
+}
@@ -16,12 +16,18 @@
 package org.apache.olingo.odata2.annotation.processor.core.util;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import junit.framework.Assert;
 
+import org.apache.olingo.odata2.annotation.processor.core.model.Building;
 import org.apache.olingo.odata2.annotation.processor.core.model.Location;
 import org.apache.olingo.odata2.api.annotation.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.annotation.edm.EdmKey;
@@ -96,6 +102,39 @@ public class AnnotationHelperTest {
     Assert.assertTrue(result);
   }
 
+  @Test
+  public void keyMatchConcurrently() throws Exception {
+    final SimpleEntity firstInstance = new SimpleEntity(42l, "A Name");
+    final SimpleEntity secondInstance = new SimpleEntity(42l, "Another Name");
+    final Map<String, Object> buildingKey = new HashMap<String, Object>();
+    buildingKey.put("Id", "1");
+    final Building building = new Building();
+    building.setId("1");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+      for (int i = 0; i < 16; i++) {
+        results.add(executor.submit(new Callable<Boolean>() {
+          @Override
+          public Boolean call() {
+            boolean match = true;
+            for (int j = 0; j < 1000; j++) {
+              match &= annotationHelper.keyMatch(firstInstance, secondInstance)
+                  && annotationHelper.keyMatch(building, buildingKey);
+            }
+            return match;
+          }
+        }));
+      }
+      for (Future<Boolean> result : results) {
+        Assert.assertTrue(result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    Assert.assertSame(KeyDescriptor.getInstance(SimpleEntity.class), KeyDescriptor.getInstance(SimpleEntity.class));
+  }
+
   @Test
   public void keyMatchPositiveWithNull() throws ODataException {
     SimpleEntity firstInstance = new SimpleEntity();
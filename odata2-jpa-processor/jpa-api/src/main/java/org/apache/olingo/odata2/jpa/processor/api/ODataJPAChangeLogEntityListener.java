@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.api;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.apache.olingo.odata2.api.uri.info.GetEntitySetUriInfo;
+
+/**
+ * Extend this class and register it as JPA Entity Listener of a JPA entity to
+ * handle OData Tombstone features with a change log. The OData JPA Processor
+ * Library then writes a change log entry whenever it creates, updates or deletes
+ * such an entity, and answers a request with <code>!deltatoken</code> by reading
+ * the change log entries written after the token and fetching the changed
+ * entities by key. Deleted entities are returned as deleted entries.
+ * <p>
+ * Changes made to the database without the library are not tracked, unless the
+ * application writes change log entries for them as well.
+ * @see ODataJPAChangeLogEntry
+ */
+public abstract class ODataJPAChangeLogEntityListener extends ODataJPATombstoneEntityListener {
+
+  /**
+   * Implement this method to return the JPA entity the change log entries are
+   * stored with.
+   * @return a JPA entity class extending {@link ODataJPAChangeLogEntry}
+   */
+  public abstract Class<? extends ODataJPAChangeLogEntry> getChangeLogEntryClass();
+
+  /**
+   * Delta queries are built from the change log by the library.
+   * @return null
+   */
+  @Override
+  public final Query getQuery(final GetEntitySetUriInfo resultsView, final EntityManager em) {
+    return null;
+  }
+
+  /**
+   * Delta tokens are the sequence numbers of the change log entries.
+   * @return the delta token set by the library
+   */
+  @Override
+  public final String generateDeltaToken(final List<Object> deltas, final Query query) {
+    return ODataJPATombstoneContext.getDeltaToken();
+  }
+}
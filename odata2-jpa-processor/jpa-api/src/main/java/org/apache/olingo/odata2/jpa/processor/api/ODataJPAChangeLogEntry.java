@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.api;
+
+import javax.persistence.Column;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.MappedSuperclass;
+
+/**
+ * Base class for an entry of an append-only change log. Extend this class with a
+ * JPA entity (and add the entity to the persistence unit) to let the OData JPA
+ * Processor Library record every entity it creates, updates or deletes. The
+ * sequence number of the latest committed entry is used as delta token, so that a
+ * request with <code>!deltatoken</code> reads only the entries with a greater
+ * sequence number.
+ * <p>
+ * The sequence numbers must increase in commit order, so a generator that hands
+ * out numbers to several nodes in blocks should not be used.
+ * <p>
+ * For delta requests to stay cheap the change log table needs an index on
+ * entity set name and sequence number. JPA 2.0 cannot declare indexes, so the
+ * index has to be created with the schema, for example with
+ * <code>CREATE INDEX ... ON ... (ENTITY_SET_NAME, SEQUENCE_NUMBER)</code>, or with
+ * <code>@Table(indexes = @Index(columnList = "ENTITY_SET_NAME, SEQUENCE_NUMBER"))</code>
+ * on the entity class where JPA 2.1 is available.
+ * @see ODataJPAChangeLogEntityListener
+ */
+@MappedSuperclass
+public abstract class ODataJPAChangeLogEntry {
+
+  @Id
+  @GeneratedValue
+  @Column(name = "SEQUENCE_NUMBER")
+  private long sequenceNumber;
+
+  @Column(name = "ENTITY_SET_NAME", nullable = false)
+  private String entitySetName;
+
+  @Column(name = "ENTITY_KEY", nullable = false)
+  private String entityKey;
+
+  @Column(name = "DELETED")
+  private boolean deleted;
+
+  public long getSequenceNumber() {
+    return sequenceNumber;
+  }
+
+  public void setSequenceNumber(final long sequenceNumber) {
+    this.sequenceNumber = sequenceNumber;
+  }
+
+  public String getEntitySetName() {
+    return entitySetName;
+  }
+
+  public void setEntitySetName(final String entitySetName) {
+    this.entitySetName = entitySetName;
+  }
+
+  /**
+   * @return the key of the changed entity; the key property values in their
+   * default literal representation, URL encoded and separated by commas
+   */
+  public String getEntityKey() {
+    return entityKey;
+  }
+
+  public void setEntityKey(final String entityKey) {
+    this.entityKey = entityKey;
+  }
+
+  public boolean isDeleted() {
+    return deleted;
+  }
+
+  public void setDeleted(final boolean deleted) {
+    this.deleted = deleted;
+  }
+}
@@ -233,4 +233,50 @@ public interface ODataJPAContext {
     * @return ODataJPATransaction
     */
    public ODataJPATransaction getODataJPATransaction();
+
+  /**
+   * The method sets the number of requests of a change set after which the
+   * persistence context is flushed and cleared. Within a change set, changes
+   * are otherwise only flushed on commit, so that the JPA provider can write
+   * them in JDBC batches.
+   * @param size is the number of requests; 0 (default) flushes on commit only
+   */
+  public void setChangeSetFlushSize(int size);
+
+  /**
+   * The method returns the number of requests of a change set after which the
+   * persistence context is flushed and cleared.
+   * @return the flush size; 0 if changes are flushed on commit only
+   */
+  public int getChangeSetFlushSize();
+
+  /**
+   * The method sets the number of JPA entities fetched at a time when an entity
+   * set is read without server side paging (page size 0). The result is then
+   * not loaded as a whole; it is read in chunks of the given size while the
+   * feed is written, and the persistence context is cleared between chunks.
+   * Streaming is not used for requests with $inlinecount or delta tokens.
+   * @param size is the number of entities per chunk; 0 (default) reads the
+   * complete result at once
+   */
+  public void setStreamingFetchSize(int size);
+
+  /**
+   * The method returns the number of JPA entities fetched at a time when an
+   * entity set is read without server side paging.
+   * @return the fetch size; 0 if the complete result is read at once
+   */
+  public int getStreamingFetchSize();
+
+  /**
+   * The method sets the read cache used for requests reading a single entity by key.
+   * @param readCache is the read cache; null (default) disables caching
+   */
+  public void setReadCache(ODataJPAReadCache readCache);
+
+  /**
+   * The method returns the read cache used for requests reading a single entity by key.
+   * @return the read cache or null if caching is disabled
+   */
+  public ODataJPAReadCache getReadCache();
 }
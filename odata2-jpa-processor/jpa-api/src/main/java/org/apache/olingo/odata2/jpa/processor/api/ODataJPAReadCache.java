@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.api;
+
+import java.util.Map;
+
+/**
+ * Interface for a read cache of the OData JPA Processor Library. A read cache
+ * holds entities of requests reading a single entity by key, already converted
+ * into EDM property values, so that repeated reads do not reach the entity
+ * manager. The library invalidates entries of entities it updates or deletes,
+ * again after the transaction was committed if the transaction was begun by the
+ * caller and implements {@link ODataJPASynchronizedTransaction}, or if it is the
+ * transaction of a change set.
+ * <p>
+ * The cache is shared by all requests and has to be thread safe. It is set into
+ * the context with {@link ODataJPAContext#setReadCache(ODataJPAReadCache)}.
+ * Requests with $select, $expand or navigation are not cached.
+ */
+public interface ODataJPAReadCache {
+
+  /**
+   * implement the lookup of an entity
+   * @param entitySetName is the name of the entity set
+   * @param key is the key of the entity
+   * @return the EDM property values of the entity or null if the entity is not cached
+   */
+  public Map<String, Object> get(String entitySetName, String key);
+
+  /**
+   * implement the lookup of the generation of an entity set; the generation has
+   * to change whenever entities of the entity set are invalidated
+   * @param entitySetName is the name of the entity set
+   * @return the generation
+   */
+  public long getGeneration(String entitySetName);
+
+  /**
+   * implement the caching of an entity; the entity must not be cached if the
+   * entity set was invalidated since the given generation, as it may then have
+   * been read before a change
+   * @param entitySetName is the name of the entity set
+   * @param key is the key of the entity
+   * @param edmEntity is a map of EDM property names and values; it is not modified afterwards
+   * @param generation is the generation of the entity set read before the entity
+   */
+  public void put(String entitySetName, String key, Map<String, Object> edmEntity, long generation);
+
+  /**
+   * implement the invalidation of an entity
+   * @param entitySetName is the name of the entity set
+   * @param key is the key of the entity; null to invalidate all entities of the entity set
+   */
+  public void invalidate(String entitySetName, String key);
+}
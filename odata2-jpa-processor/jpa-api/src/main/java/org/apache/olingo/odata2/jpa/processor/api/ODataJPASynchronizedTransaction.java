@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.api;
+
+/**
+ * Optional interface of an {@link ODataJPATransaction} which runs actions after
+ * the active transaction has been committed. The OData JPA Processor Library
+ * uses it to invalidate the entries of the {@link ODataJPAReadCache} only when
+ * changes made in a transaction begun by the caller are visible to other readers.
+ * Without it, such entries are invalidated when the change is made.
+ *
+ */
+public interface ODataJPASynchronizedTransaction extends ODataJPATransaction {
+
+  /**
+   * Registers an action to be run once the active transaction has been
+   * committed. The action is discarded if the transaction is rolled back.
+   * @param action is the action
+   */
+  public void afterCommit(Runnable action);
+}
@@ -21,6 +21,7 @@ package org.apache.olingo.odata2.jpa.processor.api;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class provides a thread safe container for accessing Tombstone objects
@@ -32,6 +33,8 @@ public final class ODataJPATombstoneContext {
   private static final ThreadLocal<Long> deltaTokenUTCTimeStamp = new ThreadLocal<Long>();
   private static final ThreadLocal<HashMap<String, List<Object>>> deltas =
       new ThreadLocal<HashMap<String, List<Object>>>();
+  private static final ThreadLocal<HashMap<String, List<Map<String, Object>>>> deletedEntries =
+      new ThreadLocal<HashMap<String, List<Map<String, Object>>>>();
 
   public static String getDeltaToken() {
     return deltaToken.get();
@@ -62,8 +65,30 @@ public final class ODataJPATombstoneContext {
     }
   }
 
+  public static void addToDeletedEntries(final Map<String, Object> keyValues, final String entitySetName) {
+    HashMap<String, List<Map<String, Object>>> entityDeletedMap = deletedEntries.get();
+    if (entityDeletedMap == null) {
+      entityDeletedMap = new HashMap<String, List<Map<String, Object>>>();
+      deletedEntries.set(entityDeletedMap);
+    }
+    if (entityDeletedMap.get(entitySetName) == null) {
+      entityDeletedMap.put(entitySetName, new ArrayList<Map<String, Object>>());
+    }
+    entityDeletedMap.get(entitySetName).add(keyValues);
+  }
+
+  public static List<Map<String, Object>> getDeletedEntries(final String entitySetName) {
+    HashMap<String, List<Map<String, Object>>> entityDeletedMap = deletedEntries.get();
+    if (entityDeletedMap != null) {
+      return entityDeletedMap.get(entitySetName);
+    } else {
+      return null;
+    }
+  }
+
   public static void cleanup() {
     deltas.remove();
+    deletedEntries.remove();
     deltaToken.remove();
     deltaTokenUTCTimeStamp.remove();
   }
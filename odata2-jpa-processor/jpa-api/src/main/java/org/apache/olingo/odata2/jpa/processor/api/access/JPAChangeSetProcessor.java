@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.api.access;
+
+import java.util.List;
+
+import org.apache.olingo.odata2.api.uri.info.PutMergePatchUriInfo;
+import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPAModelException;
+import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
+
+/**
+ * Optional interface of a {@link JPAProcessor} which processes the requests of a
+ * change set in bulk. The OData JPA processor checks whether its JPA processor
+ * implements this interface before a change set is processed.
+ * 
+ */
+public interface JPAChangeSetProcessor {
+
+  /**
+   * Loads the JPA entities addressed by the update requests of a change set with
+   * one query per entity set. Subsequent update requests for these entities are
+   * then processed without reading the entity again.
+   * 
+   * @param updateViews
+   * OData requests for updating entities
+   * 
+   * @throws ODataJPARuntimeException
+   * @throws ODataJPAModelException
+   */
+  public void prefetch(List<PutMergePatchUriInfo> updateViews)
+      throws ODataJPARuntimeException, ODataJPAModelException;
+}
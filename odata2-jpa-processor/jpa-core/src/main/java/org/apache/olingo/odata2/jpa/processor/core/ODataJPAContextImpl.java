@@ -25,6 +25,7 @@ import org.apache.olingo.odata2.api.edm.provider.EdmProvider;
 import org.apache.olingo.odata2.api.processor.ODataContext;
 import org.apache.olingo.odata2.api.processor.ODataProcessor;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAReadCache;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPATransaction;
 import org.apache.olingo.odata2.jpa.processor.api.access.JPAPaging;
 import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmExtension;
@@ -40,6 +41,9 @@ public class ODataJPAContextImpl implements ODataJPAContext {
   private String jpaEdmMappingModelName;
   private JPAEdmExtension jpaEdmExtension;
   private int pageSize = 0;
+  private int changeSetFlushSize = 0;
+  private int streamingFetchSize = 0;
+  private ODataJPAReadCache readCache;
   private JPAPaging jpaPaging;
   private static final ThreadLocal<ODataContext> oDataContextThreadLocal = new ThreadLocal<ODataContext>();
   private boolean defaultNaming = true;
@@ -179,4 +183,34 @@ public class ODataJPAContextImpl implements ODataJPAContext {
     }
     return transaction;
   }
+
+  @Override
+  public void setChangeSetFlushSize(final int size) {
+    changeSetFlushSize = size;
+  }
+
+  @Override
+  public int getChangeSetFlushSize() {
+    return changeSetFlushSize;
+  }
+
+  @Override
+  public void setStreamingFetchSize(final int size) {
+    streamingFetchSize = size;
+  }
+
+  @Override
+  public int getStreamingFetchSize() {
+    return streamingFetchSize;
+  }
+
+  @Override
+  public void setReadCache(final ODataJPAReadCache readCache) {
+    this.readCache = readCache;
+  }
+
+  @Override
+  public ODataJPAReadCache getReadCache() {
+    return readCache;
+  }
 }
@@ -18,20 +18,33 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.jpa.processor.core;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
 
 import org.apache.olingo.odata2.api.batch.BatchHandler;
 import org.apache.olingo.odata2.api.batch.BatchRequestPart;
 import org.apache.olingo.odata2.api.batch.BatchResponsePart;
+import org.apache.olingo.odata2.api.commons.HttpContentType;
 import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
+import org.apache.olingo.odata2.api.edm.Edm;
 import org.apache.olingo.odata2.api.ep.EntityProvider;
 import org.apache.olingo.odata2.api.ep.EntityProviderBatchProperties;
 import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.processor.ODataErrorContext;
 import org.apache.olingo.odata2.api.processor.ODataRequest;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
 import org.apache.olingo.odata2.api.uri.PathInfo;
+import org.apache.olingo.odata2.api.uri.PathSegment;
+import org.apache.olingo.odata2.api.uri.UriInfo;
+import org.apache.olingo.odata2.api.uri.UriParser;
 import org.apache.olingo.odata2.api.uri.info.DeleteUriInfo;
 import org.apache.olingo.odata2.api.uri.info.GetEntityCountUriInfo;
 import org.apache.olingo.odata2.api.uri.info.GetEntityLinkUriInfo;
@@ -44,7 +57,15 @@ import org.apache.olingo.odata2.api.uri.info.PostUriInfo;
 import org.apache.olingo.odata2.api.uri.info.PutMergePatchUriInfo;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAProcessor;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAReadCache;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPASynchronizedTransaction;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPATombstoneContext;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPATransaction;
+import org.apache.olingo.odata2.jpa.processor.api.access.JPAChangeSetProcessor;
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPAException;
+import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
+import org.apache.olingo.odata2.jpa.processor.core.access.data.JPACachedEntity;
+import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAResultStream;
 
 public class ODataJPAProcessorDefault extends ODataJPAProcessor {
 
@@ -59,13 +80,24 @@ public class ODataJPAProcessorDefault extends ODataJPAProcessor {
   public ODataResponse readEntitySet(final GetEntitySetUriInfo uriParserResultView, final String contentType)
       throws ODataException {
     ODataResponse oDataResponse = null;
+    boolean streamed = false;
     try {
       oDataJPAContext.setODataContext(getContext());
       List<Object> jpaEntities = jpaProcessor.process(uriParserResultView);
       oDataResponse =
           responseBuilder.build(uriParserResultView, jpaEntities, contentType);
+      if (jpaEntities instanceof JPAResultStream && oDataResponse.getEntity() instanceof InputStream) {
+        // the entities are read while the response is written; the entity manager is closed with the response
+        oDataResponse = ODataResponse.fromResponse(oDataResponse)
+            .entity(new ClosingInputStream((InputStream) oDataResponse.getEntity())).build();
+        streamed = true;
+      }
     } finally {
-      close();
+      if (streamed) {
+        ODataJPATombstoneContext.cleanup();
+      } else {
+        close();
+      }
     }
     return oDataResponse;
   }
@@ -76,7 +108,10 @@ public class ODataJPAProcessorDefault extends ODataJPAProcessor {
     ODataResponse oDataResponse = null;
     try {
       oDataJPAContext.setODataContext(getContext());
-      Object jpaEntity = jpaProcessor.process(uriParserResultView);
+      Object jpaEntity = readCachedEntity(uriParserResultView);
+      if (jpaEntity == null) {
+        jpaEntity = jpaProcessor.process(uriParserResultView);
+      }
       oDataResponse =
           responseBuilder.build(uriParserResultView, jpaEntity, contentType);
     } finally {
@@ -278,25 +313,56 @@ public class ODataJPAProcessorDefault extends ODataJPAProcessor {
   public BatchResponsePart executeChangeSet(final BatchHandler handler, final List<ODataRequest> requests)
       throws ODataException {
     List<ODataResponse> responses = new ArrayList<ODataResponse>();
+    ODataJPATransaction transaction = null;
     try {
-      oDataJPAContext.getODataJPATransaction().begin();
+      oDataJPAContext.setODataContext(getContext());
+      transaction = oDataJPAContext.getODataJPATransaction();
+      transaction.begin();
 
+      // entities to be updated are read with one query per entity set
+      if (jpaProcessor instanceof JPAChangeSetProcessor) {
+        ((JPAChangeSetProcessor) jpaProcessor).prefetch(getUpdateViews(requests));
+      }
+
+      int flushSize = oDataJPAContext.getChangeSetFlushSize();
+      int pendingRequests = 0;
       for (ODataRequest request : requests) {
         oDataJPAContext.setODataContext(getContext());
         ODataResponse response = handler.handleRequest(request);
         if (response.getStatus().getStatusCode() >= HttpStatusCodes.BAD_REQUEST.getStatusCode()) {
           // Rollback
-          oDataJPAContext.getODataJPATransaction().rollback();
+          transaction.rollback();
           List<ODataResponse> errorResponses = new ArrayList<ODataResponse>(1);
           errorResponses.add(response);
           return BatchResponsePart.responses(errorResponses).changeSet(false).build();
         }
         responses.add(response);
+
+        if (flushSize > 0 && ++pendingRequests >= flushSize) {
+          flushChangeSet(true);
+          pendingRequests = 0;
+        }
+      }
+      // deferred changes are written before the commit so that failures are reported as errors
+      flushChangeSet(false);
+      transaction.commit();
+      if (!(transaction instanceof ODataJPASynchronizedTransaction)) {
+        invalidateReadCache(requests);
       }
-      oDataJPAContext.getODataJPATransaction().commit();
 
       return BatchResponsePart.responses(responses).changeSet(true).build();
+    } catch (ODataJPARuntimeException e) {
+      if (transaction != null && transaction.isActive()) {
+        transaction.rollback();
+      }
+
+      List<ODataResponse> errorResponses = new ArrayList<ODataResponse>(1);
+      errorResponses.add(createErrorResponse(e));
+      return BatchResponsePart.responses(errorResponses).changeSet(false).build();
     } catch (Exception e) {
+      if (transaction != null && transaction.isActive()) {
+        transaction.rollback();
+      }
 
       List<ODataResponse> errorResponses = new ArrayList<ODataResponse>(1);
       errorResponses.add(ODataResponse.entity(e).status(HttpStatusCodes.INTERNAL_SERVER_ERROR).build());
@@ -305,4 +371,124 @@ public class ODataJPAProcessorDefault extends ODataJPAProcessor {
       close(true);
     }
   }
-}
\ No newline at end of file
+
+  /*
+   * Update requests of a change set are not flushed individually. Violated constraints are therefore
+   * only detected here and reported like a failed update request.
+   */
+  private void flushChangeSet(final boolean clear) throws ODataJPARuntimeException {
+    EntityManager em = oDataJPAContext.getEntityManager();
+    try {
+      em.flush();
+    } catch (PersistenceException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.ERROR_JPQL_UPDATE_REQUEST, e);
+    }
+    if (clear) {
+      em.clear();
+    }
+  }
+
+  private ODataResponse createErrorResponse(final ODataJPARuntimeException exception) {
+    ODataErrorContext errorContext = new ODataErrorContext();
+    errorContext.setContentType(HttpContentType.APPLICATION_XML);
+    errorContext.setHttpStatus(HttpStatusCodes.INTERNAL_SERVER_ERROR);
+    errorContext.setException(exception);
+    errorContext.setMessage(exception.getMessage());
+    ODataResponse response = EntityProvider.writeErrorDocument(errorContext);
+    return ODataResponse.fromResponse(response).contentHeader(HttpContentType.APPLICATION_XML_UTF8).build();
+  }
+
+  /*
+   * The read cache holds the EDM property values of entities, which only the default response builder
+   * can write. On a cache miss the generation of the entity set is remembered before the entity is read,
+   * so that the response builder does not cache an entity invalidated meanwhile.
+   */
+  private Object readCachedEntity(final GetEntityUriInfo uriParserResultView) throws ODataException {
+    ODataJPAReadCache readCache = oDataJPAContext.getReadCache();
+    if (readCache == null || !(responseBuilder instanceof ODataJPAResponseBuilderDefault)
+        || !JPACachedEntity.isCacheable((UriInfo) uriParserResultView)) {
+      return null;
+    }
+    String entitySetName = uriParserResultView.getTargetEntitySet().getName();
+    Map<String, Object> edmEntity =
+        readCache.get(entitySetName, JPACachedEntity.getCacheKey((UriInfo) uriParserResultView));
+    if (edmEntity != null) {
+      return new JPACachedEntity(edmEntity);
+    }
+    JPACachedEntity.setGeneration(oDataJPAContext.getODataContext(), readCache.getGeneration(entitySetName));
+    return null;
+  }
+
+  private List<PutMergePatchUriInfo> getUpdateViews(final List<ODataRequest> requests) throws ODataException {
+    List<PutMergePatchUriInfo> updateViews = new ArrayList<PutMergePatchUriInfo>();
+    for (UriInfo uriInfo : getChangeViews(requests, false)) {
+      updateViews.add((PutMergePatchUriInfo) uriInfo);
+    }
+    return updateViews;
+  }
+
+  /*
+   * Entities changed by a change set are invalidated when the request is handled, but a concurrent
+   * read can still cache the old entity until the transaction is committed. Synchronized transactions
+   * invalidate them after the commit themselves.
+   */
+  private void invalidateReadCache(final List<ODataRequest> requests) throws ODataException {
+    ODataJPAReadCache readCache = oDataJPAContext.getReadCache();
+    if (readCache == null) {
+      return;
+    }
+    for (UriInfo uriInfo : getChangeViews(requests, true)) {
+      readCache.invalidate(uriInfo.getTargetEntitySet().getName(), JPACachedEntity.getCacheKey(uriInfo));
+    }
+  }
+
+  private List<UriInfo> getChangeViews(final List<ODataRequest> requests, final boolean withDeletes)
+      throws ODataException {
+    List<UriInfo> changeViews = new ArrayList<UriInfo>();
+    Edm edm = getContext().getService().getEntityDataModel();
+    for (ODataRequest request : requests) {
+      ODataHttpMethod method = request.getMethod();
+      if (method != ODataHttpMethod.PUT && method != ODataHttpMethod.PATCH && method != ODataHttpMethod.MERGE
+          && !(withDeletes && method == ODataHttpMethod.DELETE)) {
+        continue;
+      }
+      List<PathSegment> pathSegments = request.getPathInfo().getODataSegments();
+      // requests referring to a Content-ID address entities created within the change set
+      if (pathSegments.isEmpty() || pathSegments.get(0).getPath().startsWith("$")) {
+        continue;
+      }
+      try {
+        changeViews.add(UriParser.parse(edm, pathSegments, request.getQueryParameters()));
+      } catch (ODataException e) {
+        // invalid requests are reported when the request itself is handled
+        continue;
+      }
+    }
+    return changeViews;
+  }
+
+  /**
+   * Entity of a streamed feed; closes the entity manager when the response has been written.
+   */
+  private class ClosingInputStream extends FilterInputStream {
+
+    private boolean closed;
+
+    public ClosingInputStream(final InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        super.close();
+      } finally {
+        ODataJPAProcessorDefault.this.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAReadCache;
+
+/**
+ * Default read cache. Only entity sets registered with
+ * {@link #addEntitySet(String, int, long)} are cached; each of them with its own
+ * maximum number of entities and time to live. When an entity set is full, the
+ * least recently used entity is removed. Hits and misses are counted per entity set.
+ * Every invalidation starts a new generation of its entity set; entities read in
+ * an earlier generation are not cached.
+ */
+public class ODataJPAReadCacheDefault implements ODataJPAReadCache {
+
+  private final Map<String, EntitySetCache> entitySets = new ConcurrentHashMap<String, EntitySetCache>();
+
+  /**
+   * Registers an entity set for caching.
+   * @param entitySetName is the name of the entity set
+   * @param maxSize is the maximum number of cached entities
+   * @param timeToLive is the time in milliseconds an entity is cached; 0 for no expiry
+   */
+  public void addEntitySet(final String entitySetName, final int maxSize, final long timeToLive) {
+    entitySets.put(entitySetName, new EntitySetCache(maxSize, timeToLive));
+  }
+
+  @Override
+  public Map<String, Object> get(final String entitySetName, final String key) {
+    EntitySetCache cache = entitySets.get(entitySetName);
+    return cache == null ? null : cache.get(key);
+  }
+
+  @Override
+  public long getGeneration(final String entitySetName) {
+    EntitySetCache cache = entitySets.get(entitySetName);
+    return cache == null ? 0 : cache.getGeneration();
+  }
+
+  @Override
+  public void put(final String entitySetName, final String key, final Map<String, Object> edmEntity,
+      final long generation) {
+    EntitySetCache cache = entitySets.get(entitySetName);
+    if (cache != null) {
+      cache.put(key, edmEntity, generation);
+    }
+  }
+
+  @Override
+  public void invalidate(final String entitySetName, final String key) {
+    EntitySetCache cache = entitySets.get(entitySetName);
+    if (cache != null) {
+      cache.invalidate(key);
+    }
+  }
+
+  /**
+   * @param entitySetName is the name of the entity set
+   * @return the number of reads of the entity set answered from the cache
+   */
+  public long getHitCount(final String entitySetName) {
+    EntitySetCache cache = entitySets.get(entitySetName);
+    return cache == null ? 0 : cache.hits.get();
+  }
+
+  /**
+   * @param entitySetName is the name of the entity set
+   * @return the number of reads of the entity set not answered from the cache
+   */
+  public long getMissCount(final String entitySetName) {
+    EntitySetCache cache = entitySets.get(entitySetName);
+    return cache == null ? 0 : cache.misses.get();
+  }
+
+  /**
+   * @param entitySetName is the name of the entity set
+   * @return the share of reads of the entity set answered from the cache; 0 if there were no reads
+   */
+  public double getHitRate(final String entitySetName) {
+    long hits = getHitCount(entitySetName);
+    long reads = hits + getMissCount(entitySetName);
+    return reads == 0 ? 0 : (double) hits / reads;
+  }
+
+  private static class EntitySetCache {
+
+    private final int maxSize;
+    private final long timeToLive;
+    private final LinkedHashMap<String, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long generation;
+
+    public EntitySetCache(final int maxSize, final long timeToLive) {
+      this.maxSize = maxSize;
+      this.timeToLive = timeToLive;
+      entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    }
+
+    public Map<String, Object> get(final String key) {
+      Entry entry;
+      synchronized (entries) {
+        entry = entries.get(key);
+        if (entry != null && entry.isExpired()) {
+          entries.remove(key);
+          entry = null;
+        }
+      }
+      if (entry == null) {
+        misses.incrementAndGet();
+        return null;
+      }
+      hits.incrementAndGet();
+      return new HashMap<String, Object>(entry.edmEntity);
+    }
+
+    public long getGeneration() {
+      synchronized (entries) {
+        return generation;
+      }
+    }
+
+    public void put(final String key, final Map<String, Object> edmEntity, final long readGeneration) {
+      Entry entry = new Entry(new HashMap<String, Object>(edmEntity),
+          timeToLive > 0 ? System.currentTimeMillis() + timeToLive : Long.MAX_VALUE);
+      synchronized (entries) {
+        if (readGeneration != generation) {
+          return;
+        }
+        entries.put(key, entry);
+        Iterator<String> eldest = entries.keySet().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+          eldest.next();
+          eldest.remove();
+        }
+      }
+    }
+
+    public void invalidate(final String key) {
+      synchronized (entries) {
+        generation++;
+        if (key == null) {
+          entries.clear();
+        } else {
+          entries.remove(key);
+        }
+      }
+    }
+  }
+
+  private static class Entry {
+
+    private final Map<String, Object> edmEntity;
+    private final long expiry;
+
+    public Entry(final Map<String, Object> edmEntity, final long expiry) {
+      this.edmEntity = edmEntity;
+      this.expiry = expiry;
+    }
+
+    public boolean isExpired() {
+      return System.currentTimeMillis() > expiry;
+    }
+  }
+}
@@ -19,8 +19,10 @@
 package org.apache.olingo.odata2.jpa.processor.core;
 
 import java.net.URI;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -53,6 +55,7 @@ import org.apache.olingo.odata2.api.uri.ExpandSelectTreeNode;
 import org.apache.olingo.odata2.api.uri.NavigationPropertySegment;
 import org.apache.olingo.odata2.api.uri.PathInfo;
 import org.apache.olingo.odata2.api.uri.SelectItem;
+import org.apache.olingo.odata2.api.uri.UriInfo;
 import org.apache.olingo.odata2.api.uri.UriParser;
 import org.apache.olingo.odata2.api.uri.info.DeleteUriInfo;
 import org.apache.olingo.odata2.api.uri.info.GetEntityLinkUriInfo;
@@ -63,11 +66,14 @@ import org.apache.olingo.odata2.api.uri.info.GetFunctionImportUriInfo;
 import org.apache.olingo.odata2.api.uri.info.PostUriInfo;
 import org.apache.olingo.odata2.api.uri.info.PutMergePatchUriInfo;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAReadCache;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAResponseBuilder;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPATombstoneContext;
 import org.apache.olingo.odata2.jpa.processor.api.access.JPAPaging;
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
+import org.apache.olingo.odata2.jpa.processor.core.access.data.JPACachedEntity;
 import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAEntityParser;
+import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAResultStream;
 import org.apache.olingo.odata2.jpa.processor.core.callback.JPAExpandCallBack;
 import org.apache.olingo.odata2.jpa.processor.core.callback.JPATombstoneCallBack;
 
@@ -93,14 +99,20 @@ public final class ODataJPAResponseBuilderDefault implements ODataJPAResponseBui
       List<Map<String, Object>> edmEntityList = null;
       JPAEntityParser jpaResultParser = new JPAEntityParser();
       final List<SelectItem> selectedItems = resultsView.getSelect();
-      if (selectedItems != null && selectedItems.size() > 0) {
+      expandList = resultsView.getExpand();
+      if (jpaEntities instanceof JPAResultStream) {
+        List<EdmProperty> properties = selectedItems != null && selectedItems.size() > 0 ?
+            buildSelectItemList(selectedItems, edmEntityType) : getEdmProperties(edmEntityType);
+        List<EdmNavigationProperty> edmNavPropertyList = expandList != null && expandList.size() != 0 ?
+            constructListofNavProperty(expandList) : null;
+        edmEntityList = new EdmEntityStream((JPAResultStream) jpaEntities, properties, edmNavPropertyList);
+      } else if (selectedItems != null && selectedItems.size() > 0) {
         edmEntityList =
             jpaResultParser.parse2EdmEntityList(jpaEntities, buildSelectItemList(selectedItems, edmEntityType));
       } else {
         edmEntityList = jpaResultParser.parse2EdmEntityList(jpaEntities, edmEntityType);
       }
-      expandList = resultsView.getExpand();
-      if (expandList != null && expandList.size() != 0) {
+      if (expandList != null && expandList.size() != 0 && !(jpaEntities instanceof JPAResultStream)) {
         int count = 0;
         List<EdmNavigationProperty> edmNavPropertyList = constructListofNavProperty(expandList);
         for (Object jpaEntity : jpaEntities) {
@@ -115,6 +127,9 @@ public final class ODataJPAResponseBuilderDefault implements ODataJPAResponseBui
       EntityProviderWriteProperties feedProperties = null;
 
       feedProperties = getEntityProviderProperties(oDataJPAContext, resultsView, edmEntityList);
+      if (jpaEntities instanceof JPAResultStream) {
+        feedProperties = EntityProviderWriteProperties.fromProperties(feedProperties).streamFeed(true).build();
+      }
       odataResponse =
           EntityProvider.writeFeed(contentType, resultsView.getTargetEntitySet(), edmEntityList, feedProperties);
       odataResponse = ODataResponse.fromResponse(odataResponse).status(HttpStatusCodes.OK).build();
@@ -148,12 +163,22 @@ public final class ODataJPAResponseBuilderDefault implements ODataJPAResponseBui
 
       JPAEntityParser jpaResultParser = new JPAEntityParser();
       final List<SelectItem> selectedItems = resultsView.getSelect();
-      if (selectedItems != null && selectedItems.size() > 0) {
+      if (jpaEntity instanceof JPACachedEntity) {
+        edmPropertyValueMap = ((JPACachedEntity) jpaEntity).getEdmEntity();
+      } else if (selectedItems != null && selectedItems.size() > 0) {
         edmPropertyValueMap =
             jpaResultParser.parse2EdmPropertyValueMap(jpaEntity, buildSelectItemList(selectedItems, resultsView
                 .getTargetEntitySet().getEntityType()));
       } else {
         edmPropertyValueMap = jpaResultParser.parse2EdmPropertyValueMap(jpaEntity, edmEntityType);
+        ODataJPAReadCache readCache = oDataJPAContext.getReadCache();
+        if (readCache != null && JPACachedEntity.isCacheable((UriInfo) resultsView)) {
+          Long generation = JPACachedEntity.removeGeneration(oDataJPAContext.getODataContext());
+          if (generation != null) {
+            readCache.put(resultsView.getTargetEntitySet().getName(),
+                JPACachedEntity.getCacheKey((UriInfo) resultsView), edmPropertyValueMap, generation);
+          }
+        }
       }
 
       expandList = resultsView.getExpand();
@@ -522,7 +547,8 @@ public final class ODataJPAResponseBuilderDefault implements ODataJPAResponseBui
       String deltaToken = ODataJPATombstoneContext.getDeltaToken();
       if (deltaToken != null) {
         callBackMap.put(TombstoneCallback.CALLBACK_KEY_TOMBSTONE, new JPATombstoneCallBack(serviceRoot.toString(),
-            resultsView, deltaToken));
+            resultsView, deltaToken,
+            ODataJPATombstoneContext.getDeletedEntries(resultsView.getTargetEntitySet().getName())));
       }
 
       entityFeedPropertiesBuilder.callbacks(callBackMap);
@@ -662,4 +688,80 @@ public final class ODataJPAResponseBuilderDefault implements ODataJPAResponseBui
     return edmProperties;
   }
 
+  /**
+   * Feed data of a {@link JPAResultStream}. Each JPA entity is converted when the
+   * feed writer reaches it, so that the converted entries are not held all at once.
+   * Like the JPA result, the list can only be iterated.
+   */
+  private static class EdmEntityStream extends AbstractList<Map<String, Object>> {
+
+    private final JPAResultStream jpaEntities;
+    private final List<EdmProperty> properties;
+    private final List<EdmNavigationProperty> navigationProperties;
+    private final JPAEntityParser jpaResultParser = new JPAEntityParser();
+
+    public EdmEntityStream(final JPAResultStream jpaEntities, final List<EdmProperty> properties,
+        final List<EdmNavigationProperty> navigationProperties) {
+      this.jpaEntities = jpaEntities;
+      this.properties = properties;
+      this.navigationProperties = navigationProperties;
+    }
+
+    @Override
+    public Iterator<Map<String, Object>> iterator() {
+      final Iterator<Object> iterator = jpaEntities.iterator();
+      return new Iterator<Map<String, Object>>() {
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public Map<String, Object> next() {
+          return parse(iterator.next());
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    @Override
+    public Map<String, Object> get(final int index) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int size() {
+      throw new UnsupportedOperationException();
+    }
+
+    private Map<String, Object> parse(final Object jpaEntity) {
+      try {
+        HashMap<String, Object> edmEntity = jpaResultParser.parse2EdmPropertyValueMap(jpaEntity, properties);
+        if (navigationProperties != null) {
+          edmEntity.putAll(jpaResultParser.parse2EdmNavigationValueMap(jpaEntity, navigationProperties));
+        }
+        return edmEntity;
+      } catch (ODataJPARuntimeException e) {
+        throw new EdmEntityStreamException(e);
+      }
+    }
+  }
+
+  /**
+   * Carries a conversion error out of the feed iteration; the streamed feed reports it
+   * as the cause of the I/O error which aborts the response.
+   */
+  private static class EdmEntityStreamException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public EdmEntityStreamException(final ODataJPARuntimeException cause) {
+      super(cause);
+    }
+
+  }
 }
@@ -18,14 +18,18 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.jpa.processor.core;
 
-import org.apache.olingo.odata2.jpa.processor.api.ODataJPATransaction;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPASynchronizedTransaction;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 
-public class ODataJPATransactionLocalDefault implements ODataJPATransaction {
+public class ODataJPATransactionLocalDefault implements ODataJPASynchronizedTransaction {
 
   private EntityTransaction tx = null;
+  private final List<Runnable> afterCommitActions = new ArrayList<Runnable>();
 
   public ODataJPATransactionLocalDefault(EntityManager em) {
     this.tx = em.getTransaction();
@@ -41,13 +45,24 @@ public class ODataJPATransactionLocalDefault implements ODataJPATransaction {
   @Override
   public void commit() {
     tx.commit();
+    List<Runnable> actions = new ArrayList<Runnable>(afterCommitActions);
+    afterCommitActions.clear();
+    for (Runnable action : actions) {
+      action.run();
+    }
   }
 
   @Override
   public void rollback() {
+    afterCommitActions.clear();
     tx.rollback();
   }
 
+  @Override
+  public void afterCommit(final Runnable action) {
+    afterCommitActions.add(action);
+  }
+
   @Override
   public boolean isActive() {
     return tx.isActive();
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.processor.ODataContext;
+import org.apache.olingo.odata2.api.uri.KeyPredicate;
+import org.apache.olingo.odata2.api.uri.UriInfo;
+import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
+
+/**
+ * An entity read from the {@link org.apache.olingo.odata2.jpa.processor.api.ODataJPAReadCache}
+ * instead of the entity manager. It holds the EDM property values of the entity and is only
+ * passed from the OData JPA processor to the default response builder; the JPA processor
+ * always returns JPA entities.
+ */
+public class JPACachedEntity {
+
+  private static final String KEY_SEPARATOR = ",";
+  private static final String KEY_ENCODING = "UTF-8";
+  private static final String GENERATION = JPACachedEntity.class.getName() + ".generation";
+
+  private final Map<String, Object> edmEntity;
+
+  public JPACachedEntity(final Map<String, Object> edmEntity) {
+    this.edmEntity = edmEntity;
+  }
+
+  public Map<String, Object> getEdmEntity() {
+    return edmEntity;
+  }
+
+  /**
+   * Returns the cache key of the entity addressed by the request.
+   * @param uriInfo is the request
+   * @return the key predicate literals in key property order, or null if the request
+   * does not address an entity of its start entity set by key
+   * @throws ODataJPARuntimeException
+   */
+  public static String getCacheKey(final UriInfo uriInfo) throws ODataJPARuntimeException {
+    try {
+      if (uriInfo.isLinks() || !uriInfo.getNavigationSegments().isEmpty() || uriInfo.getKeyPredicates() == null
+          || uriInfo.getKeyPredicates().isEmpty()) {
+        return null;
+      }
+      StringBuilder key = new StringBuilder();
+      for (EdmProperty keyProperty : uriInfo.getTargetEntitySet().getEntityType().getKeyProperties()) {
+        String literal = getLiteral(uriInfo.getKeyPredicates(), keyProperty);
+        if (literal == null) {
+          return null;
+        }
+        if (key.length() > 0) {
+          key.append(KEY_SEPARATOR);
+        }
+        key.append(URLEncoder.encode(literal, KEY_ENCODING));
+      }
+      return key.toString();
+    } catch (EdmException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    } catch (UnsupportedEncodingException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Remembers the generation of the read cache read before an entity is read from
+   * the entity manager, so that the entity can be cached when the response is built.
+   * @param context is the context of the request; nothing is remembered if it is null
+   * @param generation is the generation of the entity set
+   */
+  public static void setGeneration(final ODataContext context, final long generation) {
+    if (context != null) {
+      context.setParameter(GENERATION, generation);
+    }
+  }
+
+  /**
+   * Returns and forgets the generation remembered with {@link #setGeneration(ODataContext, long)}.
+   * @param context is the context of the request
+   * @return the generation or null if the entity must not be cached
+   */
+  public static Long removeGeneration(final ODataContext context) {
+    if (context == null || !(context.getParameter(GENERATION) instanceof Long)) {
+      return null;
+    }
+    Long generation = (Long) context.getParameter(GENERATION);
+    context.removeParameter(GENERATION);
+    return generation;
+  }
+
+  /**
+   * Checks if the result of a read request can be taken from or put into the read cache.
+   * @param uriInfo is the request
+   * @return true if the request reads all properties of an entity by key
+   * @throws ODataJPARuntimeException
+   */
+  public static boolean isCacheable(final UriInfo uriInfo) throws ODataJPARuntimeException {
+    return (uriInfo.getSelect() == null || uriInfo.getSelect().isEmpty())
+        && (uriInfo.getExpand() == null || uriInfo.getExpand().isEmpty())
+        && getCacheKey(uriInfo) != null;
+  }
+
+  private static String getLiteral(final List<KeyPredicate> keyPredicates, final EdmProperty keyProperty)
+      throws EdmException {
+    for (KeyPredicate keyPredicate : keyPredicates) {
+      if (keyPredicate.getProperty().getName().equals(keyProperty.getName())) {
+        return keyPredicate.getLiteral();
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmLiteralKind;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.edm.EdmSimpleType;
+import org.apache.olingo.odata2.api.exception.ODataBadRequestException;
+import org.apache.olingo.odata2.api.uri.KeyPredicate;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAChangeLogEntityListener;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAChangeLogEntry;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPATombstoneContext;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPATombstoneEntityListener;
+import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatement;
+import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmMapping;
+
+/**
+ * Writes and reads the change log of entity sets whose JPA entities are
+ * registered with an {@link ODataJPAChangeLogEntityListener}.
+ */
+public class JPAChangeLog {
+
+  private static final String LOG_ALIAS = "C1";
+  private static final String DELTA_TOKEN = "!deltatoken";
+  private static final String KEY_SEPARATOR = ",";
+  private static final String KEY_ENCODING = "UTF-8";
+  private static final int FETCH_SIZE = 100;
+
+  private final EntityManager em;
+
+  public JPAChangeLog(final EntityManager em) {
+    this.em = em;
+  }
+
+  /**
+   * Returns the change log listener of the entity set.
+   * @param entitySet is the entity set
+   * @return the listener or null if the entity set has no change log
+   * @throws ODataJPARuntimeException
+   */
+  public static ODataJPAChangeLogEntityListener getListener(final EdmEntitySet entitySet)
+      throws ODataJPARuntimeException {
+    try {
+      if (!(entitySet.getEntityType().getMapping() instanceof JPAEdmMapping)) {
+        return null;
+      }
+      ODataJPATombstoneEntityListener listener =
+          getTombstoneListener((JPAEdmMapping) entitySet.getEntityType().getMapping());
+      return listener instanceof ODataJPAChangeLogEntityListener ? (ODataJPAChangeLogEntityListener) listener : null;
+    } catch (EdmException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Creates the tombstone entity listener of a mapping. Listeners may keep state,
+   * so a new instance is created for every request.
+   * @param mapping is the mapping of the entity type
+   * @return the listener or null if the mapping has no listener
+   * @throws ODataJPARuntimeException
+   */
+  public static ODataJPATombstoneEntityListener getTombstoneListener(final JPAEdmMapping mapping)
+      throws ODataJPARuntimeException {
+    try {
+      return mapping.getODataJPATombstoneEntityListener() == null ? null
+          : mapping.getODataJPATombstoneEntityListener().newInstance();
+    } catch (InstantiationException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    } catch (IllegalAccessException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Writes a change log entry for a created, updated or deleted JPA entity. Nothing
+   * is written if the entity set has no change log.
+   * @param entitySet is the entity set of the JPA entity
+   * @param jpaEntity is the JPA entity
+   * @param deleted is true if the JPA entity was deleted
+   * @throws ODataJPARuntimeException
+   */
+  public void record(final EdmEntitySet entitySet, final Object jpaEntity, final boolean deleted)
+      throws ODataJPARuntimeException {
+    ODataJPAChangeLogEntityListener listener = getListener(entitySet);
+    if (listener == null) {
+      return;
+    }
+    try {
+      ODataJPAChangeLogEntry entry = listener.getChangeLogEntryClass().newInstance();
+      entry.setEntitySetName(entitySet.getName());
+      entry.setEntityKey(encodeKey(entitySet, jpaEntity));
+      entry.setDeleted(deleted);
+      em.persist(entry);
+    } catch (EdmException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    } catch (InstantiationException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    } catch (IllegalAccessException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Returns the sequence number of the latest committed change log entry as delta
+   * token. A delta read with this token returns the entries with a greater sequence
+   * number, see {@link #readChanges}.
+   * @param listener is the change log listener
+   * @return the delta token
+   */
+  public String getLatestDeltaToken(final ODataJPAChangeLogEntityListener listener) {
+    Query query = em.createQuery(JPQLStatement.KEYWORD.SELECT + JPQLStatement.DELIMITER.SPACE
+        + "MAX(" + LOG_ALIAS + ".sequenceNumber)" + JPQLStatement.DELIMITER.SPACE
+        + JPQLStatement.KEYWORD.FROM + JPQLStatement.DELIMITER.SPACE + getLogEntityName(listener)
+        + JPQLStatement.DELIMITER.SPACE + LOG_ALIAS);
+    Object latest = query.getSingleResult();
+    return latest == null ? "0" : latest.toString();
+  }
+
+  /**
+   * Reads the JPA entities of the entity set that were changed after the given
+   * delta token, up to and including the latest token. Entities deleted in that
+   * range are added to the deleted entries of the {@link ODataJPATombstoneContext}.
+   * @param entitySet is the entity set
+   * @param listener is the change log listener
+   * @param deltaToken is the delta token of the request
+   * @param latestDeltaToken is the delta token returned with the response
+   * @return the changed JPA entities
+   * @throws ODataJPARuntimeException if the delta token is invalid (caused by an
+   * {@link ODataBadRequestException})
+   */
+  public List<Object> readChanges(final EdmEntitySet entitySet, final ODataJPAChangeLogEntityListener listener,
+      final String deltaToken, final String latestDeltaToken) throws ODataJPARuntimeException {
+    List<Object> changedEntities = new ArrayList<Object>();
+    long fromToken = parseDeltaToken(deltaToken);
+    try {
+      Query query = em.createQuery(JPQLStatement.KEYWORD.SELECT + JPQLStatement.DELIMITER.SPACE + LOG_ALIAS
+          + JPQLStatement.DELIMITER.SPACE + JPQLStatement.KEYWORD.FROM + JPQLStatement.DELIMITER.SPACE
+          + getLogEntityName(listener) + JPQLStatement.DELIMITER.SPACE + LOG_ALIAS
+          + JPQLStatement.DELIMITER.SPACE + JPQLStatement.KEYWORD.WHERE + JPQLStatement.DELIMITER.SPACE
+          + LOG_ALIAS + ".entitySetName = :entitySetName AND " + LOG_ALIAS + ".sequenceNumber > :fromToken AND "
+          + LOG_ALIAS + ".sequenceNumber <= :toToken" + JPQLStatement.DELIMITER.SPACE
+          + JPQLStatement.KEYWORD.ORDERBY + JPQLStatement.DELIMITER.SPACE + LOG_ALIAS + ".sequenceNumber");
+      query.setParameter("entitySetName", entitySet.getName());
+      query.setParameter("fromToken", fromToken);
+      query.setParameter("toToken", parseDeltaToken(latestDeltaToken));
+
+      // the latest change of an entity decides whether it is returned as changed or deleted entry
+      Map<String, Boolean> changes = new LinkedHashMap<String, Boolean>();
+      for (Object result : query.getResultList()) {
+        ODataJPAChangeLogEntry entry = (ODataJPAChangeLogEntry) result;
+        changes.remove(entry.getEntityKey());
+        changes.put(entry.getEntityKey(), entry.isDeleted());
+      }
+
+      List<EdmProperty> keyProperties = entitySet.getEntityType().getKeyProperties();
+      List<List<KeyPredicate>> keys = new ArrayList<List<KeyPredicate>>();
+      for (Map.Entry<String, Boolean> change : changes.entrySet()) {
+        List<String> literals = decodeKey(change.getKey());
+        if (change.getValue()) {
+          ODataJPATombstoneContext.addToDeletedEntries(getKeyValues(keyProperties, literals), entitySet.getName());
+        } else {
+          keys.add(getKeyPredicates(keyProperties, literals));
+        }
+      }
+      for (int from = 0; from < keys.size(); from += FETCH_SIZE) {
+        List<?> result = JPAProcessorImpl.createKeyQuery(em, entitySet,
+            keys.subList(from, Math.min(from + FETCH_SIZE, keys.size()))).getResultList();
+        changedEntities.addAll(result);
+      }
+    } catch (EdmException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    }
+    return changedEntities;
+  }
+
+  private static long parseDeltaToken(final String deltaToken) throws ODataJPARuntimeException {
+    try {
+      long sequenceNumber = Long.parseLong(deltaToken);
+      if (sequenceNumber >= 0) {
+        return sequenceNumber;
+      }
+    } catch (NumberFormatException e) {
+      // handled below
+    }
+    throw ODataJPARuntimeException.throwException(
+        ODataJPARuntimeException.ERROR_JPQL_PARAM_VALUE.addContent(DELTA_TOKEN),
+        new ODataBadRequestException(ODataBadRequestException.INVALID_SYNTAX));
+  }
+
+  private String getLogEntityName(final ODataJPAChangeLogEntityListener listener) {
+    return em.getMetamodel().entity(listener.getChangeLogEntryClass()).getName();
+  }
+
+  private static String encodeKey(final EdmEntitySet entitySet, final Object jpaEntity)
+      throws EdmException, ODataJPARuntimeException {
+    List<EdmProperty> keyProperties = entitySet.getEntityType().getKeyProperties();
+    Map<String, Object> keyValues = new JPAEntityParser().parse2EdmPropertyValueMap(jpaEntity, keyProperties);
+    StringBuilder key = new StringBuilder();
+    for (EdmProperty keyProperty : keyProperties) {
+      if (key.length() > 0) {
+        key.append(KEY_SEPARATOR);
+      }
+      EdmSimpleType type = (EdmSimpleType) keyProperty.getType();
+      key.append(encode(type.valueToString(keyValues.get(keyProperty.getName()), EdmLiteralKind.DEFAULT, null)));
+    }
+    return key.toString();
+  }
+
+  private static List<String> decodeKey(final String key) throws ODataJPARuntimeException {
+    List<String> literals = new ArrayList<String>();
+    for (String literal : key.split(KEY_SEPARATOR, -1)) {
+      try {
+        literals.add(URLDecoder.decode(literal, KEY_ENCODING));
+      } catch (UnsupportedEncodingException e) {
+        throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+      }
+    }
+    return literals;
+  }
+
+  private static String encode(final String literal) throws ODataJPARuntimeException {
+    try {
+      return URLEncoder.encode(literal, KEY_ENCODING);
+    } catch (UnsupportedEncodingException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    }
+  }
+
+  private static Map<String, Object> getKeyValues(final List<EdmProperty> keyProperties, final List<String> literals)
+      throws EdmException {
+    Map<String, Object> keyValues = new HashMap<String, Object>();
+    for (int i = 0; i < keyProperties.size(); i++) {
+      EdmProperty keyProperty = keyProperties.get(i);
+      EdmSimpleType type = (EdmSimpleType) keyProperty.getType();
+      keyValues.put(keyProperty.getName(),
+          type.valueOfString(literals.get(i), EdmLiteralKind.DEFAULT, null, type.getDefaultType()));
+    }
+    return keyValues;
+  }
+
+  private static List<KeyPredicate> getKeyPredicates(final List<EdmProperty> keyProperties,
+      final List<String> literals) {
+    List<KeyPredicate> keyPredicates = new ArrayList<KeyPredicate>();
+    for (int i = 0; i < keyProperties.size(); i++) {
+      keyPredicates.add(new ChangeLogKeyPredicate(keyProperties.get(i), literals.get(i)));
+    }
+    return keyPredicates;
+  }
+
+  private static class ChangeLogKeyPredicate implements KeyPredicate {
+
+    private final EdmProperty property;
+    private final String literal;
+
+    public ChangeLogKeyPredicate(final EdmProperty property, final String literal) {
+      this.property = property;
+      this.literal = literal;
+    }
+
+    @Override
+    public String getLiteral() {
+      return literal;
+    }
+
+    @Override
+    public EdmProperty getProperty() {
+      return property;
+    }
+  }
+}
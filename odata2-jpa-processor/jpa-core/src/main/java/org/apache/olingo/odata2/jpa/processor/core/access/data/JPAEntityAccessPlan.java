@@ -0,0 +1,333 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.edm.EdmSimpleTypeKind;
+import org.apache.olingo.odata2.api.edm.EdmStructuralType;
+import org.apache.olingo.odata2.api.edm.EdmType;
+import org.apache.olingo.odata2.api.edm.EdmTypeKind;
+import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
+
+/**
+ * Read access to the properties of a JPA entity or embeddable class. There is one
+ * plan per class, shared by all parsers; a getter is looked up once and then kept
+ * together with the conversion of its return type.
+ * <p>
+ * The plans are found in an immutable hash table which is read without locking and
+ * replaced as a whole whenever a plan for a further class is added. The table refers
+ * to the classes weakly and to the plans softly. A plan references its class through
+ * the getters, so the classes of an undeployed application are kept until the garbage
+ * collector clears the soft references, at the latest before an OutOfMemoryError.
+ */
+final class JPAEntityAccessPlan {
+
+  private static final int MIN_TABLE_SIZE = 16;
+  private static volatile PlanEntry[] plans = new PlanEntry[MIN_TABLE_SIZE];
+
+  private final Class<?> type;
+  private final ConcurrentMap<String, Getter> getters = new ConcurrentHashMap<String, Getter>();
+
+  private JPAEntityAccessPlan(final Class<?> type) {
+    this.type = type;
+  }
+
+  static JPAEntityAccessPlan getInstance(final Class<?> type) {
+    final JPAEntityAccessPlan plan = lookup(plans, type);
+    return plan == null ? addInstance(type) : plan;
+  }
+
+  private static JPAEntityAccessPlan lookup(final PlanEntry[] table, final Class<?> type) {
+    final int hash = System.identityHashCode(type);
+    for (PlanEntry entry = table[hash & (table.length - 1)]; entry != null; entry = entry.next) {
+      if (entry.get() == type) {
+        return entry.plan.get();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Copies the table without the entries of collected classes and plans, and adds the new plan.
+   */
+  private static synchronized JPAEntityAccessPlan addInstance(final Class<?> type) {
+    final PlanEntry[] table = plans;
+    JPAEntityAccessPlan plan = lookup(table, type);
+    if (plan != null) {
+      return plan;
+    }
+    plan = new JPAEntityAccessPlan(type);
+    List<PlanEntry> entries = new ArrayList<PlanEntry>();
+    for (PlanEntry first : table) {
+      for (PlanEntry entry = first; entry != null; entry = entry.next) {
+        if (entry.get() != null && entry.get() != type && entry.plan.get() != null) {
+          entries.add(entry);
+        }
+      }
+    }
+    int size = MIN_TABLE_SIZE;
+    while (size < 2 * (entries.size() + 1)) {
+      size <<= 1;
+    }
+    PlanEntry[] newTable = new PlanEntry[size];
+    for (PlanEntry entry : entries) {
+      final Class<?> entryType = entry.get();
+      if (entryType != null) {
+        final int index = entry.hash & (size - 1);
+        newTable[index] = new PlanEntry(entryType, entry.hash, entry.plan, newTable[index]);
+      }
+    }
+    final int hash = System.identityHashCode(type);
+    newTable[hash & (size - 1)] = new PlanEntry(type, hash, new SoftReference<JPAEntityAccessPlan>(plan),
+        newTable[hash & (size - 1)]);
+    plans = newTable;
+    return plan;
+  }
+
+  /**
+   * Entry of the plan table; immutable, so that a table can be read by any thread.
+   */
+  private static final class PlanEntry extends WeakReference<Class<?>> {
+    private final int hash;
+    private final SoftReference<JPAEntityAccessPlan> plan;
+    private final PlanEntry next;
+
+    PlanEntry(final Class<?> type, final int hash, final SoftReference<JPAEntityAccessPlan> plan,
+        final PlanEntry next) {
+      super(type);
+      this.hash = hash;
+      this.plan = plan;
+      this.next = next;
+    }
+  }
+
+  /**
+   * Returns the getter with the given name.
+   * @param methodName is the name of the getter method
+   * @param alternativeName is the name of the method used if there is no method
+   * with the given name, or null
+   * @return the getter
+   * @throws ODataJPARuntimeException if there is no such method
+   */
+  Getter getGetter(final String methodName, final String alternativeName) throws ODataJPARuntimeException {
+    Getter getter = getters.get(methodName);
+    if (getter == null) {
+      try {
+        Method method;
+        try {
+          method = type.getMethod(methodName, (Class<?>[]) null);
+        } catch (NoSuchMethodException e) {
+          if (alternativeName == null) {
+            throw e;
+          }
+          method = type.getMethod(alternativeName, (Class<?>[]) null);
+        }
+        getter = new Getter(method);
+      } catch (NoSuchMethodException e) {
+        throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
+      } catch (SecurityException e) {
+        throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
+      }
+      final Getter existing = getters.putIfAbsent(methodName, getter);
+      if (existing != null) {
+        getter = existing;
+      }
+    }
+    return getter;
+  }
+
+  /**
+   * Follows a path of getters, for example into an embeddable object. The getters
+   * are taken from the runtime class of each object on the path.
+   * @param getterNames are the names of the getter methods
+   * @param jpaEntity is the object the path starts at
+   * @return the value at the end of the path, or null if the path contains null
+   * @throws ODataJPARuntimeException
+   */
+  static Object getPathValue(final String[] getterNames, final Object jpaEntity) throws ODataJPARuntimeException {
+    Object value = jpaEntity;
+    for (String getterName : getterNames) {
+      if (value == null) {
+        break;
+      }
+      value = getInstance(value.getClass()).getGetter(getterName, null).getValue(value);
+    }
+    return value;
+  }
+
+  /**
+   * Conversion of a getter result into an EDM property value.
+   */
+  enum Conversion {
+    NONE, CHAR_ARRAY, CHARACTER_ARRAY, CHAR, CHARACTER, BLOB, CLOB;
+
+    static Conversion of(final Class<?> returnType) {
+      if (returnType.equals(char[].class)) {
+        return CHAR_ARRAY;
+      } else if (returnType.equals(Character[].class)) {
+        return CHARACTER_ARRAY;
+      } else if (returnType.equals(char.class)) {
+        return CHAR;
+      } else if (returnType.equals(Character.class)) {
+        return CHARACTER;
+      } else if (returnType.equals(Blob.class)) {
+        return BLOB;
+      } else if (returnType.equals(Clob.class)) {
+        return CLOB;
+      } else {
+        return NONE;
+      }
+    }
+
+    Object convert(final Object value) throws ODataJPARuntimeException {
+      switch (this) {
+      case CHAR_ARRAY:
+        return value == null ? null : String.valueOf((char[]) value);
+      case CHARACTER_ARRAY:
+        return JPAEntityParser.toString((Character[]) value);
+      case CHAR:
+        final char c = (Character) value;
+        return c == '\u0000' ? null : String.valueOf(c);
+      case CHARACTER:
+        return value == null ? null : JPAEntityParser.toString(new Character[] { (Character) value });
+      case BLOB:
+        return JPAEntityParser.getBytes((Blob) value);
+      case CLOB:
+        return JPAEntityParser.getString((Clob) value);
+      default:
+        return value;
+      }
+    }
+  }
+
+  /**
+   * A getter method bound together with the conversion of its return type.
+   */
+  static final class Getter {
+    private final Method method;
+    private final Conversion conversion;
+
+    Getter(final Method method) {
+      method.setAccessible(true);
+      this.method = method;
+      conversion = Conversion.of(method.getReturnType());
+    }
+
+    Object getValue(final Object jpaEntity) throws ODataJPARuntimeException {
+      try {
+        return conversion.convert(method.invoke(jpaEntity));
+      } catch (IllegalAccessException e) {
+        throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
+      } catch (IllegalArgumentException e) {
+        throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
+      } catch (InvocationTargetException e) {
+        throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
+      }
+    }
+  }
+
+  /**
+   * The selected properties of an entity type or complex type, resolved into getter
+   * names once. The getters themselves are bound to the class of the converted
+   * objects and bound again only if the class changes.
+   */
+  static final class Selection {
+    private final String[] names;
+    private final String[][] getterNames;
+    private final String[] alternativeNames;
+    private final Selection[] complexSelections;
+
+    private Class<?> boundType;
+    private Getter[] boundGetters;
+
+    Selection(final List<EdmProperty> properties) throws ODataJPARuntimeException {
+      final int size = properties.size();
+      names = new String[size];
+      getterNames = new String[size][];
+      alternativeNames = new String[size];
+      complexSelections = new Selection[size];
+      try {
+        for (int i = 0; i < size; i++) {
+          final EdmProperty property = properties.get(i);
+          names[i] = property.getName();
+          final String getterName = JPAEntityParser.getAccessModifierName(property.getName(), property.getMapping(),
+              JPAEntityParser.ACCESS_MODIFIER_GET);
+          if (getterName != null) {
+            getterNames[i] = getterName.split("\\.");
+          }
+          final EdmType type = property.getType();
+          if (type.getKind() == EdmTypeKind.COMPLEX) {
+            complexSelections[i] = new Selection(JPAEntityParser.getEdmProperties((EdmStructuralType) type));
+          } else if (type == EdmSimpleTypeKind.Boolean.getEdmSimpleTypeInstance()) {
+            alternativeNames[i] = JPAEntityParser.getAccessModifierName(property.getName(), property.getMapping(),
+                JPAEntityParser.ACCESS_MODIFIER_IS);
+          }
+        }
+      } catch (EdmException e) {
+        throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
+      }
+    }
+
+    private void bind(final Class<?> type) throws ODataJPARuntimeException {
+      final JPAEntityAccessPlan plan = getInstance(type);
+      final Getter[] getters = new Getter[names.length];
+      for (int i = 0; i < names.length; i++) {
+        // getters into embeddable objects follow the runtime classes on the path
+        if (getterNames[i] != null && getterNames[i].length == 1) {
+          getters[i] = plan.getGetter(getterNames[i][0], alternativeNames[i]);
+        }
+      }
+      boundGetters = getters;
+      boundType = type;
+    }
+
+    HashMap<String, Object> parse(final Object jpaEntity) throws ODataJPARuntimeException {
+      if (jpaEntity.getClass() != boundType) {
+        bind(jpaEntity.getClass());
+      }
+      HashMap<String, Object> edmEntity = new HashMap<String, Object>();
+      for (int i = 0; i < names.length; i++) {
+        Object value = null;
+        if (boundGetters[i] != null) {
+          value = boundGetters[i].getValue(jpaEntity);
+        } else if (getterNames[i] != null) {
+          value = getPathValue(getterNames[i], jpaEntity);
+        }
+        if (complexSelections[i] != null && value != null) {
+          value = complexSelections[i].parse(value);
+        }
+        edmEntity.put(names[i], value);
+      }
+      return edmEntity;
+    }
+  }
+}
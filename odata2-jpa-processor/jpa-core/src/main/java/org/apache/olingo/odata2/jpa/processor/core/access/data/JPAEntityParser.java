@@ -23,7 +23,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringWriter;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.sql.Blob;
 import java.sql.Clob;
@@ -42,7 +41,6 @@ import org.apache.olingo.odata2.api.edm.EdmProperty;
 import org.apache.olingo.odata2.api.edm.EdmSimpleType;
 import org.apache.olingo.odata2.api.edm.EdmSimpleTypeKind;
 import org.apache.olingo.odata2.api.edm.EdmStructuralType;
-import org.apache.olingo.odata2.api.edm.EdmTypeKind;
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
 import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmMapping;
 
@@ -54,10 +52,12 @@ public final class JPAEntityParser {
   private static short MAX_SIZE = 10;
   public static final String ACCESS_MODIFIER_GET = "get";
   public static final String ACCESS_MODIFIER_SET = "set";
-  private static final String ACCESS_MODIFIER_IS = "is";
+  static final String ACCESS_MODIFIER_IS = "is";
 
   private HashMap<String, HashMap<String, Method>> jpaEntityAccessMap = null;
   private HashMap<String, HashMap<String, String>> jpaEmbeddableKeyMap = null;
+  private List<EdmProperty> selectionPropertyList = null;
+  private JPAEntityAccessPlan.Selection selection = null;
 
   public JPAEntityParser() {
     jpaEntityAccessMap = new HashMap<String, HashMap<String, Method>>(
@@ -90,49 +90,12 @@ public final class JPAEntityParser {
 
   public final HashMap<String, Object> parse2EdmPropertyValueMap(final Object jpaEntity,
       final List<EdmProperty> selectPropertyList) throws ODataJPARuntimeException {
-
-    HashMap<String, Object> edmEntity = new HashMap<String, Object>();
-    HashMap<String, Method> accessModifierMap = null;
-    Object propertyValue = null;
-    String jpaEntityAccessKey = null;
-
-    jpaEntityAccessKey = jpaEntity.getClass().getName();
-    if (!jpaEntityAccessMap.containsKey(jpaEntityAccessKey)) {
-      accessModifierMap =
-          getAccessModifiers((List<EdmProperty>) selectPropertyList, jpaEntity.getClass(), ACCESS_MODIFIER_GET);
-    } else {
-      accessModifierMap = jpaEntityAccessMap.get(jpaEntityAccessKey);
+    // the same property list is usually converted for many entities in a row
+    if (selectPropertyList != selectionPropertyList || selection == null) {
+      selection = new JPAEntityAccessPlan.Selection(selectPropertyList);
+      selectionPropertyList = selectPropertyList;
     }
-
-    for (EdmProperty property : selectPropertyList) {
-      propertyValue = jpaEntity;
-
-      try {
-        String propertyName = property.getName();
-        Method method = accessModifierMap.get(propertyName);
-        if (method == null) {
-          String methodName = jpaEmbeddableKeyMap.get(jpaEntityAccessKey).get(propertyName);
-          if (methodName != null) {
-            propertyValue = getEmbeddablePropertyValue(methodName, propertyValue);
-          }
-        } else {
-          propertyValue = getPropertyValue(accessModifierMap.get(propertyName), propertyValue);
-        }
-        if (property.getType().getKind()
-            .equals(EdmTypeKind.COMPLEX)) {
-          propertyValue = parse2EdmPropertyValueMap(propertyValue, (EdmStructuralType) property.getType());
-        }
-        edmEntity.put(propertyName, propertyValue);
-      } catch (EdmException e) {
-        throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
-      } catch (SecurityException e) {
-        throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
-      } catch (IllegalArgumentException e) {
-        throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
-      }
-    }
-
-    return edmEntity;
+    return selection.parse(jpaEntity);
   }
 
   public final List<Map<String, Object>> parse2EdmEntityList(final Collection<Object> jpaEntityList,
@@ -173,20 +136,12 @@ public final class JPAEntityParser {
         for (EdmNavigationProperty navigationProperty : navigationPropertyList) {
           methodName = getAccessModifierName(navigationProperty.getName(),
               navigationProperty.getMapping(), ACCESS_MODIFIER_GET);
-          Method getterMethod = jpaEntity.getClass()
-              .getMethod(methodName, (Class<?>[]) null);
-          getterMethod.setAccessible(true);
-          result = getPropertyValue(getterMethod, jpaEntity);
+          result = JPAEntityAccessPlan.getInstance(jpaEntity.getClass()).getGetter(methodName, null)
+              .getValue(jpaEntity);
           navigationMap.put(navigationProperty.getName(), result);
         }
-      } catch (IllegalArgumentException e) {
-        throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
       } catch (EdmException e) {
         throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
-      } catch (SecurityException e) {
-        throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
-      } catch (NoSuchMethodException e) {
-        throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
       }
     }
     return navigationMap;
@@ -216,49 +171,14 @@ public final class JPAEntityParser {
   }
 
   public static Object getPropertyValue(final Method method, final Object entity) throws ODataJPARuntimeException {
-    Object propertyValue = null;
     if (method == null) {
       return null;
     }
     try {
-      method.setAccessible(true);
-      Class<?> returnType = method.getReturnType();
-
-      if (returnType.equals(char[].class)) {
-        char[] ch = (char[]) method.invoke(entity);
-        if (ch != null) {
-          propertyValue = (String) String.valueOf((char[]) method.invoke(entity));
-        }
-      } else if (returnType.equals(Character[].class)) {
-        propertyValue = (String) toString((Character[]) method.invoke(entity));
-      } else if (returnType.equals(char.class)) {
-        char c = (Character) method.invoke(entity);
-        if (c != '\u0000') {
-          propertyValue = (String) String.valueOf(c);
-        }
-      } else if (returnType.equals(Character.class)) {
-        Character c = (Character) method.invoke(entity);
-        if (c != null) {
-          propertyValue = toString(new Character[] { c });
-        }
-      } else if (returnType.equals(Blob.class)) {
-        propertyValue = getBytes((Blob) method.invoke(entity));
-      } else if (returnType.equals(Clob.class)) {
-        propertyValue = getString((Clob) method.invoke(entity));
-      } else {
-        propertyValue = method.invoke(entity);
-      }
-    } catch (IllegalAccessException e) {
-      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
-    } catch (IllegalArgumentException e) {
-      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
-    } catch (InvocationTargetException e) {
-      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
+      return new JPAEntityAccessPlan.Getter(method).getValue(entity);
     } catch (SecurityException e) {
       throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
     }
-
-    return propertyValue;
   }
 
   public static String getString(final Clob clob) throws ODataJPARuntimeException {
@@ -382,25 +302,7 @@ public final class JPAEntityParser {
 
   public Object getEmbeddablePropertyValue(final String methodName, final Object jpaEntity)
       throws ODataJPARuntimeException {
-
-    String[] nameParts = methodName.split("\\.");
-    Object propertyValue = jpaEntity;
-    Method method = null;
-    try {
-      for (String namePart : nameParts) {
-        if (propertyValue == null) {
-          break;
-        }
-        method = propertyValue.getClass().getMethod(namePart, (Class<?>[]) null);
-        method.setAccessible(true);
-        propertyValue = getPropertyValue(method, propertyValue);
-      }
-    } catch (NoSuchMethodException e) {
-      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
-    } catch (SecurityException e) {
-      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
-    }
-    return propertyValue;
+    return JPAEntityAccessPlan.getPathValue(methodName.split("\\."), jpaEntity);
   }
 
   public static String toString(final Character[] input) {
@@ -585,7 +487,7 @@ public final class JPAEntityParser {
     return accessModifierMap;
   }
 
-  private List<EdmProperty> getEdmProperties(final EdmStructuralType structuralType) throws ODataJPARuntimeException {
+  static List<EdmProperty> getEdmProperties(final EdmStructuralType structuralType) throws ODataJPARuntimeException {
     List<EdmProperty> edmProperties = new ArrayList<EdmProperty>();
     try {
       for (String propertyName : structuralType.getPropertyNames()) {
@@ -22,6 +22,8 @@ import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -32,9 +34,13 @@ import org.apache.olingo.odata2.api.commons.InlineCount;
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
 import org.apache.olingo.odata2.api.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmLiteralKind;
 import org.apache.olingo.odata2.api.edm.EdmMapping;
 import org.apache.olingo.odata2.api.edm.EdmMultiplicity;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.edm.EdmSimpleType;
 import org.apache.olingo.odata2.api.ep.entry.ODataEntry;
+import org.apache.olingo.odata2.api.uri.KeyPredicate;
 import org.apache.olingo.odata2.api.uri.UriInfo;
 import org.apache.olingo.odata2.api.uri.info.DeleteUriInfo;
 import org.apache.olingo.odata2.api.uri.info.GetEntityCountUriInfo;
@@ -46,10 +52,14 @@ import org.apache.olingo.odata2.api.uri.info.GetEntityUriInfo;
 import org.apache.olingo.odata2.api.uri.info.GetFunctionImportUriInfo;
 import org.apache.olingo.odata2.api.uri.info.PostUriInfo;
 import org.apache.olingo.odata2.api.uri.info.PutMergePatchUriInfo;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAChangeLogEntityListener;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAReadCache;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPASynchronizedTransaction;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPATombstoneContext;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPATombstoneEntityListener;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPATransaction;
+import org.apache.olingo.odata2.jpa.processor.api.access.JPAChangeSetProcessor;
 import org.apache.olingo.odata2.jpa.processor.api.access.JPAFunction;
 import org.apache.olingo.odata2.jpa.processor.api.access.JPAMethodContext;
 import org.apache.olingo.odata2.jpa.processor.api.access.JPAProcessor;
@@ -57,15 +67,21 @@ import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPAModelExcepti
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContext;
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContextType;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLSelectContextView;
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatement;
 import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmMapping;
 import org.apache.olingo.odata2.jpa.processor.core.ODataEntityParser;
+import org.apache.olingo.odata2.jpa.processor.core.ODataExpressionParser;
 import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAPage.JPAPageBuilder;
 
-public class JPAProcessorImpl implements JPAProcessor {
+public class JPAProcessorImpl implements JPAProcessor, JPAChangeSetProcessor {
+
+  private static final String PREFETCH_ALIAS = "E1";
+  private static final int PREFETCH_SIZE = 100;
 
   ODataJPAContext oDataJPAContext;
   EntityManager em;
+  private Map<List<Object>, Object> prefetchedEntities = null;
 
   public JPAProcessorImpl(final ODataJPAContext oDataJPAContext) {
     this.oDataJPAContext = oDataJPAContext;
@@ -147,7 +163,8 @@ public class JPAProcessorImpl implements JPAProcessor {
 
       JPQLContext jpqlContext = null;
 
-      if (oDataJPAContext.getPageSize() > 0) {
+      // results read page by page or in chunks have to be ordered by the entity key
+      if (oDataJPAContext.getPageSize() > 0 || isStreamed(uriParserResultView)) {
         jpqlContext = JPQLContext.createBuilder(contextType,
             uriParserResultView, true).build();
       } else {
@@ -170,18 +187,30 @@ public class JPAProcessorImpl implements JPAProcessor {
       List<Object> result = null;
 
       JPAEdmMapping mapping = (JPAEdmMapping) uriParserResultView.getTargetEntitySet().getEntityType().getMapping();
-      ODataJPATombstoneEntityListener listener = null;
-      if (mapping.getODataJPATombstoneEntityListener() != null) {
-        listener = (ODataJPATombstoneEntityListener) mapping.getODataJPATombstoneEntityListener().newInstance();
+      ODataJPATombstoneEntityListener listener = JPAChangeLog.getTombstoneListener(mapping);
+      if (listener != null) {
         query = listener.getQuery(uriParserResultView, em);
       }
       if (query == null) {
         query = em.createQuery(jpqlStatement.toString());
-        if (listener != null) {
+        if (listener instanceof ODataJPAChangeLogEntityListener) {
+          // the latest token is read first, so that changes made while reading are returned with the next delta
+          JPAChangeLog changeLog = new JPAChangeLog(em);
+          String latestDeltaToken = changeLog.getLatestDeltaToken((ODataJPAChangeLogEntityListener) listener);
+          if (deltaToken != null) {
+            result = handlePaging(changeLog.readChanges(uriParserResultView.getTargetEntitySet(),
+                (ODataJPAChangeLogEntityListener) listener, deltaToken, latestDeltaToken), uriParserResultView);
+          } else {
+            result = handlePaging(query, uriParserResultView);
+          }
+          ODataJPATombstoneContext.setDeltaToken(latestDeltaToken);
+        } else if (listener != null) {
           query.getResultList();
           List<Object> deltaResult =
               (List<Object>) ODataJPATombstoneContext.getDeltaResult(((EdmMapping) mapping).getInternalName());
           result = handlePaging(deltaResult, uriParserResultView);
+        } else if (isStreamed(uriParserResultView)) {
+          result = handleStreaming(query, jpqlContext, uriParserResultView);
         } else {
           result = handlePaging(query, uriParserResultView);
         }
@@ -352,11 +381,15 @@ public class JPAProcessorImpl implements JPAProcessor {
     if (selectedObject != null) {
       try {
         boolean isLocalTransaction = setTransaction();
+        new JPAChangeLog(em).record(((DeleteUriInfo) uriParserResultView).getTargetEntitySet(), selectedObject, true);
         em.remove(selectedObject);
-        em.flush();
+        if (!isFlushDeferred(isLocalTransaction)) {
+          em.flush();
+        }
         if (isLocalTransaction) {
           oDataJPAContext.getODataJPATransaction().commit();
         }
+        invalidateReadCache((UriInfo) uriParserResultView, isLocalTransaction);
 
       } catch (Exception e) {
         throw ODataJPARuntimeException.throwException(
@@ -401,12 +434,67 @@ public class JPAProcessorImpl implements JPAProcessor {
 
   }
 
+  /* Process Prefetch of Entities to be updated in a Change Set */
+  @Override
+  public void prefetch(final List<PutMergePatchUriInfo> updateViews)
+      throws ODataJPARuntimeException, ODataJPAModelException {
+    prefetchedEntities = new HashMap<List<Object>, Object>();
+    Map<EdmEntitySet, List<List<KeyPredicate>>> keysByEntitySet =
+        new LinkedHashMap<EdmEntitySet, List<List<KeyPredicate>>>();
+    try {
+      for (PutMergePatchUriInfo updateView : updateViews) {
+        if (!isSingleEntity(updateView)) {
+          continue;
+        }
+        List<List<KeyPredicate>> keys = keysByEntitySet.get(updateView.getTargetEntitySet());
+        if (keys == null) {
+          keys = new ArrayList<List<KeyPredicate>>();
+          keysByEntitySet.put(updateView.getTargetEntitySet(), keys);
+        }
+        keys.add(updateView.getKeyPredicates());
+      }
+
+      for (Map.Entry<EdmEntitySet, List<List<KeyPredicate>>> entry : keysByEntitySet.entrySet()) {
+        EdmEntitySet entitySet = entry.getKey();
+        List<List<KeyPredicate>> keys = entry.getValue();
+        for (int from = 0; from < keys.size(); from += PREFETCH_SIZE) {
+          List<?> result = createKeyQuery(em, entitySet,
+              keys.subList(from, Math.min(from + PREFETCH_SIZE, keys.size()))).getResultList();
+          JPAEntityParser entityParser = new JPAEntityParser();
+          List<EdmProperty> keyProperties = entitySet.getEntityType().getKeyProperties();
+          for (Object jpaEntity : result) {
+            Map<String, Object> keyValues = entityParser.parse2EdmPropertyValueMap(jpaEntity, keyProperties);
+            List<Object> prefetchKey = new ArrayList<Object>(keyProperties.size() + 1);
+            prefetchKey.add(entitySet.getName());
+            for (EdmProperty keyProperty : keyProperties) {
+              EdmSimpleType type = (EdmSimpleType) keyProperty.getType();
+              prefetchKey.add(type.valueOfString(type.valueToString(keyValues.get(keyProperty.getName()),
+                  EdmLiteralKind.DEFAULT, null), EdmLiteralKind.DEFAULT, null, type.getDefaultType()));
+            }
+            prefetchedEntities.put(prefetchKey, jpaEntity);
+          }
+        }
+      }
+    } catch (EdmException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    } catch (IllegalArgumentException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.ERROR_JPQL_QUERY_CREATE, e);
+    }
+  }
+
   /* Common method for Read and Delete */
   private Object readEntity(final Object uriParserResultView, final JPQLContextType contextType)
       throws ODataJPAModelException, ODataJPARuntimeException {
 
     Object selectedObject = null;
 
+    if (uriParserResultView instanceof PutMergePatchUriInfo && contextType == JPQLContextType.SELECT_SINGLE) {
+      selectedObject = getPrefetchedEntity((PutMergePatchUriInfo) uriParserResultView);
+      if (selectedObject != null) {
+        return selectedObject;
+      }
+    }
+
     if (uriParserResultView instanceof DeleteUriInfo || uriParserResultView instanceof GetEntityUriInfo
         || uriParserResultView instanceof PutMergePatchUriInfo) {
 
@@ -456,6 +544,11 @@ public class JPAProcessorImpl implements JPAProcessor {
       jpaEntity = virtualJPAEntity.getJPAEntity();
 
       em.persist(jpaEntity);
+      if (JPAChangeLog.getListener(oDataEntitySet) != null) {
+        // generated key values are only known after flush
+        em.flush();
+        new JPAChangeLog(em).record(oDataEntitySet, jpaEntity, false);
+      }
       if (em.contains(jpaEntity)) {
         if (isLocalTransaction) {
           oDataJPAContext.getODataJPATransaction().commit();
@@ -507,10 +600,14 @@ public class JPAProcessorImpl implements JPAProcessor {
       } else {
         return null;
       }
-      em.flush();
+      new JPAChangeLog(em).record(oDataEntitySet, jpaEntity, false);
+      if (!isFlushDeferred(isLocalTransaction)) {
+        em.flush();
+      }
       if (isLocalTransaction) {
         oDataJPAContext.getODataJPATransaction().commit();
       }
+      invalidateReadCache((UriInfo) updateView, isLocalTransaction);
     } catch (Exception e) {
       throw ODataJPARuntimeException.throwException(
           ODataJPARuntimeException.ERROR_JPQL_UPDATE_REQUEST, e);
@@ -573,6 +670,151 @@ public class JPAProcessorImpl implements JPAProcessor {
 
   }
 
+  /*
+   * A transaction begun by the caller is committed later, and a read in between could cache the old
+   * entity again. If possible the entity is therefore invalidated again after the commit.
+   */
+  private void invalidateReadCache(final UriInfo uriInfo, final boolean isLocalTransaction)
+      throws ODataJPARuntimeException, EdmException {
+    final ODataJPAReadCache readCache = oDataJPAContext.getReadCache();
+    if (readCache != null) {
+      final String entitySetName = uriInfo.getTargetEntitySet().getName();
+      // a null key, for example of an entity addressed by navigation, invalidates the whole entity set
+      final String key = JPACachedEntity.getCacheKey(uriInfo);
+      readCache.invalidate(entitySetName, key);
+      ODataJPATransaction transaction = oDataJPAContext.getODataJPATransaction();
+      if (!isLocalTransaction && transaction instanceof ODataJPASynchronizedTransaction) {
+        ((ODataJPASynchronizedTransaction) transaction).afterCommit(new Runnable() {
+          @Override
+          public void run() {
+            readCache.invalidate(entitySetName, key);
+          }
+        });
+      }
+    }
+  }
+
+  private boolean isStreamed(final GetEntitySetUriInfo uriParserResultView) {
+    return oDataJPAContext.getPageSize() <= 0 && oDataJPAContext.getStreamingFetchSize() > 0
+        && uriParserResultView.getInlineCount() == null;
+  }
+
+  private List<Object> handleStreaming(final Query query, final JPQLContext jpqlContext,
+      final GetEntitySetUriInfo uriParserResultView) throws EdmException {
+    int skip = uriParserResultView.getSkip() == null ? 0 : Math.max(uriParserResultView.getSkip().intValue(), 0);
+    int top = uriParserResultView.getTop() == null ? -1 : Math.max(uriParserResultView.getTop().intValue(), 0);
+    List<Object> result = new JPAResultStream(em, query, createKeyQuery(jpqlContext, uriParserResultView),
+        oDataJPAContext.getStreamingFetchSize(), skip, top);
+    oDataJPAContext.setPaging(new JPAPage(0, 0, result, 0));
+    return result;
+  }
+
+  /*
+   * Chunks after the first one are read after the key of the last entity instead of skipping the
+   * entities read so far. This is only done for a single key property and without $orderby; other
+   * results are read with offsets, ordered by the key properties as the last sort criteria.
+   */
+  private Query createKeyQuery(final JPQLContext jpqlContext, final GetEntitySetUriInfo uriParserResultView)
+      throws EdmException {
+    if (jpqlContext.getType() != JPQLContextType.SELECT || uriParserResultView.getOrderBy() != null
+        || uriParserResultView.getTargetEntitySet().getEntityType().getKeyProperties().size() != 1) {
+      return null;
+    }
+    JPQLSelectContextView selectContext = (JPQLSelectContextView) jpqlContext;
+    String keyPath = selectContext.getOrderByCollection();
+    // embedded keys cannot be compared
+    if (keyPath == null || keyPath.indexOf(JPQLStatement.DELIMITER.PERIOD) != keyPath
+        .lastIndexOf(JPQLStatement.DELIMITER.PERIOD)) {
+      return null;
+    }
+
+    StringBuilder jpqlQuery = new StringBuilder();
+    jpqlQuery.append(JPQLStatement.KEYWORD.SELECT).append(JPQLStatement.DELIMITER.SPACE);
+    jpqlQuery.append(selectContext.getSelectExpression()).append(JPQLStatement.DELIMITER.SPACE);
+    jpqlQuery.append(JPQLStatement.KEYWORD.FROM).append(JPQLStatement.DELIMITER.SPACE);
+    jpqlQuery.append(selectContext.getJPAEntityName()).append(JPQLStatement.DELIMITER.SPACE);
+    jpqlQuery.append(selectContext.getJPAEntityAlias()).append(JPQLStatement.DELIMITER.SPACE);
+    jpqlQuery.append(JPQLStatement.KEYWORD.WHERE).append(JPQLStatement.DELIMITER.SPACE);
+    if (selectContext.getWhereExpression() != null) {
+      jpqlQuery.append(JPQLStatement.DELIMITER.PARENTHESIS_LEFT).append(selectContext.getWhereExpression());
+      jpqlQuery.append(JPQLStatement.DELIMITER.PARENTHESIS_RIGHT).append(JPQLStatement.DELIMITER.SPACE);
+      jpqlQuery.append(JPQLStatement.Operator.AND).append(JPQLStatement.DELIMITER.SPACE);
+    }
+    jpqlQuery.append(keyPath).append(JPQLStatement.DELIMITER.SPACE).append(JPQLStatement.Operator.GT);
+    jpqlQuery.append(JPQLStatement.DELIMITER.SPACE).append(JPQLStatement.DELIMITER.COLON)
+        .append(JPAResultStream.LAST_KEY);
+    jpqlQuery.append(JPQLStatement.DELIMITER.SPACE).append(JPQLStatement.KEYWORD.ORDERBY);
+    jpqlQuery.append(JPQLStatement.DELIMITER.SPACE).append(keyPath);
+    return em.createQuery(jpqlQuery.toString());
+  }
+
+  private Object getPrefetchedEntity(final PutMergePatchUriInfo updateView) throws ODataJPARuntimeException {
+    if (prefetchedEntities == null || prefetchedEntities.isEmpty()) {
+      return null;
+    }
+    try {
+      if (!isSingleEntity(updateView)) {
+        return null;
+      }
+      List<Object> prefetchKey = new ArrayList<Object>();
+      prefetchKey.add(updateView.getTargetEntitySet().getName());
+      for (EdmProperty keyProperty : updateView.getTargetEntitySet().getEntityType().getKeyProperties()) {
+        String literal = null;
+        for (KeyPredicate keyPredicate : updateView.getKeyPredicates()) {
+          if (keyPredicate.getProperty().getName().equals(keyProperty.getName())) {
+            literal = keyPredicate.getLiteral();
+          }
+        }
+        EdmSimpleType type = (EdmSimpleType) keyProperty.getType();
+        prefetchKey.add(type.valueOfString(literal, EdmLiteralKind.DEFAULT, null, type.getDefaultType()));
+      }
+      Object jpaEntity = prefetchedEntities.get(prefetchKey);
+      // entities detached by clearing the persistence context have to be read again
+      return jpaEntity != null && em.contains(jpaEntity) ? jpaEntity : null;
+    } catch (EdmException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    }
+  }
+
+  /* Query for the entities of an entity set with one of the given keys */
+  static Query createKeyQuery(final EntityManager em, final EdmEntitySet entitySet,
+      final List<List<KeyPredicate>> keys) throws EdmException, ODataJPARuntimeException {
+    EdmMapping mapping = entitySet.getEntityType().getMapping();
+    String jpaEntityName = mapping != null ? mapping.getInternalName() : entitySet.getEntityType().getName();
+
+    StringBuilder jpqlQuery = new StringBuilder();
+    jpqlQuery.append(JPQLStatement.KEYWORD.SELECT).append(JPQLStatement.DELIMITER.SPACE);
+    jpqlQuery.append(PREFETCH_ALIAS).append(JPQLStatement.DELIMITER.SPACE);
+    jpqlQuery.append(JPQLStatement.KEYWORD.FROM).append(JPQLStatement.DELIMITER.SPACE);
+    jpqlQuery.append(jpaEntityName).append(JPQLStatement.DELIMITER.SPACE).append(PREFETCH_ALIAS);
+    jpqlQuery.append(JPQLStatement.DELIMITER.SPACE).append(JPQLStatement.KEYWORD.WHERE);
+    for (int i = 0; i < keys.size(); i++) {
+      if (i > 0) {
+        jpqlQuery.append(JPQLStatement.DELIMITER.SPACE).append(JPQLStatement.Operator.OR);
+      }
+      jpqlQuery.append(JPQLStatement.DELIMITER.SPACE).append(JPQLStatement.DELIMITER.PARENTHESIS_LEFT);
+      jpqlQuery.append(ODataExpressionParser.parseKeyPredicates(keys.get(i), PREFETCH_ALIAS));
+      jpqlQuery.append(JPQLStatement.DELIMITER.PARENTHESIS_RIGHT);
+    }
+    return em.createQuery(jpqlQuery.toString());
+  }
+
+  private boolean isSingleEntity(final PutMergePatchUriInfo updateView) throws EdmException {
+    UriInfo uriInfo = (UriInfo) updateView;
+    return !uriInfo.isLinks() && uriInfo.getNavigationSegments().isEmpty() && uriInfo.getPropertyPath().isEmpty()
+        && !uriInfo.getKeyPredicates().isEmpty()
+        && uriInfo.getStartEntitySet().getName().equals(uriInfo.getTargetEntitySet().getName());
+  }
+
+  /*
+   * Within a change set the transaction is owned by the change set, so changes are flushed on commit
+   * (or when the configured change set flush size is reached) instead of once per request.
+   */
+  private boolean isFlushDeferred(final boolean isLocalTransaction) {
+    return !isLocalTransaction && oDataJPAContext.getODataContext() != null
+        && oDataJPAContext.getODataContext().isInBatchMode();
+  }
+
   private boolean setTransaction() {
     ODataJPATransaction transaction = oDataJPAContext.getODataJPATransaction();
     if (!transaction.isActive()) {
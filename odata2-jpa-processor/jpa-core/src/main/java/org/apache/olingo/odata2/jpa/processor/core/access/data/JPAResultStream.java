@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+/**
+ * Result of an entity set query that is read in chunks of a fixed fetch size
+ * while it is iterated. Before the next chunk is read the persistence context
+ * is cleared, so that only the entities of the current chunk are managed.
+ * <p>
+ * The query has to order the result by a unique key, otherwise chunks may
+ * overlap or miss entities. If a key query is given, chunks after the first one
+ * are read with it, continuing after the key of the last entity read (parameter
+ * {@value #LAST_KEY}) instead of skipping the entities read before.
+ * <p>
+ * The list can only be iterated, each iteration executes the query again. Random
+ * access and {@link #size()} are not supported, as they would read the result
+ * more than once.
+ */
+public class JPAResultStream extends AbstractList<Object> {
+
+  /** Name of the parameter of the key query holding the key of the last entity read. */
+  public static final String LAST_KEY = "lastKey";
+
+  private final EntityManager em;
+  private final Query query;
+  private final Query keyQuery;
+  private final int fetchSize;
+  private final int firstResult;
+  private final int maxResults;
+
+  /**
+   * @param em is the entity manager the query was created with
+   * @param query is the query; its first result and max results are overwritten
+   * @param fetchSize is the number of entities read at a time
+   * @param firstResult is the position of the first entity ($skip)
+   * @param maxResults is the maximum number of entities ($top); a negative value for all
+   */
+  public JPAResultStream(final EntityManager em, final Query query, final int fetchSize, final int firstResult,
+      final int maxResults) {
+    this(em, query, null, fetchSize, firstResult, maxResults);
+  }
+
+  /**
+   * @param em is the entity manager the queries were created with
+   * @param query is the query ordered by the entity key; its first result and max results are overwritten
+   * @param keyQuery is the same query restricted to entities with a key greater than {@value #LAST_KEY};
+   * its max results are overwritten
+   * @param fetchSize is the number of entities read at a time
+   * @param firstResult is the position of the first entity ($skip)
+   * @param maxResults is the maximum number of entities ($top); a negative value for all
+   */
+  public JPAResultStream(final EntityManager em, final Query query, final Query keyQuery, final int fetchSize,
+      final int firstResult, final int maxResults) {
+    this.em = em;
+    this.query = query;
+    this.keyQuery = keyQuery;
+    this.fetchSize = fetchSize;
+    this.firstResult = firstResult;
+    this.maxResults = maxResults;
+  }
+
+  @Override
+  public Iterator<Object> iterator() {
+    return new ChunkIterator();
+  }
+
+  /**
+   * Not supported.
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public Object get(final int index) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Not supported.
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public int size() {
+    throw new UnsupportedOperationException();
+  }
+
+  private List<?> fetch(final int position, final int count) {
+    query.setFirstResult(firstResult + position);
+    query.setMaxResults(count);
+    return query.getResultList();
+  }
+
+  private List<?> fetchAfter(final Object lastEntity, final int count) {
+    keyQuery.setParameter(LAST_KEY, em.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(lastEntity));
+    keyQuery.setMaxResults(count);
+    return keyQuery.getResultList();
+  }
+
+  private class ChunkIterator implements Iterator<Object> {
+
+    private List<?> chunk;
+    private int chunkIndex;
+    private int position;
+    private boolean exhausted;
+
+    @Override
+    public boolean hasNext() {
+      if (chunk != null && chunkIndex < chunk.size()) {
+        return true;
+      }
+      if (exhausted || maxResults >= 0 && position >= maxResults) {
+        return false;
+      }
+      int count = maxResults >= 0 ? Math.min(fetchSize, maxResults - position) : fetchSize;
+      if (chunk == null) {
+        chunk = fetch(position, count);
+      } else {
+        Object lastEntity = chunk.get(chunk.size() - 1);
+        // the entities of the previous chunk have been consumed
+        em.clear();
+        chunk = keyQuery == null ? fetch(position, count) : fetchAfter(lastEntity, count);
+      }
+      chunkIndex = 0;
+      exhausted = chunk.size() < count;
+      return !chunk.isEmpty();
+    }
+
+    @Override
+    public Object next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      position++;
+      return chunk.get(chunkIndex++);
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
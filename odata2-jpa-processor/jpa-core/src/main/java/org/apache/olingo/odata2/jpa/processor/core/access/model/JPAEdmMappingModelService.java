@@ -39,6 +39,9 @@ import org.apache.olingo.odata2.jpa.processor.api.model.mapping.JPARelationshipM
 
 public class JPAEdmMappingModelService implements JPAEdmMappingModelAccess {
 
+  // JAXB contexts are thread safe and expensive to create; share one for all mapping models
+  private static volatile JAXBContext context;
+
   boolean mappingModelExists = true;
   private JPAEdmMappingModel mappingModel;
   private InputStream mappingModelStream = null;
@@ -61,11 +64,8 @@ public class JPAEdmMappingModelService implements JPAEdmMappingModelAccess {
   public void loadMappingModel() {
     InputStream is = null;
     if (mappingModelExists) {
-      JAXBContext context;
       try {
-        context = JAXBContext.newInstance(JPAEdmMappingModel.class);
-
-        Unmarshaller unmarshaller = context.createUnmarshaller();
+        Unmarshaller unmarshaller = getJAXBContext().createUnmarshaller();
         is = loadMappingModelInputStream();
         if (is == null) {
           mappingModelExists = false;
@@ -93,6 +93,17 @@ public class JPAEdmMappingModelService implements JPAEdmMappingModelAccess {
     }
   }
 
+  private static JAXBContext getJAXBContext() throws JAXBException {
+    if (context == null) {
+      synchronized (JPAEdmMappingModelService.class) {
+        if (context == null) {
+          context = JAXBContext.newInstance(JPAEdmMappingModel.class);
+        }
+      }
+    }
+    return context;
+  }
+
   @Override
   public boolean isMappingModelExists() {
     return mappingModelExists;
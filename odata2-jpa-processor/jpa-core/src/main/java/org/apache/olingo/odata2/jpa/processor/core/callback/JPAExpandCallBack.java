@@ -25,6 +25,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.olingo.odata2.api.ODataCallback;
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
@@ -47,12 +49,26 @@ import org.apache.olingo.odata2.api.uri.NavigationPropertySegment;
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
 import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAEntityParser;
 
+/**
+ * Callback writing the inline entries and feeds of an expanded navigation property.
+ * <p>
+ * The producers call one callback instance for the navigation property of every parent entry.
+ * Everything that does not depend on the parent entry, i.e., the related entity set, the
+ * selected properties, the next navigation properties, and the inline write properties
+ * together with the callbacks of the next level, is created once per expand/select node and
+ * returned for all parent entries. The callback keeps no state of a single entry, so it can be
+ * shared by all entries of a feed and called concurrently.
+ */
 public class JPAExpandCallBack implements OnWriteFeedContent, OnWriteEntryContent, ODataCallback {
 
-  private URI baseUri;
-  private List<ArrayList<NavigationPropertySegment>> expandList;
-  private EdmEntitySet nextEntitySet = null;
-  private HashMap<String, List<EdmProperty>> edmPropertyMap = new HashMap<String, List<EdmProperty>>();
+  private final URI baseUri;
+  private final List<ArrayList<NavigationPropertySegment>> expandList;
+  private volatile EdmEntitySet nextEntitySet = null;
+  private final ConcurrentMap<String, List<EdmProperty>> edmPropertyMap =
+      new ConcurrentHashMap<String, List<EdmProperty>>();
+  private final ConcurrentMap<String, List<EdmNavigationProperty>> nextNavigationPropertyMap =
+      new ConcurrentHashMap<String, List<EdmNavigationProperty>>();
+  private volatile InlineProperties inlineProperties;
 
   private JPAExpandCallBack(final URI baseUri, final List<ArrayList<NavigationPropertySegment>> expandList) {
     super();
@@ -79,12 +95,8 @@ public class JPAExpandCallBack implements OnWriteFeedContent, OnWriteEntryConten
       result.setEntryData(edmPropertyValueMap);
       navigationLinks = context.getCurrentExpandSelectTreeNode().getLinks();
       if (navigationLinks.size() > 0) {
-        currentNavPropertyList = new ArrayList<EdmNavigationProperty>();
-        List<EdmNavigationProperty> nextNavProperty =
+        currentNavPropertyList =
             getNextNavigationProperty(context.getSourceEntitySet().getEntityType(), context.getNavigationProperty());
-        if (nextNavProperty != null) {
-          currentNavPropertyList.addAll(nextNavProperty);
-        }
         HashMap<String, Object> navigationMap =
             jpaResultParser.parse2EdmNavigationValueMap(inlinedEntry, currentNavPropertyList);
         if (edmPropertyValueMap != null) {
@@ -107,8 +119,9 @@ public class JPAExpandCallBack implements OnWriteFeedContent, OnWriteEntryConten
 
     try {
       String name = entitySet.getName();
-      if (edmPropertyMap.containsKey(name)) {
-        return edmPropertyMap.get(name);
+      final List<EdmProperty> cachedProperties = edmPropertyMap.get(name);
+      if (cachedProperties != null) {
+        return cachedProperties;
       }
       List<EdmProperty> edmProperties = new ArrayList<EdmProperty>();
       edmProperties.addAll(expandTreeNode.getProperties());
@@ -125,8 +138,8 @@ public class JPAExpandCallBack implements OnWriteFeedContent, OnWriteEntryConten
           edmProperties.add(keyProperty);
         }
       }
-      edmPropertyMap.put(name, edmProperties);
-      return edmProperties;
+      final List<EdmProperty> existingProperties = edmPropertyMap.putIfAbsent(name, edmProperties);
+      return existingProperties == null ? edmProperties : existingProperties;
     } catch (EdmException e) {
       throw new ODataApplicationException(e.getMessage(), Locale.getDefault(), e);
     }
@@ -159,12 +172,8 @@ public class JPAExpandCallBack implements OnWriteFeedContent, OnWriteEntryConten
       result.setFeedData(edmEntityList);
 
       if (currentExpandTreeNode.getLinks().size() > 0) {
-        currentNavPropertyList = new ArrayList<EdmNavigationProperty>();
-        List<EdmNavigationProperty> nextNavPropertyList =
+        currentNavPropertyList =
             getNextNavigationProperty(context.getSourceEntitySet().getEntityType(), context.getNavigationProperty());
-        if (nextNavPropertyList != null) {
-          currentNavPropertyList.addAll(nextNavPropertyList);
-        }
         int count = 0;
         for (Object object : listOfItems) {
           HashMap<String, Object> navigationMap =
@@ -185,6 +194,17 @@ public class JPAExpandCallBack implements OnWriteFeedContent, OnWriteEntryConten
 
   private List<EdmNavigationProperty> getNextNavigationProperty(final EdmEntityType sourceEntityType,
       final EdmNavigationProperty navigationProperty) throws EdmException {
+    final String key = sourceEntityType.getName() + '/' + navigationProperty.getName();
+    List<EdmNavigationProperty> edmNavigationPropertyList = nextNavigationPropertyMap.get(key);
+    if (edmNavigationPropertyList == null) {
+      edmNavigationPropertyList = findNextNavigationProperty(sourceEntityType, navigationProperty);
+      nextNavigationPropertyMap.putIfAbsent(key, edmNavigationPropertyList);
+    }
+    return edmNavigationPropertyList;
+  }
+
+  private List<EdmNavigationProperty> findNextNavigationProperty(final EdmEntityType sourceEntityType,
+      final EdmNavigationProperty navigationProperty) throws EdmException {
     final List<EdmNavigationProperty> edmNavigationPropertyList = new ArrayList<EdmNavigationProperty>();
     for (ArrayList<NavigationPropertySegment> navPropSegments : expandList) {
       int size = navPropSegments.size();
@@ -214,12 +234,32 @@ public class JPAExpandCallBack implements OnWriteFeedContent, OnWriteEntryConten
 
   }
 
+  /**
+   * Returns the inline write properties for the expand/select node of the context; they are
+   * created for the first parent entry and shared by all following ones.
+   */
   private EntityProviderWriteProperties getInlineEntityProviderProperties(final WriteCallbackContext context)
       throws EdmException {
-    ODataEntityProviderPropertiesBuilder propertiesBuilder = EntityProviderWriteProperties.serviceRoot(baseUri);
-    propertiesBuilder.callbacks(getCallbacks(baseUri, context.getCurrentExpandSelectTreeNode(), expandList));
-    propertiesBuilder.expandSelectTree(context.getCurrentExpandSelectTreeNode());
-    return propertiesBuilder.build();
+    final ExpandSelectTreeNode expandSelectTreeNode = context.getCurrentExpandSelectTreeNode();
+    InlineProperties current = inlineProperties;
+    if (current == null || current.expandSelectTreeNode != expandSelectTreeNode) {
+      ODataEntityProviderPropertiesBuilder propertiesBuilder = EntityProviderWriteProperties.serviceRoot(baseUri);
+      propertiesBuilder.callbacks(getCallbacks(baseUri, expandSelectTreeNode, expandList));
+      propertiesBuilder.expandSelectTree(expandSelectTreeNode);
+      current = new InlineProperties(expandSelectTreeNode, propertiesBuilder.build());
+      inlineProperties = current;
+    }
+    return current.properties;
+  }
+
+  private static final class InlineProperties {
+    private final ExpandSelectTreeNode expandSelectTreeNode;
+    private final EntityProviderWriteProperties properties;
+
+    InlineProperties(final ExpandSelectTreeNode expandSelectTreeNode, final EntityProviderWriteProperties properties) {
+      this.expandSelectTreeNode = expandSelectTreeNode;
+      this.properties = properties;
+    }
   }
 
 }
@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.edm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.persistence.metamodel.Metamodel;
+
+import org.apache.olingo.odata2.api.edm.provider.ComplexType;
+import org.apache.olingo.odata2.api.edm.provider.EntityContainer;
+import org.apache.olingo.odata2.api.edm.provider.EntityType;
+import org.apache.olingo.odata2.api.edm.provider.FunctionImport;
+import org.apache.olingo.odata2.api.edm.provider.Schema;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
+import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPAModelException;
+import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
+import org.apache.olingo.odata2.jpa.processor.api.factory.ODataJPAFactory;
+import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmExtension;
+import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmModelView;
+
+/**
+ * <p>
+ * Cache for the Entity Data Model derived from a Java Persistence Model. The
+ * schemas are built once per persistence unit and then shared by all
+ * {@link ODataJPAEdmProvider} instances, so that a request does not walk the
+ * JPA metamodel again.
+ * </p>
+ * <p>
+ * Entries are held per JPA {@link javax.persistence.metamodel.Metamodel} and are
+ * released together with the entity manager factory. Within a metamodel the
+ * entries are held per JPA EDM extension instance, as an extension may build a
+ * different model depending on its state, and are distinguished by persistence
+ * unit name, mapping model name and default naming. The lists of the cached
+ * schemas and of their types and containers are unmodifiable.
+ * </p>
+ * <p>
+ * The derived model can be written to a snapshot with
+ * {@link #writeSnapshot(ODataJPAContext, OutputStream)} and loaded on another node
+ * with {@link #loadSnapshot(ODataJPAContext, InputStream)} before the first request,
+ * so that the model does not have to be derived again. A snapshot must have been
+ * written from the same version of the persistence unit.
+ * </p>
+ */
+public final class ODataJPAEdmCache {
+
+  private static final Map<Metamodel, Map<Object, Map<String, List<Schema>>>> CACHE =
+      new WeakHashMap<Metamodel, Map<Object, Map<String, List<Schema>>>>();
+  /** Key of the entries of contexts without JPA EDM extension. */
+  private static final Object NO_EXTENSION = new Object();
+
+  private ODataJPAEdmCache() {}
+
+  /**
+   * Returns the schemas for the given context. The schemas are derived from the
+   * Java Persistence Model on first access only.
+   * @param context is the OData JPA context
+   * @return an unmodifiable list of schemas; the schemas are shared and must not be changed
+   * @throws ODataJPAModelException
+   * @throws ODataJPARuntimeException
+   */
+  public static List<Schema> getSchemas(final ODataJPAContext context) throws ODataJPAModelException,
+      ODataJPARuntimeException {
+    List<Schema> schemas = get(context);
+    if (schemas == null) {
+      JPAEdmModelView jpaEdmModel =
+          ODataJPAFactory.createFactory().getJPAAccessFactory().getJPAEdmModelView(context);
+      jpaEdmModel.getBuilder().build();
+      List<Schema> built = new ArrayList<Schema>();
+      built.add(jpaEdmModel.getEdmSchemaView().getEdmSchema());
+      schemas = put(context, built);
+    }
+    return schemas;
+  }
+
+  /**
+   * Writes the schemas for the given context as a serialized snapshot. The
+   * schemas are derived first if they are not yet cached.
+   * @param context is the OData JPA context
+   * @param out is the stream the snapshot is written to; it is not closed
+   * @throws ODataJPAModelException
+   * @throws ODataJPARuntimeException
+   */
+  public static void writeSnapshot(final ODataJPAContext context, final OutputStream out)
+      throws ODataJPAModelException, ODataJPARuntimeException {
+    List<Schema> schemas = getSchemas(context);
+    try {
+      ObjectOutputStream oos = new ObjectOutputStream(out);
+      oos.writeUTF(createKey(context));
+      oos.writeObject(new ArrayList<Schema>(schemas));
+      oos.flush();
+    } catch (IOException e) {
+      throw ODataJPAModelException.throwException(ODataJPAModelException.GENERAL.addContent(e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Loads a snapshot written by {@link #writeSnapshot(ODataJPAContext, OutputStream)}
+   * into the cache. The snapshot is ignored if it was written for a different
+   * persistence unit, mapping model or extension.
+   * @param context is the OData JPA context
+   * @param in is the stream the snapshot is read from; it is not closed
+   * @return <code>true</code> if the snapshot was loaded
+   * @throws ODataJPAModelException
+   */
+  @SuppressWarnings("unchecked")
+  public static boolean loadSnapshot(final ODataJPAContext context, final InputStream in)
+      throws ODataJPAModelException {
+    String key = createKey(context);
+    try {
+      ObjectInputStream ois = new SnapshotInputStream(in);
+      if (!key.equals(ois.readUTF())) {
+        return false;
+      }
+      put(context, (List<Schema>) ois.readObject());
+      return true;
+    } catch (IOException e) {
+      throw ODataJPAModelException.throwException(ODataJPAModelException.GENERAL.addContent(e.getMessage()), e);
+    } catch (ClassNotFoundException e) {
+      throw ODataJPAModelException.throwException(ODataJPAModelException.GENERAL.addContent(e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Removes all cached schemas.
+   */
+  public static void clear() {
+    synchronized (CACHE) {
+      CACHE.clear();
+    }
+  }
+
+  static List<Schema> get(final ODataJPAContext context) {
+    String key = createKey(context);
+    synchronized (CACHE) {
+      Map<String, List<Schema>> entries = getEntries(context, false);
+      return entries == null ? null : entries.get(key);
+    }
+  }
+
+  static List<Schema> put(final ODataJPAContext context, final List<Schema> schemas) {
+    String key = createKey(context);
+    synchronized (CACHE) {
+      Map<String, List<Schema>> entries = getEntries(context, true);
+      // a concurrent build may have finished first; keep the model already handed out
+      List<Schema> cached = entries.get(key);
+      if (cached == null) {
+        cached = unmodifiable(schemas);
+        for (Schema schema : cached) {
+          freeze(schema);
+        }
+        entries.put(key, cached);
+      }
+      return cached;
+    }
+  }
+
+  /**
+   * Returns the entries of the metamodel and JPA EDM extension instance of the
+   * given context; the caller must hold the lock of the cache.
+   */
+  private static Map<String, List<Schema>> getEntries(final ODataJPAContext context, final boolean create) {
+    Metamodel metamodel = context.getEntityManagerFactory().getMetamodel();
+    JPAEdmExtension extension = context.getJPAEdmExtension();
+    Object extensionKey = extension == null ? NO_EXTENSION : extension;
+    Map<Object, Map<String, List<Schema>>> extensionEntries = CACHE.get(metamodel);
+    if (extensionEntries == null) {
+      if (!create) {
+        return null;
+      }
+      // extensions are often created per request; their entries are released with them
+      extensionEntries = new WeakHashMap<Object, Map<String, List<Schema>>>();
+      CACHE.put(metamodel, extensionEntries);
+    }
+    Map<String, List<Schema>> entries = extensionEntries.get(extensionKey);
+    if (entries == null && create) {
+      entries = new HashMap<String, List<Schema>>();
+      extensionEntries.put(extensionKey, entries);
+    }
+    return entries;
+  }
+
+  /**
+   * Replaces the lists of the schema, its types and its containers by unmodifiable views.
+   */
+  private static void freeze(final Schema schema) {
+    schema.setUsings(unmodifiable(schema.getUsings()));
+    schema.setEntityTypes(unmodifiable(schema.getEntityTypes()));
+    schema.setComplexTypes(unmodifiable(schema.getComplexTypes()));
+    schema.setAssociations(unmodifiable(schema.getAssociations()));
+    schema.setEntityContainers(unmodifiable(schema.getEntityContainers()));
+    if (schema.getEntityTypes() != null) {
+      for (EntityType entityType : schema.getEntityTypes()) {
+        entityType.setProperties(unmodifiable(entityType.getProperties()));
+        entityType.setNavigationProperties(unmodifiable(entityType.getNavigationProperties()));
+        if (entityType.getKey() != null) {
+          entityType.getKey().setKeys(unmodifiable(entityType.getKey().getKeys()));
+        }
+      }
+    }
+    if (schema.getComplexTypes() != null) {
+      for (ComplexType complexType : schema.getComplexTypes()) {
+        complexType.setProperties(unmodifiable(complexType.getProperties()));
+      }
+    }
+    if (schema.getEntityContainers() != null) {
+      for (EntityContainer container : schema.getEntityContainers()) {
+        container.setEntitySets(unmodifiable(container.getEntitySets()));
+        container.setAssociationSets(unmodifiable(container.getAssociationSets()));
+        container.setFunctionImports(unmodifiable(container.getFunctionImports()));
+        if (container.getFunctionImports() != null) {
+          for (FunctionImport functionImport : container.getFunctionImports()) {
+            functionImport.setParameters(unmodifiable(functionImport.getParameters()));
+          }
+        }
+      }
+    }
+  }
+
+  private static <T> List<T> unmodifiable(final List<T> list) {
+    return list == null ? null : Collections.unmodifiableList(list);
+  }
+
+  private static String createKey(final ODataJPAContext context) {
+    JPAEdmExtension extension = context.getJPAEdmExtension();
+    StringBuilder key = new StringBuilder();
+    key.append(context.getPersistenceUnitName()).append('|');
+    key.append(context.getJPAEdmMappingModel()).append('|');
+    key.append(extension == null ? null : extension.getClass().getName()).append('|');
+    key.append(context.getDefaultNaming());
+    return key.toString();
+  }
+
+  /**
+   * Resolves classes of the snapshot (for example JPA types referenced by the
+   * mappings) with the context class loader of the application.
+   */
+  private static class SnapshotInputStream extends ObjectInputStream {
+
+    public SnapshotInputStream(final InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+      ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+      if (classLoader != null) {
+        try {
+          return Class.forName(desc.getName(), false, classLoader);
+        } catch (ClassNotFoundException e) {
+          // fall back to the default resolution
+        }
+      }
+      return super.resolveClass(desc);
+    }
+  }
+}
@@ -18,7 +18,6 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.jpa.processor.core.edm;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
@@ -38,13 +37,10 @@ import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPAException;
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPAModelException;
-import org.apache.olingo.odata2.jpa.processor.api.factory.ODataJPAFactory;
-import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmModelView;
 
 public class ODataJPAEdmProvider extends EdmProvider {
 
   private ODataJPAContext oDataJPAContext;
-  private JPAEdmModelView jpaEdmModel;
 
   private List<Schema> schemas;
   private HashMap<String, EntityType> entityTypes;
@@ -70,7 +66,7 @@ public class ODataJPAEdmProvider extends EdmProvider {
     complexTypes = new HashMap<String, ComplexType>();
     associations = new HashMap<String, Association>();
     functionImports = new HashMap<String, FunctionImport>();
-    jpaEdmModel = ODataJPAFactory.createFactory().getJPAAccessFactory().getJPAEdmModelView(oDataJPAContext);
+    this.oDataJPAContext = oDataJPAContext;
   }
 
   public ODataJPAContext getODataJPAContext() {
@@ -277,14 +273,18 @@ public class ODataJPAEdmProvider extends EdmProvider {
     return null;
   }
 
+  /**
+   * Returns the schemas derived from the Java Persistence Model. The schemas are
+   * shared by all providers of the same persistence unit (see {@link ODataJPAEdmCache});
+   * the returned list is unmodifiable and the schemas in it must not be changed.
+   */
   @Override
   public List<Schema> getSchemas() throws ODataException {
-    if (schemas == null && jpaEdmModel != null) {
-      jpaEdmModel.getBuilder().build();
-      schemas = new ArrayList<Schema>();
-      schemas.add(jpaEdmModel.getEdmSchemaView().getEdmSchema());
+    if (schemas == null && oDataJPAContext != null) {
+      // the model derived from the persistence unit is shared across requests
+      schemas = ODataJPAEdmCache.getSchemas(oDataJPAContext);
     }
-    if (jpaEdmModel == null) {
+    if (schemas == null) {
 
       throw ODataJPAModelException.throwException(ODataJPAModelException.BUILDER_NULL, null);
     }
@@ -18,6 +18,9 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.jpa.processor.core.jpql;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.olingo.odata2.api.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.edm.EdmException;
 import org.apache.olingo.odata2.api.edm.EdmMapping;
@@ -136,7 +139,10 @@ public class JPQLSelectContext extends JPQLContext implements JPQLSelectContextV
 
       if (entitySetView.getOrderBy() != null) {
 
-        return ODataExpressionParser.parseToJPAOrderByExpression(entitySetView.getOrderBy(), getJPAEntityAlias());
+        String orderBy =
+            ODataExpressionParser.parseToJPAOrderByExpression(entitySetView.getOrderBy(), getJPAEntityAlias());
+        // pages are only disjoint if the order is unique, so the key properties break ties
+        return pagingRequested ? appendKeyProperties(orderBy) : orderBy;
 
       } else if (entitySetView.getTop() != null || entitySetView.getSkip() != null ||
           pagingRequested == true) {
@@ -149,6 +155,23 @@ public class JPQLSelectContext extends JPQLContext implements JPQLSelectContextV
 
     }
 
+    private String appendKeyProperties(final String orderBy) throws ODataJPARuntimeException, EdmException {
+      String keyOrderBy = ODataExpressionParser.parseKeyPropertiesToJPAOrderByExpression(entitySetView
+          .getTargetEntitySet().getEntityType().getKeyProperties(), getJPAEntityAlias());
+      List<String> orderedPaths = new ArrayList<String>();
+      for (String orderItem : orderBy.split(",")) {
+        orderedPaths.add(orderItem.trim().split(" ")[0]);
+      }
+      StringBuilder result = new StringBuilder(orderBy);
+      for (String keyPath : keyOrderBy.split(",")) {
+        keyPath = keyPath.trim();
+        if (keyPath.length() > 0 && !orderedPaths.contains(keyPath)) {
+          result.append(" , ").append(keyPath);
+        }
+      }
+      return result.toString();
+    }
+
     /*
      * Generate Where Clause Expression
      */
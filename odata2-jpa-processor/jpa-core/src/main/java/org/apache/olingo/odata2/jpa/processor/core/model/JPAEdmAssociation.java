@@ -20,9 +20,15 @@ package org.apache.olingo.odata2.jpa.processor.core.model;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.olingo.odata2.api.edm.provider.Association;
 import org.apache.olingo.odata2.api.edm.provider.AssociationEnd;
@@ -45,6 +51,8 @@ public class JPAEdmAssociation extends JPAEdmBaseViewImpl implements JPAEdmAssoc
   private List<Association> consistentAssociatonList;
   private HashMap<String, Association> associationMap;
   private HashMap<String, JPAEdmAssociationEndView> associationEndMap;
+  // associations grouped by the (unordered) types of their ends
+  private HashMap<String, Map<String, Association>> associationsByEndTypes;
   private List<JPAEdmReferentialConstraintView> inconsistentRefConstraintViewList;
   private int numberOfSimilarEndPoints;
 
@@ -67,6 +75,62 @@ public class JPAEdmAssociation extends JPAEdmBaseViewImpl implements JPAEdmAssoc
     inconsistentRefConstraintViewList = new LinkedList<JPAEdmReferentialConstraintView>();
     associationMap = new HashMap<String, Association>();
     associationEndMap = new HashMap<String, JPAEdmAssociationEndView>();
+    associationsByEndTypes = new HashMap<String, Map<String, Association>>();
+  }
+
+  private static String getEndTypesKey(final AssociationEnd end1, final AssociationEnd end2) {
+    if (end1 == null || end2 == null || end1.getType() == null || end2.getType() == null) {
+      return null;
+    }
+    final String type1 = end1.getType().toString();
+    final String type2 = end2.getType().toString();
+    return type1.compareTo(type2) <= 0 ? type1 + ' ' + type2 : type2 + ' ' + type1;
+  }
+
+  private void putAssociation(final String name, final Association association) {
+    removeAssociation(name);
+    associationMap.put(name, association);
+    if (association != null) {
+      final String key = getEndTypesKey(association.getEnd1(), association.getEnd2());
+      Map<String, Association> associations = associationsByEndTypes.get(key);
+      if (associations == null) {
+        associations = new LinkedHashMap<String, Association>();
+        associationsByEndTypes.put(key, associations);
+      }
+      associations.put(name, association);
+    }
+  }
+
+  private void removeAssociation(final String name) {
+    final Association association = associationMap.remove(name);
+    if (association != null) {
+      final Map<String, Association> associations =
+          associationsByEndTypes.get(getEndTypesKey(association.getEnd1(), association.getEnd2()));
+      if (associations != null) {
+        associations.remove(name);
+      }
+    }
+  }
+
+  /**
+   * Returns the associations that may match the ends of the given view;
+   * only associations between the same entity types have to be compared.
+   */
+  private Collection<Association> getCandidates(final JPAEdmAssociationEndView view) {
+    final String key = getEndTypesKey(view.getEdmAssociationEnd1(), view.getEdmAssociationEnd2());
+    if (key == null) {
+      return associationMap.values();
+    }
+    final Map<String, Association> associations = associationsByEndTypes.get(key);
+    final Map<String, Association> unindexed = associationsByEndTypes.get(null);
+    if (unindexed == null || unindexed.isEmpty()) {
+      return associations == null ? Collections.<Association> emptyList() : associations.values();
+    }
+    List<Association> candidates = new ArrayList<Association>(unindexed.values());
+    if (associations != null) {
+      candidates.addAll(associations.values());
+    }
+    return candidates;
   }
 
   @Override
@@ -90,8 +154,7 @@ public class JPAEdmAssociation extends JPAEdmBaseViewImpl implements JPAEdmAssoc
   @Override
   public Association searchAssociation(final JPAEdmAssociationEndView view) {
     if (view != null) {
-      for (String key : associationMap.keySet()) {
-        Association association = associationMap.get(key);
+      for (Association association : getCandidates(view)) {
         if (association != null) {
           if (view.compare(association.getEnd1(), association.getEnd2())) {
             JPAEdmAssociationEndView associationEnd = associationEndMap.get(association.getName());
@@ -131,7 +194,7 @@ public class JPAEdmAssociation extends JPAEdmBaseViewImpl implements JPAEdmAssoc
       final JPAEdmAssociationEndView associationEndView) {
     if (associationView != null) {
       currentAssociation = associationView.getEdmAssociation();
-      associationMap.put(currentAssociation.getName(), currentAssociation);
+      putAssociation(currentAssociation.getName(), currentAssociation);
       associationEndMap.put(currentAssociation.getName(), associationEndView);
       addJPAEdmRefConstraintView(associationView.getJPAEdmReferentialConstraintView());
     }
@@ -164,7 +227,7 @@ public class JPAEdmAssociation extends JPAEdmBaseViewImpl implements JPAEdmAssoc
 
         JPAEdmNameBuilder.build(JPAEdmAssociation.this, numberOfSimilarEndPoints);
 
-        associationMap.put(currentAssociation.getName(), currentAssociation);
+        putAssociation(currentAssociation.getName(), currentAssociation);
 
       } else if (!inconsistentRefConstraintViewList.isEmpty()) {
         int inconsistentRefConstraintViewSize = inconsistentRefConstraintViewList.size();
@@ -180,10 +243,10 @@ public class JPAEdmAssociation extends JPAEdmBaseViewImpl implements JPAEdmAssoc
             copyAssociation(newAssociation, associationMap.get(view.getEdmRelationShipName()));
             newAssociation.setReferentialConstraint(view.getEdmReferentialConstraint());
             consistentAssociatonList.add(newAssociation);
-            associationMap.put(view.getEdmRelationShipName(), newAssociation);
+            putAssociation(view.getEdmRelationShipName(), newAssociation);
             inconsistentRefConstraintViewList.remove(index);
           } else {
-            associationMap.remove(view.getEdmRelationShipName());
+            removeAssociation(view.getEdmRelationShipName());
             index++;
           }
         }
@@ -192,9 +255,11 @@ public class JPAEdmAssociation extends JPAEdmBaseViewImpl implements JPAEdmAssoc
       if (associationMap.size() == consistentAssociatonList.size()) {
         isConsistent = true;
       } else {
-        for (String key : associationMap.keySet()) {
-          Association association = associationMap.get(key);
-          if (!consistentAssociatonList.contains(association)) {
+        Set<Association> consistentAssociations =
+            Collections.newSetFromMap(new IdentityHashMap<Association, Boolean>());
+        consistentAssociations.addAll(consistentAssociatonList);
+        for (Association association : associationMap.values()) {
+          if (consistentAssociations.add(association)) {
             consistentAssociatonList.add(association);
           }
         }
@@ -219,8 +284,7 @@ public class JPAEdmAssociation extends JPAEdmBaseViewImpl implements JPAEdmAssoc
     int count = 0;
     AssociationEnd end1 = null;
     AssociationEnd end2 = null;
-    for (String key : associationMap.keySet()) {
-      Association association = associationMap.get(key);
+    for (Association association : getCandidates(view)) {
       if (association != null) {
         end1 = association.getEnd1();
         end2 = association.getEnd2();
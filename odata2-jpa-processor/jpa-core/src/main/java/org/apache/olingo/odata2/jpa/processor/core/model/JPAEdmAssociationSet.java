@@ -19,7 +19,9 @@
 package org.apache.olingo.odata2.jpa.processor.core.model;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.olingo.odata2.api.edm.FullQualifiedName;
 import org.apache.olingo.odata2.api.edm.provider.Association;
@@ -84,6 +86,13 @@ public class JPAEdmAssociationSet extends JPAEdmBaseViewImpl implements JPAEdmAs
 
       List<EntitySet> entitySetList = entitySetView.getConsistentEdmEntitySetList();
       if (associationView.isConsistent()) {
+        Map<FullQualifiedName, EntitySet> entitySetsByType = new HashMap<FullQualifiedName, EntitySet>();
+        for (EntitySet entitySet : entitySetList) {
+          if (!entitySetsByType.containsKey(entitySet.getEntityType())) {
+            entitySetsByType.put(entitySet.getEntityType(), entitySet);
+          }
+        }
+
         for (Association association : associationView.getConsistentEdmAssociationList()) {
 
           currentAssociation = association;
@@ -94,28 +103,22 @@ public class JPAEdmAssociationSet extends JPAEdmBaseViewImpl implements JPAEdmAs
           currentAssociationSet.setAssociation(fQname);
 
           int endCount = 0;
-          FullQualifiedName end1Type = association.getEnd1().getType();
-          FullQualifiedName end2Type = association.getEnd2().getType();
-
-          for (EntitySet entitySet : entitySetList) {
-            fQname = entitySet.getEntityType();
-            if (fQname.equals(end1Type)) {
-              AssociationSetEnd end = new AssociationSetEnd();
-              end.setEntitySet(entitySet.getName());
-              currentAssociationSet.setEnd1(end);
-              end.setRole(association.getEnd1().getRole());
-              endCount++;
-            }
-            if (fQname.equals(end2Type)) {
-              AssociationSetEnd end = new AssociationSetEnd();
-              end.setEntitySet(entitySet.getName());
-              currentAssociationSet.setEnd2(end);
-              end.setRole(association.getEnd2().getRole());
-              endCount++;
-            }
-            if (endCount == 2) {
-              break;
-            }
+          EntitySet entitySet1 = entitySetsByType.get(association.getEnd1().getType());
+          EntitySet entitySet2 = entitySetsByType.get(association.getEnd2().getType());
+
+          if (entitySet1 != null) {
+            AssociationSetEnd end = new AssociationSetEnd();
+            end.setEntitySet(entitySet1.getName());
+            currentAssociationSet.setEnd1(end);
+            end.setRole(association.getEnd1().getRole());
+            endCount++;
+          }
+          if (entitySet2 != null) {
+            AssociationSetEnd end = new AssociationSetEnd();
+            end.setEntitySet(entitySet2.getName());
+            currentAssociationSet.setEnd2(end);
+            end.setRole(association.getEnd2().getRole());
+            endCount++;
           }
           if (endCount == 2) {
             JPAEdmNameBuilder.build(JPAEdmAssociationSet.this);
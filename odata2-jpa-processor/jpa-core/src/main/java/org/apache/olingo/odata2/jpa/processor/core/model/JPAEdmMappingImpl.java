@@ -24,6 +24,8 @@ import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmMapping;
 
 public class JPAEdmMappingImpl extends Mapping implements JPAEdmMapping {
 
+  private static final long serialVersionUID = 1L;
+
   private String columnName = null;
   private Class<?> type = null;
   private Class<? extends ODataJPATombstoneEntityListener> entityListener = null;
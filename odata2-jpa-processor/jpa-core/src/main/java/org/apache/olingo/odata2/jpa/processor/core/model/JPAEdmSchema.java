@@ -20,7 +20,9 @@ package org.apache.olingo.odata2.jpa.processor.core.model;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.olingo.odata2.api.edm.provider.Association;
 import org.apache.olingo.odata2.api.edm.provider.ComplexType;
@@ -140,7 +142,7 @@ public class JPAEdmSchema extends JPAEdmBaseViewImpl implements JPAEdmSchemaView
         }
       }
 
-      List<String> existingAssociationList = new ArrayList<String>();
+      Set<String> existingAssociationList = new HashSet<String>();
       if (associationView.isConsistent() && !associationView.getConsistentEdmAssociationList().isEmpty()) {
 
         List<Association> consistentAssociationList = associationView.getConsistentEdmAssociationList();
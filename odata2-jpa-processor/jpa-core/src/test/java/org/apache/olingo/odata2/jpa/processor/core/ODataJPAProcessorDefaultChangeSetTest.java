@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import org.apache.olingo.odata2.api.ODataService;
+import org.apache.olingo.odata2.api.batch.BatchHandler;
+import org.apache.olingo.odata2.api.batch.BatchResponsePart;
+import org.apache.olingo.odata2.api.commons.HttpContentType;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
+import org.apache.olingo.odata2.api.edm.Edm;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.processor.ODataContext;
+import org.apache.olingo.odata2.api.processor.ODataRequest;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPATransaction;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ODataJPAProcessorDefaultChangeSetTest {
+
+  private EntityManager em;
+  private ODataJPATransaction transaction;
+  private BatchHandler handler;
+
+  @Before
+  public void setUp() throws ODataException {
+    em = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(em.isOpen()).andStubReturn(true);
+    em.close();
+    EasyMock.expectLastCall().anyTimes();
+
+    transaction = EasyMock.createMock(ODataJPATransaction.class);
+    EasyMock.expect(transaction.isActive()).andStubReturn(true);
+    transaction.begin();
+
+    handler = EasyMock.createMock(BatchHandler.class);
+    EasyMock.expect(handler.handleRequest(EasyMock.anyObject(ODataRequest.class)))
+        .andStubReturn(ODataResponse.status(HttpStatusCodes.CREATED).build());
+    EasyMock.replay(handler);
+  }
+
+  @Test
+  public void deferredFlush() throws ODataException {
+    // flushed after the second request and before the commit
+    em.flush();
+    EasyMock.expectLastCall().times(2);
+    em.clear();
+    transaction.commit();
+    EasyMock.replay(em, transaction);
+
+    BatchResponsePart response = createProcessor(2).executeChangeSet(handler, createRequests(3));
+
+    assertTrue(response.isChangeSet());
+    assertEquals(3, response.getResponses().size());
+    EasyMock.verify(em, transaction);
+  }
+
+  @Test
+  public void constraintViolation() throws ODataException {
+    em.flush();
+    EasyMock.expectLastCall().andThrow(new PersistenceException("unique constraint violated"));
+    transaction.rollback();
+    EasyMock.replay(em, transaction);
+
+    BatchResponsePart response = createProcessor(0).executeChangeSet(handler, createRequests(2));
+
+    assertFalse(response.isChangeSet());
+    assertEquals(1, response.getResponses().size());
+    ODataResponse errorResponse = response.getResponses().get(0);
+    assertEquals(HttpStatusCodes.INTERNAL_SERVER_ERROR, errorResponse.getStatus());
+    assertTrue(errorResponse.getContentHeader().startsWith(HttpContentType.APPLICATION_XML));
+    EasyMock.verify(em, transaction);
+  }
+
+  private ODataJPAProcessorDefault createProcessor(final int flushSize) throws ODataException {
+    Edm edm = EasyMock.createMock(Edm.class);
+    ODataService service = EasyMock.createMock(ODataService.class);
+    EasyMock.expect(service.getEntityDataModel()).andStubReturn(edm);
+    ODataContext context = EasyMock.createMock(ODataContext.class);
+    EasyMock.expect(context.getService()).andStubReturn(service);
+    EasyMock.expect(context.isInBatchMode()).andStubReturn(true);
+    EasyMock.replay(edm, service, context);
+
+    ODataJPAContext jpaContext = EasyMock.createNiceMock(ODataJPAContext.class);
+    EasyMock.expect(jpaContext.getEntityManager()).andStubReturn(em);
+    EasyMock.expect(jpaContext.getODataJPATransaction()).andStubReturn(transaction);
+    EasyMock.expect(jpaContext.getChangeSetFlushSize()).andStubReturn(flushSize);
+    EasyMock.expect(jpaContext.getODataContext()).andStubReturn(context);
+    EasyMock.replay(jpaContext);
+
+    ODataJPAProcessorDefault processor = new ODataJPAProcessorDefault(jpaContext);
+    processor.setContext(context);
+    return processor;
+  }
+
+  private List<ODataRequest> createRequests(final int count) {
+    List<ODataRequest> requests = new ArrayList<ODataRequest>();
+    for (int i = 0; i < count; i++) {
+      requests.add(ODataRequest.method(ODataHttpMethod.POST).build());
+    }
+    return requests;
+  }
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ODataJPAReadCacheDefaultTest {
+
+  private static final String ENTITY_SET_NAME = "Countries";
+
+  private ODataJPAReadCacheDefault cache;
+
+  @Before
+  public void setUp() {
+    cache = new ODataJPAReadCacheDefault();
+    cache.addEntitySet(ENTITY_SET_NAME, 2, 0);
+  }
+
+  @Test
+  public void testPutAndGet() {
+    cache.put(ENTITY_SET_NAME, "DE", createEntity("DE"), cache.getGeneration(ENTITY_SET_NAME));
+
+    assertEquals("DE", cache.get(ENTITY_SET_NAME, "DE").get("Code"));
+    assertNull(cache.get(ENTITY_SET_NAME, "FR"));
+    assertEquals(1, cache.getHitCount(ENTITY_SET_NAME));
+    assertEquals(1, cache.getMissCount(ENTITY_SET_NAME));
+    assertEquals(0.5, cache.getHitRate(ENTITY_SET_NAME), 0);
+  }
+
+  @Test
+  public void testEntitySetNotRegistered() {
+    cache.put("Materials", "1", createEntity("1"), cache.getGeneration("Materials"));
+
+    assertNull(cache.get("Materials", "1"));
+  }
+
+  @Test
+  public void testLeastRecentlyUsedRemoved() {
+    cache.put(ENTITY_SET_NAME, "DE", createEntity("DE"), cache.getGeneration(ENTITY_SET_NAME));
+    cache.put(ENTITY_SET_NAME, "FR", createEntity("FR"), cache.getGeneration(ENTITY_SET_NAME));
+    cache.get(ENTITY_SET_NAME, "DE");
+    cache.put(ENTITY_SET_NAME, "IT", createEntity("IT"), cache.getGeneration(ENTITY_SET_NAME));
+
+    assertNotNull(cache.get(ENTITY_SET_NAME, "DE"));
+    assertNull(cache.get(ENTITY_SET_NAME, "FR"));
+    assertNotNull(cache.get(ENTITY_SET_NAME, "IT"));
+  }
+
+  @Test
+  public void testInvalidate() {
+    cache.put(ENTITY_SET_NAME, "DE", createEntity("DE"), cache.getGeneration(ENTITY_SET_NAME));
+    cache.put(ENTITY_SET_NAME, "FR", createEntity("FR"), cache.getGeneration(ENTITY_SET_NAME));
+
+    cache.invalidate(ENTITY_SET_NAME, "DE");
+    assertNull(cache.get(ENTITY_SET_NAME, "DE"));
+    assertNotNull(cache.get(ENTITY_SET_NAME, "FR"));
+
+    cache.invalidate(ENTITY_SET_NAME, null);
+    assertNull(cache.get(ENTITY_SET_NAME, "FR"));
+  }
+
+  @Test
+  public void testPutAfterInvalidateIgnored() {
+    long generation = cache.getGeneration(ENTITY_SET_NAME);
+    cache.invalidate(ENTITY_SET_NAME, "DE");
+    cache.put(ENTITY_SET_NAME, "DE", createEntity("DE"), generation);
+
+    assertNull(cache.get(ENTITY_SET_NAME, "DE"));
+
+    cache.put(ENTITY_SET_NAME, "DE", createEntity("DE"), cache.getGeneration(ENTITY_SET_NAME));
+    assertNotNull(cache.get(ENTITY_SET_NAME, "DE"));
+  }
+
+  @Test
+  public void testExpiredEntity() throws InterruptedException {
+    cache.addEntitySet(ENTITY_SET_NAME, 2, 1);
+    cache.put(ENTITY_SET_NAME, "DE", createEntity("DE"), cache.getGeneration(ENTITY_SET_NAME));
+    Thread.sleep(5);
+
+    assertNull(cache.get(ENTITY_SET_NAME, "DE"));
+  }
+
+  private Map<String, Object> createEntity(final String code) {
+    Map<String, Object> entity = new HashMap<String, Object>();
+    entity.put("Code", code);
+    return entity;
+  }
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+public class ODataJPATransactionLocalDefaultTest {
+
+  @Test
+  public void testAfterCommitActionRunAfterCommit() {
+    final List<String> events = new ArrayList<String>();
+    ODataJPATransactionLocalDefault transaction = new ODataJPATransactionLocalDefault(mockEntityManager(events));
+    transaction.begin();
+    transaction.afterCommit(new Runnable() {
+      @Override
+      public void run() {
+        events.add("action");
+      }
+    });
+    transaction.commit();
+    transaction.begin();
+    transaction.commit();
+
+    assertEquals("[begin, commit, action, begin, commit]", events.toString());
+  }
+
+  @Test
+  public void testAfterCommitActionDiscardedOnRollback() {
+    final List<String> events = new ArrayList<String>();
+    ODataJPATransactionLocalDefault transaction = new ODataJPATransactionLocalDefault(mockEntityManager(events));
+    transaction.begin();
+    transaction.afterCommit(new Runnable() {
+      @Override
+      public void run() {
+        events.add("action");
+      }
+    });
+    transaction.rollback();
+    transaction.begin();
+    transaction.commit();
+
+    assertEquals("[begin, rollback, begin, commit]", events.toString());
+  }
+
+  private EntityManager mockEntityManager(final List<String> events) {
+    EntityTransaction tx = new EntityTransaction() {
+      private boolean active;
+
+      @Override
+      public void begin() {
+        events.add("begin");
+        active = true;
+      }
+
+      @Override
+      public void commit() {
+        events.add("commit");
+        active = false;
+      }
+
+      @Override
+      public void rollback() {
+        events.add("rollback");
+        active = false;
+      }
+
+      @Override
+      public void setRollbackOnly() {}
+
+      @Override
+      public boolean getRollbackOnly() {
+        return false;
+      }
+
+      @Override
+      public boolean isActive() {
+        return active;
+      }
+    };
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(em.getTransaction()).andStubReturn(tx);
+    EasyMock.replay(em);
+    return em;
+  }
+}
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.Metamodel;
+
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmEntityType;
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.edm.EdmSimpleTypeKind;
+import org.apache.olingo.odata2.api.exception.ODataBadRequestException;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAChangeLogEntityListener;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAChangeLogEntry;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPATombstoneContext;
+import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
+import org.apache.olingo.odata2.jpa.processor.core.model.JPAEdmMappingImpl;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Test;
+
+public class JPAChangeLogTest {
+
+  private static final String ENTITY_SET_NAME = "SalesOrders";
+  private static final String LOG_ENTITY_NAME = "SalesOrderChange";
+
+  @After
+  public void tearDown() {
+    ODataJPATombstoneContext.cleanup();
+  }
+
+  @Test
+  public void testGetListenerWithoutChangeLog() throws Exception {
+    assertNull(JPAChangeLog.getListener(mockEntitySet(null)));
+  }
+
+  @Test
+  public void testRecordWithoutChangeLog() throws Exception {
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    EasyMock.replay(em);
+
+    new JPAChangeLog(em).record(mockEntitySet(null), new Object(), false);
+
+    EasyMock.verify(em);
+  }
+
+  @Test
+  public void testGetListenerPerRequest() throws Exception {
+    EdmEntitySet entitySet = mockEntitySet(ChangeLogListener.class);
+    ODataJPAChangeLogEntityListener listener = JPAChangeLog.getListener(entitySet);
+
+    assertNotNull(listener);
+    assertNotSame(listener, JPAChangeLog.getListener(entitySet));
+  }
+
+  @Test
+  public void testGetLatestDeltaTokenOfEmptyLog() {
+    Query query = EasyMock.createMock(Query.class);
+    EasyMock.expect(query.getSingleResult()).andReturn(null);
+    EasyMock.replay(query);
+
+    assertEquals("0", new JPAChangeLog(mockEntityManager(query)).getLatestDeltaToken(new ChangeLogListener()));
+  }
+
+  @Test
+  public void testGetLatestDeltaToken() {
+    Query query = EasyMock.createMock(Query.class);
+    EasyMock.expect(query.getSingleResult()).andReturn(Long.valueOf(42));
+    EasyMock.replay(query);
+
+    assertEquals("42", new JPAChangeLog(mockEntityManager(query)).getLatestDeltaToken(new ChangeLogListener()));
+  }
+
+  @Test
+  public void testReadChangesAfterDeltaToken() throws Exception {
+    Query query = EasyMock.createNiceMock(Query.class);
+    EasyMock.expect(query.setParameter("fromToken", 1000L)).andReturn(query);
+    EasyMock.expect(query.setParameter("toToken", 5000L)).andReturn(query);
+    EasyMock.expect(query.getResultList()).andReturn(new ArrayList<Object>());
+    EasyMock.replay(query);
+
+    new JPAChangeLog(mockEntityManager(query)).readChanges(
+        mockEntitySet(ChangeLogListener.class), new ChangeLogListener(), "1000", "5000");
+
+    EasyMock.verify(query);
+  }
+
+  @Test
+  public void testReadChangesWithInvalidDeltaToken() throws Exception {
+    for (String deltaToken : new String[] { "abc", "-1", "" }) {
+      try {
+        new JPAChangeLog(EasyMock.createMock(EntityManager.class)).readChanges(
+            mockEntitySet(ChangeLogListener.class), new ChangeLogListener(), deltaToken, "5000");
+        fail("Exception expected for " + deltaToken);
+      } catch (ODataJPARuntimeException e) {
+        assertTrue(e.getHttpExceptionCause() instanceof ODataBadRequestException);
+      }
+    }
+  }
+
+  @Test
+  public void testReadChangesOfDeletedEntities() throws Exception {
+    List<Object> entries = new ArrayList<Object>();
+    entries.add(createEntry(1, "2", false));
+    entries.add(createEntry(2, "3", true));
+    entries.add(createEntry(3, "2", true));
+    Query query = EasyMock.createNiceMock(Query.class);
+    EasyMock.expect(query.getResultList()).andReturn(entries);
+    EasyMock.replay(query);
+
+    List<Object> changedEntities = new JPAChangeLog(mockEntityManager(query)).readChanges(
+        mockEntitySet(ChangeLogListener.class), new ChangeLogListener(), "0", "3");
+
+    assertTrue(changedEntities.isEmpty());
+    List<Map<String, Object>> deletedEntries = ODataJPATombstoneContext.getDeletedEntries(ENTITY_SET_NAME);
+    assertEquals(2, deletedEntries.size());
+    assertEquals(3, deletedEntries.get(0).get("SoId"));
+    assertEquals(2, deletedEntries.get(1).get("SoId"));
+  }
+
+  private ODataJPAChangeLogEntry createEntry(final long sequenceNumber, final String key, final boolean deleted) {
+    ODataJPAChangeLogEntry entry = new ChangeLogEntry();
+    entry.setSequenceNumber(sequenceNumber);
+    entry.setEntitySetName(ENTITY_SET_NAME);
+    entry.setEntityKey(key);
+    entry.setDeleted(deleted);
+    return entry;
+  }
+
+  @SuppressWarnings("unchecked")
+  private EntityManager mockEntityManager(final Query query) {
+    EntityType<ChangeLogEntry> entityType = EasyMock.createMock(EntityType.class);
+    EasyMock.expect(entityType.getName()).andStubReturn(LOG_ENTITY_NAME);
+    EasyMock.replay(entityType);
+    Metamodel metamodel = EasyMock.createMock(Metamodel.class);
+    EasyMock.expect(metamodel.entity(ChangeLogEntry.class)).andStubReturn(entityType);
+    EasyMock.replay(metamodel);
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(em.getMetamodel()).andStubReturn(metamodel);
+    EasyMock.expect(em.createQuery(EasyMock.contains(LOG_ENTITY_NAME))).andReturn(query);
+    EasyMock.replay(em);
+    return em;
+  }
+
+  private EdmEntitySet mockEntitySet(final Class<ChangeLogListener> listener) throws EdmException {
+    EdmProperty keyProperty = EasyMock.createMock(EdmProperty.class);
+    EasyMock.expect(keyProperty.getName()).andStubReturn("SoId");
+    EasyMock.expect(keyProperty.getType()).andStubReturn(EdmSimpleTypeKind.Int32.getEdmSimpleTypeInstance());
+    EasyMock.replay(keyProperty);
+    List<EdmProperty> keyProperties = new ArrayList<EdmProperty>();
+    keyProperties.add(keyProperty);
+
+    JPAEdmMappingImpl mapping = new JPAEdmMappingImpl();
+    mapping.setODataJPATombstoneEntityListener(listener);
+    EdmEntityType entityType = EasyMock.createMock(EdmEntityType.class);
+    EasyMock.expect(entityType.getMapping()).andStubReturn(mapping);
+    EasyMock.expect(entityType.getKeyProperties()).andStubReturn(keyProperties);
+    EasyMock.replay(entityType);
+    EdmEntitySet entitySet = EasyMock.createMock(EdmEntitySet.class);
+    EasyMock.expect(entitySet.getName()).andStubReturn(ENTITY_SET_NAME);
+    EasyMock.expect(entitySet.getEntityType()).andStubReturn(entityType);
+    EasyMock.replay(entitySet);
+    return entitySet;
+  }
+
+  public static class ChangeLogEntry extends ODataJPAChangeLogEntry {}
+
+  public static class ChangeLogListener extends ODataJPAChangeLogEntityListener {
+    @Override
+    public Class<? extends ODataJPAChangeLogEntry> getChangeLogEntryClass() {
+      return ChangeLogEntry.class;
+    }
+  }
+}
@@ -20,12 +20,15 @@ package org.apache.olingo.odata2.jpa.processor.core.access.data;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -448,6 +451,62 @@ public class JPAEntityParserTest {
     }
   }
 
+  @Test
+  public void parse2EdmEntityListWithChangingSelection() throws Exception {
+    List<Object> jpaEntities = new ArrayList<Object>();
+    for (int i = 0; i < 100; i++) {
+      jpaEntities.add(new demoItem("id" + i, i));
+    }
+    final EdmProperty id = createEdmProperty("Identifier", "id");
+    final EdmProperty value = createEdmProperty("Value", "value");
+
+    JPAEntityParser parser = new JPAEntityParser();
+    List<Map<String, Object>> result = parser.parse2EdmEntityList(jpaEntities, Arrays.asList(id));
+    assertEquals(100, result.size());
+    assertEquals(1, result.get(42).size());
+    assertEquals("id42", result.get(42).get("Identifier"));
+
+    // a property not selected before is resolved for the same class
+    result = parser.parse2EdmEntityList(jpaEntities, Arrays.asList(id, value));
+    assertEquals("id7", result.get(7).get("Identifier"));
+    assertEquals(7, result.get(7).get("Value"));
+
+    assertEquals(99, new JPAEntityParser().parse2EdmPropertyValueMap(jpaEntities.get(99), Arrays.asList(value))
+        .get("Value"));
+    assertSame(JPAEntityAccessPlan.getInstance(demoItem.class), JPAEntityAccessPlan.getInstance(demoItem.class));
+  }
+
+  @Test
+  public void testAccessPlansOfManyClasses() {
+    // array classes of increasing dimension: more classes than the initial size of the plan table
+    List<Class<?>> types = new ArrayList<Class<?>>();
+    List<JPAEntityAccessPlan> plans = new ArrayList<JPAEntityAccessPlan>();
+    Class<?> type = demoItem.class;
+    for (int i = 0; i < 40; i++) {
+      types.add(type);
+      plans.add(JPAEntityAccessPlan.getInstance(type));
+      type = Array.newInstance(type, 0).getClass();
+    }
+    for (int i = 0; i < types.size(); i++) {
+      assertSame(plans.get(i), JPAEntityAccessPlan.getInstance(types.get(i)));
+    }
+  }
+
+  private EdmProperty createEdmProperty(final String name, final String internalName) throws EdmException {
+    EdmMapping mapping = EasyMock.createMock(EdmMapping.class);
+    EasyMock.expect(mapping.getInternalName()).andStubReturn(internalName);
+    EasyMock.replay(mapping);
+    EdmType type = EasyMock.createMock(EdmType.class);
+    EasyMock.expect(type.getKind()).andStubReturn(EdmTypeKind.SIMPLE);
+    EasyMock.replay(type);
+    EdmProperty property = EasyMock.createMock(EdmProperty.class);
+    EasyMock.expect(property.getName()).andStubReturn(name);
+    EasyMock.expect(property.getMapping()).andStubReturn(mapping);
+    EasyMock.expect(property.getType()).andStubReturn(type);
+    EasyMock.replay(property);
+    return property;
+  }
+
   class demoItem {
     private String id;
     private int value;
@@ -66,6 +66,7 @@ import org.apache.olingo.odata2.api.uri.info.DeleteUriInfo;
 import org.apache.olingo.odata2.api.uri.info.GetEntityCountUriInfo;
 import org.apache.olingo.odata2.api.uri.info.GetEntitySetCountUriInfo;
 import org.apache.olingo.odata2.api.uri.info.GetEntitySetUriInfo;
+import org.apache.olingo.odata2.api.uri.info.PutMergePatchUriInfo;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPATransaction;
 import org.apache.olingo.odata2.jpa.processor.api.access.JPAPaging;
@@ -152,6 +153,19 @@ public class JPAProcessorImplTest {
     }
   }
 
+  @Test
+  public void testPrefetchWithoutSingleEntityUpdates() {
+    try {
+      List<PutMergePatchUriInfo> updateViews = new ArrayList<PutMergePatchUriInfo>();
+      updateViews.add((PutMergePatchUriInfo) getDeletetUriInfo());
+      objJPAProcessorImpl.prefetch(updateViews);
+    } catch (ODataJPAModelException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    } catch (ODataJPARuntimeException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+  }
+
   // ---------------------------- Common Code Start ---------------- TODO - common in ODataJPAProcessorDefaultTest as
   // well
 
@@ -167,6 +181,8 @@ public class JPAProcessorImplTest {
     EasyMock.expect(objUriInfo.getFilter()).andStubReturn(getFilter());
     EasyMock.expect(objUriInfo.getKeyPredicates()).andStubReturn(getKeyPredicates());
     EasyMock.expect(objUriInfo.isLinks()).andStubReturn(false);
+    EasyMock.expect(objUriInfo.getNavigationSegments()).andStubReturn(new ArrayList<NavigationSegment>());
+    EasyMock.expect(objUriInfo.getPropertyPath()).andStubReturn(new ArrayList<EdmProperty>());
     EasyMock.replay(objUriInfo);
     return objUriInfo;
   }
@@ -290,6 +306,7 @@ public class JPAProcessorImplTest {
     EasyMock.expect(odataJPAContext.getODataContext()).andStubReturn(getLocalODataContext());
     EasyMock.expect(odataJPAContext.getEntityManager()).andStubReturn(getLocalEntityManager());
     EasyMock.expect(odataJPAContext.getPageSize()).andReturn(10).anyTimes();
+    EasyMock.expect(odataJPAContext.getReadCache()).andStubReturn(null);
     odataJPAContext.setPaging(EasyMock.isA(JPAPaging.class));
     EasyMock.expectLastCall();
     EasyMock.replay(odataJPAContext);
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.Query;
+
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.Test;
+
+public class JPAResultStreamTest {
+
+  private static final int ROWS = 5;
+
+  private int firstResult;
+  private int maxResults;
+  private int lastKey;
+
+  @Test
+  public void testIterateInChunks() {
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    em.clear();
+    EasyMock.expectLastCall().times(2);
+    EasyMock.replay(em);
+
+    List<Object> result = new ArrayList<Object>();
+    for (Object row : new JPAResultStream(em, mockQuery(), 2, 0, -1)) {
+      result.add(row);
+    }
+
+    assertEquals(ROWS, result.size());
+    for (int i = 0; i < ROWS; i++) {
+      assertEquals(i, result.get(i));
+    }
+    EasyMock.verify(em);
+  }
+
+  @Test
+  public void testIterateWithSkipAndTop() {
+    EntityManager em = EasyMock.createNiceMock(EntityManager.class);
+    EasyMock.replay(em);
+
+    Iterator<Object> iterator = new JPAResultStream(em, mockQuery(), 2, 1, 3).iterator();
+
+    assertEquals(1, iterator.next());
+    assertEquals(2, iterator.next());
+    assertEquals(3, iterator.next());
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSizeNotSupported() {
+    EntityManager em = EasyMock.createNiceMock(EntityManager.class);
+    EasyMock.replay(em);
+
+    new JPAResultStream(em, mockQuery(), 2, 2, -1).size();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testGetNotSupported() {
+    EntityManager em = EasyMock.createNiceMock(EntityManager.class);
+    EasyMock.replay(em);
+
+    new JPAResultStream(em, mockQuery(), 2, 2, -1).get(0);
+  }
+
+  @Test
+  public void testIterateAfterLastKey() {
+    final int rows = 10;
+    PersistenceUnitUtil util = EasyMock.createMock(PersistenceUnitUtil.class);
+    EasyMock.expect(util.getIdentifier(EasyMock.anyObject())).andAnswer(new IAnswer<Object>() {
+      @Override
+      public Object answer() throws Throwable {
+        return EasyMock.getCurrentArguments()[0];
+      }
+    }).anyTimes();
+    EntityManagerFactory emf = EasyMock.createMock(EntityManagerFactory.class);
+    EasyMock.expect(emf.getPersistenceUnitUtil()).andStubReturn(util);
+    EntityManager em = EasyMock.createNiceMock(EntityManager.class);
+    EasyMock.expect(em.getEntityManagerFactory()).andStubReturn(emf);
+    EasyMock.replay(util, emf, em);
+
+    // the first chunk is read with the query, all further chunks after the last key read
+    Query query = EasyMock.createNiceMock(Query.class);
+    EasyMock.expect(query.getResultList()).andReturn(Arrays.<Object> asList(0, 1, 2)).once();
+    Query keyQuery = EasyMock.createMock(Query.class);
+    EasyMock.expect(keyQuery.setParameter(EasyMock.eq(JPAResultStream.LAST_KEY), EasyMock.anyObject()))
+        .andAnswer(new IAnswer<Query>() {
+          @Override
+          public Query answer() throws Throwable {
+            lastKey = (Integer) EasyMock.getCurrentArguments()[1];
+            return null;
+          }
+        }).times(3);
+    EasyMock.expect(keyQuery.setMaxResults(3)).andReturn(null).times(3);
+    EasyMock.expect(keyQuery.getResultList()).andAnswer(new IAnswer<List<Object>>() {
+      @Override
+      public List<Object> answer() throws Throwable {
+        List<Object> result = new ArrayList<Object>();
+        for (int i = lastKey + 1; i < rows && result.size() < 3; i++) {
+          result.add(i);
+        }
+        return result;
+      }
+    }).times(3);
+    EasyMock.replay(query, keyQuery);
+
+    List<Object> result = new ArrayList<Object>();
+    for (Object row : new JPAResultStream(em, query, keyQuery, 3, 0, -1)) {
+      result.add(row);
+    }
+
+    // every entity exactly once, in key order
+    assertEquals(rows, result.size());
+    for (int i = 0; i < rows; i++) {
+      assertEquals(i, result.get(i));
+    }
+    EasyMock.verify(keyQuery);
+  }
+
+  private Query mockQuery() {
+    Query query = EasyMock.createMock(Query.class);
+    EasyMock.expect(query.setFirstResult(EasyMock.anyInt())).andAnswer(new IAnswer<Query>() {
+      @Override
+      public Query answer() throws Throwable {
+        firstResult = (Integer) EasyMock.getCurrentArguments()[0];
+        return null;
+      }
+    }).anyTimes();
+    EasyMock.expect(query.setMaxResults(EasyMock.anyInt())).andAnswer(new IAnswer<Query>() {
+      @Override
+      public Query answer() throws Throwable {
+        maxResults = (Integer) EasyMock.getCurrentArguments()[0];
+        return null;
+      }
+    }).anyTimes();
+    EasyMock.expect(query.getResultList()).andAnswer(new IAnswer<List<Object>>() {
+      @Override
+      public List<Object> answer() throws Throwable {
+        List<Object> rows = new ArrayList<Object>();
+        for (int i = firstResult; i < ROWS && i < firstResult + maxResults; i++) {
+          rows.add(i);
+        }
+        return rows;
+      }
+    }).anyTimes();
+    EasyMock.replay(query);
+    return query;
+  }
+}
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.edm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.Metamodel;
+
+import org.apache.olingo.odata2.api.edm.provider.Property;
+import org.apache.olingo.odata2.api.edm.provider.Schema;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
+import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmExtension;
+import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmMapping;
+import org.apache.olingo.odata2.jpa.processor.core.mock.model.EdmSchemaMock;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Test;
+
+public class ODataJPAEdmCacheTest {
+
+  private static final String PUNIT_NAME = "salesorderprocessing";
+
+  @After
+  public void tearDown() {
+    ODataJPAEdmCache.clear();
+  }
+
+  @Test
+  public void testSchemasSharedAcrossProviders() throws ODataException {
+    Metamodel metamodel = mockMetamodel();
+    List<Schema> schemas = new ArrayList<Schema>();
+    schemas.add(EdmSchemaMock.createMockEdmSchema());
+    ODataJPAEdmCache.put(mockContext(metamodel, PUNIT_NAME), schemas);
+
+    List<Schema> first = new ODataJPAEdmProvider(mockContext(metamodel, PUNIT_NAME)).getSchemas();
+    List<Schema> second = new ODataJPAEdmProvider(mockContext(metamodel, PUNIT_NAME)).getSchemas();
+    assertNotNull(first);
+    assertSame(first, second);
+  }
+
+  @Test
+  public void testEntriesSeparatedByMetamodel() {
+    List<Schema> schemas = new ArrayList<Schema>();
+    schemas.add(EdmSchemaMock.createMockEdmSchema());
+    ODataJPAEdmCache.put(mockContext(mockMetamodel(), PUNIT_NAME), schemas);
+
+    assertNull(ODataJPAEdmCache.get(mockContext(mockMetamodel(), PUNIT_NAME)));
+  }
+
+  @Test
+  public void testEntriesSeparatedByExtensionInstance() {
+    Metamodel metamodel = mockMetamodel();
+    JPAEdmExtension extension = EasyMock.createMock(JPAEdmExtension.class);
+    List<Schema> schemas = new ArrayList<Schema>();
+    schemas.add(EdmSchemaMock.createMockEdmSchema());
+    ODataJPAEdmCache.put(mockContext(metamodel, PUNIT_NAME, extension), schemas);
+
+    assertNotNull(ODataJPAEdmCache.get(mockContext(metamodel, PUNIT_NAME, extension)));
+    assertNull(ODataJPAEdmCache.get(mockContext(metamodel, PUNIT_NAME)));
+    assertNull(ODataJPAEdmCache.get(mockContext(metamodel, PUNIT_NAME,
+        EasyMock.createMock(JPAEdmExtension.class))));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testCachedSchemasUnmodifiable() {
+    Metamodel metamodel = mockMetamodel();
+    List<Schema> schemas = new ArrayList<Schema>();
+    schemas.add(EdmSchemaMock.createMockEdmSchema());
+    List<Schema> cached = ODataJPAEdmCache.put(mockContext(metamodel, PUNIT_NAME), schemas);
+
+    cached.get(0).getEntityTypes().clear();
+  }
+
+  @Test
+  public void testSnapshot() throws ODataException {
+    List<Schema> schemas = new ArrayList<Schema>();
+    schemas.add(EdmSchemaMock.createMockEdmSchema());
+    Metamodel metamodel = mockMetamodel();
+    ODataJPAEdmCache.put(mockContext(metamodel, PUNIT_NAME), schemas);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ODataJPAEdmCache.writeSnapshot(mockContext(metamodel, PUNIT_NAME), out);
+    ODataJPAEdmCache.clear();
+
+    Metamodel otherMetamodel = mockMetamodel();
+    assertTrue(ODataJPAEdmCache.loadSnapshot(mockContext(otherMetamodel, PUNIT_NAME),
+        new ByteArrayInputStream(out.toByteArray())));
+    List<Schema> loaded = ODataJPAEdmCache.get(mockContext(otherMetamodel, PUNIT_NAME));
+    assertNotNull(loaded);
+    assertEquals(1, loaded.size());
+
+    assertEquals(schemas.get(0).getEntityTypes().get(0).getName(), loaded.get(0).getEntityTypes().get(0).getName());
+    Property property = loaded.get(0).getComplexTypes().get(0).getProperties().get(0);
+    assertEquals("STREET_NAME", ((JPAEdmMapping) property.getMapping()).getJPAColumnName());
+  }
+
+  @Test
+  public void testSnapshotOfOtherPersistenceUnit() throws ODataException {
+    List<Schema> schemas = new ArrayList<Schema>();
+    schemas.add(EdmSchemaMock.createMockEdmSchema());
+    Metamodel metamodel = mockMetamodel();
+    ODataJPAEdmCache.put(mockContext(metamodel, PUNIT_NAME), schemas);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ODataJPAEdmCache.writeSnapshot(mockContext(metamodel, PUNIT_NAME), out);
+
+    assertFalse(ODataJPAEdmCache.loadSnapshot(mockContext(metamodel, "other"),
+        new ByteArrayInputStream(out.toByteArray())));
+    assertNull(ODataJPAEdmCache.get(mockContext(metamodel, "other")));
+  }
+
+  private ODataJPAContext mockContext(final Metamodel metamodel, final String pUnitName) {
+    return mockContext(metamodel, pUnitName, null);
+  }
+
+  private ODataJPAContext mockContext(final Metamodel metamodel, final String pUnitName,
+      final JPAEdmExtension extension) {
+    EntityManagerFactory emf = EasyMock.createMock(EntityManagerFactory.class);
+    EasyMock.expect(emf.getMetamodel()).andStubReturn(metamodel);
+    EasyMock.replay(emf);
+
+    ODataJPAContext context = EasyMock.createMock(ODataJPAContext.class);
+    EasyMock.expect(context.getPersistenceUnitName()).andStubReturn(pUnitName);
+    EasyMock.expect(context.getEntityManagerFactory()).andStubReturn(emf);
+    EasyMock.expect(context.getJPAEdmMappingModel()).andStubReturn(null);
+    EasyMock.expect(context.getJPAEdmExtension()).andStubReturn(extension);
+    EasyMock.expect(context.getDefaultNaming()).andStubReturn(true);
+    EasyMock.replay(context);
+    return context;
+  }
+
+  private Metamodel mockMetamodel() {
+    Metamodel metamodel = EasyMock.createMock(Metamodel.class);
+    EasyMock.replay(metamodel);
+    return metamodel;
+  }
+}
@@ -34,7 +34,6 @@ import org.apache.olingo.odata2.api.edm.provider.Schema;
 import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.jpa.processor.core.common.ODataJPATestConstants;
 import org.apache.olingo.odata2.jpa.processor.core.mock.ODataJPAContextMock;
-import org.apache.olingo.odata2.jpa.processor.core.model.JPAEdmModel;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -56,9 +55,6 @@ public class ODataJPAEdmProviderNegativeTest {
       field = clazz.getDeclaredField("oDataJPAContext");
       field.setAccessible(true);
       field.set(edmProvider, ODataJPAContextMock.mockODataJPAContext());
-      field = clazz.getDeclaredField("jpaEdmModel");
-      field.setAccessible(true);
-      field.set(edmProvider, new JPAEdmModel(null, null));
     } catch (IllegalArgumentException e) {
       fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
     } catch (IllegalAccessException e) {
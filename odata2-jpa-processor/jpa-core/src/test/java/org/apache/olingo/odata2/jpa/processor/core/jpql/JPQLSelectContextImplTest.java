@@ -60,6 +60,8 @@ public class JPQLSelectContextImplTest {
 
   private static JPQLSelectContextBuilder builder;
   private static JPQLSelectContext selectContext;
+  private String keyPropertyName = "Field1";
+  private boolean withPaging = false;
 
   @BeforeClass
   public static void setup() {
@@ -193,7 +195,7 @@ public class JPQLSelectContextImplTest {
       fail("Exception not Expected");
     }
     try {
-      builder = (JPQLSelectContextBuilder) JPQLContext.createBuilder(JPQLContextType.SELECT, resultsView);
+      builder = (JPQLSelectContextBuilder) JPQLContext.createBuilder(JPQLContextType.SELECT, resultsView, withPaging);
 
       selectContext = (JPQLSelectContext) builder.build();
     } catch (ODataJPAModelException e) {
@@ -207,7 +209,7 @@ public class JPQLSelectContextImplTest {
     List<EdmProperty> propertyList = new ArrayList<EdmProperty>();
     EdmProperty edmProperty = EasyMock.createMock(EdmProperty.class);
     try {
-      EasyMock.expect(edmProperty.getName()).andStubReturn("Field1");
+      EasyMock.expect(edmProperty.getName()).andStubReturn(keyPropertyName);
       EasyMock.expect(edmProperty.getMapping()).andStubReturn(null);
     } catch (EdmException e) {
       fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
@@ -273,6 +275,21 @@ public class JPQLSelectContextImplTest {
     assertEquals("E1.Field1 , E1.Field2 DESC", selectContext.getOrderByCollection());
   }
 
+  @Test
+  public void testOrderByWithPagingAppendsKey() {
+    keyPropertyName = "Id";
+    withPaging = true;
+    buildSelectContext(false, false, true, true, true);
+    assertEquals("E1.Field1 , E1.Field2 DESC , E1.Id", selectContext.getOrderByCollection());
+  }
+
+  @Test
+  public void testOrderByWithPagingContainingKey() {
+    withPaging = true;
+    buildSelectContext(false, false, true, true, true);
+    assertEquals("E1.Field1 , E1.Field2 DESC", selectContext.getOrderByCollection());
+  }
+
   @Test
   public void testGetWhereExpression() {
     buildSelectContext(false, false, true, true, true);
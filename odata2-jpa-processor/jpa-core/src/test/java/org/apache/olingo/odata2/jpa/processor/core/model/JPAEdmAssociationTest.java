@@ -21,6 +21,7 @@ package org.apache.olingo.odata2.jpa.processor.core.model;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -432,6 +433,79 @@ public class JPAEdmAssociationTest extends JPAEdmTestModelView {
     assertTrue(objAssociation.getConsistentEdmAssociationList().size() > 0);
   }
 
+  @Test
+  public void testSearchAssociationAmongMany() {
+    JPAEdmAssociation schemaAssociation = new JPAEdmAssociation(localView);
+    final int count = 2000;
+    for (int i = 0; i < count; i++) {
+      AssociationEndView endView = new AssociationEndView("Type" + i, "Type" + (i + 1), "property" + i, null);
+      schemaAssociation.addJPAEdmAssociationView(endView, endView);
+    }
+    // second association between the same types
+    AssociationEndView endView = new AssociationEndView("Type7", "Type8", "other", null);
+    schemaAssociation.addJPAEdmAssociationView(endView, endView);
+
+    assertEquals("Type7_Type8_property7",
+        schemaAssociation.searchAssociation(new AssociationEndView("Type8", "Type7", null, "property7")).getName());
+    assertEquals("Type7_Type8_other",
+        schemaAssociation.searchAssociation(new AssociationEndView("Type7", "Type8", null, "other")).getName());
+    assertNull(schemaAssociation.searchAssociation(new AssociationEndView("Type7", "Type9", null, "property7")));
+    assertEquals(2, schemaAssociation.getNumberOfAssociationsWithSimilarEndPoints(
+        new AssociationEndView("Type8", "Type7", null, null)));
+    assertEquals(0, schemaAssociation.getNumberOfAssociationsWithSimilarEndPoints(
+        new AssociationEndView("Type7", null, null, null)));
+  }
+
+  private static class AssociationEndView extends JPAEdmTestModelView {
+    private final AssociationEnd end1;
+    private final AssociationEnd end2;
+    private final String owningPropertyName;
+    private final String mappedByName;
+
+    public AssociationEndView(final String type1, final String type2, final String owningPropertyName,
+        final String mappedByName) {
+      end1 = new AssociationEnd().setType(new FullQualifiedName(PUNIT_NAME, type1))
+          .setMultiplicity(EdmMultiplicity.ONE);
+      end2 = type2 == null ? null : new AssociationEnd().setType(new FullQualifiedName(PUNIT_NAME, type2))
+          .setMultiplicity(EdmMultiplicity.ONE);
+      this.owningPropertyName = owningPropertyName;
+      this.mappedByName = mappedByName;
+    }
+
+    @Override
+    public AssociationEnd getEdmAssociationEnd1() {
+      return end1;
+    }
+
+    @Override
+    public AssociationEnd getEdmAssociationEnd2() {
+      return end2;
+    }
+
+    @Override
+    public boolean compare(final AssociationEnd otherEnd1, final AssociationEnd otherEnd2) {
+      return end2 != null
+          && (otherEnd1.getType().equals(end1.getType()) && otherEnd2.getType().equals(end2.getType())
+          || otherEnd1.getType().equals(end2.getType()) && otherEnd2.getType().equals(end1.getType()));
+    }
+
+    @Override
+    public Association getEdmAssociation() {
+      return new Association().setName(end1.getType().getName() + "_" + end2.getType().getName() + "_"
+          + owningPropertyName).setEnd1(end1).setEnd2(end2);
+    }
+
+    @Override
+    public String getOwningPropertyName() {
+      return owningPropertyName;
+    }
+
+    @Override
+    public String getMappedByName() {
+      return mappedByName;
+    }
+  }
+
   @Test
   public void testGetJPAEdmReferentialConstraintView() {
 
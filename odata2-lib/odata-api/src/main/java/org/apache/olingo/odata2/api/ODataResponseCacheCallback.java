@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.api;
+
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.processor.ODataContext;
+
+/**
+ * <p>Enables the server-side cache of serialized responses.</p>
+ * <p>If the service factory returns an implementation of this callback, successful GET
+ * responses for entity sets, entities, properties and links are kept in serialized form
+ * and are returned for equal requests (same URI, negotiated content type and language)
+ * without calling the processor again. A request that modifies an entity set, also
+ * as part of a batch request, removes the cached responses that depend on it.
+ * Changes made to the data in any other way are only reflected once the cached
+ * responses have expired.</p>
+ * <p>Cached responses are shared by all clients. Requests with credentials, that is with
+ * an <code>Authorization</code> or <code>Cookie</code> header or an authenticated user,
+ * are therefore not cached unless {@link #getPartition(ODataContext)} assigns them to a
+ * partition of the cache. If responses depend on anything else that is specific to a
+ * client, for example on authorizations checked by the processor, the partition must
+ * reflect it for all requests.</p>
+ * <p>The cache is kept per callback instance, so the service factory should always
+ * return the same instance.</p>
+ */
+public interface ODataResponseCacheCallback extends ODataCallback {
+
+  /**
+   * Returns how long responses that depend on the given entity set may be cached.
+   * @param entitySet the entity set
+   * @return the time to live in milliseconds; a value less than or equal to zero
+   * disables the cache for responses that depend on this entity set
+   */
+  long getTimeToLive(EdmEntitySet entitySet);
+
+  /**
+   * Returns the maximum size of all cached responses together.
+   * Least recently used responses are removed first if the size is exceeded.
+   * @return the maximum size in bytes
+   */
+  long getMaximumSize();
+
+  /**
+   * Returns the partition of the cache a request belongs to. Only requests of the same
+   * partition share cached responses; a typical partition is the name of the user or the
+   * role that decides what the user is allowed to see. For the parts of a batch request
+   * the context of the batch request is passed, as it carries the credentials.
+   * @param context the context of the request
+   * @return the partition, or <code>null</code> for the partition shared by all clients;
+   * requests with credentials are not cached in the shared partition
+   */
+  String getPartition(ODataContext context);
+}
@@ -51,6 +51,37 @@ public abstract class ODataServiceFactory {
    */
   public static final String PATH_SPLIT_LABEL = "org.apache.olingo.odata2.path.split";
 
+  /**
+   * Label used in web.xml to switch on compression of responses (value <code>true</code>)
+   * according to the <code>Accept-Encoding</code> header of the request.
+   */
+  public static final String COMPRESSION_LABEL = "org.apache.olingo.odata2.compression";
+
+  /**
+   * Label used in web.xml to assign servlet init parameter for the minimum size in bytes
+   * of compressed responses.
+   */
+  public static final String COMPRESSION_MIN_SIZE_LABEL = "org.apache.olingo.odata2.compression.minsize";
+
+  /**
+   * Label used in web.xml to assign servlet init parameter for the compression levels per content type,
+   * as comma-separated list of <code>type/subtype=level</code> entries with levels from 0 (no compression)
+   * to 9 (best compression).
+   */
+  public static final String COMPRESSION_LEVELS_LABEL = "org.apache.olingo.odata2.compression.levels";
+
+  /**
+   * Label used in web.xml to assign servlet init parameter for the maximum size in bytes
+   * of a decompressed request body.
+   */
+  public static final String DECOMPRESSION_MAX_SIZE_LABEL = "org.apache.olingo.odata2.decompression.maxsize";
+
+  /**
+   * Label used in web.xml to assign servlet init parameter for the maximum ratio between
+   * the decompressed and the compressed size of a request body.
+   */
+  public static final String DECOMPRESSION_MAX_RATIO_LABEL = "org.apache.olingo.odata2.decompression.maxratio";
+
   /**
    * Create instance of custom {@link ODataService}.
    * @param ctx OData context object
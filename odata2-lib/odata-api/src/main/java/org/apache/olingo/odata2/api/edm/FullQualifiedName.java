@@ -18,12 +18,16 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm;
 
+import java.io.Serializable;
+
 /**
  * @org.apache.olingo.odata2.DoNotImplement
  * A full qualified name of any element in the EDM consists of a name and a namespace.
  * 
  */
-public class FullQualifiedName {
+public class FullQualifiedName implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private final String namespace;
   private final String name;
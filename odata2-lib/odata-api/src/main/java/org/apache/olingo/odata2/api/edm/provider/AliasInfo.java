@@ -18,10 +18,14 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
+
 /**
  * Objects of this class hold an alias and the associated namespace
  */
-public class AliasInfo {
+public class AliasInfo implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private String alias;
   private String namespace;
@@ -18,13 +18,17 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
+
 import org.apache.olingo.odata2.api.edm.EdmAnnotationAttribute;
 
 /**
  * Objects of this class represent an annotation attribute
  * 
  */
-public class AnnotationAttribute implements EdmAnnotationAttribute {
+public class AnnotationAttribute implements EdmAnnotationAttribute, Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private String namespace;
   private String prefix;
@@ -18,13 +18,16 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
  * Objects of this class represent an annotation element.
  * 
  */
-public class AnnotationElement {
+public class AnnotationElement implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private String namespace;
   private String prefix;
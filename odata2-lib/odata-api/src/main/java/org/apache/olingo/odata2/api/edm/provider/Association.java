@@ -18,13 +18,16 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
  * Objects of this class represent an association
  * 
  */
-public class Association {
+public class Association implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private String name;
   private AssociationEnd end1;
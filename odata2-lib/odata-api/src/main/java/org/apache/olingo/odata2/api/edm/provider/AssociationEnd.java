@@ -18,6 +18,7 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.List;
 
 import org.apache.olingo.odata2.api.edm.EdmMultiplicity;
@@ -27,7 +28,9 @@ import org.apache.olingo.odata2.api.edm.FullQualifiedName;
  * Objects of this class represent an association end
  * 
  */
-public class AssociationEnd {
+public class AssociationEnd implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private FullQualifiedName type;
   private String role;
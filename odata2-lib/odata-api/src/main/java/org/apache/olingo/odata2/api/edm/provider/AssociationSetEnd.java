@@ -18,13 +18,16 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
  * Objects of this class represent an association set end
  * 
  */
-public class AssociationSetEnd {
+public class AssociationSetEnd implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private String role;
   private String entitySet;
@@ -29,6 +29,8 @@ import org.apache.olingo.odata2.api.edm.FullQualifiedName;
  */
 public class ComplexProperty extends Property {
 
+  private static final long serialVersionUID = 1L;
+
   private FullQualifiedName type;
 
   /**
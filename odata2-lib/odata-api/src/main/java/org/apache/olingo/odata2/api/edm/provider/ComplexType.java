@@ -18,6 +18,7 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.List;
 
 import org.apache.olingo.odata2.api.edm.FullQualifiedName;
@@ -26,7 +27,9 @@ import org.apache.olingo.odata2.api.edm.FullQualifiedName;
  * Objects of this class represent a complex type
  * 
  */
-public class ComplexType {
+public class ComplexType implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private String name;
   private FullQualifiedName baseType;
@@ -18,6 +18,8 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
+
 import org.apache.olingo.odata2.api.edm.EdmContentKind;
 import org.apache.olingo.odata2.api.edm.EdmCustomizableFeedMappings;
 
@@ -25,7 +27,9 @@ import org.apache.olingo.odata2.api.edm.EdmCustomizableFeedMappings;
  * Objects of this class represent customizable feed mappings.
  * 
  */
-public class CustomizableFeedMappings implements EdmCustomizableFeedMappings {
+public class CustomizableFeedMappings implements EdmCustomizableFeedMappings, Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private Boolean fcKeepInContent;
   private EdmContentKind fcContentKind;
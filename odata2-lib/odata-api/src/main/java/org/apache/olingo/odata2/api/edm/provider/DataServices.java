@@ -18,6 +18,7 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
@@ -25,7 +26,9 @@ import java.util.List;
  * dataServiceVersion
  * 
  */
-public class DataServices {
+public class DataServices implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private List<Schema> schemas;
   private String dataServiceVersion;
@@ -18,6 +18,7 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.olingo.odata2.api.edm.FullQualifiedName;
@@ -116,6 +117,27 @@ public abstract class EdmProvider {
     return null;
   }
 
+  /**
+   * This method should return all {@link EntityContainer}s with their entity sets, association sets, and function
+   * imports. It is used for the service document and for the lists of all entity sets and function imports, which do
+   * not need any type information. The default implementation collects the containers of {@link #getSchemas()};
+   * providers of large models can override it to avoid building all types for these requests.
+   * @return List<{@link EntityContainer}>, never <b>null</b>
+   * @throws ODataException
+   */
+  public List<EntityContainer> getEntityContainers() throws ODataException {
+    List<EntityContainer> entityContainers = new ArrayList<EntityContainer>();
+    final List<Schema> schemas = getSchemas();
+    if (schemas != null) {
+      for (final Schema schema : schemas) {
+        if (schema.getEntityContainers() != null) {
+          entityContainers.addAll(schema.getEntityContainers());
+        }
+      }
+    }
+    return entityContainers;
+  }
+
   /**
    * This method should return a list of all defined aliases and their associated namespace. If not implemented aliases
    * cannot be resolved
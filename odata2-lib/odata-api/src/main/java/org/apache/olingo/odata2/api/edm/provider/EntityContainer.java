@@ -26,6 +26,8 @@ import java.util.List;
  */
 public class EntityContainer extends EntityContainerInfo {
 
+  private static final long serialVersionUID = 1L;
+
   private List<EntitySet> entitySets;
   private List<AssociationSet> associationSets;
   private List<FunctionImport> functionImports;
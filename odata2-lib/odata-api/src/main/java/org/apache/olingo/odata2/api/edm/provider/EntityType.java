@@ -28,6 +28,8 @@ import org.apache.olingo.odata2.api.edm.FullQualifiedName;
  */
 public class EntityType extends ComplexType {
 
+  private static final long serialVersionUID = 1L;
+
   private boolean hasStream;
   private CustomizableFeedMappings customizableFeedMappings;
   private Key key;
@@ -18,6 +18,7 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -28,7 +29,9 @@ import org.apache.olingo.odata2.api.edm.EdmFacets;
  * Objects of this class represent the facets an entity type, property or function import can have
  * 
  */
-public class Facets implements EdmFacets {
+public class Facets implements EdmFacets, Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   /**
    * Specification default is TRUE but we won't set it here because
@@ -18,13 +18,16 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
  * Objects of this class represent a function import
  * 
  */
-public class FunctionImport {
+public class FunctionImport implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private String name;
   private ReturnType returnType;
@@ -18,6 +18,7 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.List;
 
 import org.apache.olingo.odata2.api.edm.EdmFacets;
@@ -27,7 +28,9 @@ import org.apache.olingo.odata2.api.edm.EdmSimpleTypeKind;
  * Objects of this class represent function import parameters
  * 
  */
-public class FunctionImportParameter {
+public class FunctionImportParameter implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private String name;
   private String mode;
@@ -18,13 +18,16 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
  * Objects of this class represent a key for an entity type
  * 
  */
-public class Key {
+public class Key implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private List<PropertyRef> keys;
   private List<AnnotationAttribute> annotationAttributes;
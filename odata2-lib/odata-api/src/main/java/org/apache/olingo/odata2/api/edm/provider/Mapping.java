@@ -18,13 +18,17 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
+
 import org.apache.olingo.odata2.api.edm.EdmMapping;
 
 /**
  * Object of this class represent the mapping of a value to a MIME type.
  * 
  */
-public class Mapping implements EdmMapping {
+public class Mapping implements EdmMapping, Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private String value;
   private Object object;
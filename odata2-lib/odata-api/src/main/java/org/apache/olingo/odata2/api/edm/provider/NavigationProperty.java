@@ -18,6 +18,7 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.List;
 
 import org.apache.olingo.odata2.api.edm.FullQualifiedName;
@@ -26,7 +27,9 @@ import org.apache.olingo.odata2.api.edm.FullQualifiedName;
  * Objects of this Class represent a navigation property
  * 
  */
-public class NavigationProperty {
+public class NavigationProperty implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private String name;
   private FullQualifiedName relationship;
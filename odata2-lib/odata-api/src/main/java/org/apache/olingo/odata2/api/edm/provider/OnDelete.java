@@ -18,6 +18,7 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.List;
 
 import org.apache.olingo.odata2.api.edm.EdmAction;
@@ -26,7 +27,9 @@ import org.apache.olingo.odata2.api.edm.EdmAction;
  * Objects of this class represent an OnDelete Action
  * 
  */
-public class OnDelete {
+public class OnDelete implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private EdmAction action;
   private Documentation documentation;
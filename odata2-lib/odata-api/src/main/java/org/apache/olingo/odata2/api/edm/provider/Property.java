@@ -18,6 +18,7 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.List;
 
 import org.apache.olingo.odata2.api.edm.EdmFacets;
@@ -26,7 +27,9 @@ import org.apache.olingo.odata2.api.edm.EdmFacets;
  * Objects of this class represent a property of an entity type
  * 
  */
-public abstract class Property {
+public abstract class Property implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private String name;
   private EdmFacets facets;
@@ -18,13 +18,16 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
  * Objects of this Class represent a referential constraint
  * 
  */
-public class ReferentialConstraint {
+public class ReferentialConstraint implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private ReferentialConstraintRole principal;
   private ReferentialConstraintRole dependent;
@@ -18,13 +18,16 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
  * Objects of this Class represent a referential constraint role
  * 
  */
-public class ReferentialConstraintRole {
+public class ReferentialConstraintRole implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private String role;
   private List<PropertyRef> propertyRefs;
@@ -18,6 +18,8 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
+
 import org.apache.olingo.odata2.api.edm.EdmMultiplicity;
 import org.apache.olingo.odata2.api.edm.FullQualifiedName;
 
@@ -25,7 +27,9 @@ import org.apache.olingo.odata2.api.edm.FullQualifiedName;
  * Objects of this Class represent a return type of a function import
  * 
  */
-public class ReturnType {
+public class ReturnType implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private FullQualifiedName typeName;
   private EdmMultiplicity multiplicity;
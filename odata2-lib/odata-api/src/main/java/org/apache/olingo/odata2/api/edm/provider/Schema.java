@@ -18,13 +18,16 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
  * Objects of this class represent a schema
  * 
  */
-public class Schema {
+public class Schema implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private String namespace;
   private String alias;
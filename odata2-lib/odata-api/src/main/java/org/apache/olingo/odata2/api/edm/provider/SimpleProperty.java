@@ -29,6 +29,8 @@ import org.apache.olingo.odata2.api.edm.EdmSimpleTypeKind;
  */
 public class SimpleProperty extends Property {
 
+  private static final long serialVersionUID = 1L;
+
   private EdmSimpleTypeKind type;
 
   /**
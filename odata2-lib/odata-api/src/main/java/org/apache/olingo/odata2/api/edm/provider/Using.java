@@ -18,13 +18,16 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
 
 /**
  *  
  */
-public class Using {
+public class Using implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private String namespace;
   private String alias;
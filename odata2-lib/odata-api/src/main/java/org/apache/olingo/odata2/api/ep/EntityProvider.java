@@ -118,6 +118,18 @@ public final class EntityProvider {
      */
     ODataResponse writeBinary(String mimeType, byte[] data) throws EntityProviderException;
 
+    /**
+     * Write binary content with content type header set to given <code>mime type</code> parameter.
+     * The content is not buffered; the stream is used as entity of the response and
+     * is read (and closed) when the response is written.
+     * 
+     * @param mimeType mime type which is written and used as content type header information.
+     * @param data stream which is written to {@link ODataResponse}.
+     * @return response object resulting {@link ODataResponse} with binary content.
+     * @throws EntityProviderException if writing of data (serialization) fails
+     */
+    ODataResponse writeBinaryStream(String mimeType, InputStream data) throws EntityProviderException;
+
     /**
      * Write given <code>data</code> (which is given in form of a {@link List} with a {@link Map} for each entity. Such
      * a {@link Map} contains all properties [as <code>property name</code> to <code>property value</code> mapping] for
@@ -534,6 +546,21 @@ public final class EntityProvider {
     return createEntityProvider().writeBinary(mimeType, data);
   }
 
+  /**
+   * Write binary content with content type header set to given <code>mime type</code> parameter.
+   * The content is not buffered; the stream is used as entity of the response and
+   * is read (and closed) when the response is written.
+   * 
+   * @param mimeType mime type which is written and used as content type header information.
+   * @param data stream which is written to {@link ODataResponse}.
+   * @return response object resulting {@link ODataResponse} with binary content.
+   * @throws EntityProviderException if writing of data (serialization) fails
+   */
+  public static ODataResponse writeBinaryStream(final String mimeType, final InputStream data)
+      throws EntityProviderException {
+    return createEntityProvider().writeBinaryStream(mimeType, data);
+  }
+
   /**
    * Write given <code>data</code> (which is given in form of a {@link List} with a {@link Map} for each entity. Such a
    * {@link Map} contains all properties [as <code>property name</code> to <code>property value</code> mapping] for the
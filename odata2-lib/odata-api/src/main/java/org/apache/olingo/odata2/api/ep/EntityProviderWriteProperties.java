@@ -45,6 +45,7 @@ public class EntityProviderWriteProperties {
   private boolean omitJsonWrapper;
   private boolean contentOnly;
   private boolean omitETag;
+  private boolean streamFeed;
 
   private EntityProviderWriteProperties() {}
 
@@ -60,6 +61,15 @@ public class EntityProviderWriteProperties {
     return omitJsonWrapper;
   }
 
+  /**
+   * Returns if a feed is serialized entry by entry while the response entity is read.
+   * @return true if the feed is streamed
+   * @see ODataEntityProviderPropertiesBuilder#streamFeed(boolean)
+   */
+  public final boolean isStreamFeed() {
+    return streamFeed;
+  }
+
   /**
    * Returns if type information of simple properties should be in the payload.
    * @return true if information should be in the payload.
@@ -235,6 +245,19 @@ public class EntityProviderWriteProperties {
       return this;
     }
 
+    /**
+     * Lets a feed be serialized entry by entry while the entity of the response is read,
+     * instead of completely when the feed is written. The feed data are then iterated only
+     * once, while the response is sent, so that they can be read from their source at that
+     * time; an error in this phase aborts the response with an <code>IOException</code>.
+     * @param streamFeed whether the feed is streamed
+     * @return properties builder
+     */
+    public ODataEntityProviderPropertiesBuilder streamFeed(final boolean streamFeed) {
+      properties.streamFeed = streamFeed;
+      return this;
+    }
+
     public ODataEntityProviderPropertiesBuilder fromProperties(final EntityProviderWriteProperties properties) {
       this.properties.inlineCountType = properties.getInlineCountType();
       this.properties.inlineCount = properties.getInlineCount();
@@ -247,6 +270,7 @@ public class EntityProviderWriteProperties {
       this.properties.omitJsonWrapper = properties.omitJsonWrapper;
       this.properties.contentOnly = properties.contentOnly;
       this.properties.omitETag = properties.omitETag;
+      this.properties.streamFeed = properties.streamFeed;
       return this;
     }
 
@@ -26,6 +26,7 @@ import org.apache.olingo.odata2.api.client.batch.BatchChangeSet.BatchChangeSetBu
 import org.apache.olingo.odata2.api.client.batch.BatchChangeSetPart.BatchChangeSetPartBuilder;
 import org.apache.olingo.odata2.api.client.batch.BatchQueryPart.BatchQueryPartBuilder;
 import org.apache.olingo.odata2.api.edm.Edm;
+import org.apache.olingo.odata2.api.edm.EdmException;
 import org.apache.olingo.odata2.api.edm.EdmSimpleType;
 import org.apache.olingo.odata2.api.edm.EdmSimpleTypeFacade;
 import org.apache.olingo.odata2.api.edm.EdmSimpleTypeKind;
@@ -50,6 +51,8 @@ public abstract class RuntimeDelegate {
 
   private static final String IMPLEMENTATION = "org.apache.olingo.odata2.core.rt.RuntimeDelegateImpl";
 
+  private static volatile RuntimeDelegateInstance instance;
+
   /**
    * Create a runtime delegate instance from the core library. The core
    * library (org.apache.olingo.odata2.core.jar) needs to be included into the classpath
@@ -57,20 +60,23 @@ public abstract class RuntimeDelegate {
    * @return an implementation object
    */
   private static RuntimeDelegateInstance getInstance() {
-    RuntimeDelegateInstance delegate;
-
-    try {
-      final Class<?> clazz = Class.forName(RuntimeDelegate.IMPLEMENTATION);
-
-      /*
-       * We explicitly do not use the singleton pattern to keep the server state free
-       * and avoid class loading issues also during hot deployment.
-       */
-      final Object object = clazz.newInstance();
-      delegate = (RuntimeDelegateInstance) object;
-
-    } catch (final Exception e) {
-      throw new RuntimeDelegateException(e);
+    RuntimeDelegateInstance delegate = instance;
+
+    if (delegate == null) {
+      try {
+        final Class<?> clazz = Class.forName(RuntimeDelegate.IMPLEMENTATION);
+
+        /*
+         * The implementation is stateless, so it is created once. It is loaded by the class loader
+         * of this class and therefore released together with it, e.g. during hot deployment.
+         */
+        final Object object = clazz.newInstance();
+        delegate = (RuntimeDelegateInstance) object;
+
+      } catch (final Exception e) {
+        throw new RuntimeDelegateException(e);
+      }
+      instance = delegate;
     }
     return delegate;
   }
@@ -91,6 +97,15 @@ public abstract class RuntimeDelegate {
 
     protected abstract Edm createEdm(EdmProvider provider);
 
+    /**
+     * Creates an entity data model with all elements resolved in advance.
+     * This default implementation returns a model as {@link #createEdm(EdmProvider)} does,
+     * which resolves the elements on demand.
+     */
+    protected Edm createCompiledEdm(final EdmProvider provider) throws EdmException {
+      return createEdm(provider);
+    }
+
     protected abstract EntityProviderInterface createEntityProvider();
 
     protected abstract ODataService createODataSingleProcessorService(EdmProvider provider,
@@ -154,6 +169,19 @@ public abstract class RuntimeDelegate {
     return RuntimeDelegate.getInstance().createEdm(provider);
   }
 
+  /**
+   * Creates and returns an entity data model where all elements of all schemas
+   * (see {@link EdmProvider#getSchemas()}) are resolved in advance.
+   * The returned model does not call the provider anymore for known elements
+   * and can be shared by concurrent requests.
+   * @param provider a provider implemented by the OData service
+   * @return an implementation object
+   * @throws EdmException if the schemas of the provider are not available or inconsistent
+   */
+  public static Edm createCompiledEdm(final EdmProvider provider) throws EdmException {
+    return RuntimeDelegate.getInstance().createCompiledEdm(provider);
+  }
+
   /**
    * Returns an parser which can parse OData uris based on metadata.
    * @param edm metadata of the implemented service
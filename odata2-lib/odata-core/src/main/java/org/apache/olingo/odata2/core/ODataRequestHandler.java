@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.olingo.odata2.api.ODataDebugResponseWrapperCallback;
+import org.apache.olingo.odata2.api.ODataResponseCacheCallback;
 import org.apache.olingo.odata2.api.ODataService;
 import org.apache.olingo.odata2.api.ODataServiceFactory;
 import org.apache.olingo.odata2.api.ODataServiceVersion;
@@ -74,6 +75,7 @@ public class ODataRequestHandler {
   private final ODataServiceFactory serviceFactory;
   private final ODataService service;
   private final ODataContext context;
+  private UriInfo modifiedUriInfo;
 
   public ODataRequestHandler(final ODataServiceFactory factory, final ODataService service,
       final ODataContext context) {
@@ -125,28 +127,62 @@ public class ODataRequestHandler {
           context.getRequestHeader(HttpHeaders.IF_MODIFIED_SINCE),
           context.getRequestHeader(HttpHeaders.IF_UNMODIFIED_SINCE));
 
-      timingHandle2 = context.startRuntimeMeasurement("Dispatcher", "dispatch");
-      odataResponse =
-          dispatcher.dispatch(method, uriInfo, request.getBody(), request.getContentType(), acceptContentType
-              .toContentTypeString());
-      context.stopRuntimeMeasurement(timingHandle2);
-
-      ODataResponseBuilder extendedResponse = ODataResponse.fromResponse(odataResponse);
-      final UriType uriType = uriInfo.getUriType();
-      final String location =
-          (method == ODataHttpMethod.POST && (uriType == UriType.URI1 || uriType == UriType.URI6B)) ? odataResponse
-              .getIdLiteral() : null;
-      final HttpStatusCodes s = getStatusCode(odataResponse, method, uriType);
-      extendedResponse = extendedResponse.idLiteral(location).status(s);
+      final ODataResponseCacheCallback cacheCallback = ResponseCache.getCallback(serviceFactory);
+      final ResponseCache responseCache = ResponseCache.getInstance(cacheCallback);
+      final ResponseCache.Lookup cacheLookup = responseCache == null || method != ODataHttpMethod.GET ? null :
+          responseCache.lookup(cacheCallback, context, uriInfo, request.getAllQueryParameters(),
+              acceptContentType.toContentTypeString());
+      final ODataResponse cachedResponse = cacheLookup == null ? null :
+          cacheLookup.getResponse(context.getRequestHeader(HttpHeaders.IF_NONE_MATCH));
+
+      if (cachedResponse == null) {
+        final boolean modifying = responseCache != null && method != ODataHttpMethod.GET;
+        if (modifying) {
+          responseCache.invalidate(uriInfo);
+          // within a change set the changes become visible only when the change set is committed
+          modifiedUriInfo = uriInfo;
+        }
+        timingHandle2 = context.startRuntimeMeasurement("Dispatcher", "dispatch");
+        try {
+          odataResponse =
+              dispatcher.dispatch(method, uriInfo, request.getBody(), request.getContentType(), acceptContentType
+                  .toContentTypeString());
+        } finally {
+          if (modifying) {
+            responseCache.invalidate(uriInfo);
+          }
+        }
+        context.stopRuntimeMeasurement(timingHandle2);
+
+        ODataResponseBuilder extendedResponse = ODataResponse.fromResponse(odataResponse);
+        final UriType uriType = uriInfo.getUriType();
+        final String location =
+            (method == ODataHttpMethod.POST && (uriType == UriType.URI1 || uriType == UriType.URI6B)) ? odataResponse
+                .getIdLiteral() : null;
+        final HttpStatusCodes s = getStatusCode(odataResponse, method, uriType);
+        extendedResponse = extendedResponse.idLiteral(location).status(s);
+
+        if (!odataResponse.containsHeader(ODataHttpHeaders.DATASERVICEVERSION)) {
+          extendedResponse = extendedResponse.header(ODataHttpHeaders.DATASERVICEVERSION, serverDataServiceVersion);
+        }
+        if (!HttpStatusCodes.NO_CONTENT.equals(s) && !odataResponse.containsHeader(HttpHeaders.CONTENT_TYPE)) {
+          extendedResponse.header(HttpHeaders.CONTENT_TYPE, acceptContentType.toContentTypeString());
+        }
 
-      if (!odataResponse.containsHeader(ODataHttpHeaders.DATASERVICEVERSION)) {
-        extendedResponse = extendedResponse.header(ODataHttpHeaders.DATASERVICEVERSION, serverDataServiceVersion);
-      }
-      if (!HttpStatusCodes.NO_CONTENT.equals(s) && !odataResponse.containsHeader(HttpHeaders.CONTENT_TYPE)) {
-        extendedResponse.header(HttpHeaders.CONTENT_TYPE, acceptContentType.toContentTypeString());
+        odataResponse = extendedResponse.build();
+        if (cacheLookup != null) {
+          odataResponse = cacheLookup.store(odataResponse);
+        }
+      } else {
+        odataResponse = cachedResponse;
       }
 
-      odataResponse = extendedResponse.build();
+      if (method == ODataHttpMethod.GET && uriInfo.isValue()
+          && HttpStatusCodes.OK.equals(odataResponse.getStatus())) {
+        odataResponse = new RangeHandler().handle(odataResponse,
+            context.getRequestHeader(HttpHeaders.RANGE),
+            context.getRequestHeader(HttpHeaders.IF_RANGE));
+      }
     } catch (final Exception e) {
       exception = e;
       odataResponse = new ODataExceptionWrapper(context, request.getQueryParameters(), request.getAcceptHeaders())
@@ -168,6 +204,16 @@ public class ODataRequestHandler {
     }
   }
 
+  /**
+   * Returns the URI of the handled request if it was dispatched as a modifying request
+   * and the service caches responses. Cached responses that depend on it have to be
+   * invalidated again when the request was part of a change set that has completed.
+   * @return the parsed URI, or <code>null</code>
+   */
+  public UriInfo getModifiedUriInfo() {
+    return modifiedUriInfo;
+  }
+
   private HttpStatusCodes getStatusCode(final ODataResponse odataResponse, final ODataHttpMethod method,
       final UriType uriType) {
     if (odataResponse.getStatus() == null) {
@@ -20,6 +20,7 @@ package org.apache.olingo.odata2.core;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -31,24 +32,36 @@ import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
 import org.apache.olingo.odata2.api.processor.ODataRequest;
 import org.apache.olingo.odata2.api.uri.PathInfo;
 import org.apache.olingo.odata2.core.commons.ContentType;
+import org.apache.olingo.odata2.core.servlet.ServletRequestHeaders;
 
 /**
- *  
+ * <p>The header and query parameter maps are read-only. They are shared, not copied,
+ * between a request and the requests built from it with
+ * {@link ODataRequest#fromRequest(ODataRequest)}; a builder copies them only before
+ * it changes them.</p>
  */
 public class ODataRequestImpl extends ODataRequest {
 
   private ODataHttpMethod method;
-  private CaseInsensitiveMap requestHeaders = new CaseInsensitiveMap();
+  private Map<String, List<String>> requestHeaders = Collections.emptyMap();
   private InputStream body;
   private PathInfo pathInfo;
   private Map<String, String> queryParameters;
   private Map<String, List<String>> allQueryParameters;
+  private Map<String, List<String>> unmodifiableAllQueryParameters;
   private List<String> acceptHeaders;
   private ContentType contentType;
   private List<Locale> acceptableLanguages;
 
   @Override
   public Map<String, String> getQueryParameters() {
+    if (queryParameters == null) {
+      final Map<String, String> singleMap = new HashMap<String, String>();
+      for (final Entry<String, List<String>> entry : allQueryParameters.entrySet()) {
+        singleMap.put(entry.getKey(), entry.getValue().get(0));
+      }
+      queryParameters = Collections.unmodifiableMap(singleMap);
+    }
     return queryParameters;
   }
 
@@ -95,15 +108,16 @@ public class ODataRequestImpl extends ODataRequest {
 
   @Override
   public Map<String, List<String>> getAllQueryParameters() {
-    return allQueryParameters;
+    return unmodifiableAllQueryParameters;
   }
 
   public class ODataRequestBuilderImpl extends ODataRequestBuilder {
     private ODataHttpMethod method;
-    private CaseInsensitiveMap requestHeaders = new CaseInsensitiveMap();
+    private Map<String, List<String>> requestHeaders = Collections.emptyMap();
     private InputStream body;
     private PathInfo pathInfo;
     private Map<String, List<String>> allQueryParameters = new HashMap<String, List<String>>();
+    private boolean sharedQueryParameters;
     private List<String> acceptHeaders;
     private ContentType contentType;
     private List<Locale> acceptableLanguages;
@@ -114,8 +128,10 @@ public class ODataRequestImpl extends ODataRequest {
       ODataRequestImpl.this.requestHeaders = requestHeaders;
       ODataRequestImpl.this.body = body;
       ODataRequestImpl.this.pathInfo = pathInfo;
-      queryParameters = convertMultiMaptoSingleMap(allQueryParameters);
+      queryParameters = null;
       ODataRequestImpl.this.allQueryParameters = allQueryParameters;
+      unmodifiableAllQueryParameters = Collections.unmodifiableMap(allQueryParameters);
+      sharedQueryParameters = true;
       ODataRequestImpl.this.acceptHeaders = acceptHeaders;
       ODataRequestImpl.this.contentType = contentType;
       ODataRequestImpl.this.acceptableLanguages = acceptableLanguages;
@@ -125,11 +141,12 @@ public class ODataRequestImpl extends ODataRequest {
 
     @Override
     public ODataRequestBuilder requestHeaders(final Map<String, List<String>> headers) {
-      requestHeaders = new CaseInsensitiveMap();
-      for (Entry<String, List<String>> set : headers.entrySet()) {
-        requestHeaders.put(set.getKey(), set.getValue());
+      if (headers instanceof ServletRequestHeaders) {
+        // already read-only and case-insensitive
+        requestHeaders = headers;
+      } else {
+        requestHeaders = copyHeaders(headers);
       }
-
       return this;
     }
 
@@ -165,6 +182,10 @@ public class ODataRequestImpl extends ODataRequest {
 
     @Override
     public ODataRequestBuilder queryParameters(final Map<String, String> queryParameters) {
+      if (sharedQueryParameters) {
+        allQueryParameters = new HashMap<String, List<String>>(allQueryParameters);
+        sharedQueryParameters = false;
+      }
       for (String key : queryParameters.keySet()) {
         List<String> parameterValues = new LinkedList<String>();
         parameterValues.add(queryParameters.get(key));
@@ -177,6 +198,7 @@ public class ODataRequestImpl extends ODataRequest {
     @Override
     public ODataRequestBuilder allQueryParameters(final Map<String, List<String>> allQueryParameters) {
       this.allQueryParameters = new HashMap<String, List<String>>(allQueryParameters);
+      sharedQueryParameters = false;
       return this;
     }
 
@@ -195,11 +217,21 @@ public class ODataRequestImpl extends ODataRequest {
         contentType = ContentType.create(request.getContentType());
       }
 
-      requestHeaders = new CaseInsensitiveMap();
-      for (Entry<String, List<String>> set : request.getRequestHeaders().entrySet()) {
-        requestHeaders.put(set.getKey(), set.getValue());
+      if (request instanceof ODataRequestImpl) {
+        // the maps and lists of a built request are not changed anymore and can be shared
+        final ODataRequestImpl source = (ODataRequestImpl) request;
+        requestHeaders = source.requestHeaders;
+        acceptHeaders = source.acceptHeaders;
+        acceptableLanguages = source.acceptableLanguages;
+        if (source.allQueryParameters != null) {
+          allQueryParameters = source.allQueryParameters;
+          sharedQueryParameters = true;
+        }
+        return this;
       }
 
+      requestHeaders = copyHeaders(request.getRequestHeaders());
+
       if (request.getAcceptHeaders() != null) {
         acceptHeaders = new ArrayList<String>();
         for (String acceptHeader : request.getAcceptHeaders()) {
@@ -218,18 +250,17 @@ public class ODataRequestImpl extends ODataRequest {
           String queryParameterName = queryParameter.getKey();
           allQueryParameters.put(queryParameterName, request.getAllQueryParameters().get(queryParameterName));
         }
+        sharedQueryParameters = false;
       }
       return this;
     }
 
-    private <T, K> Map<T, K> convertMultiMaptoSingleMap(final Map<T, List<K>> multiMap) {
-      final Map<T, K> singleMap = new HashMap<T, K>();
-
-      for (T key : multiMap.keySet()) {
-        singleMap.put(key, multiMap.get(key).get(0));
+    private Map<String, List<String>> copyHeaders(final Map<String, List<String>> headers) {
+      CaseInsensitiveMap copy = new CaseInsensitiveMap();
+      for (Entry<String, List<String>> set : headers.entrySet()) {
+        copy.put(set.getKey(), set.getValue());
       }
-
-      return singleMap;
+      return Collections.unmodifiableMap(copy);
     }
   }
 
@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.ODataResponse.ODataResponseBuilder;
+
+/**
+ * Handles the <code>Range</code> and <code>If-Range</code> request headers for
+ * responses with a raw (<code>$value</code>) stream entity.
+ * <p>A single byte range is supported. The range is only served if the total length of the
+ * entity is known, either from the <code>Content-Length</code> header of the response or
+ * from the entity stream itself (byte array and file streams). Otherwise and for multiple
+ * ranges the complete entity is returned, as allowed by RFC 2616.</p>
+ * <p>The selected part of the entity is not buffered; the stream is skipped to the first
+ * byte of the range and then limited to the length of the range.</p>
+ */
+public class RangeHandler {
+
+  private static final String BYTES_UNIT = "bytes";
+
+  /**
+   * Applies the given range to the response.
+   * @param response the complete response with status 200 (OK)
+   * @param range value of the <code>Range</code> request header; may be <code>null</code>
+   * @param ifRange value of the <code>If-Range</code> request header; may be <code>null</code>
+   * @return the partial response (206), an error response (416), or the complete response
+   * @throws IOException if the entity stream cannot be skipped
+   */
+  public ODataResponse handle(final ODataResponse response, final String range, final String ifRange)
+      throws IOException {
+    if (!(response.getEntity() instanceof InputStream)) {
+      return response;
+    }
+    final InputStream entity = (InputStream) response.getEntity();
+    final long total = getLength(response, entity);
+    if (total < 0) {
+      return response;
+    }
+    ODataResponseBuilder builder = ODataResponse.fromResponse(response)
+        .header(HttpHeaders.ACCEPT_RANGES, BYTES_UNIT);
+
+    final long[] bounds = range == null || !matches(response, ifRange) ? null : parse(range, total);
+    if (bounds == null) {
+      return builder.build();
+    } else if (bounds.length == 0) {
+      entity.close();
+      return builder.status(HttpStatusCodes.REQUESTED_RANGE_NOT_SATISFIABLE)
+          .entity(null)
+          .header(HttpHeaders.CONTENT_TYPE, null)
+          .header(HttpHeaders.CONTENT_LENGTH, null)
+          .header(HttpHeaders.CONTENT_RANGE, BYTES_UNIT + " */" + total)
+          .build();
+    }
+
+    final long first = bounds[0];
+    final long length = bounds[1] - first + 1;
+    skip(entity, first);
+    return builder.status(HttpStatusCodes.PARTIAL_CONTENT)
+        .entity(new RangeInputStream(entity, length))
+        .header(HttpHeaders.CONTENT_LENGTH, Long.toString(length))
+        .header(HttpHeaders.CONTENT_RANGE, BYTES_UNIT + " " + first + "-" + bounds[1] + "/" + total)
+        .build();
+  }
+
+  /**
+   * Parses a single byte range.
+   * @return <code>null</code> if the range has to be ignored, an empty array if it cannot be
+   * satisfied, or the first and the last byte position of the range
+   */
+  static long[] parse(final String range, final long total) {
+    final String value = range.trim();
+    if (!value.regionMatches(true, 0, BYTES_UNIT, 0, BYTES_UNIT.length())
+        || value.length() <= BYTES_UNIT.length()
+        || value.charAt(BYTES_UNIT.length()) != '='
+        || value.indexOf(',') >= 0) {
+      return null;
+    }
+    final String spec = value.substring(BYTES_UNIT.length() + 1).trim();
+    final int dash = spec.indexOf('-');
+    if (dash < 0) {
+      return null;
+    }
+    final long first = parseNumber(spec.substring(0, dash).trim());
+    final long last = parseNumber(spec.substring(dash + 1).trim());
+
+    if (dash == 0) {
+      // suffix range with the number of bytes at the end of the entity
+      if (last < 0) {
+        return null;
+      }
+      return last == 0 || total == 0 ? new long[0] : new long[] { Math.max(0, total - last), total - 1 };
+    }
+    if (first < 0 || (last < 0 && dash < spec.length() - 1) || (last >= 0 && last < first)) {
+      return null;
+    }
+    if (first >= total) {
+      return new long[0];
+    }
+    return new long[] { first, last < 0 || last >= total ? total - 1 : last };
+  }
+
+  private static long parseNumber(final String value) {
+    if (value.length() == 0 || value.length() > 18) {
+      return -1;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+        return -1;
+      }
+    }
+    return Long.parseLong(value);
+  }
+
+  /**
+   * The range is only served if the <code>If-Range</code> validator is absent or
+   * matches the entity tag or the modification date of the response exactly.
+   */
+  private static boolean matches(final ODataResponse response, final String ifRange) {
+    return ifRange == null
+        || ifRange.equals(response.getETag())
+        || ifRange.equals(response.getHeader(HttpHeaders.LAST_MODIFIED));
+  }
+
+  private static long getLength(final ODataResponse response, final InputStream entity) throws IOException {
+    final String contentLength = response.getHeader(HttpHeaders.CONTENT_LENGTH);
+    if (contentLength != null) {
+      return parseNumber(contentLength.trim());
+    } else if (entity instanceof ByteArrayInputStream) {
+      return entity.available();
+    } else if (entity instanceof FileInputStream) {
+      final FileInputStream file = (FileInputStream) entity;
+      return file.getChannel().size() - file.getChannel().position();
+    }
+    return -1;
+  }
+
+  private static void skip(final InputStream stream, final long count) throws IOException {
+    long remaining = count;
+    while (remaining > 0) {
+      final long skipped = stream.skip(remaining);
+      if (skipped > 0) {
+        remaining -= skipped;
+      } else if (stream.read() < 0) {
+        throw new IOException("Unexpected end of stream.");
+      } else {
+        remaining--;
+      }
+    }
+  }
+
+  /**
+   * Limits the underlying stream to the length of the range.
+   */
+  private static class RangeInputStream extends FilterInputStream {
+
+    private long remaining;
+
+    public RangeInputStream(final InputStream in, final long length) {
+      super(in);
+      remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      final int b = super.read();
+      if (b >= 0) {
+        remaining--;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      final int count = super.read(b, off, (int) Math.min(len, remaining));
+      if (count > 0) {
+        remaining -= count;
+      }
+      return count;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+      final long skipped = super.skip(Math.min(n, remaining));
+      remaining -= skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return (int) Math.min(super.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,465 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.zip.CRC32;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.olingo.odata2.api.ODataResponseCacheCallback;
+import org.apache.olingo.odata2.api.ODataServiceFactory;
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.commons.ODataHttpHeaders;
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.processor.ODataContext;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.uri.NavigationPropertySegment;
+import org.apache.olingo.odata2.api.uri.NavigationSegment;
+import org.apache.olingo.odata2.api.uri.PathSegment;
+import org.apache.olingo.odata2.api.uri.UriInfo;
+import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
+
+/**
+ * Server-side cache of serialized GET responses, enabled by an
+ * {@link ODataResponseCacheCallback} of the service factory.
+ * <p>Responses are keyed by the normalized request URI, the negotiated content type
+ * and the request headers that influence the serialization (language and data service
+ * versions). Every entry depends on the entity sets the response was built from
+ * (start, navigation, target and expanded entity sets); it expires after the smallest
+ * time to live of these entity sets and is removed as soon as one of them is modified
+ * through this service. The entries are bounded by the maximum size of the callback
+ * and evicted in least-recently-used order.</p>
+ * <p>Requests with credentials (an <code>Authorization</code> or <code>Cookie</code> header,
+ * or an authenticated user) are only cached if the callback assigns them to a partition,
+ * see {@link ODataResponseCacheCallback#getPartition(ODataContext)}. The parts of a batch
+ * request have the credentials of the batch request; its context is passed to the callback.</p>
+ * <p>Only the response headers that describe the content are cached, so that headers
+ * specific to a client, for example <code>Set-Cookie</code>, are not returned to others.</p>
+ * <p>The cache does not reference its callback, so that it is removed together with
+ * the callback; the callback is passed to every lookup instead.</p>
+ * <p>Responses without an <code>ETag</code> header get a weak entity tag computed from
+ * their content so that conditional requests with <code>If-None-Match</code> can be
+ * answered from the cache.</p>
+ */
+public class ResponseCache {
+
+  private static final Map<ODataResponseCacheCallback, ResponseCache> CACHES =
+      new WeakHashMap<ODataResponseCacheCallback, ResponseCache>();
+
+  private static final String[] KEY_HEADERS = { HttpHeaders.ACCEPT_LANGUAGE,
+      ODataHttpHeaders.DATASERVICEVERSION, "MaxDataServiceVersion" };
+
+  private static final String[] CREDENTIAL_HEADERS = { HttpHeaders.AUTHORIZATION, HttpHeaders.COOKIE };
+
+  private static final String[] CACHED_HEADERS = { HttpHeaders.CONTENT_TYPE, HttpHeaders.ETAG,
+      ODataHttpHeaders.DATASERVICEVERSION, HttpHeaders.CONTENT_LANGUAGE };
+
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+  private long size;
+  private long generation;
+
+  ResponseCache() {}
+
+  /**
+   * Returns the response cache callback of the given service factory.
+   * @param serviceFactory the service factory; may be <code>null</code>
+   * @return the callback, or <code>null</code> if the responses must not be cached
+   */
+  public static ODataResponseCacheCallback getCallback(final ODataServiceFactory serviceFactory) {
+    return serviceFactory == null ? null : serviceFactory.getCallback(ODataResponseCacheCallback.class);
+  }
+
+  /**
+   * Returns the response cache of the given callback.
+   * @param callback the callback; may be <code>null</code>
+   * @return the cache, or <code>null</code> if there is no callback
+   */
+  public static ResponseCache getInstance(final ODataResponseCacheCallback callback) {
+    if (callback == null) {
+      return null;
+    }
+    synchronized (CACHES) {
+      ResponseCache cache = CACHES.get(callback);
+      if (cache == null) {
+        cache = new ResponseCache();
+        CACHES.put(callback, cache);
+      }
+      return cache;
+    }
+  }
+
+  /**
+   * Prepares the caching of a GET request.
+   * @param callback the callback the cache belongs to
+   * @param context the context of the request
+   * @param uriInfo the parsed request URI
+   * @param queryParameters all query parameters of the request
+   * @param contentType the negotiated content type
+   * @return the lookup for the request, or <code>null</code> if its response must not be cached
+   * @throws ODataException if the entity data model cannot be read
+   */
+  public Lookup lookup(final ODataResponseCacheCallback callback, final ODataContext context,
+      final UriInfo uriInfo, final Map<String, List<String>> queryParameters, final String contentType)
+      throws ODataException {
+    final String partition = callback.getPartition(getRequestContext(context));
+    if ((partition == null && hasCredentials(context))
+        || context.isInDebugMode()
+        || uriInfo.getFunctionImport() != null
+        || uriInfo.getTargetEntitySet() == null
+        || context.getRequestHeader(HttpHeaders.IF_MATCH) != null
+        || context.getRequestHeader(HttpHeaders.IF_MODIFIED_SINCE) != null
+        || context.getRequestHeader(HttpHeaders.IF_UNMODIFIED_SINCE) != null) {
+      return null;
+    }
+
+    final Set<String> dependencies = new HashSet<String>();
+    long timeToLive = Long.MAX_VALUE;
+    for (final EdmEntitySet entitySet : getEntitySets(uriInfo, true)) {
+      if (dependencies.add(getName(entitySet))) {
+        timeToLive = Math.min(timeToLive, callback.getTimeToLive(entitySet));
+        if (timeToLive <= 0) {
+          return null;
+        }
+      }
+    }
+
+    StringBuilder key = new StringBuilder();
+    if (partition != null) {
+      key.append(partition.length()).append(':').append(partition);
+    }
+    key.append(context.getPathInfo().getServiceRoot().toString());
+    for (final PathSegment segment : context.getPathInfo().getODataSegments()) {
+      key.append('/').append(segment.getPath());
+      if (segment.getMatrixParameters() != null && !segment.getMatrixParameters().isEmpty()) {
+        key.append(';').append(new TreeMap<String, List<String>>(segment.getMatrixParameters()));
+      }
+    }
+    key.append('?');
+    for (final Map.Entry<String, List<String>> parameter
+        : new TreeMap<String, List<String>>(queryParameters).entrySet()) {
+      for (final String value : parameter.getValue()) {
+        key.append(parameter.getKey()).append('=').append(value).append('&');
+      }
+    }
+    key.append('\n').append(contentType);
+    for (final String header : KEY_HEADERS) {
+      key.append('\n').append(context.getRequestHeader(header));
+    }
+
+    synchronized (this) {
+      return new Lookup(callback, key.toString(), dependencies, timeToLive, generation);
+    }
+  }
+
+  /**
+   * Removes all entries that depend on entity sets modified by the given request.
+   * Must be called before and after the modifying request is dispatched so that
+   * responses read concurrently are not stored.
+   * @param uriInfo the parsed URI of the modifying request
+   * @throws EdmException if the entity data model cannot be read
+   */
+  public void invalidate(final UriInfo uriInfo) throws EdmException {
+    if (uriInfo.getFunctionImport() != null) {
+      clear();
+      return;
+    }
+    Set<String> modified = new HashSet<String>();
+    for (final EdmEntitySet entitySet : getEntitySets(uriInfo, false)) {
+      modified.add(getName(entitySet));
+    }
+    synchronized (this) {
+      generation++;
+      for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext();) {
+        final Entry entry = iterator.next();
+        if (!Collections.disjoint(entry.dependencies, modified)) {
+          size -= entry.getSize();
+          iterator.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes all entries.
+   */
+  public synchronized void clear() {
+    generation++;
+    entries.clear();
+    size = 0;
+  }
+
+  synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  private synchronized Entry get(final String key) {
+    final Entry entry = entries.get(key);
+    if (entry != null && entry.expires <= System.currentTimeMillis()) {
+      entries.remove(key);
+      size -= entry.getSize();
+      return null;
+    }
+    return entry;
+  }
+
+  private synchronized void put(final Lookup lookup, final Entry entry) {
+    if (lookup.generation != generation) {
+      return;
+    }
+    final Entry previous = entries.put(lookup.key, entry);
+    if (previous != null) {
+      size -= previous.getSize();
+    }
+    size += entry.getSize();
+    final long maximumSize = lookup.callback.getMaximumSize();
+    for (Iterator<Entry> iterator = entries.values().iterator(); size > maximumSize && iterator.hasNext();) {
+      size -= iterator.next().getSize();
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Checks the credentials of the request and, for a part of a batch request, of the
+   * enclosing batch requests, whose contexts carry the servlet request and its headers.
+   */
+  private static boolean hasCredentials(final ODataContext context) {
+    for (ODataContext current = context; current != null; current = current.getBatchParentContext()) {
+      for (final String header : CREDENTIAL_HEADERS) {
+        if (current.getRequestHeader(header) != null) {
+          return true;
+        }
+      }
+      final Object request = current.getParameter(ODataContext.HTTP_SERVLET_REQUEST_OBJECT);
+      if (request instanceof HttpServletRequest && ((HttpServletRequest) request).getUserPrincipal() != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static ODataContext getRequestContext(final ODataContext context) {
+    ODataContext requestContext = context;
+    while (requestContext.getBatchParentContext() != null) {
+      requestContext = requestContext.getBatchParentContext();
+    }
+    return requestContext;
+  }
+
+  private static List<EdmEntitySet> getEntitySets(final UriInfo uriInfo, final boolean withExpand) {
+    List<EdmEntitySet> entitySets = new ArrayList<EdmEntitySet>();
+    if (uriInfo.getStartEntitySet() != null) {
+      entitySets.add(uriInfo.getStartEntitySet());
+    }
+    for (final NavigationSegment segment : uriInfo.getNavigationSegments()) {
+      entitySets.add(segment.getEntitySet());
+    }
+    if (uriInfo.getTargetEntitySet() != null) {
+      entitySets.add(uriInfo.getTargetEntitySet());
+    }
+    if (withExpand) {
+      for (final List<NavigationPropertySegment> expand : uriInfo.getExpand()) {
+        for (final NavigationPropertySegment segment : expand) {
+          entitySets.add(segment.getTargetEntitySet());
+        }
+      }
+    }
+    return entitySets;
+  }
+
+  private static String getName(final EdmEntitySet entitySet) throws EdmException {
+    return entitySet.getEntityContainer().getName() + '.' + entitySet.getName();
+  }
+
+  private static boolean matches(final String ifNoneMatch, final String eTag) {
+    if (ifNoneMatch == null || eTag == null) {
+      return false;
+    }
+    for (final String value : ifNoneMatch.split(",")) {
+      final String trimmed = value.trim();
+      if ("*".equals(trimmed) || trimmed.equals(eTag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Cache lookup for one GET request.
+   */
+  public class Lookup {
+
+    private final ODataResponseCacheCallback callback;
+    private final String key;
+    private final Set<String> dependencies;
+    private final long timeToLive;
+    private final long generation;
+
+    private Lookup(final ODataResponseCacheCallback callback, final String key, final Set<String> dependencies,
+        final long timeToLive, final long generation) {
+      this.callback = callback;
+      this.key = key;
+      this.dependencies = dependencies;
+      this.timeToLive = timeToLive;
+      this.generation = generation;
+    }
+
+    /**
+     * Returns the cached response for the request.
+     * @param ifNoneMatch value of the <code>If-None-Match</code> request header;
+     * may be <code>null</code>
+     * @return a new response built from the cache (status 304 (Not Modified) if the
+     * entity tag matches), or <code>null</code> if the response is not cached
+     */
+    public ODataResponse getResponse(final String ifNoneMatch) {
+      final Entry entry = get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (matches(ifNoneMatch, entry.headers.get(HttpHeaders.ETAG))) {
+        return ODataResponse.status(HttpStatusCodes.NOT_MODIFIED)
+            .eTag(entry.headers.get(HttpHeaders.ETAG))
+            .build();
+      }
+      return getResponse(entry);
+    }
+
+    /**
+     * Stores a successful response of the request. The entity of the response is read
+     * into memory; the returned response must be used instead of the given one.
+     * Responses larger than the maximum size of the cache are not stored.
+     * @param response the complete response
+     * @return an equivalent response
+     * @throws ODataException if the entity cannot be read
+     * @throws IOException if the entity cannot be read
+     */
+    public ODataResponse store(final ODataResponse response) throws ODataException, IOException {
+      final Object entity = response.getEntity();
+      if (!HttpStatusCodes.OK.equals(response.getStatus())
+          || !(entity instanceof InputStream || entity instanceof String)) {
+        return response;
+      }
+
+      byte[] content;
+      if (entity instanceof String) {
+        content = getBytes((String) entity);
+      } else {
+        final InputStream stream = (InputStream) entity;
+        final long maximumSize = callback.getMaximumSize();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while (buffer.size() <= maximumSize && (read = stream.read(chunk)) >= 0) {
+          buffer.write(chunk, 0, read);
+        }
+        if (buffer.size() > maximumSize) {
+          return ODataResponse.fromResponse(response)
+              .entity(new SequenceInputStream(new ByteArrayInputStream(buffer.toByteArray()), stream))
+              .build();
+        }
+        stream.close();
+        content = buffer.toByteArray();
+      }
+
+      Map<String, String> headers = new HashMap<String, String>();
+      for (final String name : response.getHeaderNames()) {
+        for (final String cachedName : CACHED_HEADERS) {
+          if (cachedName.equalsIgnoreCase(name)) {
+            headers.put(name, response.getHeader(name));
+          }
+        }
+      }
+      if (response.getETag() == null) {
+        CRC32 checksum = new CRC32();
+        checksum.update(content);
+        headers.put(HttpHeaders.ETAG, "W/\"" + Long.toHexString(checksum.getValue())
+            + '-' + Integer.toHexString(content.length) + '"');
+      }
+      final Entry entry = new Entry(key, content, headers, dependencies,
+          System.currentTimeMillis() + Math.min(timeToLive, Long.MAX_VALUE / 2));
+      if (entry.getSize() <= callback.getMaximumSize()) {
+        put(this, entry);
+      }
+      return getResponse(entry);
+    }
+
+    private ODataResponse getResponse(final Entry entry) {
+      ODataResponse.ODataResponseBuilder builder = ODataResponse.status(HttpStatusCodes.OK)
+          .entity(new ByteArrayInputStream(entry.content));
+      for (final Map.Entry<String, String> header : entry.headers.entrySet()) {
+        builder = builder.header(header.getKey(), header.getValue());
+      }
+      return builder.build();
+    }
+
+    private byte[] getBytes(final String entity) {
+      try {
+        return entity.getBytes("UTF-8");
+      } catch (final UnsupportedEncodingException e) {
+        throw new ODataRuntimeException(e);
+      }
+    }
+  }
+
+  private static class Entry {
+
+    private final byte[] content;
+    private final Map<String, String> headers;
+    private final Set<String> dependencies;
+    private final long expires;
+    private final long size;
+
+    Entry(final String key, final byte[] content, final Map<String, String> headers,
+        final Set<String> dependencies, final long expires) {
+      this.content = content;
+      this.headers = headers;
+      this.dependencies = dependencies;
+      this.expires = expires;
+      // rough estimate of the memory used by content, key and headers
+      long textLength = key.length();
+      for (final Map.Entry<String, String> header : headers.entrySet()) {
+        textLength += header.getKey().length() + header.getValue().length();
+      }
+      size = content.length + 2 * textLength;
+    }
+
+    long getSize() {
+      return size;
+    }
+  }
+}
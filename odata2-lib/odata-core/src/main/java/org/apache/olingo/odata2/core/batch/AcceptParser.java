@@ -19,13 +19,13 @@
 package org.apache.olingo.odata2.core.batch;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.TreeSet;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.olingo.odata2.api.batch.BatchException;
 import org.apache.olingo.odata2.api.exception.MessageReference;
+import org.apache.olingo.odata2.core.commons.AcceptHeaderTokenizer;
+import org.apache.olingo.odata2.core.commons.AcceptHeaderTokenizer.Element;
 
 /**
  *
@@ -34,15 +34,6 @@ public class AcceptParser {
 
   private static final String BAD_REQUEST = "400";
   private static final String ALL = "*";
-  private static final String REG_EX_QUALITY_FACTOR = "q=((?:1\\.0{0,3})|(?:0\\.[0-9]{0,2}[1-9]))";
-  private static final String REG_EX_OPTIONAL_WHITESPACE = "\\s?";
-  private static final Pattern REG_EX_ACCEPT = Pattern.compile("([a-z\\*]+/[a-z0-9\\+\\*\\-=;\\s]+)");
-  private static final Pattern REG_EX_ACCEPT_WITH_Q_FACTOR = Pattern.compile(REG_EX_ACCEPT + "(?:;"
-      + REG_EX_OPTIONAL_WHITESPACE + REG_EX_QUALITY_FACTOR + ")?");
-  private static final Pattern REG_EX_ACCEPT_LANGUAGES = Pattern
-      .compile("((?:(?:[a-z]{1,8})|(?:\\*))\\-?(?:[a-zA-Z]{1,8})?)");
-  private static final Pattern REG_EX_ACCEPT_LANGUAGES_WITH_Q_FACTOR = Pattern.compile(REG_EX_ACCEPT_LANGUAGES + "(?:;"
-      + REG_EX_OPTIONAL_WHITESPACE + REG_EX_QUALITY_FACTOR + ")?");
 
   private static final double QUALITY_PARAM_FACTOR = 0.001;
 
@@ -50,79 +41,52 @@ public class AcceptParser {
   private List<String> acceptLanguageHeaderValues = new ArrayList<String>();
 
   public List<String> parseAcceptHeaders() throws BatchException {
-    return parseQualifiedHeader(acceptHeaderValues,
-        REG_EX_ACCEPT_WITH_Q_FACTOR,
-        BatchException.INVALID_ACCEPT_HEADER);
+    return parseQualifiedHeader(acceptHeaderValues, true, BatchException.INVALID_ACCEPT_HEADER);
   }
 
   public List<String> parseAcceptableLanguages() throws BatchException {
-    return parseQualifiedHeader(acceptLanguageHeaderValues,
-        REG_EX_ACCEPT_LANGUAGES_WITH_Q_FACTOR,
-        BatchException.INVALID_ACCEPT_LANGUAGE_HEADER);
+    return parseQualifiedHeader(acceptLanguageHeaderValues, false, BatchException.INVALID_ACCEPT_LANGUAGE_HEADER);
   }
 
-  private List<String> parseQualifiedHeader(List<String> headerValues, Pattern regEx, MessageReference exectionMessage)
-      throws BatchException {
-    final TreeSet<Accept> acceptTree = new TreeSet<AcceptParser.Accept>();
-    final List<String> acceptHeaders = new ArrayList<String>();
+  private List<String> parseQualifiedHeader(final List<String> headerValues, final boolean mediaRanges,
+      final MessageReference exectionMessage) throws BatchException {
+    final List<Accept> accepts = new ArrayList<Accept>();
 
     for (final String headerValue : headerValues) {
-      final String[] acceptParts = headerValue.split(",");
-
-      for (final String part : acceptParts) {
-        final Matcher matcher = regEx.matcher(part.trim());
-
-        if (matcher.matches() && matcher.groupCount() == 2) {
-          final Accept acceptHeader = getQualifiedHeader(matcher);
-          acceptTree.add(acceptHeader);
-        } else {
-          throw new BatchException(exectionMessage.addContent(part), BAD_REQUEST);
+      for (final Element element : AcceptHeaderTokenizer.tokenize(headerValue)) {
+        final boolean valid = element.getQuality() != AcceptHeaderTokenizer.INVALID_QUALITY
+            && (mediaRanges ? element.isMediaRange() : element.isLanguageRange());
+        if (!valid) {
+          throw new BatchException(exectionMessage.addContent(element.getText()), BAD_REQUEST);
         }
+        accepts.add(new Accept(element.getValue(),
+            mediaRanges ? getQualityFactor(element) : element.getQuality()));
       }
     }
 
-    for (Accept accept : acceptTree) {
-      if (!acceptHeaders.contains(accept.getValue())) {
-        acceptHeaders.add(accept.getValue());
+    // stable sort: values with the same quality keep their order
+    Collections.sort(accepts);
+    final List<String> acceptHeaders = new ArrayList<String>(accepts.size());
+    for (Accept accept : accepts) {
+      if (!acceptHeaders.contains(accept.value)) {
+        acceptHeaders.add(accept.value);
       }
     }
     return acceptHeaders;
   }
 
-  private Accept getQualifiedHeader(final Matcher matcher) {
-    final String acceptHeaderValue = matcher.group(1);
-    double qualityFactor = matcher.group(2) != null ? Double.parseDouble(matcher.group(2)) : 1d;
-    qualityFactor = getQualityFactor(acceptHeaderValue, qualityFactor);
-
-    return new Accept().setQuality(qualityFactor).setValue(acceptHeaderValue);
+  private double getQualityFactor(final Element element) {
+    final String mediaRange = element.getValue();
+    final int slash = mediaRange.indexOf('/');
+    final int parameterStart = mediaRange.indexOf(';');
+    final String type = mediaRange.substring(0, slash);
+    final String subtype = mediaRange.substring(slash + 1, parameterStart < 0 ? mediaRange.length() : parameterStart)
+        .trim();
+    final double typeFactor = ALL.equals(type) ? 0.0 : 0.001;
+    final double subtypeFactor = ALL.equals(subtype) ? 0.0 : 0.001;
+    return element.getQuality() + element.getParameterCount() * QUALITY_PARAM_FACTOR + typeFactor + subtypeFactor;
   }
-  
-  private double getQualityFactor(final String acceptHeaderValue, double qualityFactor) {
-    int paramNumber = 0;
-    double typeFactor = 0.0;
-    double subtypeFactor = 0.0;
-    String[] mediaRange = acceptHeaderValue.split("(?=[^;]+);");
-    String[] mediaTypes = mediaRange[0].split("/");
-
-    if (mediaTypes.length == 2) {
-      String type = mediaTypes[0];
-      String subtype = mediaTypes[1];
-      if (!ALL.equals(type)) {
-        typeFactor = 0.001;
-      }
-      if (!ALL.equals(subtype)) {
-        subtypeFactor = 0.001;
-      }
-    }
-    if (mediaRange.length == 2) {
-      String[] parameters = mediaRange[1].split(";\\s?");
-      paramNumber = parameters.length;
-    }
 
-    qualityFactor = qualityFactor + paramNumber * QUALITY_PARAM_FACTOR + typeFactor + subtypeFactor;
-    return qualityFactor;
-  }
-  
   public void addAcceptHeaderValue(final String headerValue) {
     acceptHeaderValues.add(headerValue);
   }
@@ -132,30 +96,17 @@ public class AcceptParser {
   }
 
   private static class Accept implements Comparable<Accept> {
-    private double quality;
-    private String value;
-
-    public String getValue() {
-      return value;
-    }
+    private final double quality;
+    private final String value;
 
-    public Accept setValue(final String value) {
+    public Accept(final String value, final double quality) {
       this.value = value;
-      return this;
-    }
-
-    public Accept setQuality(final double quality) {
       this.quality = quality;
-      return this;
     }
 
     @Override
-    public int compareTo(Accept o) {
-      if (quality <= o.quality) {
-        return 1;
-      } else {
-        return -1;
-      }
+    public int compareTo(final Accept o) {
+      return Double.compare(o.quality, quality);
     }
   }
 }
@@ -38,16 +38,19 @@ import org.apache.olingo.odata2.api.processor.ODataContext;
 import org.apache.olingo.odata2.api.processor.ODataRequest;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
 import org.apache.olingo.odata2.api.uri.PathSegment;
+import org.apache.olingo.odata2.api.uri.UriInfo;
 import org.apache.olingo.odata2.core.ODataContextImpl;
 import org.apache.olingo.odata2.core.ODataPathSegmentImpl;
 import org.apache.olingo.odata2.core.ODataRequestHandler;
 import org.apache.olingo.odata2.core.PathInfoImpl;
+import org.apache.olingo.odata2.core.ResponseCache;
 
 public class BatchHandlerImpl implements BatchHandler {
   private static final int BAD_REQUEST = 400;
   private ODataServiceFactory factory;
   private ODataService service;
   private Map<String, String> contentIdMap;
+  private List<UriInfo> modifiedUriInfos;
 
   public BatchHandlerImpl(final ODataServiceFactory factory, final ODataService service) {
     this.factory = factory;
@@ -59,7 +62,19 @@ public class BatchHandlerImpl implements BatchHandler {
     if (batchPart.isChangeSet()) {
       List<ODataRequest> changeSetRequests = batchPart.getRequests();
       contentIdMap = new HashMap<String, String>();
-      return service.getBatchProcessor().executeChangeSet(this, changeSetRequests);
+      modifiedUriInfos = new ArrayList<UriInfo>();
+      try {
+        return service.getBatchProcessor().executeChangeSet(this, changeSetRequests);
+      } finally {
+        // responses read while the change set was not yet committed must not stay cached
+        final ResponseCache responseCache = ResponseCache.getInstance(ResponseCache.getCallback(factory));
+        if (responseCache != null) {
+          for (UriInfo uriInfo : modifiedUriInfos) {
+            responseCache.invalidate(uriInfo);
+          }
+        }
+        modifiedUriInfos = null;
+      }
     } else {
       if (batchPart.getRequests().size() != 1) {
         throw new ODataException("Query Operation should contain one request");
@@ -93,6 +108,9 @@ public class BatchHandlerImpl implements BatchHandler {
     }
     ODataRequestHandler handler = createHandler(request);
     ODataResponse response = handler.handle(request);
+    if (modifiedUriInfos != null && handler.getModifiedUriInfo() != null) {
+      modifiedUriInfos.add(handler.getModifiedUriInfo());
+    }
     if (response.getStatus().getStatusCode() < BAD_REQUEST) {
       response = setContentIdHeader(response, mimeHeaderContentId, requestHeaderContentId);
     }
@@ -0,0 +1,302 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.commons;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Single-pass tokenizer for HTTP header values which consist of a comma-separated
+ * list of elements with optional <code>;</code>-separated parameters and an optional
+ * quality value, e.g. <code>Accept</code> (RFC 2616, 14.1) and <code>Accept-Language</code>
+ * (RFC 2616, 14.4).
+ * <p>Commas and semicolons inside quoted strings are not treated as separators.
+ * The quality parameter (<code>q</code>) is removed from the element value together with
+ * all following accept-extension parameters.</p>
+ * 
+ */
+public final class AcceptHeaderTokenizer {
+
+  /** Quality of an element whose quality value is not valid according to RFC 2616, 3.9. */
+  public static final float INVALID_QUALITY = -1f;
+
+  private static final Comparator<Element> QUALITY_COMPARATOR = new Comparator<Element>() {
+    @Override
+    public int compare(final Element element1, final Element element2) {
+      return Float.compare(element2.quality, element1.quality);
+    }
+  };
+
+  private AcceptHeaderTokenizer() {}
+
+  /**
+   * One element of a header value.
+   */
+  public static final class Element {
+    private final String value;
+    private final String text;
+    private final float quality;
+    private final int parameterCount;
+
+    private Element(final String value, final String text, final float quality, final int parameterCount) {
+      this.value = value;
+      this.text = text;
+      this.quality = quality;
+      this.parameterCount = parameterCount;
+    }
+
+    /**
+     * @return the element without quality parameter, e.g. <code>application/json;odata=verbose</code>
+     */
+    public String getValue() {
+      return value;
+    }
+
+    /**
+     * @return the trimmed element as written in the header
+     */
+    public String getText() {
+      return text;
+    }
+
+    /**
+     * @return the quality value; <code>1</code> if not given,
+     * {@link AcceptHeaderTokenizer#INVALID_QUALITY} if not valid
+     */
+    public float getQuality() {
+      return quality;
+    }
+
+    /**
+     * @return the number of parameters before the quality parameter
+     */
+    public int getParameterCount() {
+      return parameterCount;
+    }
+
+    /**
+     * @return <code>true</code> if the value is a media range <code>type/subtype</code>
+     * (with optional parameters) as defined in RFC 2616, 14.1
+     */
+    public boolean isMediaRange() {
+      final int parameterStart = value.indexOf(';');
+      final int end = parameterStart < 0 ? value.length() : parameterStart;
+      final int slash = value.indexOf('/');
+      return slash > 0 && slash < end
+          && isToken(value, 0, slash)
+          && isToken(value, slash + 1, trimEnd(value, slash + 1, end));
+    }
+
+    /**
+     * @return <code>true</code> if the value is a language range as defined in RFC 2616, 14.4
+     */
+    public boolean isLanguageRange() {
+      if ("*".equals(value)) {
+        return true;
+      }
+      int subtagLength = 0;
+      boolean primary = true;
+      for (int i = 0; i < value.length(); i++) {
+        final char c = value.charAt(i);
+        if (c == '-') {
+          if (subtagLength == 0) {
+            return false;
+          }
+          primary = false;
+          subtagLength = 0;
+        } else if (isAlpha(c) || !primary && c >= '0' && c <= '9') {
+          if (++subtagLength > 8) {
+            return false;
+          }
+        } else {
+          return false;
+        }
+      }
+      return subtagLength > 0;
+    }
+
+    @Override
+    public String toString() {
+      return value + ";q=" + quality;
+    }
+  }
+
+  /**
+   * Splits the given header value into its elements, in the order of the header.
+   * Empty elements are skipped.
+   * @param header the header value, may be <code>null</code>
+   * @return the elements (modifiable list)
+   */
+  public static List<Element> tokenize(final String header) {
+    List<Element> elements = new ArrayList<Element>();
+    if (header == null) {
+      return elements;
+    }
+    final int length = header.length();
+    int start = 0;
+    int qualityStart = -1;
+    int qualityValueStart = -1;
+    int parameterCount = 0;
+    boolean quoted = false;
+    for (int i = 0; i < length; i++) {
+      final char c = header.charAt(i);
+      if (quoted) {
+        if (c == '\\') {
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ';' && qualityStart < 0) {
+        final int next = skipWhitespace(header, i + 1, length);
+        if (next < length && (header.charAt(next) == 'q' || header.charAt(next) == 'Q')) {
+          final int equals = skipWhitespace(header, next + 1, length);
+          if (equals < length && header.charAt(equals) == '=') {
+            qualityStart = i;
+            qualityValueStart = equals + 1;
+          }
+        }
+        if (qualityStart < 0) {
+          parameterCount++;
+        }
+      } else if (c == ',') {
+        addElement(elements, header, start, i, qualityStart, qualityValueStart, parameterCount);
+        start = i + 1;
+        qualityStart = -1;
+        qualityValueStart = -1;
+        parameterCount = 0;
+      }
+    }
+    addElement(elements, header, start, length, qualityStart, qualityValueStart, parameterCount);
+    return elements;
+  }
+
+  /**
+   * Sorts the elements by descending quality; elements with the same quality keep their order.
+   * @param elements the elements to be sorted
+   * @return the given list
+   */
+  public static List<Element> sortByQuality(final List<Element> elements) {
+    Collections.sort(elements, QUALITY_COMPARATOR);
+    return elements;
+  }
+
+  /**
+   * Parses a quality value as defined in RFC 2616, 3.9:
+   * <code>("0" ["." 0*3DIGIT]) | ("1" ["." 0*3("0")])</code>;
+   * a decimal point must be followed by at least one digit.
+   * @param value the quality value
+   * @return the quality or {@link #INVALID_QUALITY}
+   */
+  public static float parseQuality(final String value) {
+    return parseQuality(value, 0, value == null ? 0 : value.length());
+  }
+
+  private static float parseQuality(final String value, final int start, final int end) {
+    final int length = end - start;
+    if (value == null || length < 1 || length > 5) {
+      return INVALID_QUALITY;
+    }
+    final char first = value.charAt(start);
+    if (first != '0' && first != '1') {
+      return INVALID_QUALITY;
+    }
+    int fraction = 0;
+    if (length > 1) {
+      if (length == 2 || value.charAt(start + 1) != '.') {
+        return INVALID_QUALITY;
+      }
+      int scale = 100;
+      for (int i = start + 2; i < end; i++) {
+        final char c = value.charAt(i);
+        if (c < '0' || c > '9' || first == '1' && c != '0') {
+          return INVALID_QUALITY;
+        }
+        fraction += (c - '0') * scale;
+        scale /= 10;
+      }
+    }
+    return first == '1' ? 1f : fraction / 1000f;
+  }
+
+  private static void addElement(final List<Element> elements, final String header, final int start, final int end,
+      final int qualityStart, final int qualityValueStart, final int parameterCount) {
+    final int textStart = skipWhitespace(header, start, end);
+    final int textEnd = trimEnd(header, textStart, end);
+    if (textStart == textEnd) {
+      return;
+    }
+    final String text = header.substring(textStart, textEnd);
+    if (qualityStart < 0) {
+      elements.add(new Element(text, text, 1f, parameterCount));
+      return;
+    }
+    int qualityValueEnd = header.indexOf(';', qualityValueStart);
+    if (qualityValueEnd < 0 || qualityValueEnd > end) {
+      qualityValueEnd = end;
+    }
+    final int valueStart = skipWhitespace(header, qualityValueStart, qualityValueEnd);
+    final float quality = parseQuality(header, valueStart, trimEnd(header, valueStart, qualityValueEnd));
+    final String value = header.substring(textStart, trimEnd(header, textStart, qualityStart));
+    elements.add(new Element(value, text, quality, parameterCount));
+  }
+
+  private static int skipWhitespace(final String value, final int start, final int end) {
+    int index = start;
+    while (index < end && isWhitespace(value.charAt(index))) {
+      index++;
+    }
+    return index;
+  }
+
+  private static int trimEnd(final String value, final int start, final int end) {
+    int index = end;
+    while (index > start && isWhitespace(value.charAt(index - 1))) {
+      index--;
+    }
+    return index;
+  }
+
+  private static boolean isWhitespace(final char c) {
+    return c == ' ' || c == '\t';
+  }
+
+  private static boolean isAlpha(final char c) {
+    return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+  }
+
+  /*
+   * RFC 2616, 2.2: token = 1*<any CHAR except CTLs or separators>
+   */
+  private static boolean isToken(final String value, final int start, final int end) {
+    if (start >= end) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      final char c = value.charAt(i);
+      if (c <= 32 || c >= 127 || "()<>@,;:\\\"/[]?={}".indexOf(c) >= 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
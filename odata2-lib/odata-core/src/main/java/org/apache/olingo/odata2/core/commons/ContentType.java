@@ -31,7 +31,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.regex.Pattern;
 
 /**
  * Internally used {@link ContentType} for OData library.
@@ -89,15 +88,6 @@ public class ContentType {
     KNOWN_MIME_TYPES.add("text");
   }
 
-  private static final Comparator<String> Q_PARAMETER_COMPARATOR = new Comparator<String>() {
-    @Override
-    public int compare(final String o1, final String o2) {
-      Float f1 = parseQParameterValue(o1);
-      Float f2 = parseQParameterValue(o2);
-      return f2.compareTo(f1);
-    }
-  };
-
   private static final char WHITESPACE_CHAR = ' ';
   private static final String PARAMETER_SEPARATOR = ";";
   private static final String PARAMETER_KEY_VALUE_SEPARATOR = "=";
@@ -111,8 +101,6 @@ public class ContentType {
   public static final String PARAMETER_TYPE = "type";
   public static final String CHARSET_UTF_8 = "utf-8";
 
-  private static final Pattern Q_PARAMETER_VALUE_PATTERN = Pattern.compile("1|0|1\\.0{1,3}|0\\.\\d{1,3}");
-
   public static final ContentType WILDCARD = new ContentType(MEDIA_TYPE_WILDCARD, MEDIA_TYPE_WILDCARD);
 
   public static final ContentType APPLICATION_XML = new ContentType("application", "xml", ODataFormat.XML);
@@ -420,7 +408,31 @@ public class ContentType {
    * @param toSort list which is sorted and hence re-arranged
    */
   public static void sortForQParameter(final List<String> toSort) {
-    Collections.sort(toSort, ContentType.Q_PARAMETER_COMPARATOR);
+    // parse each q value only once instead of on every comparison
+    final int size = toSort.size();
+    final List<QualifiedValue> qualified = new ArrayList<QualifiedValue>(size);
+    for (final String value : toSort) {
+      qualified.add(new QualifiedValue(value, parseQParameterValue(value)));
+    }
+    Collections.sort(qualified);
+    for (int i = 0; i < size; i++) {
+      toSort.set(i, qualified.get(i).value);
+    }
+  }
+
+  private static final class QualifiedValue implements Comparable<QualifiedValue> {
+    private final String value;
+    private final float quality;
+
+    QualifiedValue(final String value, final float quality) {
+      this.value = value;
+      this.quality = quality;
+    }
+
+    @Override
+    public int compareTo(final QualifiedValue other) {
+      return Float.compare(other.quality, quality);
+    }
   }
 
   /**
@@ -493,7 +505,7 @@ public class ContentType {
         }
         if (PARAMETER_Q.equals(key.toLowerCase(Locale.US))) {
           // q parameter is only validated but not added
-          if (!Q_PARAMETER_VALUE_PATTERN.matcher(value).matches()) {
+          if (AcceptHeaderTokenizer.parseQuality(value) == AcceptHeaderTokenizer.INVALID_QUALITY) {
             throw new IllegalArgumentException("Value of 'q' parameter is not valid (q='" + value + "').");
           }
         } else {
@@ -513,7 +525,7 @@ public class ContentType {
    * @param contentType parameter which is parsed for {@value #PARAMETER_Q} <code>parameter</code> value
    * @return value of {@value #PARAMETER_Q} <code>parameter</code> or <code>1</code> or <code>-1</code>
    */
-  private static Float parseQParameterValue(final String contentType) {
+  private static float parseQParameterValue(final String contentType) {
     if (contentType != null) {
       String[] splittedParameters = contentType.split(PARAMETER_SEPARATOR);
       for (String parameter : splittedParameters) {
@@ -521,14 +533,11 @@ public class ContentType {
         String key = keyValue[0].trim().toLowerCase(Locale.ENGLISH);
         if (PARAMETER_Q.equalsIgnoreCase(key)) {
           String value = keyValue.length > 1 ? keyValue[1] : null;
-          if (Q_PARAMETER_VALUE_PATTERN.matcher(value).matches()) {
-            return Float.valueOf(value);
-          }
-          return Float.valueOf(-1);
+          return AcceptHeaderTokenizer.parseQuality(value);
         }
       }
     }
-    return Float.valueOf(1);
+    return 1f;
   }
 
   /**
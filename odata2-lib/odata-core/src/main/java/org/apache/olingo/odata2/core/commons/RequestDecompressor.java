@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.commons;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.servlet.ServletConfig;
+
+import org.apache.olingo.odata2.api.ODataServiceFactory;
+import org.apache.olingo.odata2.api.exception.ODataBadRequestException;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.exception.ODataUnsupportedMediaTypeException;
+
+/**
+ * Decompresses request bodies with the content coding <code>gzip</code> or <code>deflate</code>
+ * given in the <code>Content-Encoding</code> request header.
+ * <p>The body is decompressed while it is read. To protect against decompression bombs,
+ * reading fails as soon as the decompressed size exceeds the configured maximum or, beyond
+ * the first {@value #RATIO_CHECK_THRESHOLD} bytes, the ratio between decompressed and
+ * compressed size exceeds the configured maximum.</p>
+ */
+public class RequestDecompressor {
+
+  public static final long DEFAULT_MAX_SIZE = 100L * 1024 * 1024;
+  public static final int DEFAULT_MAX_RATIO = 100;
+
+  private static final int RATIO_CHECK_THRESHOLD = 1024 * 1024;
+  private static final int BUFFER_SIZE = 8192;
+
+  private final long maxSize;
+  private final int maxRatio;
+
+  /**
+   * Creates a decompressor.
+   * @param maxSize maximum size in bytes of a decompressed body
+   * @param maxRatio maximum ratio between decompressed and compressed size
+   */
+  public RequestDecompressor(final long maxSize, final int maxRatio) {
+    this.maxSize = maxSize;
+    this.maxRatio = maxRatio;
+  }
+
+  /**
+   * Creates a decompressor from the servlet init parameters; missing parameters
+   * are replaced by {@link #DEFAULT_MAX_SIZE} and {@link #DEFAULT_MAX_RATIO}.
+   * @param config the servlet configuration; may be <code>null</code>
+   * @return the decompressor
+   */
+  public static RequestDecompressor create(final ServletConfig config) {
+    final String maxSize = config == null ? null : config.getInitParameter(
+        ODataServiceFactory.DECOMPRESSION_MAX_SIZE_LABEL);
+    final String maxRatio = config == null ? null : config.getInitParameter(
+        ODataServiceFactory.DECOMPRESSION_MAX_RATIO_LABEL);
+    return new RequestDecompressor(
+        maxSize == null ? DEFAULT_MAX_SIZE : Long.parseLong(maxSize.trim()),
+        maxRatio == null ? DEFAULT_MAX_RATIO : Integer.parseInt(maxRatio.trim()));
+  }
+
+  /**
+   * Returns the body to be read by the consumers.
+   * @param body the body as received
+   * @param contentEncoding value of the <code>Content-Encoding</code> request header; may be <code>null</code>
+   * @return the decompressing stream, or the body itself if it is not encoded
+   * @throws ODataException if the content coding is not supported or the body is not in gzip format
+   */
+  public InputStream decompress(final InputStream body, final String contentEncoding) throws ODataException {
+    if (body == null || contentEncoding == null) {
+      return body;
+    }
+    final String coding = contentEncoding.trim();
+    if (coding.length() == 0 || "identity".equalsIgnoreCase(coding)) {
+      return body;
+    }
+
+    final CountingInputStream compressed = new CountingInputStream(body);
+    InputStream decompressed;
+    if (ResponseCompressor.GZIP.equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+      try {
+        decompressed = new GZIPInputStream(compressed, BUFFER_SIZE);
+      } catch (final IOException e) {
+        throw new ODataBadRequestException(ODataBadRequestException.BODY, e);
+      }
+    } else if (ResponseCompressor.DEFLATE.equalsIgnoreCase(coding)) {
+      decompressed = new InflaterInputStream(compressed);
+    } else {
+      throw new ODataUnsupportedMediaTypeException(
+          ODataUnsupportedMediaTypeException.NOT_SUPPORTED_CONTENT_ENCODING.addContent(coding));
+    }
+    return new LimitedInputStream(decompressed, compressed);
+  }
+
+  /**
+   * Counts the bytes read from the underlying stream.
+   */
+  private static class CountingInputStream extends FilterInputStream {
+
+    private long count;
+
+    public CountingInputStream(final InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int b = super.read();
+      if (b >= 0) {
+        count++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      final int read = super.read(b, off, len);
+      if (read > 0) {
+        count += read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+      final long skipped = super.skip(n);
+      count += skipped;
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+  }
+
+  /**
+   * Checks the decompressed size and the compression ratio.
+   */
+  private class LimitedInputStream extends FilterInputStream {
+
+    private final CountingInputStream compressed;
+    private long count;
+
+    public LimitedInputStream(final InputStream in, final CountingInputStream compressed) {
+      super(in);
+      this.compressed = compressed;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int b = super.read();
+      if (b >= 0) {
+        check(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      final int read = super.read(b, off, len);
+      if (read > 0) {
+        check(read);
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+      final long skipped = super.skip(n);
+      check(skipped);
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    private void check(final long read) throws IOException {
+      count += read;
+      if (count > maxSize) {
+        throw new IOException("Decompressed request body exceeds " + maxSize + " bytes.");
+      }
+      if (count > RATIO_CHECK_THRESHOLD && count > compressed.count * maxRatio) {
+        throw new IOException("Compression ratio of the request body exceeds " + maxRatio + ".");
+      }
+    }
+  }
+}
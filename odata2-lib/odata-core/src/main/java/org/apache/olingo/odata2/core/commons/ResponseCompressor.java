@@ -0,0 +1,342 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.commons;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+
+import javax.servlet.ServletConfig;
+
+import org.apache.olingo.odata2.api.ODataServiceFactory;
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.ODataResponse.ODataResponseBuilder;
+
+/**
+ * Compresses responses with the content coding <code>gzip</code> or <code>deflate</code>
+ * selected from the <code>Accept-Encoding</code> request header.
+ * <p>The entity is compressed while it is read, so the complete response is never
+ * buffered. Only responses with a content type that has a compression level greater than
+ * zero and with at least the minimum size are compressed; the size of a stream of unknown
+ * length is determined by reading ahead up to the minimum size.</p>
+ */
+public class ResponseCompressor {
+
+  public static final String GZIP = "gzip";
+  public static final String DEFLATE = "deflate";
+  public static final int DEFAULT_MINIMUM_SIZE = 1024;
+
+  private static final int BUFFER_SIZE = 8192;
+  private static final String[] DEFAULT_MEDIA_TYPES = {
+      "text/*", "application/xml", "application/atom+xml", "application/atomsvc+xml", "application/json",
+      "multipart/mixed" };
+
+  private final int minimumSize;
+  private final Map<String, Integer> levels = new HashMap<String, Integer>();
+
+  /**
+   * Creates a compressor for XML, Atom, JSON, text and batch responses.
+   * @param minimumSize minimum size in bytes of compressed responses
+   * @param level compression level from 1 (best speed) to 9 (best compression)
+   */
+  public ResponseCompressor(final int minimumSize, final int level) {
+    this.minimumSize = minimumSize;
+    for (final String mediaType : DEFAULT_MEDIA_TYPES) {
+      setLevel(mediaType, level);
+    }
+  }
+
+  /**
+   * Creates a compressor from the servlet init parameters.
+   * @param config the servlet configuration
+   * @return the compressor, or <code>null</code> if compression is not switched on
+   * @see ODataServiceFactory#COMPRESSION_LABEL
+   */
+  public static ResponseCompressor create(final ServletConfig config) {
+    if (config == null || !Boolean.parseBoolean(config.getInitParameter(ODataServiceFactory.COMPRESSION_LABEL))) {
+      return null;
+    }
+    final String minimumSize = config.getInitParameter(ODataServiceFactory.COMPRESSION_MIN_SIZE_LABEL);
+    final ResponseCompressor compressor = new ResponseCompressor(
+        minimumSize == null ? DEFAULT_MINIMUM_SIZE : Integer.parseInt(minimumSize.trim()),
+        Deflater.DEFAULT_COMPRESSION);
+    final String levels = config.getInitParameter(ODataServiceFactory.COMPRESSION_LEVELS_LABEL);
+    if (levels != null) {
+      for (final String entry : levels.split(",")) {
+        final int separator = entry.indexOf('=');
+        if (separator > 0) {
+          compressor.setLevel(entry.substring(0, separator).trim(),
+              Integer.parseInt(entry.substring(separator + 1).trim()));
+        }
+      }
+    }
+    return compressor;
+  }
+
+  /**
+   * Sets the compression level for a media type.
+   * @param mediaType <code>type/subtype</code> or <code>type/*</code>
+   * @param level compression level from 1 (best speed) to 9 (best compression),
+   * or 0 if responses of this type must not be compressed
+   */
+  public void setLevel(final String mediaType, final int level) {
+    levels.put(mediaType.toLowerCase(Locale.ENGLISH), level);
+  }
+
+  /**
+   * Compresses the response if the client accepts a supported content coding.
+   * @param response the response
+   * @param acceptEncoding value of the <code>Accept-Encoding</code> request header; may be <code>null</code>
+   * @return the compressed or the original response
+   * @throws IOException if the entity cannot be read ahead
+   */
+  public ODataResponse compress(final ODataResponse response, final String acceptEncoding) throws IOException {
+    final Object entity = response.getEntity();
+    final int level = getLevel(response.getContentHeader());
+    if (entity == null || level == 0
+        || response.containsHeader(HttpHeaders.CONTENT_ENCODING)
+        || HttpStatusCodes.PARTIAL_CONTENT.equals(response.getStatus())) {
+      return response;
+    }
+
+    final String vary = response.getHeader(HttpHeaders.VARY);
+    ODataResponseBuilder builder = ODataResponse.fromResponse(response).header(HttpHeaders.VARY,
+        vary == null ? HttpHeaders.ACCEPT_ENCODING : vary + ", " + HttpHeaders.ACCEPT_ENCODING);
+    final String coding = negotiate(acceptEncoding);
+    if (coding == null) {
+      return builder.build();
+    }
+
+    InputStream content;
+    if (entity instanceof String) {
+      final byte[] bytes = ((String) entity).getBytes("utf-8");
+      content = new ByteArrayInputStream(bytes);
+      if (bytes.length < minimumSize) {
+        return builder.entity(content).build();
+      }
+    } else if (entity instanceof InputStream) {
+      content = (InputStream) entity;
+      if (!isLargeEnough(response.getHeader(HttpHeaders.CONTENT_LENGTH))) {
+        final byte[] head = new byte[minimumSize];
+        final int read = readFully(content, head);
+        if (read < minimumSize) {
+          content.close();
+          return builder.entity(new ByteArrayInputStream(head, 0, read)).build();
+        }
+        content = new SequenceInputStream(new ByteArrayInputStream(head), content);
+      }
+    } else {
+      return builder.build();
+    }
+
+    return builder
+        .entity(GZIP.equals(coding) ? new GzipInputStream(content, level) : new CompressingInputStream(content,
+            new Deflater(level)))
+        .header(HttpHeaders.CONTENT_ENCODING, coding)
+        .header(HttpHeaders.CONTENT_LENGTH, null)
+        .build();
+  }
+
+  /**
+   * Selects the content coding with the highest quality value accepted by the client,
+   * with <code>gzip</code> preferred over <code>deflate</code>.
+   * @param acceptEncoding value of the <code>Accept-Encoding</code> request header
+   * @return {@link #GZIP}, {@link #DEFLATE}, or <code>null</code>
+   */
+  static String negotiate(final String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return null;
+    }
+    float gzip = -1;
+    float deflate = -1;
+    float any = -1;
+    for (final String element : acceptEncoding.split(",")) {
+      final int parameters = element.indexOf(';');
+      final String coding = (parameters < 0 ? element : element.substring(0, parameters)).trim();
+      final float quality = parameters < 0 ? 1 : getQuality(element.substring(parameters + 1));
+      if (GZIP.equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+        gzip = quality;
+      } else if (DEFLATE.equalsIgnoreCase(coding)) {
+        deflate = quality;
+      } else if ("*".equals(coding)) {
+        any = quality;
+      }
+    }
+    if (gzip < 0) {
+      gzip = any;
+    }
+    if (deflate < 0) {
+      deflate = any;
+    }
+    if (gzip > 0 && gzip >= deflate) {
+      return GZIP;
+    }
+    return deflate > 0 ? DEFLATE : null;
+  }
+
+  private static float getQuality(final String parameters) {
+    for (final String parameter : parameters.split(";")) {
+      final String trimmed = parameter.trim();
+      if (trimmed.startsWith("q=")) {
+        try {
+          return Float.parseFloat(trimmed.substring(2).trim());
+        } catch (final NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
+  private int getLevel(final String contentType) {
+    if (contentType == null) {
+      return 0;
+    }
+    final int parameters = contentType.indexOf(';');
+    final String mediaType = (parameters < 0 ? contentType : contentType.substring(0, parameters))
+        .trim().toLowerCase(Locale.ENGLISH);
+    Integer level = levels.get(mediaType);
+    if (level == null) {
+      final int slash = mediaType.indexOf('/');
+      level = slash < 0 ? null : levels.get(mediaType.substring(0, slash) + "/*");
+    }
+    return level == null ? 0 : level;
+  }
+
+  private boolean isLargeEnough(final String contentLength) {
+    try {
+      return contentLength != null && Long.parseLong(contentLength.trim()) >= minimumSize;
+    } catch (final NumberFormatException e) {
+      return false;
+    }
+  }
+
+  private static int readFully(final InputStream stream, final byte[] buffer) throws IOException {
+    int position = 0;
+    int count;
+    while (position < buffer.length && (count = stream.read(buffer, position, buffer.length - position)) >= 0) {
+      position += count;
+    }
+    return position;
+  }
+
+  /**
+   * Compresses the underlying stream while it is read and releases the deflater on close.
+   */
+  private static class CompressingInputStream extends DeflaterInputStream {
+
+    private final Deflater deflater;
+
+    public CompressingInputStream(final InputStream in, final Deflater deflater) {
+      super(in, deflater, BUFFER_SIZE);
+      this.deflater = deflater;
+    }
+
+    /** @return the number of uncompressed bytes read so far */
+    long getBytesRead() {
+      return deflater.getBytesRead();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        deflater.end();
+      }
+    }
+  }
+
+  /**
+   * Produces the gzip format (RFC 1952) of the underlying stream while it is read.
+   */
+  private static class GzipInputStream extends InputStream {
+
+    private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private final CRC32 crc = new CRC32();
+    private final CompressingInputStream body;
+    private byte[] current = HEADER;
+    private int position = 0;
+    private boolean bodyFinished = false;
+
+    public GzipInputStream(final InputStream in, final int level) {
+      body = new CompressingInputStream(new CheckedInputStream(in, crc), new Deflater(level, true));
+    }
+
+    @Override
+    public int read() throws IOException {
+      final byte[] single = new byte[1];
+      return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (current == null) {
+        final int count = body.read(b, off, len);
+        if (count >= 0) {
+          return count;
+        }
+        bodyFinished = true;
+        current = createTrailer();
+        position = 0;
+      }
+      if (position >= current.length) {
+        if (bodyFinished) {
+          return -1;
+        }
+        current = null;
+        return read(b, off, len);
+      }
+      final int count = Math.min(len, current.length - position);
+      System.arraycopy(current, position, b, off, count);
+      position += count;
+      return count;
+    }
+
+    private byte[] createTrailer() {
+      final long checksum = crc.getValue();
+      final long size = body.getBytesRead();
+      final byte[] trailer = new byte[8];
+      for (int i = 0; i < 4; i++) {
+        trailer[i] = (byte) (checksum >> (8 * i));
+        trailer[i + 4] = (byte) (size >> (8 * i));
+      }
+      return trailer;
+    }
+
+    @Override
+    public void close() throws IOException {
+      body.close();
+    }
+  }
+}
@@ -18,9 +18,12 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.edm;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.olingo.odata2.api.edm.Edm;
 import org.apache.olingo.odata2.api.edm.EdmAssociation;
@@ -39,51 +42,57 @@ import org.apache.olingo.odata2.api.exception.ODataException;
  */
 public abstract class EdmImpl implements Edm {
 
-  private Map<String, EdmEntityContainer> edmEntityContainers;
-  private Map<FullQualifiedName, EdmEntityType> edmEntityTypes;
-  private Map<FullQualifiedName, EdmComplexType> edmComplexTypes;
-  private Map<FullQualifiedName, EdmAssociation> edmAssociations;
-  private Map<String, String> aliasToNamespaceInfo;
-  private List<EdmEntitySet> edmEntitySets;
-  private List<EdmFunctionImport> edmFunctionImports;
+  private ConcurrentMap<String, EdmEntityContainer> edmEntityContainers;
+  private ConcurrentMap<FullQualifiedName, EdmEntityType> edmEntityTypes;
+  private ConcurrentMap<FullQualifiedName, EdmComplexType> edmComplexTypes;
+  private ConcurrentMap<FullQualifiedName, EdmAssociation> edmAssociations;
+  private volatile EdmEntityContainer defaultEntityContainer;
+  private volatile Map<String, String> aliasToNamespaceInfo;
+  private volatile List<EdmEntitySet> edmEntitySets;
+  private volatile List<EdmFunctionImport> edmFunctionImports;
 
   protected EdmServiceMetadata edmServiceMetadata;
 
   public EdmImpl(final EdmServiceMetadata edmServiceMetadata) {
-    edmEntityContainers = new HashMap<String, EdmEntityContainer>();
-    edmEntityTypes = new HashMap<FullQualifiedName, EdmEntityType>();
-    edmComplexTypes = new HashMap<FullQualifiedName, EdmComplexType>();
-    edmAssociations = new HashMap<FullQualifiedName, EdmAssociation>();
+    edmEntityContainers = new ConcurrentHashMap<String, EdmEntityContainer>();
+    edmEntityTypes = new ConcurrentHashMap<FullQualifiedName, EdmEntityType>();
+    edmComplexTypes = new ConcurrentHashMap<FullQualifiedName, EdmComplexType>();
+    edmAssociations = new ConcurrentHashMap<FullQualifiedName, EdmAssociation>();
     this.edmServiceMetadata = edmServiceMetadata;
   }
 
+  /*
+   * All caches of this class are safe for concurrent use; if two threads create the same element at the same time,
+   * the first one stored wins so that every caller sees the same instance.
+   */
+
   @Override
   public EdmEntityContainer getEntityContainer(final String name) throws EdmException {
-    if (edmEntityContainers.containsKey(name)) {
-      return edmEntityContainers.get(name);
+    EdmEntityContainer edmEntityContainer = name == null ? defaultEntityContainer : edmEntityContainers.get(name);
+    if (edmEntityContainer != null) {
+      return edmEntityContainer;
     }
 
-    EdmEntityContainer edmEntityContainer = null;
-
     try {
       edmEntityContainer = createEntityContainer(name);
-      if (edmEntityContainer != null) {
-        if (name == null && edmEntityContainers.containsKey(edmEntityContainer.getName())) {
-          // ensure that the same default entity container is stored in the HashMap under null and its name
-          edmEntityContainer = edmEntityContainers.get(edmEntityContainer.getName());
-          edmEntityContainers.put(name, edmEntityContainer);
-        } else if (edmEntityContainers.containsKey(null) && edmEntityContainers.get(null) != null
-            && name.equals(edmEntityContainers.get(null).getName())) {
-          // ensure that the same default entity container is stored in the HashMap under null and its name
-          edmEntityContainer = edmEntityContainers.get(null);
-          edmEntityContainers.put(name, edmEntityContainer);
-        } else {
-          edmEntityContainers.put(name, edmEntityContainer);
-        }
-      }
     } catch (ODataException e) {
       throw new EdmException(EdmException.COMMON, e);
     }
+    if (edmEntityContainer == null) {
+      return null;
+    }
+
+    // ensure that the same default entity container is stored under null and its name
+    final String containerName = name == null ? edmEntityContainer.getName() : name;
+    if (containerName != null) {
+      final EdmEntityContainer existing = edmEntityContainers.putIfAbsent(containerName, edmEntityContainer);
+      if (existing != null) {
+        edmEntityContainer = existing;
+      }
+    }
+    if (name == null || edmEntityContainer.isDefaultEntityContainer()) {
+      defaultEntityContainer = edmEntityContainer;
+    }
 
     return edmEntityContainer;
   }
@@ -93,36 +102,34 @@ public abstract class EdmImpl implements Edm {
     String finalNamespace = getNamespaceForAlias(namespaceOrAlias);
 
     FullQualifiedName fqName = new FullQualifiedName(finalNamespace, name);
-    if (edmEntityTypes.containsKey(fqName)) {
-      return edmEntityTypes.get(fqName);
+    EdmEntityType edmEntityType = edmEntityTypes.get(fqName);
+    if (edmEntityType != null) {
+      return edmEntityType;
     }
 
-    EdmEntityType edmEntityType = null;
-
     try {
       edmEntityType = createEntityType(fqName);
-      if (edmEntityType != null) {
-        edmEntityTypes.put(fqName, edmEntityType);
-      }
     } catch (ODataException e) {
       throw new EdmException(EdmException.COMMON, e);
     }
 
-    return edmEntityType;
+    return edmEntityType == null ? null : putIfAbsent(edmEntityTypes, fqName, edmEntityType);
   }
 
   private String getNamespaceForAlias(final String namespaceOrAlias) throws EdmException {
-    if (aliasToNamespaceInfo == null) {
+    Map<String, String> aliasToNamespace = aliasToNamespaceInfo;
+    if (aliasToNamespace == null) {
       try {
-        aliasToNamespaceInfo = createAliasToNamespaceInfo();
-        if (aliasToNamespaceInfo == null) {
-          aliasToNamespaceInfo = new HashMap<String, String>();
+        aliasToNamespace = createAliasToNamespaceInfo();
+        if (aliasToNamespace == null) {
+          aliasToNamespace = new HashMap<String, String>();
         }
       } catch (ODataException e) {
         throw new EdmException(EdmException.COMMON, e);
       }
+      aliasToNamespaceInfo = aliasToNamespace;
     }
-    String namespace = aliasToNamespaceInfo.get(namespaceOrAlias);
+    String namespace = aliasToNamespace.get(namespaceOrAlias);
     // If not contained in info it must be a namespace
     if (namespace == null) {
       namespace = namespaceOrAlias;
@@ -134,44 +141,46 @@ public abstract class EdmImpl implements Edm {
   public EdmComplexType getComplexType(final String namespaceOrAlias, final String name) throws EdmException {
     String finalNamespace = getNamespaceForAlias(namespaceOrAlias);
     FullQualifiedName fqName = new FullQualifiedName(finalNamespace, name);
-    if (edmComplexTypes.containsKey(fqName)) {
-      return edmComplexTypes.get(fqName);
+    EdmComplexType edmComplexType = edmComplexTypes.get(fqName);
+    if (edmComplexType != null) {
+      return edmComplexType;
     }
 
-    EdmComplexType edmComplexType = null;
-
     try {
       edmComplexType = createComplexType(fqName);
-      if (edmComplexType != null) {
-        edmComplexTypes.put(fqName, edmComplexType);
-      }
     } catch (ODataException e) {
       throw new EdmException(EdmException.COMMON, e);
     }
 
-    return edmComplexType;
+    return edmComplexType == null ? null : putIfAbsent(edmComplexTypes, fqName, edmComplexType);
   }
 
   @Override
   public EdmAssociation getAssociation(final String namespaceOrAlias, final String name) throws EdmException {
     String finalNamespace = getNamespaceForAlias(namespaceOrAlias);
     FullQualifiedName fqName = new FullQualifiedName(finalNamespace, name);
-    if (edmAssociations.containsKey(fqName)) {
-      return edmAssociations.get(fqName);
+    EdmAssociation edmAssociation = edmAssociations.get(fqName);
+    if (edmAssociation != null) {
+      return edmAssociation;
     }
 
-    EdmAssociation edmAssociation = null;
-
     try {
       edmAssociation = createAssociation(fqName);
-      if (edmAssociation != null) {
-        edmAssociations.put(fqName, edmAssociation);
-      }
     } catch (ODataException e) {
       throw new EdmException(EdmException.COMMON, e);
     }
 
-    return edmAssociation;
+    return edmAssociation == null ? null : putIfAbsent(edmAssociations, fqName, edmAssociation);
+  }
+
+  private static <T> T putIfAbsent(final ConcurrentMap<FullQualifiedName, T> map, final FullQualifiedName fqName,
+      final T value) {
+    final T existing = map.putIfAbsent(fqName, value);
+    return existing == null ? value : existing;
+  }
+
+  private static <T> List<T> unmodifiable(final List<T> list) {
+    return list == null ? null : Collections.unmodifiableList(list);
   }
 
   @Override
@@ -186,26 +195,30 @@ public abstract class EdmImpl implements Edm {
 
   @Override
   public List<EdmEntitySet> getEntitySets() throws EdmException {
-    try {
-      if (edmEntitySets == null) {
-        edmEntitySets = createEntitySets();
+    List<EdmEntitySet> entitySets = edmEntitySets;
+    if (entitySets == null) {
+      try {
+        entitySets = unmodifiable(createEntitySets());
+      } catch (ODataException e) {
+        throw new EdmException(EdmException.COMMON, e);
       }
-    } catch (ODataException e) {
-      throw new EdmException(EdmException.COMMON, e);
+      edmEntitySets = entitySets;
     }
-    return edmEntitySets;
+    return entitySets;
   }
 
   @Override
   public List<EdmFunctionImport> getFunctionImports() throws EdmException {
-    try {
-      if (edmFunctionImports == null) {
-        edmFunctionImports = createFunctionImports();
+    List<EdmFunctionImport> functionImports = edmFunctionImports;
+    if (functionImports == null) {
+      try {
+        functionImports = unmodifiable(createFunctionImports());
+      } catch (ODataException e) {
+        throw new EdmException(EdmException.COMMON, e);
       }
-    } catch (ODataException e) {
-      throw new EdmException(EdmException.COMMON, e);
+      edmFunctionImports = functionImports;
     }
-    return edmFunctionImports;
+    return functionImports;
   }
 
   protected abstract EdmEntityContainer createEntityContainer(String name) throws ODataException;
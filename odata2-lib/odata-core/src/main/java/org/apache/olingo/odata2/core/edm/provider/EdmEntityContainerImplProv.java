@@ -22,6 +22,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.olingo.odata2.api.edm.EdmAnnotatable;
 import org.apache.olingo.odata2.api.edm.EdmAnnotations;
@@ -47,11 +49,11 @@ import org.apache.olingo.odata2.api.exception.ODataException;
 public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnotatable {
 
   private EdmImplProv edm;
-  private List<EntityContainer> entityContainerHierachy;
+  private volatile List<EntityContainer> entityContainerHierachy;
   private EntityContainerInfo entityContainerInfo;
-  private Map<String, EdmEntitySet> edmEntitySets;
-  private Map<String, EdmAssociationSet> edmAssociationSets;
-  private Map<String, EdmFunctionImport> edmFunctionImports;
+  private ConcurrentMap<String, EdmEntitySet> edmEntitySets;
+  private ConcurrentMap<String, EdmAssociationSet> edmAssociationSets;
+  private ConcurrentMap<String, EdmFunctionImport> edmFunctionImports;
   private EdmEntityContainer edmExtendedEntityContainer;
   private boolean isDefaultContainer;
   private EdmAnnotations annotations;
@@ -60,9 +62,9 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
       throws EdmException {
     this.edm = edm;
     this.entityContainerInfo = entityContainerInfo;
-    edmEntitySets = new HashMap<String, EdmEntitySet>();
-    edmAssociationSets = new HashMap<String, EdmAssociationSet>();
-    edmFunctionImports = new HashMap<String, EdmFunctionImport>();
+    edmEntitySets = new ConcurrentHashMap<String, EdmEntitySet>();
+    edmAssociationSets = new ConcurrentHashMap<String, EdmAssociationSet>();
+    edmFunctionImports = new ConcurrentHashMap<String, EdmFunctionImport>();
     isDefaultContainer = entityContainerInfo.isDefaultEntityContainer();
 
     if (entityContainerInfo.getExtendz() != null) {
@@ -80,7 +82,7 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
 
   @Override
   public EdmEntitySet getEntitySet(final String name) throws EdmException {
-    EdmEntitySet edmEntitySet = edmEntitySets.get(name);
+    EdmEntitySet edmEntitySet = name == null ? null : edmEntitySets.get(name);
     if (edmEntitySet != null) {
       return edmEntitySet;
     }
@@ -97,7 +99,7 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
     } else if (edmExtendedEntityContainer != null) {
       edmEntitySet = edmExtendedEntityContainer.getEntitySet(name);
       if (edmEntitySet != null) {
-        edmEntitySets.put(name, edmEntitySet);
+        edmEntitySet = putIfAbsent(edmEntitySets, name, edmEntitySet);
       }
     }
 
@@ -106,7 +108,7 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
 
   @Override
   public EdmFunctionImport getFunctionImport(final String name) throws EdmException {
-    EdmFunctionImport edmFunctionImport = edmFunctionImports.get(name);
+    EdmFunctionImport edmFunctionImport = name == null ? null : edmFunctionImports.get(name);
     if (edmFunctionImport != null) {
       return edmFunctionImport;
     }
@@ -119,12 +121,11 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
     }
 
     if (functionImport != null) {
-      edmFunctionImport = createFunctionImport(functionImport);
-      edmFunctionImports.put(name, edmFunctionImport);
+      edmFunctionImport = putIfAbsent(edmFunctionImports, name, createFunctionImport(functionImport));
     } else if (edmExtendedEntityContainer != null) {
       edmFunctionImport = edmExtendedEntityContainer.getFunctionImport(name);
       if (edmFunctionImport != null) {
-        edmFunctionImports.put(name, edmFunctionImport);
+        edmFunctionImport = putIfAbsent(edmFunctionImports, name, edmFunctionImport);
       }
     }
 
@@ -158,13 +159,10 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
     }
 
     if (associationSet != null) {
-      edmAssociationSet = createAssociationSet(associationSet);
-      edmAssociationSets.put(key, edmAssociationSet);
-      return edmAssociationSet;
+      return putIfAbsent(edmAssociationSets, key, createAssociationSet(associationSet));
     } else if (edmExtendedEntityContainer != null) {
       edmAssociationSet = edmExtendedEntityContainer.getAssociationSet(sourceEntitySet, navigationProperty);
-      edmAssociationSets.put(key, edmAssociationSet);
-      return edmAssociationSet;
+      return edmAssociationSet == null ? null : putIfAbsent(edmAssociationSets, key, edmAssociationSet);
     } else {
       throw new EdmException(EdmException.COMMON);
     }
@@ -173,15 +171,27 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
   /**
    * Create an {@link EdmEntitySet} based on given {@link EntitySet} and put it into the cache (see
    * {@link #edmEntitySets}).
+   * If the cache already contains an entity set with the same name, the cached instance is returned instead
+   * so that all callers share the same {@link EdmEntitySet} (and its resolved navigation targets).
    * 
    * @param entitySet based on which the {@link EdmEntitySet} is created
-   * @return the created and cached {@link EdmEntitySet}
+   * @return the cached {@link EdmEntitySet}
    * @throws EdmException
    */
-  private EdmEntitySet createEntitySet(final EntitySet entitySet) throws EdmException {
-    EdmEntitySet edmEntitySet = new EdmEntitySetImplProv(edm, entitySet, this);
-    edmEntitySets.put(entitySet.getName(), edmEntitySet);
-    return edmEntitySet;
+  EdmEntitySet createEntitySet(final EntitySet entitySet) throws EdmException {
+    final EdmEntitySet cached = entitySet.getName() == null ? null : edmEntitySets.get(entitySet.getName());
+    if (cached != null) {
+      return cached;
+    }
+    return putIfAbsent(edmEntitySets, entitySet.getName(), new EdmEntitySetImplProv(edm, entitySet, this));
+  }
+
+  private static <T> T putIfAbsent(final ConcurrentMap<String, T> map, final String key, final T value) {
+    if (key == null) {
+      return value;
+    }
+    final T existing = map.putIfAbsent(key, value);
+    return existing == null ? value : existing;
   }
 
   private EdmFunctionImport createFunctionImport(final FunctionImport functionImport) throws EdmException {
@@ -260,18 +270,19 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
       return entityContainerHierachy;
     }
 
-    entityContainerHierachy = new ArrayList<EntityContainer>();
+    List<EntityContainer> hierachy = new ArrayList<EntityContainer>();
     Map<String, EntityContainer> name2Container = getEntityContainerMap();
     String currentName = getName();
     while (currentName != null) {
       EntityContainer currentContainer = name2Container.get(currentName);
-      entityContainerHierachy.add(currentContainer);
+      hierachy.add(currentContainer);
       currentName = currentContainer.getExtendz();
     }
 
-    if (entityContainerHierachy.isEmpty()) {
+    if (hierachy.isEmpty()) {
       throw new EdmException(EdmException.PROVIDERPROBLEM, "No container at all found.");
     }
-    return entityContainerHierachy;
+    entityContainerHierachy = hierachy;
+    return hierachy;
   }
 }
@@ -18,6 +18,9 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.edm.provider;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.apache.olingo.odata2.api.edm.EdmAnnotatable;
 import org.apache.olingo.odata2.api.edm.EdmAnnotations;
 import org.apache.olingo.odata2.api.edm.EdmAssociationSet;
@@ -35,30 +38,47 @@ public class EdmEntitySetImplProv extends EdmNamedImplProv implements EdmEntityS
 
   private EntitySet entitySet;
   private EdmEntityContainer edmEntityContainer;
-  private EdmEntityType edmEntityType;
+  private volatile EdmEntityType edmEntityType;
   private EdmAnnotationsImplProv annotations;
+  /** Target entity sets resolved so far, by name of the navigation property. */
+  private ConcurrentMap<String, EdmEntitySet> relatedEntitySets;
 
   public EdmEntitySetImplProv(final EdmImplProv edm, final EntitySet entitySet,
       final EdmEntityContainer edmEntityContainer) throws EdmException {
     super(edm, entitySet.getName());
     this.entitySet = entitySet;
     this.edmEntityContainer = edmEntityContainer;
+    relatedEntitySets = new ConcurrentHashMap<String, EdmEntitySet>();
   }
 
   @Override
   public EdmEntityType getEntityType() throws EdmException {
-    if (edmEntityType == null) {
+    EdmEntityType entityType = edmEntityType;
+    if (entityType == null) {
       FullQualifiedName fqName = entitySet.getEntityType();
-      edmEntityType = edm.getEntityType(fqName.getNamespace(), fqName.getName());
-      if (edmEntityType == null) {
+      entityType = edm.getEntityType(fqName.getNamespace(), fqName.getName());
+      if (entityType == null) {
         throw new EdmException(EdmException.COMMON);
       }
+      edmEntityType = entityType;
     }
-    return edmEntityType;
+    return entityType;
   }
 
   @Override
   public EdmEntitySet getRelatedEntitySet(final EdmNavigationProperty navigationProperty) throws EdmException {
+    final String name = navigationProperty.getName();
+    EdmEntitySet relatedEntitySet = name == null ? null : relatedEntitySets.get(name);
+    if (relatedEntitySet == null) {
+      relatedEntitySet = resolveRelatedEntitySet(navigationProperty);
+      if (name != null) {
+        relatedEntitySets.putIfAbsent(name, relatedEntitySet);
+      }
+    }
+    return relatedEntitySet;
+  }
+
+  private EdmEntitySet resolveRelatedEntitySet(final EdmNavigationProperty navigationProperty) throws EdmException {
     EdmAssociationSet associationSet =
         edmEntityContainer.getAssociationSet(edmEntityContainer.getEntitySet(entitySet.getName()), navigationProperty);
     EdmAssociationSetEnd toEnd = associationSet.getEnd(navigationProperty.getToRole());
@@ -19,6 +19,7 @@
 package org.apache.olingo.odata2.core.edm.provider;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,12 +38,11 @@ public class EdmEntityTypeImplProv extends EdmStructuralTypeImplProv implements
 
   private EntityType entityType;
 
-  private Map<String, EdmProperty> keyProperties;
-  private List<EdmProperty> edmKeyProperties;
-  private List<String> edmKeyPropertyNames;
+  private volatile List<EdmProperty> edmKeyProperties;
+  private volatile List<String> edmKeyPropertyNames;
 
   private Map<String, NavigationProperty> navigationProperties;
-  private List<String> edmNavigationPropertyNames;
+  private volatile List<String> edmNavigationPropertyNames;
 
   public EdmEntityTypeImplProv(final EdmImplProv edm, final EntityType entityType, final String namespace)
       throws EdmException {
@@ -64,50 +64,51 @@ public class EdmEntityTypeImplProv extends EdmStructuralTypeImplProv implements
 
   @Override
   public List<String> getKeyPropertyNames() throws EdmException {
-    if (edmKeyPropertyNames == null) {
+    List<String> keyPropertyNames = edmKeyPropertyNames;
+    if (keyPropertyNames == null) {
       if (edmBaseType != null) {
         return ((EdmEntityType) edmBaseType).getKeyPropertyNames();
       }
 
-      edmKeyPropertyNames = new ArrayList<String>();
+      keyPropertyNames = new ArrayList<String>();
 
       if (entityType.getKey() != null) {
         for (final PropertyRef keyProperty : entityType.getKey().getKeys()) {
-          edmKeyPropertyNames.add(keyProperty.getName());
+          keyPropertyNames.add(keyProperty.getName());
         }
       } else {
         // Entity Type does not define a key
         throw new EdmException(EdmException.COMMON);
       }
+      keyPropertyNames = Collections.unmodifiableList(keyPropertyNames);
+      edmKeyPropertyNames = keyPropertyNames;
     }
 
-    return edmKeyPropertyNames;
+    return keyPropertyNames;
   }
 
   @Override
   public List<EdmProperty> getKeyProperties() throws EdmException {
-    if (edmKeyProperties == null) {
+    List<EdmProperty> keyProperties = edmKeyProperties;
+    if (keyProperties == null) {
       if (edmBaseType != null) {
         return ((EdmEntityType) edmBaseType).getKeyProperties();
       }
 
-      if (keyProperties == null) {
-        keyProperties = new HashMap<String, EdmProperty>();
-        edmKeyProperties = new ArrayList<EdmProperty>();
-
-        for (String keyPropertyName : getKeyPropertyNames()) {
-          final EdmTyped edmProperty = getProperty(keyPropertyName);
-          if (edmProperty != null && edmProperty instanceof EdmProperty) {
-            keyProperties.put(keyPropertyName, (EdmProperty) edmProperty);
-            edmKeyProperties.add((EdmProperty) edmProperty);
-          } else {
-            throw new EdmException(EdmException.COMMON);
-          }
+      keyProperties = new ArrayList<EdmProperty>();
+      for (String keyPropertyName : getKeyPropertyNames()) {
+        final EdmTyped edmProperty = getProperty(keyPropertyName);
+        if (edmProperty != null && edmProperty instanceof EdmProperty) {
+          keyProperties.add((EdmProperty) edmProperty);
+        } else {
+          throw new EdmException(EdmException.COMMON);
         }
       }
+      keyProperties = Collections.unmodifiableList(keyProperties);
+      edmKeyProperties = keyProperties;
     }
 
-    return edmKeyProperties;
+    return keyProperties;
   }
 
   @Override
@@ -122,18 +123,21 @@ public class EdmEntityTypeImplProv extends EdmStructuralTypeImplProv implements
 
   @Override
   public List<String> getNavigationPropertyNames() throws EdmException {
-    if (edmNavigationPropertyNames == null) {
-      edmNavigationPropertyNames = new ArrayList<String>();
+    List<String> navigationPropertyNames = edmNavigationPropertyNames;
+    if (navigationPropertyNames == null) {
+      navigationPropertyNames = new ArrayList<String>();
       if (edmBaseType != null) {
-        edmNavigationPropertyNames.addAll(((EdmEntityType) edmBaseType).getNavigationPropertyNames());
+        navigationPropertyNames.addAll(((EdmEntityType) edmBaseType).getNavigationPropertyNames());
       }
       if (entityType.getNavigationProperties() != null) {
         for (final NavigationProperty navigationProperty : entityType.getNavigationProperties()) {
-          edmNavigationPropertyNames.add(navigationProperty.getName());
+          navigationPropertyNames.add(navigationProperty.getName());
         }
       }
+      navigationPropertyNames = Collections.unmodifiableList(navigationPropertyNames);
+      edmNavigationPropertyNames = navigationPropertyNames;
     }
-    return edmNavigationPropertyNames;
+    return navigationPropertyNames;
   }
 
   @Override
@@ -28,7 +28,10 @@ import org.apache.olingo.odata2.api.edm.EdmComplexType;
 import org.apache.olingo.odata2.api.edm.EdmEntityContainer;
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
 import org.apache.olingo.odata2.api.edm.EdmEntityType;
+import org.apache.olingo.odata2.api.edm.EdmException;
 import org.apache.olingo.odata2.api.edm.EdmFunctionImport;
+import org.apache.olingo.odata2.api.edm.EdmNavigationProperty;
+import org.apache.olingo.odata2.api.edm.EdmStructuralType;
 import org.apache.olingo.odata2.api.edm.FullQualifiedName;
 import org.apache.olingo.odata2.api.edm.provider.AliasInfo;
 import org.apache.olingo.odata2.api.edm.provider.Association;
@@ -47,13 +50,102 @@ import org.apache.olingo.odata2.core.edm.EdmImpl;
 public class EdmImplProv extends EdmImpl implements EdmProviderAccessor {
 
   protected EdmProvider edmProvider;
-  private List<Schema> schemas;
 
   public EdmImplProv(final EdmProvider edmProvider) {
     super(new EdmServiceMetadataImplProv(edmProvider));
     this.edmProvider = edmProvider;
   }
 
+  /**
+   * <p>Resolves every element of all schemas of the provider at once so that later calls are pure cache lookups.</p>
+   * <p>This walks {@link EdmProvider#getSchemas()} a single time and creates all entity containers, entity sets,
+   * function imports, entity types (including their properties, keys, and navigation properties), complex types,
+   * and associations; additionally the target entity set of every navigation property of every entity set is
+   * resolved together with the association set in between. Afterwards requests do not have to call the provider
+   * anymore and the model can be read concurrently by any number of threads.</p>
+   * @return this instance
+   * @throws EdmException if the provider does not deliver schemas or if they are inconsistent
+   */
+  public EdmImplProv compile() throws EdmException {
+    try {
+      final List<Schema> schemas = edmProvider.getSchemas();
+      if (schemas == null) {
+        throw new EdmException(EdmException.PROVIDERPROBLEM);
+      }
+      for (final Schema schema : schemas) {
+        final String namespace = schema.getNamespace();
+        if (schema.getEntityTypes() != null) {
+          for (final EntityType entityType : schema.getEntityTypes()) {
+            compileEntityType(getEntityType(namespace, entityType.getName()));
+          }
+        }
+        if (schema.getComplexTypes() != null) {
+          for (final ComplexType complexType : schema.getComplexTypes()) {
+            compileStructuralType(getComplexType(namespace, complexType.getName()));
+          }
+        }
+        if (schema.getAssociations() != null) {
+          for (final Association association : schema.getAssociations()) {
+            getAssociation(namespace, association.getName());
+          }
+        }
+        if (schema.getEntityContainers() != null) {
+          for (final EntityContainer entityContainer : schema.getEntityContainers()) {
+            compileEntityContainer(entityContainer);
+          }
+        }
+      }
+      getDefaultEntityContainer();
+      getEntitySets();
+      getFunctionImports();
+      getServiceMetadata().getDataServiceVersion();
+      getServiceMetadata().getEntitySetInfos();
+    } catch (final EdmException e) {
+      throw e;
+    } catch (final ODataException e) {
+      throw new EdmException(EdmException.PROVIDERPROBLEM, e);
+    }
+    return this;
+  }
+
+  private void compileStructuralType(final EdmStructuralType type) throws EdmException {
+    if (type == null) {
+      throw new EdmException(EdmException.PROVIDERPROBLEM);
+    }
+    for (final String name : type.getPropertyNames()) {
+      type.getProperty(name);
+    }
+  }
+
+  private void compileEntityType(final EdmEntityType entityType) throws EdmException {
+    compileStructuralType(entityType);
+    entityType.getKeyProperties();
+    for (final String name : entityType.getNavigationPropertyNames()) {
+      ((EdmNavigationProperty) entityType.getProperty(name)).getRelationship();
+    }
+  }
+
+  private void compileEntityContainer(final EntityContainer entityContainer) throws ODataException {
+    final EdmEntityContainer edmEntityContainer = getEntityContainer(entityContainer.getName());
+    if (edmEntityContainer == null) {
+      throw new EdmException(EdmException.PROVIDERPROBLEM);
+    }
+    if (entityContainer.getFunctionImports() != null) {
+      for (final FunctionImport functionImport : entityContainer.getFunctionImports()) {
+        edmEntityContainer.getFunctionImport(functionImport.getName());
+      }
+    }
+    if (entityContainer.getEntitySets() != null) {
+      for (final EntitySet entitySet : entityContainer.getEntitySets()) {
+        final EdmEntitySet edmEntitySet = edmEntityContainer.getEntitySet(entitySet.getName());
+        final EdmEntityType entityType = edmEntitySet.getEntityType();
+        for (final String name : entityType.getNavigationPropertyNames()) {
+          edmEntitySet.getRelatedEntitySet((EdmNavigationProperty) entityType.getProperty(name));
+        }
+      }
+    }
+  }
+
   @Override
   protected EdmEntityContainer createEntityContainer(final String name) throws ODataException {
     EntityContainerInfo enitityContainerInfo = edmProvider.getEntityContainerInfo(name);
@@ -99,15 +191,16 @@ public class EdmImplProv extends EdmImpl implements EdmProviderAccessor {
   @Override
   protected List<EdmEntitySet> createEntitySets() throws ODataException {
     List<EdmEntitySet> edmEntitySets = new ArrayList<EdmEntitySet>();
-    if (schemas == null) {
-      schemas = edmProvider.getSchemas();
-    }
-    for (Schema schema : schemas) {
-      for (EntityContainer entityContainer : schema.getEntityContainers()) {
-        for (EntitySet entitySet : entityContainer.getEntitySets()) {
-          EdmEntityContainer edmEntityContainer = createEntityContainer(entityContainer.getName());
-          edmEntitySets.add(new EdmEntitySetImplProv(this, entitySet, edmEntityContainer));
-        }
+    for (EntityContainer entityContainer : edmProvider.getEntityContainers()) {
+      if (entityContainer.getEntitySets() == null) {
+        continue;
+      }
+      EdmEntityContainer edmEntityContainer = getEntityContainer(entityContainer.getName());
+      for (EntitySet entitySet : entityContainer.getEntitySets()) {
+        // share the instances cached by the container
+        edmEntitySets.add(edmEntityContainer instanceof EdmEntityContainerImplProv
+            ? ((EdmEntityContainerImplProv) edmEntityContainer).createEntitySet(entitySet)
+            : new EdmEntitySetImplProv(this, entitySet, edmEntityContainer));
       }
     }
     return edmEntitySets;
@@ -116,15 +209,13 @@ public class EdmImplProv extends EdmImpl implements EdmProviderAccessor {
   @Override
   protected List<EdmFunctionImport> createFunctionImports() throws ODataException {
     List<EdmFunctionImport> edmFunctionImports = new ArrayList<EdmFunctionImport>();
-    if (schemas == null) {
-      schemas = edmProvider.getSchemas();
-    }
-    for (Schema schema : schemas) {
-      for (EntityContainer entityContainer : schema.getEntityContainers()) {
-        for (FunctionImport functionImport : entityContainer.getFunctionImports()) {
-          EdmEntityContainer edmEntityContainer = createEntityContainer(entityContainer.getName());
-          edmFunctionImports.add(new EdmFunctionImportImplProv(this, functionImport, edmEntityContainer));
-        }
+    for (EntityContainer entityContainer : edmProvider.getEntityContainers()) {
+      if (entityContainer.getFunctionImports() == null) {
+        continue;
+      }
+      EdmEntityContainer edmEntityContainer = getEntityContainer(entityContainer.getName());
+      for (FunctionImport functionImport : entityContainer.getFunctionImports()) {
+        edmFunctionImports.add(new EdmFunctionImportImplProv(this, functionImport, edmEntityContainer));
       }
     }
     return edmFunctionImports;
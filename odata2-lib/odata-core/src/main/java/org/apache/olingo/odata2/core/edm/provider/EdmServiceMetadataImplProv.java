@@ -51,9 +51,9 @@ import org.apache.olingo.odata2.core.ep.util.CircleStreamBuffer;
 public class EdmServiceMetadataImplProv implements EdmServiceMetadata {
 
   private EdmProvider edmProvider;
-  private String dataServiceVersion;
-  private List<Schema> schemas;
-  private List<EdmEntitySetInfo> entitySetInfos;
+  private volatile String dataServiceVersion;
+  private volatile List<Schema> schemas;
+  private volatile List<EdmEntitySetInfo> entitySetInfos;
 
   public EdmServiceMetadataImplProv(final EdmProvider edmProvider) {
     this.edmProvider = edmProvider;
@@ -103,26 +103,27 @@ public class EdmServiceMetadataImplProv implements EdmServiceMetadata {
     }
 
     if (dataServiceVersion == null) {
-      dataServiceVersion = ODataServiceVersion.V10;
-
-      for (Schema schema : listOrEmptyList(schemas)) {
-        List<EntityType> entityTypes = listOrEmptyList(schema.getEntityTypes());
-        for (EntityType entityType : entityTypes) {
-          List<Property> properties = listOrEmptyList(entityType.getProperties());
-          for (Property property : properties) {
-            if (property.getCustomizableFeedMappings() != null) {
-              if (property.getCustomizableFeedMappings().getFcKeepInContent() != null) {
-                if (!property.getCustomizableFeedMappings().getFcKeepInContent()) {
-                  dataServiceVersion = ODataServiceVersion.V20;
-                  return dataServiceVersion;
-                }
+      dataServiceVersion = computeDataServiceVersion();
+    }
+    return dataServiceVersion;
+  }
+
+  private String computeDataServiceVersion() {
+    for (Schema schema : listOrEmptyList(schemas)) {
+      List<EntityType> entityTypes = listOrEmptyList(schema.getEntityTypes());
+      for (EntityType entityType : entityTypes) {
+        List<Property> properties = listOrEmptyList(entityType.getProperties());
+        for (Property property : properties) {
+          if (property.getCustomizableFeedMappings() != null) {
+            if (property.getCustomizableFeedMappings().getFcKeepInContent() != null) {
+              if (!property.getCustomizableFeedMappings().getFcKeepInContent()) {
+                return ODataServiceVersion.V20;
               }
-              if (entityType.getCustomizableFeedMappings() != null) {
-                if (entityType.getCustomizableFeedMappings().getFcKeepInContent() != null) {
-                  if (entityType.getCustomizableFeedMappings().getFcKeepInContent()) {
-                    dataServiceVersion = ODataServiceVersion.V20;
-                    return dataServiceVersion;
-                  }
+            }
+            if (entityType.getCustomizableFeedMappings() != null) {
+              if (entityType.getCustomizableFeedMappings().getFcKeepInContent() != null) {
+                if (entityType.getCustomizableFeedMappings().getFcKeepInContent()) {
+                  return ODataServiceVersion.V20;
                 }
               }
             }
@@ -130,30 +131,26 @@ public class EdmServiceMetadataImplProv implements EdmServiceMetadata {
         }
       }
     }
-    return dataServiceVersion;
+    return ODataServiceVersion.V10;
   }
 
   @Override
   public List<EdmEntitySetInfo> getEntitySetInfos() throws ODataException {
-    if (entitySetInfos == null) {
-      entitySetInfos = new ArrayList<EdmEntitySetInfo>();
-
-      if (schemas == null) {
-        schemas = edmProvider.getSchemas();
-      }
-
-      for (Schema schema : schemas) {
-        for (EntityContainer entityContainer : listOrEmptyList(schema.getEntityContainers())) {
-          for (EntitySet entitySet : listOrEmptyList(entityContainer.getEntitySets())) {
-            EdmEntitySetInfo entitySetInfo = new EdmEntitySetInfoImplProv(entitySet, entityContainer);
-            entitySetInfos.add(entitySetInfo);
-          }
+    List<EdmEntitySetInfo> infos = entitySetInfos;
+    if (infos == null) {
+      infos = new ArrayList<EdmEntitySetInfo>();
+
+      // only the containers are needed, so the (possibly expensive) types are not built
+      for (EntityContainer entityContainer : edmProvider.getEntityContainers()) {
+        for (EntitySet entitySet : listOrEmptyList(entityContainer.getEntitySets())) {
+          EdmEntitySetInfo entitySetInfo = new EdmEntitySetInfoImplProv(entitySet, entityContainer);
+          infos.add(entitySetInfo);
         }
       }
-
+      entitySetInfos = infos;
     }
 
-    return entitySetInfos;
+    return infos;
   }
 
   /**
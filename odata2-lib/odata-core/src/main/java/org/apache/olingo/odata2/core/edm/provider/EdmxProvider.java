@@ -18,9 +18,24 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.edm.provider;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.xml.stream.XMLStreamReader;
 
@@ -28,6 +43,7 @@ import org.apache.olingo.odata2.api.edm.FullQualifiedName;
 import org.apache.olingo.odata2.api.edm.provider.AliasInfo;
 import org.apache.olingo.odata2.api.edm.provider.Association;
 import org.apache.olingo.odata2.api.edm.provider.AssociationSet;
+import org.apache.olingo.odata2.api.edm.provider.AssociationSetEnd;
 import org.apache.olingo.odata2.api.edm.provider.ComplexType;
 import org.apache.olingo.odata2.api.edm.provider.DataServices;
 import org.apache.olingo.odata2.api.edm.provider.EdmProvider;
@@ -42,131 +58,200 @@ import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.core.commons.XmlHelper;
 import org.apache.olingo.odata2.core.ep.consumer.XmlMetadataConsumer;
 
+/**
+ * <p>{@link EdmProvider} for metadata documents.</p>
+ * <p>All schema elements are indexed by their (namespace- or alias-qualified) names when the metadata are read,
+ * so that each lookup is a single hash map access also for very large documents.
+ * The parsed metadata can be stored in a binary snapshot with {@link #writeSnapshot(OutputStream)} and loaded
+ * again with {@link #readSnapshot(InputStream)} without parsing the XML document again.</p>
+ */
 public class EdmxProvider extends EdmProvider {
+
+  private static final int SNAPSHOT_MAGIC = 0x4F454458;
+  private static final int SNAPSHOT_VERSION = 1;
+
+  private static final String PROVIDER_PACKAGE = "org.apache.olingo.odata2.api.edm.provider.";
+  private static final String EDM_PACKAGE = "org.apache.olingo.odata2.api.edm.";
+  /** JDK classes the provider beans are built of. */
+  private static final Set<String> SNAPSHOT_JDK_CLASSES = new HashSet<String>(Arrays.asList(
+      "java.lang.String", "java.lang.Enum", "java.lang.Number", "java.lang.Boolean", "java.lang.Character",
+      "java.lang.Byte", "java.lang.Short", "java.lang.Integer", "java.lang.Long", "java.lang.Float",
+      "java.lang.Double",
+      "java.util.ArrayList", "java.util.LinkedList", "java.util.HashMap", "java.util.LinkedHashMap",
+      "java.util.TreeMap", "java.util.HashSet", "java.util.LinkedHashSet", "java.util.TreeSet",
+      "java.util.Arrays$ArrayList", "java.util.Collections$EmptyList", "java.util.Collections$EmptyMap",
+      "java.util.Collections$EmptySet", "java.util.Collections$SingletonList", "java.util.Collections$SingletonMap",
+      "java.util.Collections$SingletonSet", "java.util.Collections$UnmodifiableCollection",
+      "java.util.Collections$UnmodifiableList", "java.util.Collections$UnmodifiableRandomAccessList",
+      "java.util.Collections$UnmodifiableMap", "java.util.Collections$UnmodifiableSet"));
+
   private DataServices dataServices;
 
+  private Map<FullQualifiedName, EntityType> entityTypes;
+  private Map<FullQualifiedName, ComplexType> complexTypes;
+  private Map<FullQualifiedName, Association> associations;
+  private Map<String, ContainerIndex> containers;
+  private EntityContainer defaultContainer;
+  private List<AliasInfo> aliasInfos;
+
   public EdmxProvider parse(final InputStream in, final boolean validate) throws EntityProviderException {
     XmlMetadataConsumer parser = new XmlMetadataConsumer();
     XMLStreamReader streamReader = XmlHelper.createStreamReader(in);
     dataServices = parser.readMetadata(streamReader, validate);
+    buildIndex();
     return this;
   }
 
-  @Override
-  public EntityContainerInfo getEntityContainerInfo(final String name) throws ODataException {
-    if (name != null) {
-      for (Schema schema : dataServices.getSchemas()) {
-        for (EntityContainer container : schema.getEntityContainers()) {
-          if (container.getName().equals(name)) {
-            return container;
-          }
-        }
+  /**
+   * Reads metadata from a snapshot written by {@link #writeSnapshot(OutputStream)}.
+   * @param in the snapshot; it is not closed by this method
+   * @return this provider
+   * @throws EntityProviderException if the stream does not contain a valid snapshot
+   */
+  public EdmxProvider readSnapshot(final InputStream in) throws EntityProviderException {
+    try {
+      final DataInputStream dataInput = new DataInputStream(new BufferedInputStream(in));
+      if (dataInput.readInt() != SNAPSHOT_MAGIC || dataInput.readInt() != SNAPSHOT_VERSION) {
+        throw new EntityProviderException(EntityProviderException.ILLEGAL_ARGUMENT
+            .addContent("Unsupported metadata snapshot format."));
       }
-    } else {
-      for (Schema schema : dataServices.getSchemas()) {
-        for (EntityContainer container : schema.getEntityContainers()) {
-          if (container.isDefaultEntityContainer()) {
-            return container;
-          }
-        }
+      final Object object = new SnapshotInputStream(dataInput).readObject();
+      if (!(object instanceof DataServices)) {
+        throw new EntityProviderException(EntityProviderException.ILLEGAL_ARGUMENT
+            .addContent("Unsupported metadata snapshot content."));
       }
+      dataServices = (DataServices) object;
+    } catch (final IOException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass()
+          .getSimpleName()), e);
+    } catch (final ClassNotFoundException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass()
+          .getSimpleName()), e);
     }
-    return null;
+    buildIndex();
+    return this;
   }
 
-  @Override
-  public EntityType getEntityType(final FullQualifiedName edmFQName) throws ODataException {
+  /**
+   * Writes the metadata of this provider into a binary snapshot
+   * that can be read again with {@link #readSnapshot(InputStream)}.
+   * @param out the target of the snapshot; it is flushed but not closed by this method
+   * @throws EntityProviderException if the metadata could not be written
+   */
+  public void writeSnapshot(final OutputStream out) throws EntityProviderException {
+    try {
+      final DataOutputStream dataOutput = new DataOutputStream(new BufferedOutputStream(out));
+      dataOutput.writeInt(SNAPSHOT_MAGIC);
+      dataOutput.writeInt(SNAPSHOT_VERSION);
+      final ObjectOutputStream objectOutput = new ObjectOutputStream(dataOutput);
+      objectOutput.writeObject(dataServices);
+      objectOutput.flush();
+    } catch (final IOException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass()
+          .getSimpleName()), e);
+    }
+  }
+
+  private void buildIndex() {
+    entityTypes = new HashMap<FullQualifiedName, EntityType>();
+    complexTypes = new HashMap<FullQualifiedName, ComplexType>();
+    associations = new HashMap<FullQualifiedName, Association>();
+    containers = new HashMap<String, ContainerIndex>();
+    defaultContainer = null;
+    aliasInfos = new ArrayList<AliasInfo>();
+
     for (Schema schema : dataServices.getSchemas()) {
-      if (schema.getNamespace().equals(edmFQName.getNamespace())) {
+      final String namespace = schema.getNamespace();
+      final String alias = schema.getAlias();
+      if (alias != null) {
+        aliasInfos.add(new AliasInfo().setAlias(alias).setNamespace(namespace));
+      }
+      if (schema.getEntityTypes() != null) {
         for (EntityType entityType : schema.getEntityTypes()) {
-          if (entityType.getName().equals(edmFQName.getName())) {
-            return entityType;
+          put(entityTypes, namespace, alias, entityType.getName(), entityType);
+        }
+      }
+      if (schema.getComplexTypes() != null) {
+        for (ComplexType complexType : schema.getComplexTypes()) {
+          put(complexTypes, namespace, alias, complexType.getName(), complexType);
+        }
+      }
+      if (schema.getAssociations() != null) {
+        for (Association association : schema.getAssociations()) {
+          put(associations, namespace, alias, association.getName(), association);
+        }
+      }
+      if (schema.getEntityContainers() != null) {
+        for (EntityContainer container : schema.getEntityContainers()) {
+          if (!containers.containsKey(container.getName())) {
+            containers.put(container.getName(), new ContainerIndex(container));
+          }
+          if (defaultContainer == null && container.isDefaultEntityContainer()) {
+            defaultContainer = container;
           }
         }
       }
     }
-    return null;
   }
 
-  @Override
-  public ComplexType getComplexType(final FullQualifiedName edmFQName) throws ODataException {
-    for (Schema schema : dataServices.getSchemas()) {
-      if (schema.getNamespace().equals(edmFQName.getNamespace())) {
-        for (ComplexType complexType : schema.getComplexTypes()) {
-          if (complexType.getName().equals(edmFQName.getName())) {
-            return complexType;
-          }
-        }
+  /** Puts the element under its namespace-qualified and its alias-qualified name; the first element wins. */
+  private static <T> void put(final Map<FullQualifiedName, T> map, final String namespace, final String alias,
+      final String name, final T element) {
+    final FullQualifiedName fqName = new FullQualifiedName(namespace, name);
+    if (!map.containsKey(fqName)) {
+      map.put(fqName, element);
+    }
+    if (alias != null) {
+      final FullQualifiedName aliasName = new FullQualifiedName(alias, name);
+      if (!map.containsKey(aliasName)) {
+        map.put(aliasName, element);
       }
     }
-    return null;
   }
 
   @Override
-  public Association getAssociation(final FullQualifiedName edmFQName) throws ODataException {
-    for (Schema schema : dataServices.getSchemas()) {
-      if (schema.getNamespace().equals(edmFQName.getNamespace())) {
-        for (Association association : schema.getAssociations()) {
-          if (association.getName().equals(edmFQName.getName())) {
-            return association;
-          }
-        }
-      }
+  public EntityContainerInfo getEntityContainerInfo(final String name) throws ODataException {
+    if (name == null) {
+      return defaultContainer;
     }
-    return null;
+    final ContainerIndex index = containers.get(name);
+    return index == null ? null : index.container;
+  }
+
+  @Override
+  public EntityType getEntityType(final FullQualifiedName edmFQName) throws ODataException {
+    return entityTypes.get(edmFQName);
+  }
+
+  @Override
+  public ComplexType getComplexType(final FullQualifiedName edmFQName) throws ODataException {
+    return complexTypes.get(edmFQName);
+  }
+
+  @Override
+  public Association getAssociation(final FullQualifiedName edmFQName) throws ODataException {
+    return associations.get(edmFQName);
   }
 
   @Override
   public EntitySet getEntitySet(final String entityContainer, final String name) throws ODataException {
-    for (Schema schema : dataServices.getSchemas()) {
-      for (EntityContainer container : schema.getEntityContainers()) {
-        if (container.getName().equals(entityContainer)) {
-          for (EntitySet entitySet : container.getEntitySets()) {
-            if (entitySet.getName().equals(name)) {
-              return entitySet;
-            }
-          }
-        }
-      }
-    }
-    return null;
+    final ContainerIndex index = containers.get(entityContainer);
+    return index == null ? null : index.entitySets.get(name);
   }
 
   @Override
   public AssociationSet getAssociationSet(final String entityContainer, final FullQualifiedName association,
       final String sourceEntitySetName, final String sourceEntitySetRole) throws ODataException {
-    for (Schema schema : dataServices.getSchemas()) {
-      for (EntityContainer container : schema.getEntityContainers()) {
-        if (container.getName().equals(entityContainer)) {
-          for (AssociationSet associationSet : container.getAssociationSets()) {
-            if (associationSet.getAssociation().equals(association)
-                && ((associationSet.getEnd1().getEntitySet().equals(sourceEntitySetName) && associationSet.getEnd1()
-                    .getRole().equals(sourceEntitySetRole))
-                || (associationSet.getEnd2().getEntitySet().equals(sourceEntitySetName) && associationSet.getEnd2()
-                    .getRole().equals(sourceEntitySetRole)))) {
-              return associationSet;
-            }
-          }
-        }
-      }
-    }
-    return null;
+    final ContainerIndex index = containers.get(entityContainer);
+    return index == null ? null
+        : index.associationSets.get(ContainerIndex.getAssociationSetKey(association, sourceEntitySetName,
+            sourceEntitySetRole));
   }
 
   @Override
   public FunctionImport getFunctionImport(final String entityContainer, final String name) throws ODataException {
-    for (Schema schema : dataServices.getSchemas()) {
-      for (EntityContainer container : schema.getEntityContainers()) {
-        if (container.getName().equals(entityContainer)) {
-          for (FunctionImport function : container.getFunctionImports()) {
-            if (function.getName().equals(name)) {
-              return function;
-            }
-          }
-        }
-      }
-    }
-    return null;
+    final ContainerIndex index = containers.get(entityContainer);
+    return index == null ? null : index.functionImports.get(name);
   }
 
   @Override
@@ -176,13 +261,90 @@ public class EdmxProvider extends EdmProvider {
 
   @Override
   public List<AliasInfo> getAliasInfos() {
-    List<AliasInfo> aliasInfos = new ArrayList<AliasInfo>();
-    for (Schema schema : dataServices.getSchemas()) {
-      if (schema.getAlias() != null) {
-        aliasInfos.add(new AliasInfo().setAlias(schema.getAlias()).setNamespace(schema.getNamespace()));
+    return new ArrayList<AliasInfo>(aliasInfos);
+  }
+
+  /**
+   * Object input stream that only resolves the classes metadata snapshots consist of,
+   * so that a manipulated snapshot cannot instantiate any other serializable class.
+   */
+  private static class SnapshotInputStream extends ObjectInputStream {
+
+    public SnapshotInputStream(final InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+      if (!isAllowed(desc.getName())) {
+        throw new InvalidClassException(desc.getName(), "Class not allowed in metadata snapshot.");
+      }
+      return super.resolveClass(desc);
+    }
+
+    @Override
+    protected Class<?> resolveProxyClass(final String[] interfaces) throws IOException, ClassNotFoundException {
+      throw new InvalidClassException("Proxy classes not allowed in metadata snapshot.");
+    }
+
+    private static boolean isAllowed(final String name) {
+      if (name.startsWith("[")) {
+        // arrays of primitives or of allowed classes
+        final String component = name.substring(name.lastIndexOf('[') + 1);
+        return component.length() == 1
+            || component.startsWith("L") && component.endsWith(";")
+            && isAllowed(component.substring(1, component.length() - 1));
+      }
+      return name.startsWith(PROVIDER_PACKAGE) && name.indexOf('.', PROVIDER_PACKAGE.length()) < 0
+          || name.startsWith(EDM_PACKAGE) && name.indexOf('.', EDM_PACKAGE.length()) < 0
+          || SNAPSHOT_JDK_CLASSES.contains(name);
+    }
+  }
+
+  /**
+   * Index of the elements of one entity container.
+   */
+  private static class ContainerIndex {
+
+    private final EntityContainer container;
+    private final Map<String, EntitySet> entitySets = new HashMap<String, EntitySet>();
+    private final Map<String, FunctionImport> functionImports = new HashMap<String, FunctionImport>();
+    private final Map<String, AssociationSet> associationSets = new HashMap<String, AssociationSet>();
+
+    public ContainerIndex(final EntityContainer container) {
+      this.container = container;
+      if (container.getEntitySets() != null) {
+        for (EntitySet entitySet : container.getEntitySets()) {
+          if (!entitySets.containsKey(entitySet.getName())) {
+            entitySets.put(entitySet.getName(), entitySet);
+          }
+        }
+      }
+      if (container.getFunctionImports() != null) {
+        for (FunctionImport functionImport : container.getFunctionImports()) {
+          if (!functionImports.containsKey(functionImport.getName())) {
+            functionImports.put(functionImport.getName(), functionImport);
+          }
+        }
+      }
+      if (container.getAssociationSets() != null) {
+        for (AssociationSet associationSet : container.getAssociationSets()) {
+          putAssociationSet(associationSet, associationSet.getEnd1());
+          putAssociationSet(associationSet, associationSet.getEnd2());
+        }
+      }
+    }
+
+    private void putAssociationSet(final AssociationSet associationSet, final AssociationSetEnd end) {
+      final String key = getAssociationSetKey(associationSet.getAssociation(), end.getEntitySet(), end.getRole());
+      if (!associationSets.containsKey(key)) {
+        associationSets.put(key, associationSet);
       }
     }
 
-    return aliasInfos;
+    private static String getAssociationSetKey(final FullQualifiedName association, final String entitySetName,
+        final String role) {
+      return association + ">>" + entitySetName + ">>" + role;
+    }
   }
 }
@@ -18,9 +18,12 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.ep;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -57,6 +60,7 @@ import org.apache.olingo.odata2.core.ep.aggregator.EntityPropertyInfo;
 import org.apache.olingo.odata2.core.ep.consumer.AtomServiceDocumentConsumer;
 import org.apache.olingo.odata2.core.ep.consumer.XmlEntityConsumer;
 import org.apache.olingo.odata2.core.ep.consumer.XmlErrorDocumentConsumer;
+import org.apache.olingo.odata2.core.ep.producer.ErrorDocumentTemplate;
 import org.apache.olingo.odata2.core.ep.producer.AtomEntryEntityProducer;
 import org.apache.olingo.odata2.core.ep.producer.AtomFeedProducer;
 import org.apache.olingo.odata2.core.ep.producer.AtomServiceDocumentProducer;
@@ -66,6 +70,7 @@ import org.apache.olingo.odata2.core.ep.producer.XmlLinkEntityProducer;
 import org.apache.olingo.odata2.core.ep.producer.XmlLinksEntityProducer;
 import org.apache.olingo.odata2.core.ep.producer.XmlPropertyEntityProducer;
 import org.apache.olingo.odata2.core.ep.util.CircleStreamBuffer;
+import org.apache.olingo.odata2.core.ep.util.IncrementalInputStream;
 import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 
 /**
@@ -107,6 +112,15 @@ public class AtomEntityProvider implements ContentTypeBasedEntityProvider {
   @Override
   public ODataResponse writeErrorDocument(final HttpStatusCodes status, final String errorCode, final String message,
       final Locale locale, final String innerError) {
+    if (message != null && innerError == null) {
+      final ErrorDocumentTemplate template = ErrorDocumentTemplate.getXmlTemplate(errorCode, locale);
+      if (template != null) {
+        return ODataResponse.status(status)
+            .entity(new ByteArrayInputStream(template.render(message)))
+            .header(ODataHttpHeaders.DATASERVICEVERSION, ODataServiceVersion.V10)
+            .build();
+      }
+    }
     CircleStreamBuffer csb = new CircleStreamBuffer();
 
     try {
@@ -225,6 +239,14 @@ public class AtomEntityProvider implements ContentTypeBasedEntityProvider {
   @Override
   public ODataResponse writeFeed(final EdmEntitySet entitySet, final List<Map<String, Object>> data,
       final EntityProviderWriteProperties properties) throws EntityProviderException {
+    if (properties.isStreamFeed()) {
+      try {
+        return ODataResponse.entity(new FeedInputStream(entitySet, data, properties)).build();
+      } catch (XMLStreamException e) {
+        throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass()
+            .getSimpleName()), e);
+      }
+    }
     CircleStreamBuffer csb = new CircleStreamBuffer();
 
     try {
@@ -427,4 +449,50 @@ public class AtomEntityProvider implements ContentTypeBasedEntityProvider {
           .addContent(e.getClass().getSimpleName()), e);
     }
   }
+
+  /**
+   * Feed which is written entry by entry while it is read.
+   */
+  private static class FeedInputStream extends IncrementalInputStream {
+
+    private final List<Map<String, Object>> data;
+    private final EntityInfoAggregator eia;
+    private final AtomFeedProducer producer;
+    private final XMLStreamWriter writer;
+    private Iterator<Map<String, Object>> entries;
+
+    public FeedInputStream(final EdmEntitySet entitySet, final List<Map<String, Object>> data,
+        final EntityProviderWriteProperties properties) throws EntityProviderException, XMLStreamException {
+      this.data = data;
+      eia = EntityInfoAggregator.create(entitySet, properties.getExpandSelectTree());
+      producer = new AtomFeedProducer(properties);
+      writer = XMLOutputFactory.newInstance().createXMLStreamWriter(getOutputStream(), DEFAULT_CHARSET);
+    }
+
+    @Override
+    protected boolean writeNext() throws IOException {
+      try {
+        boolean more = true;
+        if (entries == null) {
+          writer.writeStartDocument(DEFAULT_CHARSET, XML_VERSION);
+          producer.appendStart(writer, eia, false);
+          entries = data.iterator();
+        } else if (entries.hasNext()) {
+          producer.appendEntry(writer, eia, entries.next());
+        } else {
+          producer.appendEnd(writer, eia, false);
+          writer.writeEndDocument();
+          more = false;
+        }
+        writer.flush();
+        return more;
+      } catch (EntityProviderException e) {
+        throw new IOException(e.getMessage(), e);
+      } catch (XMLStreamException e) {
+        throw new IOException(e.getMessage(), e);
+      } catch (RuntimeException e) {
+        throw new IOException(e.getMessage(), e);
+      }
+    }
+  }
 }
@@ -172,6 +172,9 @@ public class BasicEntityProvider {
             }
           }
         }
+        if (binary instanceof InputStream) {
+          return writeBinaryStream(contentType, (InputStream) binary);
+        }
         return writeBinary(contentType, (byte[]) binary);
 
       } else {
@@ -225,6 +228,26 @@ public class BasicEntityProvider {
     return builder.build();
   }
 
+  /**
+   * Write binary content with content type header set to given <code>mime type</code> parameter.
+   * The stream is not buffered but used as entity of the response.
+   * @param mimeType MIME type which is written and used as content type header information
+   * @param data stream which is written to {@link ODataResponse}
+   * @return resulting {@link ODataResponse} with binary content
+   * @throws EntityProviderException
+   */
+  public ODataResponse writeBinaryStream(final String mimeType, final InputStream data)
+      throws EntityProviderException {
+    ODataResponseBuilder builder = ODataResponse.newBuilder();
+    if (data != null) {
+      builder.contentHeader(mimeType);
+      builder.entity(data);
+    } else {
+      builder.status(HttpStatusCodes.NO_CONTENT);
+    }
+    return builder.build();
+  }
+
   /**
    * Writes the metadata in XML format. Predefined namespaces is of type Map{@literal <}prefix,namespace{@literal >} and
    * may be null or an empty Map.
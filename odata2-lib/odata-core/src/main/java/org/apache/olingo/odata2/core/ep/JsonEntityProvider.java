@@ -19,9 +19,14 @@
 package org.apache.olingo.odata2.core.ep;
 
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -52,6 +57,7 @@ import org.apache.olingo.odata2.core.ep.aggregator.EntityPropertyInfo;
 import org.apache.olingo.odata2.core.ep.consumer.JsonEntityConsumer;
 import org.apache.olingo.odata2.core.ep.consumer.JsonErrorDocumentConsumer;
 import org.apache.olingo.odata2.core.ep.consumer.JsonServiceDocumentConsumer;
+import org.apache.olingo.odata2.core.ep.producer.ErrorDocumentTemplate;
 import org.apache.olingo.odata2.core.ep.producer.JsonCollectionEntityProducer;
 import org.apache.olingo.odata2.core.ep.producer.JsonEntryEntityProducer;
 import org.apache.olingo.odata2.core.ep.producer.JsonErrorDocumentProducer;
@@ -61,6 +67,7 @@ import org.apache.olingo.odata2.core.ep.producer.JsonLinksEntityProducer;
 import org.apache.olingo.odata2.core.ep.producer.JsonPropertyEntityProducer;
 import org.apache.olingo.odata2.core.ep.producer.JsonServiceDocumentProducer;
 import org.apache.olingo.odata2.core.ep.util.CircleStreamBuffer;
+import org.apache.olingo.odata2.core.ep.util.IncrementalInputStream;
 import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 
 /**
@@ -85,6 +92,15 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
   @Override
   public ODataResponse writeErrorDocument(final HttpStatusCodes status, final String errorCode, final String message,
       final Locale locale, final String innerError) {
+    if (message != null && innerError == null) {
+      final ErrorDocumentTemplate template = ErrorDocumentTemplate.getJsonTemplate(errorCode, locale);
+      if (template != null) {
+        return ODataResponse.status(status)
+            .entity(new ByteArrayInputStream(template.render(message)))
+            .header(ODataHttpHeaders.DATASERVICEVERSION, ODataServiceVersion.V10)
+            .build();
+      }
+    }
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
@@ -189,6 +205,9 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
   public ODataResponse writeFeed(final EdmEntitySet entitySet, final List<Map<String, Object>> data,
       final EntityProviderWriteProperties properties) throws EntityProviderException {
     final EntityInfoAggregator entityInfo = EntityInfoAggregator.create(entitySet, properties.getExpandSelectTree());
+    if (properties.isStreamFeed()) {
+      return ODataResponse.entity(new FeedInputStream(entityInfo, data, properties)).build();
+    }
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
@@ -365,4 +384,51 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
   public ODataErrorContext readErrorDocument(final InputStream errorDocument) throws EntityProviderException {
     return new JsonErrorDocumentConsumer().readError(errorDocument);
   }
+
+  /**
+   * Feed which is written entry by entry while it is read.
+   */
+  private static class FeedInputStream extends IncrementalInputStream {
+
+    private final List<Map<String, Object>> data;
+    private final EntityInfoAggregator entityInfo;
+    private final JsonFeedEntityProducer producer;
+    private final Writer writer;
+    private Iterator<Map<String, Object>> entries;
+
+    public FeedInputStream(final EntityInfoAggregator entityInfo, final List<Map<String, Object>> data,
+        final EntityProviderWriteProperties properties) throws EntityProviderException {
+      this.data = data;
+      this.entityInfo = entityInfo;
+      producer = new JsonFeedEntityProducer(properties);
+      try {
+        writer = new BufferedWriter(new OutputStreamWriter(getOutputStream(), DEFAULT_CHARSET));
+      } catch (UnsupportedEncodingException e) {
+        throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass()
+            .getSimpleName()), e);
+      }
+    }
+
+    @Override
+    protected boolean writeNext() throws IOException {
+      try {
+        boolean more = true;
+        if (entries == null) {
+          producer.appendStart(writer, true);
+          entries = data.iterator();
+        } else if (entries.hasNext()) {
+          producer.appendEntry(writer, entityInfo, entries.next());
+        } else {
+          producer.appendEnd(writer, entityInfo, true);
+          more = false;
+        }
+        writer.flush();
+        return more;
+      } catch (EntityProviderException e) {
+        throw new IOException(e.getMessage(), e);
+      } catch (RuntimeException e) {
+        throw new IOException(e.getMessage(), e);
+      }
+    }
+  }
 }
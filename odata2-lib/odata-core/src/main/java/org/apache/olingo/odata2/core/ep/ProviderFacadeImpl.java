@@ -115,6 +115,12 @@ public class ProviderFacadeImpl implements EntityProviderInterface {
     return create().writeBinary(mimeType, data);
   }
 
+  @Override
+  public ODataResponse writeBinaryStream(final String mimeType, final InputStream data)
+      throws EntityProviderException {
+    return create().writeBinaryStream(mimeType, data);
+  }
+
   @Override
   public ODataResponse writeFeed(final String contentType, final EdmEntitySet entitySet,
       final List<Map<String, Object>> data, final EntityProviderWriteProperties properties)
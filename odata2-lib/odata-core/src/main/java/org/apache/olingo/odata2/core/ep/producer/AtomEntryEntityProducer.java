@@ -70,9 +70,16 @@ public class AtomEntryEntityProducer {
   private String etag;
   private String location;
   private final EntityProviderWriteProperties properties;
+  private final InlineEntityInfoCache inlineEntityInfos;
 
   public AtomEntryEntityProducer(final EntityProviderWriteProperties properties) throws EntityProviderException {
+    this(properties, new InlineEntityInfoCache());
+  }
+
+  AtomEntryEntityProducer(final EntityProviderWriteProperties properties,
+      final InlineEntityInfoCache inlineEntityInfos) {
     this.properties = properties == null ? EntityProviderWriteProperties.serviceRoot(null).build() : properties;
+    this.inlineEntityInfos = inlineEntityInfos;
   }
 
   public void append(final XMLStreamWriter writer, final EntityInfoAggregator eia, final Map<String, Object> data,
@@ -283,9 +290,8 @@ public class AtomEntryEntityProducer {
 
         EntityProviderWriteProperties inlineProperties = result.getInlineProperties();
         EdmEntitySet inlineEntitySet = eia.getEntitySet().getRelatedEntitySet(navProp);
-        AtomFeedProducer inlineFeedProducer = new AtomFeedProducer(inlineProperties);
-        EntityInfoAggregator inlineEia =
-            EntityInfoAggregator.create(inlineEntitySet, inlineProperties.getExpandSelectTree());
+        AtomFeedProducer inlineFeedProducer = new AtomFeedProducer(inlineProperties, inlineEntityInfos);
+        EntityInfoAggregator inlineEia = inlineEntityInfos.get(inlineEntitySet, inlineProperties.getExpandSelectTree());
         inlineFeedProducer.append(writer, inlineEia, inlineData, true);
 
         writer.writeEndElement();
@@ -323,9 +329,9 @@ public class AtomEntryEntityProducer {
         if (inlineData != null && !inlineData.isEmpty()) {
           EntityProviderWriteProperties inlineProperties = result.getInlineProperties();
           EdmEntitySet inlineEntitySet = eia.getEntitySet().getRelatedEntitySet(navProp);
-          AtomEntryEntityProducer inlineProducer = new AtomEntryEntityProducer(inlineProperties);
+          AtomEntryEntityProducer inlineProducer = new AtomEntryEntityProducer(inlineProperties, inlineEntityInfos);
           EntityInfoAggregator inlineEia =
-              EntityInfoAggregator.create(inlineEntitySet, inlineProperties.getExpandSelectTree());
+              inlineEntityInfos.get(inlineEntitySet, inlineProperties.getExpandSelectTree());
           inlineProducer.append(writer, inlineEia, inlineData, false, false);
         }
 
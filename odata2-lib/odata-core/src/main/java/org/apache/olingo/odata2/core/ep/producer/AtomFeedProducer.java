@@ -47,22 +47,40 @@ import org.apache.olingo.odata2.core.ep.util.FormatXml;
 public class AtomFeedProducer {
 
   private final EntityProviderWriteProperties properties;
+  private final InlineEntityInfoCache inlineEntityInfos;
+  private AtomEntryEntityProducer entryProducer;
 
   public AtomFeedProducer(final EntityProviderWriteProperties properties) {
+    this(properties, new InlineEntityInfoCache());
+  }
+
+  AtomFeedProducer(final EntityProviderWriteProperties properties, final InlineEntityInfoCache inlineEntityInfos) {
     this.properties = properties == null ? EntityProviderWriteProperties.serviceRoot(null).build() : properties;
+    this.inlineEntityInfos = inlineEntityInfos;
   }
 
   public void append(final XMLStreamWriter writer, final EntityInfoAggregator eia,
       final List<Map<String, Object>> data, final boolean isInline) throws EntityProviderException {
+    appendStart(writer, eia, isInline);
+    for (Map<String, Object> singleEntryData : data) {
+      appendEntry(writer, eia, singleEntryData);
+    }
+    appendEnd(writer, eia, isInline);
+  }
+
+  /**
+   * Writes the start of the feed up to the first entry.
+   */
+  public void appendStart(final XMLStreamWriter writer, final EntityInfoAggregator eia, final boolean isInline)
+      throws EntityProviderException {
+    entryProducer = null;
     try {
       writer.writeStartElement(FormatXml.ATOM_FEED);
-      TombstoneCallback callback = null;
       if (!isInline) {
         writer.writeDefaultNamespace(Edm.NAMESPACE_ATOM_2005);
         writer.writeNamespace(Edm.PREFIX_M, Edm.NAMESPACE_M_2007_08);
         writer.writeNamespace(Edm.PREFIX_D, Edm.NAMESPACE_D_2007_08);
-        callback = getTombstoneCallback();
-        if (callback != null) {
+        if (getTombstoneCallback() != null) {
           writer.writeNamespace(TombstoneCallback.PREFIX_TOMBSTONE, TombstoneCallback.NAMESPACE_TOMBSTONE);
         }
       }
@@ -75,9 +93,29 @@ public class AtomFeedProducer {
       if (properties.getInlineCountType() == InlineCount.ALLPAGES) {
         appendInlineCount(writer, properties.getInlineCount());
       }
+    } catch (XMLStreamException e) {
+      throw new EntityProviderException(EntityProviderException.COMMON, e);
+    }
+  }
 
-      appendEntries(writer, eia, data);
+  /**
+   * Writes one entry of the feed.
+   */
+  public void appendEntry(final XMLStreamWriter writer, final EntityInfoAggregator eia,
+      final Map<String, Object> entryData) throws EntityProviderException {
+    if (entryProducer == null) {
+      entryProducer = new AtomEntryEntityProducer(properties, inlineEntityInfos);
+    }
+    entryProducer.append(writer, eia, entryData, false, true);
+  }
 
+  /**
+   * Writes the end of the feed after the last entry.
+   */
+  public void appendEnd(final XMLStreamWriter writer, final EntityInfoAggregator eia, final boolean isInline)
+      throws EntityProviderException {
+    try {
+      final TombstoneCallback callback = isInline ? null : getTombstoneCallback();
       if (callback != null) {
         appendDeletedEntries(writer, eia, callback);
       }
@@ -136,14 +174,6 @@ public class AtomFeedProducer {
     }
   }
 
-  private void appendEntries(final XMLStreamWriter writer, final EntityInfoAggregator eia,
-      final List<Map<String, Object>> data) throws EntityProviderException {
-    AtomEntryEntityProducer entryProvider = new AtomEntryEntityProducer(properties);
-    for (Map<String, Object> singleEntryData : data) {
-      entryProvider.append(writer, eia, singleEntryData, false, true);
-    }
-  }
-
   private void appendInlineCount(final XMLStreamWriter writer, final Integer inlineCount)
       throws EntityProviderException {
     if (inlineCount == null || inlineCount < 0) {
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.ep.producer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.olingo.odata2.core.ep.util.JsonStreamWriter;
+
+/**
+ * Pre-rendered error document without inner error.
+ * <p>The document is written once per format, error code and locale by the
+ * {@link XmlErrorDocumentProducer} or the {@link JsonErrorDocumentProducer} and kept
+ * as bytes before and after the message; rendering an error then only has to escape
+ * and encode the message itself.</p>
+ * <p>At most {@value #MAX_TEMPLATES} templates are kept per format; further
+ * combinations are not cached and must be written by the producers.</p>
+ */
+public final class ErrorDocumentTemplate {
+
+  static final int MAX_TEMPLATES = 256;
+
+  private static final String CHARSET = "UTF-8";
+  private static final String MESSAGE_MARKER = "__OLINGO_ERROR_MESSAGE__";
+  private static final String NULL_KEY = "\u0000";
+
+  private static final ConcurrentMap<String, ErrorDocumentTemplate> XML_TEMPLATES =
+      new ConcurrentHashMap<String, ErrorDocumentTemplate>();
+  private static final ConcurrentMap<String, ErrorDocumentTemplate> JSON_TEMPLATES =
+      new ConcurrentHashMap<String, ErrorDocumentTemplate>();
+
+  private final boolean json;
+  private final byte[] prefix;
+  private final byte[] suffix;
+
+  private ErrorDocumentTemplate(final boolean json, final byte[] document, final byte[] marker) {
+    this.json = json;
+    final int index = indexOf(document, marker);
+    prefix = new byte[index];
+    System.arraycopy(document, 0, prefix, 0, index);
+    suffix = new byte[document.length - index - marker.length];
+    System.arraycopy(document, index + marker.length, suffix, 0, suffix.length);
+  }
+
+  /**
+   * Gets the template of an XML error document.
+   * @param errorCode the error code or <code>null</code>
+   * @param locale the locale of the message or <code>null</code>
+   * @return the template or <code>null</code> if the combination can not be cached
+   */
+  public static ErrorDocumentTemplate getXmlTemplate(final String errorCode, final Locale locale) {
+    return getTemplate(XML_TEMPLATES, false, errorCode, locale);
+  }
+
+  /**
+   * Gets the template of a JSON error document.
+   * @param errorCode the error code or <code>null</code>
+   * @param locale the locale of the message or <code>null</code>
+   * @return the template or <code>null</code> if the combination can not be cached
+   */
+  public static ErrorDocumentTemplate getJsonTemplate(final String errorCode, final Locale locale) {
+    return getTemplate(JSON_TEMPLATES, true, errorCode, locale);
+  }
+
+  /**
+   * Renders the error document for the given message.
+   * @param message the message, must not be <code>null</code>
+   * @return the UTF-8 encoded document
+   */
+  public byte[] render(final String message) {
+    try {
+      final byte[] content = (json ? escapeJson(message) : escapeXml(message)).getBytes(CHARSET);
+      byte[] document = new byte[prefix.length + content.length + suffix.length];
+      System.arraycopy(prefix, 0, document, 0, prefix.length);
+      System.arraycopy(content, 0, document, prefix.length, content.length);
+      System.arraycopy(suffix, 0, document, prefix.length + content.length, suffix.length);
+      return document;
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static ErrorDocumentTemplate getTemplate(final ConcurrentMap<String, ErrorDocumentTemplate> templates,
+      final boolean json, final String errorCode, final Locale locale) {
+    if (errorCode != null && errorCode.contains(MESSAGE_MARKER)) {
+      return null;
+    }
+    final String key = (errorCode == null ? NULL_KEY : errorCode) + NULL_KEY
+        + (locale == null ? NULL_KEY : locale.toString());
+    ErrorDocumentTemplate template = templates.get(key);
+    if (template == null) {
+      if (templates.size() >= MAX_TEMPLATES) {
+        return null;
+      }
+      try {
+        template = json ? createJsonTemplate(errorCode, locale) : createXmlTemplate(errorCode, locale);
+      } catch (Exception e) {
+        return null;
+      }
+      ErrorDocumentTemplate existing = templates.putIfAbsent(key, template);
+      if (existing != null) {
+        template = existing;
+      }
+    }
+    return template;
+  }
+
+  private static ErrorDocumentTemplate createXmlTemplate(final String errorCode, final Locale locale)
+      throws XMLStreamException, IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, CHARSET);
+    new XmlErrorDocumentProducer().writeErrorDocument(writer, errorCode, MESSAGE_MARKER, locale, null);
+    writer.flush();
+    writer.close();
+    return new ErrorDocumentTemplate(false, out.toByteArray(), MESSAGE_MARKER.getBytes(CHARSET));
+  }
+
+  private static ErrorDocumentTemplate createJsonTemplate(final String errorCode, final Locale locale)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Writer writer = new OutputStreamWriter(out, CHARSET);
+    new JsonErrorDocumentProducer().writeErrorDocument(writer, errorCode, MESSAGE_MARKER, locale, null);
+    writer.flush();
+    return new ErrorDocumentTemplate(true, out.toByteArray(), ('"' + MESSAGE_MARKER + '"').getBytes(CHARSET));
+  }
+
+  private static int indexOf(final byte[] document, final byte[] marker) {
+    for (int i = 0; i <= document.length - marker.length; i++) {
+      int j = 0;
+      while (j < marker.length && document[i + j] == marker[j]) {
+        j++;
+      }
+      if (j == marker.length) {
+        return i;
+      }
+    }
+    throw new IllegalStateException("Message marker not found in error document.");
+  }
+
+  private static String escapeJson(final String message) throws IOException {
+    StringWriter writer = new StringWriter(message.length() + 2);
+    new JsonStreamWriter(writer).stringValue(message);
+    return writer.toString();
+  }
+
+  private static String escapeXml(final String message) {
+    StringBuilder builder = null;
+    for (int i = 0; i < message.length(); i++) {
+      final char c = message.charAt(i);
+      final String replacement = c == '<' ? "&lt;" : c == '>' ? "&gt;" : c == '&' ? "&amp;" : null;
+      if (replacement != null) {
+        if (builder == null) {
+          builder = new StringBuilder(message.length() + 16).append(message, 0, i);
+        }
+        builder.append(replacement);
+      } else if (builder != null) {
+        builder.append(c);
+      }
+    }
+    return builder == null ? message : builder.toString();
+  }
+}
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.ep.producer;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.ep.EntityProviderException;
+import org.apache.olingo.odata2.api.uri.ExpandSelectTreeNode;
+import org.apache.olingo.odata2.core.ep.aggregator.EntityInfoAggregator;
+
+/**
+ * Entity information of inline entity sets for one write operation.
+ * The producers of all inline feeds and entries share it, so that the entity information
+ * of an expanded navigation is aggregated once and not again for every parent entry.
+ * The entries are identified by the entity set and the expand/select node.
+ * Not thread-safe; a write operation runs on one thread.
+ */
+class InlineEntityInfoCache {
+
+  private final Map<EdmEntitySet, Map<ExpandSelectTreeNode, EntityInfoAggregator>> entityInfos =
+      new IdentityHashMap<EdmEntitySet, Map<ExpandSelectTreeNode, EntityInfoAggregator>>();
+
+  public EntityInfoAggregator get(final EdmEntitySet entitySet, final ExpandSelectTreeNode expandSelectTree)
+      throws EntityProviderException {
+    Map<ExpandSelectTreeNode, EntityInfoAggregator> nodeInfos = entityInfos.get(entitySet);
+    if (nodeInfos == null) {
+      nodeInfos = new IdentityHashMap<ExpandSelectTreeNode, EntityInfoAggregator>();
+      entityInfos.put(entitySet, nodeInfos);
+    }
+    EntityInfoAggregator entityInfo = nodeInfos.get(expandSelectTree);
+    if (entityInfo == null) {
+      entityInfo = EntityInfoAggregator.create(entitySet, expandSelectTree);
+      nodeInfos.put(expandSelectTree, entityInfo);
+    }
+    return entityInfo;
+  }
+}
@@ -60,9 +60,16 @@ public class JsonEntryEntityProducer {
   private String eTag;
   private String location;
   private JsonStreamWriter jsonStreamWriter;
+  private final InlineEntityInfoCache inlineEntityInfos;
 
   public JsonEntryEntityProducer(final EntityProviderWriteProperties properties) throws EntityProviderException {
+    this(properties, new InlineEntityInfoCache());
+  }
+
+  JsonEntryEntityProducer(final EntityProviderWriteProperties properties,
+      final InlineEntityInfoCache inlineEntityInfos) {
     this.properties = properties == null ? EntityProviderWriteProperties.serviceRoot(null).build() : properties;
+    this.inlineEntityInfos = inlineEntityInfos;
   }
 
   public void append(final Writer writer, final EntityInfoAggregator entityInfo, final Map<String, Object> data,
@@ -156,8 +163,9 @@ public class JsonEntryEntityProducer {
         }
         final EntityProviderWriteProperties inlineProperties = result.getInlineProperties();
         final EntityInfoAggregator inlineEntityInfo =
-            EntityInfoAggregator.create(inlineEntitySet, inlineProperties.getExpandSelectTree());
-        new JsonFeedEntityProducer(inlineProperties).append(writer, inlineEntityInfo, inlineData, false);
+            inlineEntityInfos.get(inlineEntitySet, inlineProperties.getExpandSelectTree());
+        new JsonFeedEntityProducer(inlineProperties, inlineEntityInfos).append(writer, inlineEntityInfo, inlineData,
+            false);
 
       } else {
         final WriteEntryCallbackResult result =
@@ -166,8 +174,9 @@ public class JsonEntryEntityProducer {
         if (inlineData != null && !inlineData.isEmpty()) {
           final EntityProviderWriteProperties inlineProperties = result.getInlineProperties();
           final EntityInfoAggregator inlineEntityInfo =
-              EntityInfoAggregator.create(inlineEntitySet, inlineProperties.getExpandSelectTree());
-          new JsonEntryEntityProducer(inlineProperties).append(writer, inlineEntityInfo, inlineData, false);
+              inlineEntityInfos.get(inlineEntitySet, inlineProperties.getExpandSelectTree());
+          new JsonEntryEntityProducer(inlineProperties, inlineEntityInfos).append(writer, inlineEntityInfo,
+              inlineData, false);
         } else {
           jsonStreamWriter.unquotedValue("null");
         }
@@ -39,16 +39,36 @@ import org.apache.olingo.odata2.core.ep.util.JsonStreamWriter;
 public class JsonFeedEntityProducer {
 
   private final EntityProviderWriteProperties properties;
+  private final InlineEntityInfoCache inlineEntityInfos;
+  private JsonEntryEntityProducer entryProducer;
+  private boolean firstEntry;
 
   public JsonFeedEntityProducer(final EntityProviderWriteProperties properties) throws EntityProviderException {
+    this(properties, new InlineEntityInfoCache());
+  }
+
+  JsonFeedEntityProducer(final EntityProviderWriteProperties properties,
+      final InlineEntityInfoCache inlineEntityInfos) {
     this.properties = properties == null ? EntityProviderWriteProperties.serviceRoot(null).build() : properties;
+    this.inlineEntityInfos = inlineEntityInfos;
   }
 
   public void append(final Writer writer, final EntityInfoAggregator entityInfo, final List<Map<String, Object>> data,
       final boolean isRootElement) throws EntityProviderException {
-    JsonStreamWriter jsonStreamWriter = new JsonStreamWriter(writer);
+    appendStart(writer, isRootElement);
+    for (final Map<String, Object> entryData : data) {
+      appendEntry(writer, entityInfo, entryData);
+    }
+    appendEnd(writer, entityInfo, isRootElement);
+  }
 
-    TombstoneCallback callback = getTombstoneCallback();
+  /**
+   * Writes the start of the feed up to the first entry.
+   */
+  public void appendStart(final Writer writer, final boolean isRootElement) throws EntityProviderException {
+    JsonStreamWriter jsonStreamWriter = new JsonStreamWriter(writer);
+    entryProducer = new JsonEntryEntityProducer(properties, inlineEntityInfos);
+    firstEntry = true;
 
     try {
       jsonStreamWriter.beginObject();
@@ -65,17 +85,40 @@ public class JsonFeedEntityProducer {
 
       jsonStreamWriter.name(FormatJson.RESULTS)
           .beginArray();
-      JsonEntryEntityProducer entryProducer = new JsonEntryEntityProducer(properties);
-      boolean first = true;
-      for (final Map<String, Object> entryData : data) {
-        if (first) {
-          first = false;
-        } else {
-          jsonStreamWriter.separator();
-        }
-        entryProducer.append(writer, entityInfo, entryData, false);
+    } catch (final IOException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass()
+          .getSimpleName()), e);
+    }
+  }
+
+  /**
+   * Writes one entry of the feed.
+   */
+  public void appendEntry(final Writer writer, final EntityInfoAggregator entityInfo,
+      final Map<String, Object> entryData) throws EntityProviderException {
+    try {
+      if (firstEntry) {
+        firstEntry = false;
+      } else {
+        new JsonStreamWriter(writer).separator();
       }
+    } catch (final IOException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass()
+          .getSimpleName()), e);
+    }
+    entryProducer.append(writer, entityInfo, entryData, false);
+  }
+
+  /**
+   * Writes the end of the feed after the last entry.
+   */
+  public void appendEnd(final Writer writer, final EntityInfoAggregator entityInfo, final boolean isRootElement)
+      throws EntityProviderException {
+    JsonStreamWriter jsonStreamWriter = new JsonStreamWriter(writer);
 
+    TombstoneCallback callback = getTombstoneCallback();
+
+    try {
       if (callback != null) {
         JsonDeletedEntryEntityProducer deletedEntryProducer = new JsonDeletedEntryEntityProducer(properties);
         TombstoneCallbackResult callbackResult = callback.getTombstoneCallbackResult();
@@ -19,6 +19,7 @@
 package org.apache.olingo.odata2.core.ep.producer;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Writer;
 import java.util.Map;
 
@@ -88,6 +89,10 @@ public class JsonPropertyEntityProducer {
     } else {
       final EdmSimpleType type = (EdmSimpleType) propertyInfo.getType();
       final Object contentValue = value instanceof Map ? ((Map<?, ?>) value).get(propertyInfo.getName()) : value;
+      if (contentValue instanceof InputStream && type == EdmSimpleTypeKind.Binary.getEdmSimpleTypeInstance()) {
+        jsonStreamWriter.binaryValue((InputStream) contentValue);
+        return;
+      }
       final String valueAsString = type.valueToString(contentValue, EdmLiteralKind.JSON, propertyInfo.getFacets());
       switch (EdmSimpleTypeKind.valueOf(type.getName())) {
       case String:
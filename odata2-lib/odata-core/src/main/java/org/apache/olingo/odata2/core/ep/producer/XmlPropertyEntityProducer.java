@@ -18,6 +18,7 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.ep.producer;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -29,9 +30,11 @@ import org.apache.olingo.odata2.api.edm.EdmCustomizableFeedMappings;
 import org.apache.olingo.odata2.api.edm.EdmException;
 import org.apache.olingo.odata2.api.edm.EdmLiteralKind;
 import org.apache.olingo.odata2.api.edm.EdmSimpleType;
+import org.apache.olingo.odata2.api.edm.EdmSimpleTypeKind;
 import org.apache.olingo.odata2.api.ep.EntityProviderException;
 import org.apache.olingo.odata2.core.ep.aggregator.EntityComplexPropertyInfo;
 import org.apache.olingo.odata2.core.ep.aggregator.EntityPropertyInfo;
+import org.apache.olingo.odata2.core.ep.util.Base64StreamEncoder;
 import org.apache.olingo.odata2.core.ep.util.FormatXml;
 
 /**
@@ -198,6 +201,10 @@ public class XmlPropertyEntityProducer {
       writer.writeAttribute(Edm.NAMESPACE_M_2007_08, FormatXml.ATOM_TYPE, fqnTypeName);
     }
 
+    if (contentValue instanceof InputStream && type == EdmSimpleTypeKind.Binary.getEdmSimpleTypeInstance()) {
+      Base64StreamEncoder.encode((InputStream) contentValue, writer);
+      return;
+    }
     final String valueAsString = type.valueToString(contentValue, EdmLiteralKind.DEFAULT, prop.getFacets());
     if (valueAsString == null) {
       writer.writeAttribute(Edm.NAMESPACE_M_2007_08, FormatXml.ATOM_NULL, FormatXml.ATOM_VALUE_TRUE);
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.ep.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.codec.binary.Base64InputStream;
+
+/**
+ * Writes the base64 representation of binary content given as stream in chunks,
+ * so that the content is never held completely in memory.
+ * The stream is closed after it has been read.
+ */
+public final class Base64StreamEncoder {
+
+  private static final int BUFFER_SIZE = 4096;
+
+  private Base64StreamEncoder() {}
+
+  /**
+   * Writes the base64-encoded content of the stream to the writer.
+   * @param content the binary content
+   * @param writer the target writer
+   * @throws IOException if the content cannot be read or written
+   */
+  public static void encode(final InputStream content, final Writer writer) throws IOException {
+    final InputStream encoded = new Base64InputStream(content, true, 0, null);
+    try {
+      final byte[] bytes = new byte[BUFFER_SIZE];
+      final char[] chars = new char[BUFFER_SIZE];
+      int count;
+      while ((count = encoded.read(bytes, 0, BUFFER_SIZE)) >= 0) {
+        // base64 output consists of US-ASCII characters only
+        for (int i = 0; i < count; i++) {
+          chars[i] = (char) bytes[i];
+        }
+        writer.write(chars, 0, count);
+      }
+    } finally {
+      encoded.close();
+    }
+  }
+
+  /**
+   * Writes the base64-encoded content of the stream as character data to the XML writer.
+   * @param content the binary content
+   * @param writer the target XML writer
+   * @throws XMLStreamException if the content cannot be read or written
+   */
+  public static void encode(final InputStream content, final XMLStreamWriter writer) throws XMLStreamException {
+    try {
+      encode(content, new Writer() {
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) throws IOException {
+          try {
+            writer.writeCharacters(cbuf, off, len);
+          } catch (final XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+          }
+        }
+
+        @Override
+        public void flush() throws IOException {}
+
+        @Override
+        public void close() throws IOException {}
+      });
+    } catch (final IOException e) {
+      if (e.getCause() instanceof XMLStreamException) {
+        throw (XMLStreamException) e.getCause();
+      }
+      throw new XMLStreamException(e);
+    }
+  }
+}
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.ep.util;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, thread-safe pool of {@link ByteBuffer}s used by {@link CircleStreamBuffer}.
+ * <p>Buffers are pooled in size classes of powers of two from {@value #MIN_CAPACITY} up to
+ * {@value #MAX_CAPACITY} bytes. A request is served with a buffer of the smallest size class
+ * that can hold the requested capacity; larger requests are allocated without pooling.
+ * At most the configured number of buffers is kept per size class; further released
+ * buffers are left to the garbage collector.</p>
+ * <p>A pool hands out either heap or direct buffers. Direct buffers only pay off if the pool
+ * is large enough to keep them, because their allocation is expensive.</p>
+ */
+public class ByteBufferPool {
+
+  /** Capacity of the smallest size class. */
+  public static final int MIN_CAPACITY = 8192;
+  /** Capacity of the largest size class. */
+  public static final int MAX_CAPACITY = MIN_CAPACITY * 32;
+  /** Number of buffers kept per size class in the default pool. */
+  public static final int DEFAULT_BUFFERS_PER_SIZE_CLASS = 32;
+
+  private static final int SIZE_CLASSES = Integer.numberOfTrailingZeros(MAX_CAPACITY / MIN_CAPACITY) + 1;
+
+  private static volatile ByteBufferPool defaultPool = new ByteBufferPool(DEFAULT_BUFFERS_PER_SIZE_CLASS, false);
+
+  private final int maxBuffersPerSizeClass;
+  private final boolean direct;
+  private final Queue<ByteBuffer>[] pooled;
+  private final AtomicInteger[] pooledCount;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Creates a buffer pool.
+   * @param maxBuffersPerSizeClass maximum number of buffers kept per size class;
+   * <code>0</code> disables pooling
+   * @param direct <code>true</code> for direct (off-heap) buffers, <code>false</code> for heap buffers
+   */
+  @SuppressWarnings("unchecked")
+  public ByteBufferPool(final int maxBuffersPerSizeClass, final boolean direct) {
+    if (maxBuffersPerSizeClass < 0) {
+      throw new IllegalArgumentException("Negative number of buffers per size class.");
+    }
+    this.maxBuffersPerSizeClass = maxBuffersPerSizeClass;
+    this.direct = direct;
+    pooled = new Queue[SIZE_CLASSES];
+    pooledCount = new AtomicInteger[SIZE_CLASSES];
+    for (int i = 0; i < SIZE_CLASSES; i++) {
+      pooled[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+      pooledCount[i] = new AtomicInteger();
+    }
+  }
+
+  /**
+   * Gets the pool used by {@link CircleStreamBuffer}s created without explicit pool.
+   * @return the default pool
+   */
+  public static ByteBufferPool getDefault() {
+    return defaultPool;
+  }
+
+  /**
+   * Replaces the pool used by {@link CircleStreamBuffer}s created without explicit pool,
+   * for example by a pool of direct buffers or by a larger pool.
+   * @param pool the new default pool
+   */
+  public static void setDefault(final ByteBufferPool pool) {
+    if (pool == null) {
+      throw new IllegalArgumentException("Buffer pool must not be null.");
+    }
+    defaultPool = pool;
+  }
+
+  /**
+   * Gets a cleared buffer with at least the requested capacity.
+   * @param capacity the minimum capacity
+   * @return the buffer
+   */
+  public ByteBuffer acquire(final int capacity) {
+    final int sizeClass = getSizeClass(capacity);
+    if (sizeClass < 0) {
+      return allocate(capacity);
+    }
+    final ByteBuffer buffer = pooled[sizeClass].poll();
+    if (buffer == null) {
+      misses.incrementAndGet();
+      return allocate(MIN_CAPACITY << sizeClass);
+    }
+    pooledCount[sizeClass].decrementAndGet();
+    hits.incrementAndGet();
+    buffer.clear();
+    return buffer;
+  }
+
+  /**
+   * Returns a buffer to the pool. The buffer must not be used by the caller afterwards.
+   * Buffers which do not fit into a size class of this pool are ignored.
+   * @param buffer the buffer
+   */
+  public void release(final ByteBuffer buffer) {
+    if (buffer == null || buffer.isDirect() != direct || buffer.isReadOnly()) {
+      return;
+    }
+    final int sizeClass = getSizeClass(buffer.capacity());
+    if (sizeClass < 0 || MIN_CAPACITY << sizeClass != buffer.capacity()) {
+      return;
+    }
+    if (pooledCount[sizeClass].incrementAndGet() > maxBuffersPerSizeClass) {
+      pooledCount[sizeClass].decrementAndGet();
+    } else {
+      pooled[sizeClass].offer(buffer);
+    }
+  }
+
+  /**
+   * @return <code>true</code> if the pool hands out direct buffers
+   */
+  public boolean isDirect() {
+    return direct;
+  }
+
+  /**
+   * @return the maximum number of buffers kept per size class
+   */
+  public int getMaxBuffersPerSizeClass() {
+    return maxBuffersPerSizeClass;
+  }
+
+  /**
+   * @return the number of buffers currently held by the pool
+   */
+  public int getPooledBuffers() {
+    int count = 0;
+    for (final AtomicInteger sizeClassCount : pooledCount) {
+      count += sizeClassCount.get();
+    }
+    return count;
+  }
+
+  /**
+   * @return the number of bytes currently held by the pool
+   */
+  public long getPooledBytes() {
+    long bytes = 0;
+    for (int i = 0; i < SIZE_CLASSES; i++) {
+      bytes += (long) pooledCount[i].get() * (MIN_CAPACITY << i);
+    }
+    return bytes;
+  }
+
+  /**
+   * @return the number of requests served with a pooled buffer
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * @return the number of requests within the size classes which needed a new buffer
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  private ByteBuffer allocate(final int capacity) {
+    return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+  }
+
+  /**
+   * @return the index of the smallest size class holding the capacity, or -1 if it is too large
+   */
+  private static int getSizeClass(final int capacity) {
+    if (capacity > MAX_CAPACITY) {
+      return -1;
+    }
+    int sizeClass = 0;
+    while (MIN_CAPACITY << sizeClass < capacity) {
+      sizeClass++;
+    }
+    return sizeClass;
+  }
+}
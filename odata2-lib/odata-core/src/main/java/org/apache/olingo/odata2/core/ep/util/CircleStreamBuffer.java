@@ -28,6 +28,8 @@ import java.util.concurrent.LinkedBlockingQueue;
 /**
  * Circular stream buffer to write/read into/from one single buffer.
  * With support of {@link InputStream} and {@link OutputStream} access to buffered data.
+ * The byte buffers are taken from a {@link ByteBufferPool} and returned to it as soon as
+ * they have been read or the buffer is closed.
  * 
  * 
  */
@@ -35,8 +37,10 @@ public class CircleStreamBuffer {
 
   private static final int NEW_BUFFER_RESIZE_FACTOR = 2;
   private static final int READ_EOF = -1;
-  private static final int DEFAULT_CAPACITY = 8192;
-  private static final int MAX_CAPACITY = DEFAULT_CAPACITY * 32;
+  private static final int DEFAULT_CAPACITY = ByteBufferPool.MIN_CAPACITY;
+  private static final int MAX_CAPACITY = ByteBufferPool.MAX_CAPACITY;
+
+  private final ByteBufferPool pool;
 
   private int currentAllocateCapacity = DEFAULT_CAPACITY;
 
@@ -63,6 +67,18 @@ public class CircleStreamBuffer {
    * @param bufferSize
    */
   public CircleStreamBuffer(final int bufferSize) {
+    this(bufferSize, ByteBufferPool.getDefault());
+  }
+
+  /**
+   * Create a {@link CircleStreamBuffer} with given buffer size in bytes
+   * which takes its byte buffers from the given pool.
+   * 
+   * @param bufferSize
+   * @param pool
+   */
+  public CircleStreamBuffer(final int bufferSize, final ByteBufferPool pool) {
+    this.pool = pool;
     currentAllocateCapacity = bufferSize;
     createNewWriteBuffer();
     inStream = new InternalInputStream(this);
@@ -107,10 +123,11 @@ public class CircleStreamBuffer {
    */
   public void closeRead() {
     readClosed = true;
-    // clear references to byte buffers
+    // return byte buffers to the pool
+    currentWriteBuffer = null;
     ByteBuffer buffer = bufferQueue.poll();
     while (buffer != null) {
-      buffer.clear();
+      pool.release(buffer);
       buffer = bufferQueue.poll();
     }
   }
@@ -125,7 +142,7 @@ public class CircleStreamBuffer {
 
   private int remaining() throws IOException {
     if (writeMode) {
-      return currentWriteBuffer.remaining();
+      return currentWriteBuffer == null ? 0 : currentWriteBuffer.remaining();
     } else {
       ByteBuffer toRead = getReadBuffer();
       if (toRead == null) {
@@ -155,6 +172,11 @@ public class CircleStreamBuffer {
       tmp = bufferQueue.peek();
       if (tmp != null && !tmp.hasRemaining()) {
         tmp = bufferQueue.poll();
+        // a new write buffer is created when writing is resumed
+        if (tmp == currentWriteBuffer) {
+          currentWriteBuffer = null;
+        }
+        pool.release(tmp);
         next = true;
       }
     }
@@ -200,14 +222,27 @@ public class CircleStreamBuffer {
   // #############################################
 
   private void write(final byte[] data, final int off, final int len) throws IOException {
-    ByteBuffer writeBuffer = getWriteBuffer(len);
-    writeBuffer.put(data, off, len);
+    // data larger than the largest buffer is split
+    int written = 0;
+    do {
+      final int chunk = Math.min(len - written, MAX_CAPACITY);
+      ByteBuffer writeBuffer = getWriteBuffer(chunk);
+      if (writeBuffer == null) {
+        return;
+      }
+      writeBuffer.put(data, off + written, chunk);
+      written += chunk;
+    } while (written < len);
   }
 
   private ByteBuffer getWriteBuffer(final int size) throws IOException {
     if (writeClosed) {
       throw new IOException("Tried to write into closed stream.");
     }
+    if (readClosed) {
+      // the data can never be read out
+      return null;
+    }
 
     if (writeMode) {
       if (remaining() < size) {
@@ -223,7 +258,9 @@ public class CircleStreamBuffer {
 
   private void write(final int b) throws IOException {
     ByteBuffer writeBuffer = getWriteBuffer(1);
-    writeBuffer.put((byte) b);
+    if (writeBuffer != null) {
+      writeBuffer.put((byte) b);
+    }
   }
 
   private void createNewWriteBuffer() {
@@ -258,7 +295,7 @@ public class CircleStreamBuffer {
     }
     // update current
     currentAllocateCapacity = allocateCapacity;
-    return ByteBuffer.allocate(allocateCapacity);
+    return pool.acquire(allocateCapacity);
   }
 
   // #############################################
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.ep.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Input stream whose content is written step by step while it is read.
+ * Whenever the content written so far has been read, the next step is written into a
+ * buffer which is reused for all steps, so that only one step is held in memory.
+ * 
+ */
+public abstract class IncrementalInputStream extends InputStream {
+
+  private static final int READ_EOF = -1;
+
+  private final StepBuffer buffer = new StepBuffer();
+  private int position;
+  private boolean complete;
+  private boolean closed;
+
+  /**
+   * Returns the stream the steps have to be written to.
+   * @return the output stream
+   */
+  protected OutputStream getOutputStream() {
+    return buffer;
+  }
+
+  /**
+   * Writes the next step of the content into the {@link #getOutputStream() output stream}.
+   * @return <code>false</code> if the content is complete
+   * @throws IOException if the content cannot be written
+   */
+  protected abstract boolean writeNext() throws IOException;
+
+  /**
+   * Releases the resources of the content; called once when the stream is closed.
+   * @throws IOException
+   */
+  protected void release() throws IOException {}
+
+  @Override
+  public int read() throws IOException {
+    if (!fill()) {
+      return READ_EOF;
+    }
+    return buffer.get(position++) & 0xFF;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!fill()) {
+      return READ_EOF;
+    }
+    final int count = Math.min(len, buffer.size() - position);
+    buffer.copy(position, b, off, count);
+    position += count;
+    return count;
+  }
+
+  @Override
+  public int available() {
+    return buffer.size() - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      release();
+    }
+  }
+
+  private boolean fill() throws IOException {
+    if (closed) {
+      throw new IOException("Stream is closed.");
+    }
+    while (position >= buffer.size() && !complete) {
+      buffer.reset();
+      position = 0;
+      complete = !writeNext();
+    }
+    return position < buffer.size();
+  }
+
+  private static class StepBuffer extends ByteArrayOutputStream {
+
+    byte get(final int index) {
+      return buf[index];
+    }
+
+    void copy(final int from, final byte[] target, final int offset, final int length) {
+      System.arraycopy(buf, from, target, offset, length);
+    }
+  }
+}
@@ -19,6 +19,7 @@
 package org.apache.olingo.odata2.core.ep.util;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Writer;
 
 /**
@@ -82,6 +83,24 @@ public class JsonStreamWriter {
     return this;
   }
 
+  /**
+   * Writes binary content given as stream as base64-encoded JSON string;
+   * the content is encoded in chunks and the stream is closed afterwards.
+   * @param value the binary content
+   * @return this writer
+   * @throws IOException if an I/O error occurs
+   */
+  public JsonStreamWriter binaryValue(final InputStream value) throws IOException {
+    if (value == null) {
+      writer.append(FormatJson.NULL);
+    } else {
+      writer.append('"');
+      Base64StreamEncoder.encode(value, writer);
+      writer.append('"');
+    }
+    return this;
+  }
+
   public JsonStreamWriter namedStringValueRaw(final String name, final String value) throws IOException {
     name(name);
     stringValueRaw(value);
@@ -18,30 +18,37 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.exception;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.Formattable;
 import java.util.Formatter;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.MissingFormatArgumentException;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.olingo.odata2.api.exception.MessageReference;
 
 /**
- *  
+ * Provides the localized texts of the message keys.
+ * <p>Instances are shared per {@link Locale} and are thread-safe. The text of a key is parsed
+ * into a {@link MessageTemplate} on first use, so that later messages for the same key are
+ * assembled without a {@link Formatter}.</p>
  */
 public class MessageService {
   private static final String BUNDLE_NAME = "i18n";
 
   private final ResourceBundle resourceBundle;
   private final Locale requestedLocale;
+  private final ConcurrentMap<String, MessageTemplate> templates = new ConcurrentHashMap<String, MessageTemplate>();
 
-  private static final Map<Locale, MessageService> LOCALE_2_MESSAGE_SERVICE = new HashMap<Locale, MessageService>();
+  private static final ConcurrentMap<Locale, MessageService> LOCALE_2_MESSAGE_SERVICE =
+      new ConcurrentHashMap<Locale, MessageService>();
 
   private MessageService(final Locale locale) {
     requestedLocale = locale;
@@ -120,10 +127,16 @@ public class MessageService {
   }
 
   public static MessageService getInstance(final Locale locale) {
+    if (locale == null) {
+      return new MessageService(locale);
+    }
     MessageService messagesInstance = LOCALE_2_MESSAGE_SERVICE.get(locale);
     if (messagesInstance == null) {
       messagesInstance = new MessageService(locale);
-      LOCALE_2_MESSAGE_SERVICE.put(locale, messagesInstance);
+      MessageService existing = LOCALE_2_MESSAGE_SERVICE.putIfAbsent(locale, messagesInstance);
+      if (existing != null) {
+        messagesInstance = existing;
+      }
     }
     return messagesInstance;
   }
@@ -197,13 +210,9 @@ public class MessageService {
     String message = null;
 
     try {
-      message = resourceBundle.getString(key);
-      StringBuilder builder = new StringBuilder();
-      Formatter f = new Formatter(builder, requestedLocale);
-      f.format(message, replacements);
-      f.close();
-
-      return new Message(getLocale(), builder.toString());
+      MessageTemplate template = getTemplate(key);
+      message = template.getPattern();
+      return new Message(getLocale(), template.format(requestedLocale, replacements));
 
     } catch (MissingResourceException e) {
       return new Message(Locale.ENGLISH, "Missing message for key '" + key + "'!");
@@ -213,6 +222,18 @@ public class MessageService {
     }
   }
 
+  private MessageTemplate getTemplate(final String key) {
+    MessageTemplate template = templates.get(key);
+    if (template == null) {
+      template = MessageTemplate.compile(resourceBundle.getString(key));
+      MessageTemplate existing = templates.putIfAbsent(key, template);
+      if (existing != null) {
+        template = existing;
+      }
+    }
+    return template;
+  }
+
   public Locale getLocale() {
     return resourceBundle.getLocale();
   }
@@ -220,4 +241,101 @@ public class MessageService {
   public Enumeration<String> getKeys() {
     return resourceBundle.getKeys();
   }
+
+  /**
+   * Message text parsed into literal parts and the (one-based) indexes of the
+   * <code>%n$s</code> place holders between them.
+   * Texts with other format specifiers are formatted with a {@link Formatter}.
+   */
+  static final class MessageTemplate {
+    private final String pattern;
+    private final String[] literals;
+    private final int[] arguments;
+
+    private MessageTemplate(final String pattern, final String[] literals, final int[] arguments) {
+      this.pattern = pattern;
+      this.literals = literals;
+      this.arguments = arguments;
+    }
+
+    static MessageTemplate compile(final String pattern) {
+      List<String> literals = new ArrayList<String>();
+      List<Integer> arguments = new ArrayList<Integer>();
+      StringBuilder literal = new StringBuilder();
+      int index = 0;
+      while (index < pattern.length()) {
+        final char c = pattern.charAt(index);
+        if (c != '%') {
+          literal.append(c);
+          index++;
+          continue;
+        }
+        int end = index + 1;
+        while (end < pattern.length() && Character.isDigit(pattern.charAt(end))) {
+          end++;
+        }
+        if (end == index + 1 || end + 1 >= pattern.length()
+            || pattern.charAt(end) != '$' || pattern.charAt(end + 1) != 's') {
+          return new MessageTemplate(pattern, null, null);
+        }
+        final int argument;
+        try {
+          argument = Integer.parseInt(pattern.substring(index + 1, end));
+        } catch (NumberFormatException e) {
+          return new MessageTemplate(pattern, null, null);
+        }
+        if (argument == 0) {
+          return new MessageTemplate(pattern, null, null);
+        }
+        literals.add(literal.toString());
+        literal.setLength(0);
+        arguments.add(argument);
+        index = end + 2;
+      }
+      literals.add(literal.toString());
+
+      int[] argumentIndexes = new int[arguments.size()];
+      for (int i = 0; i < argumentIndexes.length; i++) {
+        argumentIndexes[i] = arguments.get(i);
+      }
+      return new MessageTemplate(pattern, literals.toArray(new String[literals.size()]), argumentIndexes);
+    }
+
+    String getPattern() {
+      return pattern;
+    }
+
+    String format(final Locale locale, final Object... replacements) {
+      if (literals == null || containsFormattable(replacements)) {
+        StringBuilder builder = new StringBuilder();
+        Formatter f = new Formatter(builder, locale);
+        f.format(pattern, replacements);
+        f.close();
+        return builder.toString();
+      }
+
+      final int available = replacements == null ? 0 : replacements.length;
+      StringBuilder builder = new StringBuilder(pattern.length() + 16 * arguments.length);
+      builder.append(literals[0]);
+      for (int i = 0; i < arguments.length; i++) {
+        if (arguments[i] > available) {
+          throw new MissingFormatArgumentException("%" + arguments[i] + "$s");
+        }
+        builder.append(String.valueOf(replacements[arguments[i] - 1]));
+        builder.append(literals[i + 1]);
+      }
+      return builder.toString();
+    }
+
+    private static boolean containsFormattable(final Object[] replacements) {
+      if (replacements != null) {
+        for (Object replacement : replacements) {
+          if (replacement instanceof Formattable) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+  }
 }
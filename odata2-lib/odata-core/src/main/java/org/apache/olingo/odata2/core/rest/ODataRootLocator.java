@@ -36,6 +36,8 @@ import javax.ws.rs.core.UriInfo;
 import org.apache.olingo.odata2.api.ODataServiceFactory;
 import org.apache.olingo.odata2.api.exception.ODataBadRequestException;
 import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.core.commons.RequestDecompressor;
+import org.apache.olingo.odata2.core.commons.ResponseCompressor;
 import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 import org.apache.olingo.odata2.core.rest.app.AbstractODataApplication;
 
@@ -114,6 +116,8 @@ public class ODataRootLocator {
     param.setRequest(request);
     param.setServletRequest(servletRequest);
     param.setPathSplit(pathSplit);
+    param.setResponseCompressor(ResponseCompressor.create(servletConfig));
+    param.setRequestDecompressor(RequestDecompressor.create(servletConfig));
 
     return ODataSubLocator.create(param);
   }
@@ -18,6 +18,8 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.rest;
 
+import java.io.IOException;
+
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
@@ -31,6 +33,7 @@ import javax.ws.rs.core.Response;
 
 import org.apache.olingo.odata2.api.ODataService;
 import org.apache.olingo.odata2.api.ODataServiceFactory;
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
 import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
 import org.apache.olingo.odata2.api.exception.MessageReference;
 import org.apache.olingo.odata2.api.exception.ODataException;
@@ -42,6 +45,7 @@ import org.apache.olingo.odata2.api.processor.ODataRequest;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
 import org.apache.olingo.odata2.core.ODataContextImpl;
 import org.apache.olingo.odata2.core.ODataRequestHandler;
+import org.apache.olingo.odata2.core.commons.ResponseCompressor;
 
 /**
  *  
@@ -53,6 +57,8 @@ public final class ODataSubLocator {
 
   private HttpServletRequest httpRequest;
 
+  private ResponseCompressor responseCompressor;
+
   @GET
   public Response handleGet() throws ODataException {
     return handle(ODataHttpMethod.GET);
@@ -164,7 +170,14 @@ public final class ODataSubLocator {
 
     ODataRequestHandler requestHandler = new ODataRequestHandler(serviceFactory, service, context);
 
-    final ODataResponse odataResponse = requestHandler.handle(request);
+    ODataResponse odataResponse = requestHandler.handle(request);
+    if (responseCompressor != null) {
+      try {
+        odataResponse = responseCompressor.compress(odataResponse, httpRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+      } catch (final IOException e) {
+        throw new ODataException("Error compressing the response.", e);
+      }
+    }
     final Response response = RestUtil.convertResponse(odataResponse);
 
     return response;
@@ -178,7 +191,7 @@ public final class ODataSubLocator {
     subLocator.serviceFactory = param.getServiceFactory();
     subLocator.request = ODataRequest.acceptableLanguages(param.getHttpHeaders().getAcceptableLanguages())
         .acceptHeaders(RestUtil.extractAcceptHeaders(param))
-        .body(RestUtil.contentAsStream(RestUtil.extractRequestContent(param)))
+        .body(RestUtil.extractDecompressedRequestContent(param))
         .pathInfo(RestUtil.buildODataPathInfo(param))
         .allQueryParameters(param.getUriInfo().getQueryParameters())
         .requestHeaders(param.getHttpHeaders().getRequestHeaders())
@@ -186,6 +199,7 @@ public final class ODataSubLocator {
         .build();
 
     subLocator.httpRequest = param.getServletRequest();
+    subLocator.responseCompressor = param.getResponseCompressor();
 
     return subLocator;
   }
@@ -27,7 +27,6 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -48,6 +47,8 @@ import org.apache.olingo.odata2.api.processor.ODataResponse;
 import org.apache.olingo.odata2.api.uri.PathSegment;
 import org.apache.olingo.odata2.core.ODataPathSegmentImpl;
 import org.apache.olingo.odata2.core.PathInfoImpl;
+import org.apache.olingo.odata2.core.commons.AcceptHeaderTokenizer;
+import org.apache.olingo.odata2.core.commons.AcceptHeaderTokenizer.Element;
 import org.apache.olingo.odata2.core.commons.ContentType;
 import org.apache.olingo.odata2.core.commons.Decoder;
 
@@ -128,6 +129,20 @@ public class RestUtil {
     }
   }
 
+  /**
+   * Extracts the request content from the servlet as input stream which is decompressed
+   * according to the <code>Content-Encoding</code> header.
+   * @param param initialization parameters
+   * @return the request content as input stream
+   * @throws ODataException
+   */
+  public static InputStream extractDecompressedRequestContent(final SubLocatorParameter param)
+      throws ODataException {
+    final InputStream content = contentAsStream(extractRequestContent(param));
+    return param.getRequestDecompressor() == null ? content : param.getRequestDecompressor().decompress(content,
+        getSafeHeader(HttpHeaders.CONTENT_ENCODING, param.getHttpHeaders()));
+  }
+
   public static <T> InputStream contentAsStream(final T content) throws ODataException {
     if (content == null) {
       throw new ODataBadRequestException(ODataBadRequestException.COMMON);
@@ -151,18 +166,21 @@ public class RestUtil {
   public static List<String> extractAcceptHeaders(final SubLocatorParameter param) throws ODataBadRequestException {
     List<String> acceptHeaders = param.getHttpHeaders().getRequestHeader(HttpHeaders.ACCEPT);
 
-    List<String> toSort = new LinkedList<String>();
+    List<Element> elements = new ArrayList<Element>();
     if (acceptHeaders != null) {
       for (String acceptHeader : acceptHeaders) {
-        String[] contentTypes = acceptHeader.split(",");
-        for (String contentType : contentTypes) {
-          toSort.add(contentType.trim());
-        }
+        elements.addAll(AcceptHeaderTokenizer.tokenize(acceptHeader));
       }
     }
 
-    ContentType.sortForQParameter(toSort);
-    return toSort;
+    AcceptHeaderTokenizer.sortByQuality(elements);
+    List<String> sorted = new ArrayList<String>(elements.size());
+    for (final Element element : elements) {
+      // elements with invalid quality are kept as written so that content negotiation rejects them
+      sorted.add(element.getQuality() == AcceptHeaderTokenizer.INVALID_QUALITY ? element.getText() : element
+          .getValue());
+    }
+    return sorted;
   }
 
   public static Map<String, String> extractRequestHeaders(final javax.ws.rs.core.HttpHeaders httpHeaders) {
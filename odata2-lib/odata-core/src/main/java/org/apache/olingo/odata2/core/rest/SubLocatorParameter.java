@@ -24,6 +24,8 @@ import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.Request;
 
 import org.apache.olingo.odata2.api.ODataServiceFactory;
+import org.apache.olingo.odata2.core.commons.RequestDecompressor;
+import org.apache.olingo.odata2.core.commons.ResponseCompressor;
 
 /**
  *  
@@ -37,6 +39,8 @@ public class SubLocatorParameter {
   private int pathSplit;
   private ODataServiceFactory serviceFactory;
   private HttpServletRequest servletRequest;
+  private ResponseCompressor responseCompressor;
+  private RequestDecompressor requestDecompressor;
 
   public ODataServiceFactory getServiceFactory() {
     return serviceFactory;
@@ -93,4 +97,20 @@ public class SubLocatorParameter {
   public HttpServletRequest getServletRequest() {
     return servletRequest;
   }
+
+  public ResponseCompressor getResponseCompressor() {
+    return responseCompressor;
+  }
+
+  public void setResponseCompressor(final ResponseCompressor responseCompressor) {
+    this.responseCompressor = responseCompressor;
+  }
+
+  public RequestDecompressor getRequestDecompressor() {
+    return requestDecompressor;
+  }
+
+  public void setRequestDecompressor(final RequestDecompressor requestDecompressor) {
+    this.requestDecompressor = requestDecompressor;
+  }
 }
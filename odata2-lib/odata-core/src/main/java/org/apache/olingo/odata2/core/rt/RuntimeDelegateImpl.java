@@ -27,6 +27,7 @@ import org.apache.olingo.odata2.api.client.batch.BatchChangeSet.BatchChangeSetBu
 import org.apache.olingo.odata2.api.client.batch.BatchChangeSetPart.BatchChangeSetPartBuilder;
 import org.apache.olingo.odata2.api.client.batch.BatchQueryPart.BatchQueryPartBuilder;
 import org.apache.olingo.odata2.api.edm.Edm;
+import org.apache.olingo.odata2.api.edm.EdmException;
 import org.apache.olingo.odata2.api.edm.EdmSimpleType;
 import org.apache.olingo.odata2.api.edm.EdmSimpleTypeFacade;
 import org.apache.olingo.odata2.api.edm.EdmSimpleTypeKind;
@@ -61,6 +62,8 @@ import org.apache.olingo.odata2.core.uri.UriParserImpl;
  */
 public class RuntimeDelegateImpl extends RuntimeDelegateInstance {
 
+  private static final EntityProviderInterface ENTITY_PROVIDER = new ProviderFacadeImpl();
+
   @Override
   protected ODataResponseBuilder createODataResponseBuilder() {
     ODataResponseImpl r = new ODataResponseImpl();
@@ -87,9 +90,15 @@ public class RuntimeDelegateImpl extends RuntimeDelegateInstance {
     return new EdmImplProv(provider);
   }
 
+  @Override
+  protected Edm createCompiledEdm(final EdmProvider provider) throws EdmException {
+    return new EdmImplProv(provider).compile();
+  }
+
   @Override
   protected EntityProviderInterface createEntityProvider() {
-    return new ProviderFacadeImpl();
+    // the provider facade is stateless and can be shared
+    return ENTITY_PROVIDER;
   }
 
   @Override
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.servlet;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
+
+/**
+ * Access to the asynchronous request processing of Servlet 3.0 containers.
+ * The library is compiled against the Servlet 2.5 API, therefore
+ * <code>ServletRequest.startAsync()</code> and <code>AsyncContext</code>
+ * are called by reflection, and <code>AsyncListener</code> is implemented by a
+ * dynamic proxy. The methods are looked up once per request class.
+ */
+class AsyncSupport {
+
+  private static final Map<Class<?>, Method[]> REQUEST_METHODS = new ConcurrentHashMap<Class<?>, Method[]>();
+  private static final Map<Class<?>, Method[]> CONTEXT_METHODS = new ConcurrentHashMap<Class<?>, Method[]>();
+  private static final Method[] UNSUPPORTED = new Method[0];
+
+  private AsyncSupport() {}
+
+  /**
+   * Puts the request into asynchronous mode.
+   * @param request the request
+   * @param timeout the timeout in milliseconds, zero for the default timeout of the
+   * container, or a negative value for no timeout
+   * @return the asynchronous context, or <code>null</code> if the container or the servlet
+   * does not support asynchronous processing
+   */
+  static Object start(final HttpServletRequest request, final long timeout) {
+    final Method[] methods = getRequestMethods(request.getClass());
+    if (methods == UNSUPPORTED || !Boolean.TRUE.equals(invoke(methods[0], request))) {
+      return null;
+    }
+    final Object asyncContext = invoke(methods[1], request);
+    if (timeout != 0) {
+      invoke(getContextMethods(asyncContext.getClass())[1], asyncContext, timeout);
+    }
+    return asyncContext;
+  }
+
+  /**
+   * Registers a listener for the timeout and errors of the asynchronous processing.
+   * @param asyncContext the context returned by {@link #start(HttpServletRequest, long)}
+   * @param listener the listener
+   */
+  static void addListener(final Object asyncContext, final Listener listener) {
+    final Method addListener = getContextMethods(asyncContext.getClass())[2];
+    final Class<?> listenerType = addListener.getParameterTypes()[0];
+    invoke(addListener, asyncContext, Proxy.newProxyInstance(listenerType.getClassLoader(),
+        new Class<?>[] { listenerType }, new InvocationHandler() {
+          @Override
+          public Object invoke(final Object proxy, final Method method, final Object[] args) {
+            if (method.getDeclaringClass() == Object.class) {
+              if ("equals".equals(method.getName())) {
+                return proxy == args[0];
+              }
+              return "hashCode".equals(method.getName()) ?
+                  (Object) System.identityHashCode(proxy) : listener.toString();
+            }
+            if ("onTimeout".equals(method.getName())) {
+              listener.onTimeout();
+            } else if ("onError".equals(method.getName())) {
+              listener.onError();
+            }
+            return null;
+          }
+        }));
+  }
+
+  /**
+   * Completes the asynchronous processing and hands the response back to the container.
+   * @param asyncContext the context returned by {@link #start(HttpServletRequest, long)}
+   */
+  static void complete(final Object asyncContext) {
+    invoke(getContextMethods(asyncContext.getClass())[0], asyncContext);
+  }
+
+  private static Method[] getRequestMethods(final Class<?> requestClass) {
+    Method[] methods = REQUEST_METHODS.get(requestClass);
+    if (methods == null) {
+      final Method isAsyncSupported = getPublicMethod(requestClass, "isAsyncSupported");
+      final Method startAsync = getPublicMethod(requestClass, "startAsync");
+      methods = isAsyncSupported == null || startAsync == null ?
+          UNSUPPORTED : new Method[] { isAsyncSupported, startAsync };
+      REQUEST_METHODS.put(requestClass, methods);
+    }
+    return methods;
+  }
+
+  private static Method[] getContextMethods(final Class<?> contextClass) {
+    Method[] methods = CONTEXT_METHODS.get(contextClass);
+    if (methods == null) {
+      final Method complete = getPublicMethod(contextClass, "complete");
+      methods = new Method[] {
+          complete,
+          getPublicMethod(contextClass, "setTimeout", long.class),
+          complete == null ? null : getListenerMethod(complete.getDeclaringClass()) };
+      if (methods[0] == null || methods[1] == null || methods[2] == null) {
+        throw new ODataRuntimeException("Invalid asynchronous context " + contextClass);
+      }
+      CONTEXT_METHODS.put(contextClass, methods);
+    }
+    return methods;
+  }
+
+  /**
+   * Finds <code>addListener(AsyncListener)</code>; the listener interface is not part of the
+   * Servlet 2.5 API and is taken from the parameter type.
+   */
+  private static Method getListenerMethod(final Class<?> contextType) {
+    for (final Method method : contextType.getMethods()) {
+      if ("addListener".equals(method.getName()) && method.getParameterTypes().length == 1
+          && method.getParameterTypes()[0].isInterface()) {
+        return method;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Finds the method in a public type, because implementation classes of the
+   * container need not be accessible.
+   */
+  private static Method getPublicMethod(final Class<?> type, final String name, final Class<?>... parameterTypes) {
+    for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+      for (final Class<?> implemented : current.getInterfaces()) {
+        final Method method = getDeclaredPublicMethod(implemented, name, parameterTypes);
+        if (method != null) {
+          return method;
+        }
+      }
+      final Method method = getDeclaredPublicMethod(current, name, parameterTypes);
+      if (method != null) {
+        return method;
+      }
+    }
+    return null;
+  }
+
+  private static Method getDeclaredPublicMethod(final Class<?> type, final String name,
+      final Class<?>... parameterTypes) {
+    if (!Modifier.isPublic(type.getModifiers())) {
+      return null;
+    }
+    try {
+      return type.getMethod(name, parameterTypes);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Listener for the end of asynchronous processing that is not caused by the servlet.
+   */
+  interface Listener {
+
+    /** Called when the asynchronous processing timed out. */
+    void onTimeout();
+
+    /** Called when the asynchronous processing failed, for example because the client has gone. */
+    void onError();
+  }
+
+  private static Object invoke(final Method method, final Object target, final Object... args) {
+    try {
+      return method.invoke(target, args);
+    } catch (IllegalAccessException e) {
+      throw new ODataRuntimeException(e);
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new ODataRuntimeException(e.getCause());
+    }
+  }
+}
@@ -68,7 +68,7 @@ public class ODataExceptionWrapper {
     } catch (URISyntaxException e) {
       throw new ODataRuntimeException(e);
     }
-    httpRequestHeaders = RestUtil.extractHeaders(req);
+    httpRequestHeaders = RestUtil.extractRequestHeaders(req);
     Map<String, String> queryParameters = RestUtil.extractQueryParameters(req.getQueryString());
     List<Locale> acceptableLanguages = RestUtil.extractAcceptableLanguage(req.getHeader("Accept-Language"));
     List<String> acceptHeaders = RestUtil.extractAcceptHeaders(req.getHeader("Accept"));
@@ -35,27 +35,167 @@ import org.apache.olingo.odata2.api.processor.ODataRequest;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
 import org.apache.olingo.odata2.core.ODataContextImpl;
 import org.apache.olingo.odata2.core.ODataRequestHandler;
+import org.apache.olingo.odata2.core.commons.RequestDecompressor;
+import org.apache.olingo.odata2.core.commons.ResponseCompressor;
 import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 
+import javax.servlet.ServletException;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ODataServlet extends HttpServlet {
 
+  /**
+   * Label used in web.xml to switch on asynchronous processing (value <code>true</code>).
+   * Requests are then processed by a separate executor and the container thread is released
+   * immediately; this requires a Servlet 3.0 container and the servlet must be declared with
+   * <code>&lt;async-supported&gt;true&lt;/async-supported&gt;</code>.
+   * Otherwise requests are processed synchronously.
+   */
+  public static final String ASYNC_LABEL = "org.apache.olingo.odata2.servlet.async";
+  /**
+   * Label used in web.xml to set the number of threads of the executor for asynchronous processing.
+   */
+  public static final String ASYNC_THREADS_LABEL = "org.apache.olingo.odata2.servlet.async.threads";
+  /**
+   * Label used in web.xml to set the number of requests waiting for a thread of the executor for
+   * asynchronous processing; further requests are processed synchronously.
+   */
+  public static final String ASYNC_QUEUE_LABEL = "org.apache.olingo.odata2.servlet.async.queue";
+  /**
+   * Label used in web.xml to set the timeout of asynchronous processing in milliseconds; 0 for the
+   * default timeout of the container, a negative value (default) for no timeout.
+   * Requests that are not answered in time are cancelled and get the status 503 (Service Unavailable)
+   * if the response has not been committed yet.
+   */
+  public static final String ASYNC_TIMEOUT_LABEL = "org.apache.olingo.odata2.servlet.async.timeout";
+
   private static final String HTTP_METHOD_OPTIONS = "OPTIONS";
   private static final String HTTP_METHOD_HEAD = "HEAD";
+  private static final int DEFAULT_ASYNC_THREADS = 50;
+  private static final int DEFAULT_ASYNC_QUEUE = 1000;
+  private static final long DEFAULT_ASYNC_TIMEOUT = -1;
+  private static final int COPY_BUFFER_SIZE = 8192;
 
   /**
    * 
    */
   private static final long serialVersionUID = 1L;
 
+  private transient volatile ExecutorService asyncExecutor;
+  private transient volatile ResponseCompressor compressor;
+  private transient volatile boolean compressorInitialized;
+  private transient volatile RequestDecompressor decompressor;
+  private int asyncThreads = DEFAULT_ASYNC_THREADS;
+  private int asyncQueue = DEFAULT_ASYNC_QUEUE;
+  private long asyncTimeout = DEFAULT_ASYNC_TIMEOUT;
+
+  @Override
+  public void init() throws ServletException {
+    super.init();
+    asyncThreads = (int) getNumberParameter(ASYNC_THREADS_LABEL, DEFAULT_ASYNC_THREADS, 1, Integer.MAX_VALUE);
+    asyncQueue = (int) getNumberParameter(ASYNC_QUEUE_LABEL, DEFAULT_ASYNC_QUEUE, 0, Integer.MAX_VALUE);
+    asyncTimeout = getNumberParameter(ASYNC_TIMEOUT_LABEL, DEFAULT_ASYNC_TIMEOUT, Long.MIN_VALUE, Long.MAX_VALUE);
+  }
+
   @Override
   protected void service(final HttpServletRequest req, final HttpServletResponse resp) throws IOException {
+    if (Boolean.parseBoolean(getInitParameter(ASYNC_LABEL))) {
+      final Object asyncContext = AsyncSupport.start(req, asyncTimeout);
+      if (asyncContext != null) {
+        final AsyncTask task = new AsyncTask(req, resp, asyncContext);
+        AsyncSupport.addListener(asyncContext, task);
+        try {
+          getAsyncExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+          task.run();
+        }
+        return;
+      }
+    }
+    handleService(req, resp);
+  }
+
+  /**
+   * Get the executor which processes requests in asynchronous mode.
+   * The default implementation creates a thread pool with the number of threads given by
+   * {@link #ASYNC_THREADS_LABEL} and a queue bounded by {@link #ASYNC_QUEUE_LABEL}; it is shut
+   * down in {@link #destroy()}. Requests rejected by the executor are processed synchronously.
+   * Subclasses may return an executor managed by the application server.
+   *
+   * @return the executor
+   */
+  protected Executor getAsyncExecutor() {
+    ExecutorService executor = asyncExecutor;
+    if (executor == null) {
+      synchronized (this) {
+        executor = asyncExecutor;
+        if (executor == null) {
+          executor = new ThreadPoolExecutor(asyncThreads, asyncThreads, 0, TimeUnit.MILLISECONDS,
+              asyncQueue == 0 ? new SynchronousQueue<Runnable>() : new ArrayBlockingQueue<Runnable>(asyncQueue));
+          asyncExecutor = executor;
+        }
+      }
+    }
+    return executor;
+  }
+
+  @Override
+  public void destroy() {
+    if (asyncExecutor != null) {
+      asyncExecutor.shutdown();
+      asyncExecutor = null;
+    }
+    super.destroy();
+  }
+
+  private ResponseCompressor getResponseCompressor() {
+    if (!compressorInitialized) {
+      compressor = ResponseCompressor.create(getServletConfig());
+      compressorInitialized = true;
+    }
+    return compressor;
+  }
+
+  private RequestDecompressor getRequestDecompressor() {
+    if (decompressor == null) {
+      decompressor = RequestDecompressor.create(getServletConfig());
+    }
+    return decompressor;
+  }
+
+  private long getNumberParameter(final String name, final long defaultValue, final long minimum,
+      final long maximum) throws ServletException {
+    final String value = getInitParameter(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      final long number = Long.parseLong(value.trim());
+      if (number >= minimum && number <= maximum) {
+        return number;
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    throw new ServletException("Invalid value '" + value + "' of init parameter '" + name
+        + "'; expected a number between " + minimum + " and " + maximum + ".");
+  }
+
+  private void handleService(final HttpServletRequest req, final HttpServletResponse resp) throws IOException {
     // We have to create the Service Factory here because otherwise we do not have access to the error callback
     ODataServiceFactory serviceFactory = getServiceFactory(req);
     if(serviceFactory == null) {
@@ -178,8 +318,9 @@ public class ODataServlet extends HttpServlet {
           .acceptableLanguages(RestUtil.extractAcceptableLanguage(req.getHeader(HttpHeaders.ACCEPT_LANGUAGE)))
           .pathInfo(RestUtil.buildODataPathInfo(req, pathSplit))
           .allQueryParameters(RestUtil.extractAllQueryParameters(req.getQueryString()))
-          .requestHeaders(RestUtil.extractHeaders(req))
-          .body(req.getInputStream())
+          .requestHeaders(RestUtil.extractRequestHeaders(req))
+          .body(getRequestDecompressor().decompress(req.getInputStream(),
+              req.getHeader(HttpHeaders.CONTENT_ENCODING)))
           .build();
 
       ODataContextImpl context = new ODataContextImpl(odataRequest, serviceFactory);
@@ -193,7 +334,11 @@ public class ODataServlet extends HttpServlet {
         service.getProcessor().setContext(context);
 
         ODataRequestHandler requestHandler = new ODataRequestHandler(serviceFactory, service, context);
-        final ODataResponse odataResponse = requestHandler.handle(odataRequest);
+        ODataResponse odataResponse = requestHandler.handle(odataRequest);
+        final ResponseCompressor responseCompressor = getResponseCompressor();
+        if (responseCompressor != null) {
+          odataResponse = responseCompressor.compress(odataResponse, req.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        }
         createResponse(resp, odataResponse);
       }
     } catch (Exception e) {
@@ -247,13 +392,14 @@ public class ODataServlet extends HttpServlet {
     Object entity = response.getEntity();
     if (entity != null) {
       ServletOutputStream out = resp.getOutputStream();
-      int curByte;
       int contentLength = 0;
 
       if (entity instanceof InputStream) {
-        while ((curByte = ((InputStream) entity).read()) != -1) {
-          contentLength++;
-          out.write((char) curByte);
+        final byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        int count;
+        while ((count = ((InputStream) entity).read(buffer)) != -1) {
+          contentLength += count;
+          out.write(buffer, 0, count);
         }
         ((InputStream) entity).close();
       } else if (entity instanceof String) {
@@ -357,4 +503,93 @@ public class ODataServlet extends HttpServlet {
     }
     throw new ODataRuntimeException("Invalid service factory instance of type " + factory.getClass());
   }
+
+  /**
+   * Processes a request in asynchronous mode. The asynchronous context is completed exactly once:
+   * on timeout or error if the request has not been started yet, otherwise by the worker when it has
+   * finished. A running worker is interrupted on timeout or error, and the container thread waits for
+   * it, so that the container does not recycle the response while the worker still writes it.
+   */
+  private class AsyncTask implements Runnable, AsyncSupport.Listener {
+
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+
+    private final HttpServletRequest req;
+    private final HttpServletResponse resp;
+    private final Object asyncContext;
+    private final AtomicInteger state = new AtomicInteger(NEW);
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile Thread worker;
+    private volatile HttpStatusCodes cancelStatus;
+
+    public AsyncTask(final HttpServletRequest req, final HttpServletResponse resp, final Object asyncContext) {
+      this.req = req;
+      this.resp = resp;
+      this.asyncContext = asyncContext;
+    }
+
+    @Override
+    public void run() {
+      if (!state.compareAndSet(NEW, RUNNING)) {
+        return;
+      }
+      worker = Thread.currentThread();
+      try {
+        handleService(req, resp);
+      } catch (IOException e) {
+        // the client has gone; there is nobody to report to
+      } catch (RuntimeException e) {
+        log("Asynchronous processing failed.", e);
+        if (!resp.isCommitted()) {
+          resp.setStatus(HttpStatusCodes.INTERNAL_SERVER_ERROR.getStatusCode());
+        }
+      } finally {
+        worker = null;
+        // an interrupt caused by a cancellation must not remain with the thread
+        Thread.interrupted();
+        final HttpStatusCodes status = cancelStatus;
+        if (status != null && !resp.isCommitted()) {
+          resp.setStatus(status.getStatusCode());
+        }
+        state.set(DONE);
+        try {
+          AsyncSupport.complete(asyncContext);
+        } finally {
+          finished.countDown();
+        }
+      }
+    }
+
+    @Override
+    public void onTimeout() {
+      cancel(HttpStatusCodes.SERVICE_UNAVAILABLE);
+    }
+
+    @Override
+    public void onError() {
+      cancel(HttpStatusCodes.INTERNAL_SERVER_ERROR);
+    }
+
+    private void cancel(final HttpStatusCodes status) {
+      cancelStatus = status;
+      if (state.compareAndSet(NEW, DONE)) {
+        if (!resp.isCommitted()) {
+          resp.setStatus(status.getStatusCode());
+        }
+        AsyncSupport.complete(asyncContext);
+        return;
+      }
+      final Thread thread = worker;
+      if (thread != null) {
+        thread.interrupt();
+      }
+      try {
+        finished.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
 }
@@ -23,14 +23,11 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -44,28 +41,12 @@ import org.apache.olingo.odata2.api.uri.PathInfo;
 import org.apache.olingo.odata2.api.uri.PathSegment;
 import org.apache.olingo.odata2.core.ODataPathSegmentImpl;
 import org.apache.olingo.odata2.core.PathInfoImpl;
+import org.apache.olingo.odata2.core.commons.AcceptHeaderTokenizer;
+import org.apache.olingo.odata2.core.commons.AcceptHeaderTokenizer.Element;
 import org.apache.olingo.odata2.core.commons.ContentType;
 import org.apache.olingo.odata2.core.commons.Decoder;
 
 public class RestUtil {
-  private static final String REG_EX_OPTIONAL_WHITESPACE = "\\s?";
-
-  // RFC 2616, 3.9: qvalue = ("0"["." 0*3DIGIT]) | ("1"["." 0*3("0")])
-  private static final String REG_EX_QVALUE = "q=((?:1(?:\\.0{0,3})?)|(?:0(?:\\.[0-9]{0,3})?))";
-
-  // RFC 2616, 14.1: the media-range parameters
-  private static final String REG_EX_PARAMETER = "(?:;\\s*(?:(?:[^qQ].*)|(?:[qQ]\\s*=\\s*(?:[^01].*))))*";
-  private static final Pattern REG_EX_ACCEPT =
-      Pattern.compile("([a-z\\*\\s]+/[a-zA-Z\\+\\*\\-=\\s]+" + REG_EX_PARAMETER + ")");
-  private static final Pattern REG_EX_ACCEPT_WITH_Q_FACTOR =
-      Pattern.compile(REG_EX_ACCEPT + "(?:" + REG_EX_OPTIONAL_WHITESPACE + REG_EX_QVALUE + ")?");
-
-  // RFC 2616, 14.4: language-range = ((1*8ALPHA *("-" 1*8ALPHA)) | "*")
-  private static final Pattern REG_EX_ACCEPT_LANGUAGES =
-      Pattern.compile("((?:\\*)|(?:[a-z]{1,8}(?:\\-[a-zA-Z]{1,8})?))");
-  private static final Pattern REG_EX_ACCEPT_LANGUAGES_WITH_Q_FACTOR =
-      Pattern.compile(REG_EX_ACCEPT_LANGUAGES + "(?:;" + REG_EX_OPTIONAL_WHITESPACE + REG_EX_QVALUE + ")?");
-
   private static final Pattern REG_EX_MATRIX_PARAMETER = Pattern.compile("([^=]*)(?:=(.*))?");
 
   public static ContentType extractRequestContentType(final String contentType)
@@ -89,83 +70,90 @@ public class RestUtil {
    * Parses query parameters.
    */
   public static Map<String, String> extractQueryParameters(final String queryString) {
-    Map<String, String> queryParametersMap = new HashMap<String, String>();
-    if (queryString != null && queryString.length() > 0) {
-      // At first the queryString will be decoded.
-      List<String> queryParameters = Arrays.asList(queryString.split("\\&"));
-      for (String param : queryParameters) {
-        String decodedParam = Decoder.decode(param);
-        int indexOfEqualSign = decodedParam.indexOf("=");
-        if (indexOfEqualSign < 0) {
-          queryParametersMap.put(decodedParam, "");
-        } else {
-          queryParametersMap.put(decodedParam.substring(0, indexOfEqualSign), decodedParam
-              .substring(indexOfEqualSign + 1));
-        }
+    final List<String> queryParameters = splitQueryString(queryString);
+    Map<String, String> queryParametersMap = new HashMap<String, String>(capacity(queryParameters.size()));
+    for (String param : queryParameters) {
+      String decodedParam = Decoder.decode(param);
+      int indexOfEqualSign = decodedParam.indexOf('=');
+      if (indexOfEqualSign < 0) {
+        queryParametersMap.put(decodedParam, "");
+      } else {
+        queryParametersMap.put(decodedParam.substring(0, indexOfEqualSign), decodedParam
+            .substring(indexOfEqualSign + 1));
       }
     }
     return queryParametersMap;
   }
 
   public static Map<String, List<String>> extractAllQueryParameters(final String queryString) {
-    Map<String, List<String>> allQueryParameterMap = new HashMap<String, List<String>>();
-
-    if (queryString != null && queryString.length() > 0) {
-      // At first the queryString will be decoded.
-      List<String> queryParameters = Arrays.asList(queryString.split("\\&"));
-      for (String param : queryParameters) {
-        String decodedParam = Decoder.decode(param);
-        int indexOfEqualSign = decodedParam.indexOf("=");
-
-        if (indexOfEqualSign < 0) {
-          final List<String> parameterList =
-              allQueryParameterMap.containsKey(decodedParam) ? allQueryParameterMap.get(decodedParam)
-                  : new LinkedList<String>();
-          allQueryParameterMap.put(decodedParam, parameterList);
-
-          parameterList.add("");
-        } else {
-          final String key = decodedParam.substring(0, indexOfEqualSign);
-          final List<String> parameterList = allQueryParameterMap.containsKey(key) ? allQueryParameterMap.get(key)
-              : new LinkedList<String>();
-
-          allQueryParameterMap.put(key, parameterList);
-          parameterList.add(decodedParam.substring(indexOfEqualSign + 1));
-        }
+    final List<String> queryParameters = splitQueryString(queryString);
+    Map<String, List<String>> allQueryParameterMap =
+        new HashMap<String, List<String>>(capacity(queryParameters.size()));
+    for (String param : queryParameters) {
+      String decodedParam = Decoder.decode(param);
+      int indexOfEqualSign = decodedParam.indexOf('=');
+      final String key = indexOfEqualSign < 0 ? decodedParam : decodedParam.substring(0, indexOfEqualSign);
+      final String value = indexOfEqualSign < 0 ? "" : decodedParam.substring(indexOfEqualSign + 1);
+
+      List<String> parameterList = allQueryParameterMap.get(key);
+      if (parameterList == null) {
+        parameterList = new ArrayList<String>(1);
+        allQueryParameterMap.put(key, parameterList);
       }
+      parameterList.add(value);
     }
-
     return allQueryParameterMap;
   }
 
+  /*
+   * Splits the (still encoded) query string at '&'. As with String.split, trailing empty parameters are dropped.
+   */
+  private static List<String> splitQueryString(final String queryString) {
+    if (queryString == null || queryString.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<String> parameters = new ArrayList<String>();
+    int start = 0;
+    int end;
+    while ((end = queryString.indexOf('&', start)) >= 0) {
+      parameters.add(queryString.substring(start, end));
+      start = end + 1;
+    }
+    parameters.add(queryString.substring(start));
+    int size = parameters.size();
+    while (size > 0 && parameters.get(size - 1).isEmpty()) {
+      parameters.remove(--size);
+    }
+    return parameters;
+  }
+
+  private static int capacity(final int size) {
+    return Math.max(size * 4 / 3 + 1, 4);
+  }
+
   /*
    * Parses Accept-Language header. Returns a list sorted by quality parameter
    */
   public static List<Locale> extractAcceptableLanguage(final String acceptableLanguageHeader) {
-    List<Locale> acceptLanguages = new ArrayList<Locale>();
-    TreeSet<Accept> acceptTree = getAcceptTree();
-    if (acceptableLanguageHeader != null && !acceptableLanguageHeader.isEmpty()) {
-      List<String> list = Arrays.asList(acceptableLanguageHeader.split(",\\s?"));
-      for (String acceptLanguage : list) {
-        Matcher matcher = REG_EX_ACCEPT_LANGUAGES_WITH_Q_FACTOR.matcher(acceptLanguage);
-        if (matcher.find()) {
-          String language = matcher.group(1);
-          double qualityFactor = matcher.group(2) != null ? Double.parseDouble(matcher.group(2)) : 1d;
-          acceptTree.add(new Accept(language, qualityFactor));
-        }
+    final List<Element> elements = AcceptHeaderTokenizer.sortByQuality(
+        AcceptHeaderTokenizer.tokenize(acceptableLanguageHeader));
+    List<Locale> acceptLanguages = new ArrayList<Locale>(elements.size());
+    for (final Element element : elements) {
+      if (element.getQuality() == AcceptHeaderTokenizer.INVALID_QUALITY || !element.isLanguageRange()) {
+        continue;
       }
-    }
-    for (Accept accept : acceptTree) {
-      String languageRange = accept.getValue();
+      String languageRange = element.getValue();
       // The languageRange has to be splitted in language tag and country tag
-      int indexOfMinus = languageRange.indexOf("-");
+      int indexOfMinus = languageRange.indexOf('-');
       Locale locale;
       if (indexOfMinus < 0) {
         // no country tag
         locale = new Locale(languageRange);
       } else {
         String language = languageRange.substring(0, indexOfMinus);
-        String country = languageRange.substring(indexOfMinus + 1);
+        int indexOfNextMinus = languageRange.indexOf('-', indexOfMinus + 1);
+        String country = indexOfNextMinus < 0 ? languageRange.substring(indexOfMinus + 1) :
+            languageRange.substring(indexOfMinus + 1, indexOfNextMinus);
         locale = new Locale(language, country);
       }
       acceptLanguages.add(locale);
@@ -177,25 +165,26 @@ public class RestUtil {
    * Parses Accept header. Returns a list of media ranges sorted by quality parameter
    */
   public static List<String> extractAcceptHeaders(final String acceptHeader) {
-    TreeSet<Accept> acceptTree = getAcceptTree();
-    List<String> acceptHeaders = new ArrayList<String>();
-    if (acceptHeader != null && !acceptHeader.isEmpty()) {
-      List<String> list = Arrays.asList(acceptHeader.split(",\\s?"));
-      for (String accept : list) {
-        Matcher matcher = REG_EX_ACCEPT_WITH_Q_FACTOR.matcher(accept);
-        if (matcher.find()) {
-          String headerValue = matcher.group(1);
-          double qualityFactor = matcher.group(2) != null ? Double.parseDouble(matcher.group(2)) : 1d;
-          acceptTree.add(new Accept(headerValue, qualityFactor));
-        }
-      }
-    }
-    for (Accept accept : acceptTree) {
-      acceptHeaders.add(accept.getValue());
+    final List<Element> elements = AcceptHeaderTokenizer.sortByQuality(AcceptHeaderTokenizer.tokenize(acceptHeader));
+    List<String> acceptHeaders = new ArrayList<String>(elements.size());
+    for (final Element element : elements) {
+      // invalid elements are kept as written so that content negotiation rejects them
+      acceptHeaders.add(element.getQuality() == AcceptHeaderTokenizer.INVALID_QUALITY || !element.isMediaRange() ?
+          element.getText() : element.getValue());
     }
     return acceptHeaders;
   }
 
+  /**
+   * Returns the headers of the request as a read-only view with case-insensitive header names.
+   * The lists of header values are built on first access only.
+   * @param req the servlet request
+   * @return the request headers
+   */
+  public static Map<String, List<String>> extractRequestHeaders(final HttpServletRequest req) {
+    return new ServletRequestHeaders(req);
+  }
+
   @SuppressWarnings("unchecked")
   public static Map<String, List<String>> extractHeaders(final HttpServletRequest req) {
     Map<String, List<String>> requestHeaders = new HashMap<String, List<String>>();
@@ -373,43 +362,4 @@ public class RestUtil {
     }
     return pathInfoString;
   }
-
-  private static TreeSet<Accept> getAcceptTree() {
-    TreeSet<Accept> treeSet = new TreeSet<Accept>(new Comparator<Accept>() {
-      @Override
-      public int compare(final Accept header1, final Accept header2) {
-        if (header1.getQuality() <= header2.getQuality()) {
-          return 1;
-        } else {
-          return -1;
-        }
-      }
-    });
-    return treeSet;
-  }
-
-  /*
-   * The class is used in order to sort headers by "q" parameter.
-   * The object of this class contains a value of the Accept header or Accept-Language header and value of the
-   * quality parameter.
-   */
-  private static class Accept {
-    private double quality;
-    private String value;
-
-    public Accept(final String headerValue, final double qualityFactor) {
-      value = headerValue;
-      quality = qualityFactor;
-    }
-
-    public String getValue() {
-      return value;
-    }
-
-    public double getQuality() {
-      return quality;
-    }
-
-  }
-
 }
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.servlet;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Read-only view on the headers of a {@link HttpServletRequest}.
+ * <p>The header names and values are taken over from the servlet request once, as plain
+ * strings; the value lists are only built when a header is accessed, and the map entries
+ * only when the map is iterated. Header names are case-insensitive; the entry set contains
+ * the header names as reported by the servlet request.</p>
+ * <p>The view may be read by several threads, for example by the parts of a batch request.</p>
+ */
+public final class ServletRequestHeaders extends AbstractMap<String, List<String>> {
+
+  private static final List<String> ABSENT = Collections.emptyList();
+
+  private final String[] names;
+  private final String[] values;
+  private final int size;
+  /** Value lists by lower-case header name; {@link #ABSENT} for headers not present */
+  private final Map<String, List<String>> cache = new ConcurrentHashMap<String, List<String>>();
+  private volatile Set<Entry<String, List<String>>> entries;
+
+  public ServletRequestHeaders(final HttpServletRequest request) {
+    String[] headerNames = new String[16];
+    String[] headerValues = new String[16];
+    int count = 0;
+    final Enumeration<?> nameEnumeration = request.getHeaderNames();
+    while (nameEnumeration != null && nameEnumeration.hasMoreElements()) {
+      final String name = (String) nameEnumeration.nextElement();
+      final Enumeration<?> valueEnumeration = request.getHeaders(name);
+      while (valueEnumeration != null && valueEnumeration.hasMoreElements()) {
+        if (count == headerNames.length) {
+          String[] grownNames = new String[count * 2];
+          String[] grownValues = new String[count * 2];
+          System.arraycopy(headerNames, 0, grownNames, 0, count);
+          System.arraycopy(headerValues, 0, grownValues, 0, count);
+          headerNames = grownNames;
+          headerValues = grownValues;
+        }
+        headerNames[count] = name;
+        headerValues[count] = (String) valueEnumeration.nextElement();
+        count++;
+      }
+    }
+    names = headerNames;
+    values = headerValues;
+    size = count;
+  }
+
+  @Override
+  public List<String> get(final Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    final String name = ((String) key).toLowerCase();
+    List<String> headerValues = cache.get(name);
+    if (headerValues == null) {
+      headerValues = collect((String) key);
+      cache.put(name, headerValues == null ? ABSENT : headerValues);
+    }
+    return headerValues == ABSENT ? null : headerValues;
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public Set<Entry<String, List<String>>> entrySet() {
+    Set<Entry<String, List<String>>> entries = this.entries;
+    if (entries == null) {
+      Map<String, List<String>> all = new LinkedHashMap<String, List<String>>();
+      Set<String> seen = new HashSet<String>();
+      for (int i = 0; i < size; i++) {
+        if (seen.add(names[i].toLowerCase())) {
+          all.put(names[i], get(names[i]));
+        }
+      }
+      entries = Collections.unmodifiableMap(all).entrySet();
+      this.entries = entries;
+    }
+    return entries;
+  }
+
+  private List<String> collect(final String name) {
+    List<String> headerValues = null;
+    String first = null;
+    for (int i = 0; i < size; i++) {
+      if (names[i].equalsIgnoreCase(name)) {
+        if (first == null) {
+          first = values[i];
+        } else {
+          if (headerValues == null) {
+            headerValues = new ArrayList<String>();
+            headerValues.add(first);
+          }
+          headerValues.add(values[i]);
+        }
+      }
+    }
+    if (headerValues != null) {
+      return Collections.unmodifiableList(headerValues);
+    }
+    return first == null ? null : Collections.singletonList(first);
+  }
+}
@@ -19,8 +19,10 @@
 package org.apache.olingo.odata2.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +49,34 @@ public class ODataRequestTest {
 
   }
 
+  @Test(expected = UnsupportedOperationException.class)
+  public void headersReadOnly() {
+    Map<String, List<String>> headers = new HashMap<String, List<String>>();
+    headers.put("a", Arrays.asList("b"));
+    ODataRequest.requestHeaders(headers).build().getRequestHeaders().put("c", Arrays.asList("d"));
+  }
+
+  @Test
+  public void fromRequestSharesAndCopiesOnWrite() {
+    Map<String, List<String>> queryParameters = new HashMap<String, List<String>>();
+    queryParameters.put("$top", Arrays.asList("1"));
+    ODataRequest parent = ODataRequest.newBuilder()
+        .requestHeaders(Collections.singletonMap("Accept", Arrays.asList("application/json")))
+        .allQueryParameters(queryParameters)
+        .build();
+
+    ODataRequest child = ODataRequest.fromRequest(parent).build();
+    assertSame(parent.getRequestHeaders().get("accept"), child.getRequestHeaders().get("accept"));
+    assertEquals(parent.getAllQueryParameters(), child.getAllQueryParameters());
+
+    ODataRequest changed = ODataRequest.fromRequest(parent)
+        .queryParameters(Collections.singletonMap("$skip", "2")).build();
+    assertEquals("2", changed.getQueryParameters().get("$skip"));
+    assertEquals("1", changed.getQueryParameters().get("$top"));
+    assertEquals(1, parent.getAllQueryParameters().size());
+    assertEquals(1, parent.getQueryParameters().size());
+  }
+
   void verifyHeader(final ODataRequest r) {
     assertEquals("lower", r.getRequestHeaderValue("lower"));
     assertEquals("lower", r.getRequestHeaderValue("LOWER"));
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.testutil.helper.StringHelper;
+import org.junit.Test;
+
+/**
+ *  
+ */
+public class RangeHandlerTest {
+
+  private static final String CONTENT = "0123456789";
+
+  private ODataResponse createResponse() {
+    return ODataResponse.status(HttpStatusCodes.OK)
+        .entity(new ByteArrayInputStream(CONTENT.getBytes()))
+        .contentHeader("text/plain")
+        .eTag("W/\"1\"")
+        .build();
+  }
+
+  @Test
+  public void noRange() throws Exception {
+    final ODataResponse response = new RangeHandler().handle(createResponse(), null, null);
+    assertEquals(HttpStatusCodes.OK, response.getStatus());
+    assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+    assertEquals(CONTENT, StringHelper.inputStreamToString((InputStream) response.getEntity()));
+  }
+
+  @Test
+  public void range() throws Exception {
+    final ODataResponse response = new RangeHandler().handle(createResponse(), "bytes=2-5", null);
+    assertEquals(HttpStatusCodes.PARTIAL_CONTENT, response.getStatus());
+    assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    assertEquals("4", response.getHeader(HttpHeaders.CONTENT_LENGTH));
+    assertEquals("text/plain", response.getContentHeader());
+    assertEquals("2345", StringHelper.inputStreamToString((InputStream) response.getEntity()));
+  }
+
+  @Test
+  public void openAndSuffixRange() throws Exception {
+    ODataResponse response = new RangeHandler().handle(createResponse(), "bytes=7-", null);
+    assertEquals("bytes 7-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    assertEquals("789", StringHelper.inputStreamToString((InputStream) response.getEntity()));
+
+    response = new RangeHandler().handle(createResponse(), "bytes=-4", null);
+    assertEquals("bytes 6-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    assertEquals("6789", StringHelper.inputStreamToString((InputStream) response.getEntity()));
+
+    response = new RangeHandler().handle(createResponse(), "bytes=5-100", null);
+    assertEquals("bytes 5-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+  }
+
+  @Test
+  public void unsatisfiableRange() throws Exception {
+    final ODataResponse response = new RangeHandler().handle(createResponse(), "bytes=10-", null);
+    assertEquals(HttpStatusCodes.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatus());
+    assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    assertNull(response.getEntity());
+    assertNull(response.getContentHeader());
+  }
+
+  @Test
+  public void ignoredRange() throws Exception {
+    for (final String range : new String[] { "bytes=1-2,4-5", "bytes=5-2", "bytes=a-b", "items=1-2", "bytes=-" }) {
+      assertEquals(range, HttpStatusCodes.OK, new RangeHandler().handle(createResponse(), range, null).getStatus());
+    }
+  }
+
+  @Test
+  public void ifRange() throws Exception {
+    assertEquals(HttpStatusCodes.PARTIAL_CONTENT,
+        new RangeHandler().handle(createResponse(), "bytes=1-2", "W/\"1\"").getStatus());
+    assertEquals(HttpStatusCodes.OK,
+        new RangeHandler().handle(createResponse(), "bytes=1-2", "W/\"2\"").getStatus());
+  }
+
+  @Test
+  public void unknownLength() throws Exception {
+    final ODataResponse original = ODataResponse.status(HttpStatusCodes.OK)
+        .entity(new BufferedInputStream(new ByteArrayInputStream(CONTENT.getBytes())))
+        .build();
+    assertSame(original, new RangeHandler().handle(original, "bytes=1-2", null));
+
+    final ODataResponse withLength = ODataResponse.fromResponse(original)
+        .header(HttpHeaders.CONTENT_LENGTH, "10").build();
+    assertEquals("12", StringHelper.inputStreamToString(
+        (InputStream) new RangeHandler().handle(withLength, "bytes=1-2", null).getEntity()));
+  }
+
+  @Test
+  public void parse() {
+    assertArrayEquals(new long[] { 0, 0 }, RangeHandler.parse("bytes=0-0", 10));
+    assertArrayEquals(new long[] { 0, 9 }, RangeHandler.parse("bytes=-20", 10));
+    assertArrayEquals(new long[0], RangeHandler.parse("bytes=-0", 10));
+    assertNull(RangeHandler.parse("bytes=1", 10));
+  }
+}
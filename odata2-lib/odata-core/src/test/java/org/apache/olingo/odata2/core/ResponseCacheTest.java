@@ -0,0 +1,364 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.olingo.odata2.api.ODataResponseCacheCallback;
+import org.apache.olingo.odata2.api.ODataServiceFactory;
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.edm.EdmEntityContainer;
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.processor.ODataContext;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.uri.NavigationPropertySegment;
+import org.apache.olingo.odata2.api.uri.NavigationSegment;
+import org.apache.olingo.odata2.api.uri.PathInfo;
+import org.apache.olingo.odata2.api.uri.PathSegment;
+import org.apache.olingo.odata2.api.uri.UriInfo;
+import org.apache.olingo.odata2.testutil.helper.StringHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class ResponseCacheTest {
+
+  private static final String CONTENT = "{\"d\":{\"results\":[]}}";
+  private static final String CONTENT_TYPE = "application/json;charset=utf-8";
+
+  private Map<String, Long> timesToLive;
+  private long maximumSize;
+  private String partition;
+  private ODataResponseCacheCallback callback;
+  private ResponseCache cache;
+  private EdmEntitySet employees;
+  private EdmEntitySet teams;
+
+  @Before
+  public void before() throws Exception {
+    timesToLive = new HashMap<String, Long>();
+    maximumSize = 10000;
+    partition = null;
+    cache = new ResponseCache();
+    callback = new ODataResponseCacheCallback() {
+      @Override
+      public long getTimeToLive(final EdmEntitySet entitySet) {
+        try {
+          final Long timeToLive = timesToLive.get(entitySet.getName());
+          return timeToLive == null ? 60000 : timeToLive;
+        } catch (final Exception e) {
+          throw new IllegalStateException(e);
+        }
+      }
+
+      @Override
+      public long getMaximumSize() {
+        return maximumSize;
+      }
+
+      @Override
+      public String getPartition(final ODataContext context) {
+        return partition;
+      }
+    };
+    employees = mockEntitySet("Employees");
+    teams = mockEntitySet("Teams");
+  }
+
+  private EdmEntitySet mockEntitySet(final String name) throws Exception {
+    EdmEntityContainer container = mock(EdmEntityContainer.class);
+    when(container.getName()).thenReturn("Container");
+    EdmEntitySet entitySet = mock(EdmEntitySet.class);
+    when(entitySet.getName()).thenReturn(name);
+    when(entitySet.getEntityContainer()).thenReturn(container);
+    return entitySet;
+  }
+
+  private UriInfo mockUriInfo(final EdmEntitySet entitySet, final EdmEntitySet expanded) {
+    UriInfo uriInfo = mock(UriInfo.class);
+    when(uriInfo.getStartEntitySet()).thenReturn(entitySet);
+    when(uriInfo.getTargetEntitySet()).thenReturn(entitySet);
+    when(uriInfo.getNavigationSegments()).thenReturn(Collections.<NavigationSegment> emptyList());
+    if (expanded == null) {
+      when(uriInfo.getExpand()).thenReturn(Collections.<ArrayList<NavigationPropertySegment>> emptyList());
+    } else {
+      NavigationPropertySegment segment = mock(NavigationPropertySegment.class);
+      when(segment.getTargetEntitySet()).thenReturn(expanded);
+      ArrayList<NavigationPropertySegment> expand = new ArrayList<NavigationPropertySegment>();
+      expand.add(segment);
+      when(uriInfo.getExpand()).thenReturn(Collections.singletonList(expand));
+    }
+    return uriInfo;
+  }
+
+  private ODataContext mockContext(final String path, final String ifNoneMatch) throws Exception {
+    PathSegment segment = mock(PathSegment.class);
+    when(segment.getPath()).thenReturn(path);
+    PathInfo pathInfo = mock(PathInfo.class);
+    when(pathInfo.getServiceRoot()).thenReturn(new URI("http://localhost/service/"));
+    when(pathInfo.getODataSegments()).thenReturn(Collections.singletonList(segment));
+    ODataContext context = mock(ODataContext.class);
+    when(context.getPathInfo()).thenReturn(pathInfo);
+    when(context.getRequestHeader(HttpHeaders.IF_NONE_MATCH)).thenReturn(ifNoneMatch);
+    return context;
+  }
+
+  private ResponseCache.Lookup lookup(final String path, final UriInfo uriInfo) throws Exception {
+    return cache.lookup(callback, mockContext(path, null), uriInfo, Collections.<String, List<String>> emptyMap(),
+        CONTENT_TYPE);
+  }
+
+  private ODataResponse createResponse(final String content) {
+    return ODataResponse.status(HttpStatusCodes.OK)
+        .entity(new ByteArrayInputStream(content.getBytes()))
+        .contentHeader(CONTENT_TYPE)
+        .build();
+  }
+
+  private ODataResponse storeAndGet(final ResponseCache.Lookup lookup) throws Exception {
+    final ODataResponse stored = lookup.store(createResponse(CONTENT));
+    assertEquals(CONTENT, StringHelper.inputStreamToString((InputStream) stored.getEntity()));
+    return stored;
+  }
+
+  @Test
+  public void hit() throws Exception {
+    final UriInfo uriInfo = mockUriInfo(employees, null);
+    ResponseCache.Lookup lookup = lookup("Employees", uriInfo);
+    assertNull(lookup.getResponse(null));
+    final ODataResponse stored = storeAndGet(lookup);
+    assertNotNull(stored.getETag());
+
+    final ODataResponse cached = lookup("Employees", uriInfo).getResponse(null);
+    assertEquals(HttpStatusCodes.OK, cached.getStatus());
+    assertEquals(CONTENT_TYPE, cached.getContentHeader());
+    assertEquals(stored.getETag(), cached.getETag());
+    assertEquals(CONTENT, StringHelper.inputStreamToString((InputStream) cached.getEntity()));
+
+    assertNull(lookup("Teams", mockUriInfo(teams, null)).getResponse(null));
+  }
+
+  @Test
+  public void notModified() throws Exception {
+    final UriInfo uriInfo = mockUriInfo(employees, null);
+    final String eTag = storeAndGet(lookup("Employees", uriInfo)).getETag();
+    final ResponseCache.Lookup lookup = lookup("Employees", uriInfo);
+
+    ODataResponse response = lookup.getResponse(eTag);
+    assertEquals(HttpStatusCodes.NOT_MODIFIED, response.getStatus());
+    assertEquals(eTag, response.getETag());
+    assertNull(response.getEntity());
+    assertEquals(HttpStatusCodes.NOT_MODIFIED, lookup.getResponse("W/\"x\", " + eTag).getStatus());
+    assertEquals(HttpStatusCodes.NOT_MODIFIED, lookup.getResponse("*").getStatus());
+    assertEquals(HttpStatusCodes.OK, lookup.getResponse("W/\"x\"").getStatus());
+  }
+
+  @Test
+  public void providedETag() throws Exception {
+    final ODataResponse stored = lookup("Employees('1')", mockUriInfo(employees, null))
+        .store(ODataResponse.fromResponse(createResponse(CONTENT)).eTag("W/\"1\"").build());
+    assertEquals("W/\"1\"", stored.getETag());
+  }
+
+  @Test
+  public void invalidate() throws Exception {
+    storeAndGet(lookup("Employees", mockUriInfo(employees, null)));
+    storeAndGet(lookup("Teams", mockUriInfo(teams, employees)));
+    storeAndGet(lookup("Teams('1')", mockUriInfo(teams, null)));
+    assertEquals(3, cache.getEntryCount());
+
+    cache.invalidate(mockUriInfo(employees, null));
+    assertEquals(1, cache.getEntryCount());
+    assertNotNull(lookup("Teams('1')", mockUriInfo(teams, null)).getResponse(null));
+  }
+
+  @Test
+  public void concurrentModification() throws Exception {
+    final ResponseCache.Lookup lookup = lookup("Employees", mockUriInfo(employees, null));
+    cache.invalidate(mockUriInfo(teams, null));
+    storeAndGet(lookup);
+    assertEquals(0, cache.getEntryCount());
+  }
+
+  @Test
+  public void notCacheable() throws Exception {
+    timesToLive.put("Teams", 0L);
+    assertNull(lookup("Teams", mockUriInfo(teams, null)));
+    assertNull(lookup("Employees", mockUriInfo(employees, teams)));
+    assertNotNull(lookup("Employees", mockUriInfo(employees, null)));
+
+    final ResponseCache.Lookup lookup = lookup("Employees", mockUriInfo(employees, null));
+    final ODataResponse notFound = ODataResponse.status(HttpStatusCodes.NOT_FOUND).build();
+    assertSame(notFound, lookup.store(notFound));
+    assertEquals(0, cache.getEntryCount());
+  }
+
+  @Test
+  public void expired() throws Exception {
+    timesToLive.put("Employees", 1L);
+    final UriInfo uriInfo = mockUriInfo(employees, null);
+    storeAndGet(lookup("Employees", uriInfo));
+    Thread.sleep(5);
+    assertNull(lookup("Employees", uriInfo).getResponse(null));
+    assertEquals(0, cache.getEntryCount());
+  }
+
+  @Test
+  public void evictLeastRecentlyUsed() throws Exception {
+    maximumSize = 700;
+    final UriInfo uriInfo = mockUriInfo(employees, null);
+    storeAndGet(lookup("Employees('1')", uriInfo));
+    storeAndGet(lookup("Employees('2')", uriInfo));
+    assertNotNull(lookup("Employees('1')", uriInfo).getResponse(null));
+    storeAndGet(lookup("Employees('3')", uriInfo));
+
+    assertTrue(cache.getEntryCount() < 3);
+    assertNotNull(lookup("Employees('3')", uriInfo).getResponse(null));
+    assertNull(lookup("Employees('2')", uriInfo).getResponse(null));
+  }
+
+  @Test
+  public void tooLarge() throws Exception {
+    maximumSize = 10;
+    final ODataResponse stored = lookup("Employees", mockUriInfo(employees, null)).store(createResponse(CONTENT));
+    assertEquals(CONTENT, StringHelper.inputStreamToString((InputStream) stored.getEntity()));
+    assertNull(stored.getETag());
+    assertEquals(0, cache.getEntryCount());
+  }
+
+  @Test
+  public void sharedPerCallback() throws Exception {
+    final ODataResponseCacheCallback callback = mock(ODataResponseCacheCallback.class);
+    final ODataServiceFactory factory = mock(ODataServiceFactory.class);
+    when(factory.getCallback(ODataResponseCacheCallback.class)).thenReturn(callback);
+    assertSame(callback, ResponseCache.getCallback(factory));
+    assertSame(ResponseCache.getInstance(callback), ResponseCache.getInstance(callback));
+    assertNull(ResponseCache.getCallback(mock(ODataServiceFactory.class)));
+    assertNull(ResponseCache.getCallback(null));
+    assertNull(ResponseCache.getInstance(null));
+  }
+
+  @Test
+  public void credentials() throws Exception {
+    final UriInfo uriInfo = mockUriInfo(employees, null);
+    for (final String header : new String[] { HttpHeaders.AUTHORIZATION, HttpHeaders.COOKIE }) {
+      final ODataContext context = mockContext("Employees", null);
+      when(context.getRequestHeader(header)).thenReturn("secret");
+      assertNull(cache.lookup(callback, context, uriInfo, Collections.<String, List<String>> emptyMap(),
+          CONTENT_TYPE));
+    }
+
+    final HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getUserPrincipal()).thenReturn(mock(Principal.class));
+    final ODataContext context = mockContext("Employees", null);
+    when(context.getParameter(ODataContext.HTTP_SERVLET_REQUEST_OBJECT)).thenReturn(request);
+    assertNull(cache.lookup(callback, context, uriInfo, Collections.<String, List<String>> emptyMap(),
+        CONTENT_TYPE));
+  }
+
+  @Test
+  public void batchPartWithCredentials() throws Exception {
+    final UriInfo uriInfo = mockUriInfo(employees, null);
+    final HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getUserPrincipal()).thenReturn(mock(Principal.class));
+    final ODataContext batchContext = mockContext("$batch", null);
+    when(batchContext.getParameter(ODataContext.HTTP_SERVLET_REQUEST_OBJECT)).thenReturn(request);
+    final ODataContext partContext = mockContext("Employees", null);
+    when(partContext.isInBatchMode()).thenReturn(true);
+    when(partContext.getBatchParentContext()).thenReturn(batchContext);
+    assertNull(cache.lookup(callback, partContext, uriInfo, Collections.<String, List<String>> emptyMap(),
+        CONTENT_TYPE));
+
+    final List<ODataContext> partitionContexts = new ArrayList<ODataContext>();
+    callback = new ODataResponseCacheCallback() {
+      @Override
+      public long getTimeToLive(final EdmEntitySet entitySet) {
+        return 60000;
+      }
+
+      @Override
+      public long getMaximumSize() {
+        return maximumSize;
+      }
+
+      @Override
+      public String getPartition(final ODataContext context) {
+        partitionContexts.add(context);
+        return context == batchContext ? "alice" : null;
+      }
+    };
+    storeAndGet(cache.lookup(callback, partContext, uriInfo, Collections.<String, List<String>> emptyMap(),
+        CONTENT_TYPE));
+    assertEquals(Collections.singletonList(batchContext), partitionContexts);
+    assertEquals(1, cache.getEntryCount());
+    assertNull(lookup("Employees", uriInfo).getResponse(null));
+  }
+
+  @Test
+  public void clientHeadersNotCached() throws Exception {
+    final UriInfo uriInfo = mockUriInfo(employees, null);
+    lookup("Employees", uriInfo).store(ODataResponse.fromResponse(createResponse(CONTENT))
+        .header(HttpHeaders.CONTENT_LANGUAGE, "en")
+        .header("Set-Cookie", "session=secret")
+        .build());
+
+    final ODataResponse cached = lookup("Employees", uriInfo).getResponse(null);
+    assertEquals(CONTENT_TYPE, cached.getContentHeader());
+    assertEquals("en", cached.getHeader(HttpHeaders.CONTENT_LANGUAGE));
+    assertNotNull(cached.getETag());
+    assertNull(cached.getHeader("Set-Cookie"));
+  }
+
+  @Test
+  public void partition() throws Exception {
+    final UriInfo uriInfo = mockUriInfo(employees, null);
+    final ODataContext context = mockContext("Employees", null);
+    when(context.getRequestHeader(HttpHeaders.AUTHORIZATION)).thenReturn("secret");
+    partition = "alice";
+    storeAndGet(cache.lookup(callback, context, uriInfo, Collections.<String, List<String>> emptyMap(),
+        CONTENT_TYPE));
+
+    assertNotNull(lookup("Employees", uriInfo).getResponse(null));
+    partition = "bob";
+    assertNull(lookup("Employees", uriInfo).getResponse(null));
+    partition = null;
+    assertNull(lookup("Employees", uriInfo).getResponse(null));
+  }
+}
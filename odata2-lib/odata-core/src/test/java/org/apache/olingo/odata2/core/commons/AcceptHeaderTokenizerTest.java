@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.olingo.odata2.core.commons.AcceptHeaderTokenizer.Element;
+import org.apache.olingo.odata2.testutil.fit.BaseTest;
+import org.junit.Test;
+
+/**
+ *  
+ */
+public class AcceptHeaderTokenizerTest extends BaseTest {
+
+  @Test
+  public void tokenize() {
+    List<Element> elements = AcceptHeaderTokenizer.tokenize(
+        "text/html, application/xml;odata=verbose ; q=0.9;ext=1,, */*;Q=0.8 ");
+    assertEquals(3, elements.size());
+    assertEquals("text/html", elements.get(0).getValue());
+    assertEquals(1f, elements.get(0).getQuality(), 0);
+    assertEquals("application/xml;odata=verbose", elements.get(1).getValue());
+    assertEquals("application/xml;odata=verbose ; q=0.9;ext=1", elements.get(1).getText());
+    assertEquals(0.9f, elements.get(1).getQuality(), 0);
+    assertEquals(1, elements.get(1).getParameterCount());
+    assertEquals("*/*", elements.get(2).getValue());
+    assertEquals(0.8f, elements.get(2).getQuality(), 0);
+
+    assertTrue(AcceptHeaderTokenizer.tokenize(null).isEmpty());
+    assertTrue(AcceptHeaderTokenizer.tokenize(" , ").isEmpty());
+  }
+
+  @Test
+  public void quotedString() {
+    List<Element> elements = AcceptHeaderTokenizer.tokenize("text/plain;x=\"a,b;q=0.1\";q=0.5, a/b");
+    assertEquals(2, elements.size());
+    assertEquals("text/plain;x=\"a,b;q=0.1\"", elements.get(0).getValue());
+    assertEquals(0.5f, elements.get(0).getQuality(), 0);
+  }
+
+  @Test
+  public void sortByQuality() {
+    List<Element> elements = AcceptHeaderTokenizer.sortByQuality(
+        AcceptHeaderTokenizer.tokenize("a/a;q=0.1, b/b, c/c;q=0.5, d/d;q=1.0, e/e;q=0.5"));
+    assertEquals("b/b", elements.get(0).getValue());
+    assertEquals("d/d", elements.get(1).getValue());
+    assertEquals("c/c", elements.get(2).getValue());
+    assertEquals("e/e", elements.get(3).getValue());
+    assertEquals("a/a", elements.get(4).getValue());
+  }
+
+  @Test
+  public void quality() {
+    assertEquals(1f, AcceptHeaderTokenizer.parseQuality("1"), 0);
+    assertEquals(1f, AcceptHeaderTokenizer.parseQuality("1.000"), 0);
+    assertEquals(0f, AcceptHeaderTokenizer.parseQuality("0"), 0);
+    assertEquals(0.012f, AcceptHeaderTokenizer.parseQuality("0.012"), 0);
+    assertEquals(0.5f, AcceptHeaderTokenizer.parseQuality("0.5"), 0);
+    for (String invalid : new String[] { null, "", "1.", "1.5", "1.0001", "0.1234", "2", "0,5", " 0.5", "x" }) {
+      assertEquals(invalid, AcceptHeaderTokenizer.INVALID_QUALITY, AcceptHeaderTokenizer.parseQuality(invalid), 0);
+    }
+  }
+
+  @Test
+  public void mediaRange() {
+    assertTrue(AcceptHeaderTokenizer.tokenize("application/json").get(0).isMediaRange());
+    assertTrue(AcceptHeaderTokenizer.tokenize("*/*;q=0.1").get(0).isMediaRange());
+    assertTrue(AcceptHeaderTokenizer.tokenize("application/atom+xml ;type=entry").get(0).isMediaRange());
+    assertFalse(AcceptHeaderTokenizer.tokenize("application").get(0).isMediaRange());
+    assertFalse(AcceptHeaderTokenizer.tokenize("appli cation/*").get(0).isMediaRange());
+    assertFalse(AcceptHeaderTokenizer.tokenize("/json").get(0).isMediaRange());
+    assertFalse(AcceptHeaderTokenizer.tokenize("a/b/c").get(0).isMediaRange());
+  }
+
+  @Test
+  public void languageRange() {
+    assertTrue(AcceptHeaderTokenizer.tokenize("de").get(0).isLanguageRange());
+    assertTrue(AcceptHeaderTokenizer.tokenize("*").get(0).isLanguageRange());
+    assertTrue(AcceptHeaderTokenizer.tokenize("en-US;q=0.5").get(0).isLanguageRange());
+    assertTrue(AcceptHeaderTokenizer.tokenize("es-419").get(0).isLanguageRange());
+    assertFalse(AcceptHeaderTokenizer.tokenize("en_US").get(0).isLanguageRange());
+    assertFalse(AcceptHeaderTokenizer.tokenize("en-").get(0).isLanguageRange());
+    assertFalse(AcceptHeaderTokenizer.tokenize("toolonglanguage").get(0).isLanguageRange());
+  }
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.olingo.odata2.api.exception.ODataBadRequestException;
+import org.apache.olingo.odata2.api.exception.ODataUnsupportedMediaTypeException;
+import org.apache.olingo.odata2.testutil.helper.StringHelper;
+import org.junit.Test;
+
+/**
+ *  
+ */
+public class RequestDecompressorTest {
+
+  private static final String CONTENT = "{\"d\":{\"Name\":\"Room 1\",\"Seats\":4}}";
+
+  private static byte[] gzip(final byte[] data) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    GZIPOutputStream gzip = new GZIPOutputStream(out);
+    gzip.write(data);
+    gzip.close();
+    return out.toByteArray();
+  }
+
+  private static byte[] deflate(final byte[] data) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    DeflaterOutputStream deflate = new DeflaterOutputStream(out);
+    deflate.write(data);
+    deflate.close();
+    return out.toByteArray();
+  }
+
+  private static long readAll(final InputStream stream) throws IOException {
+    final byte[] buffer = new byte[8192];
+    long total = 0;
+    int count;
+    while ((count = stream.read(buffer)) >= 0) {
+      total += count;
+    }
+    return total;
+  }
+
+  @Test
+  public void notEncoded() throws Exception {
+    final InputStream body = new ByteArrayInputStream(CONTENT.getBytes("utf-8"));
+    final RequestDecompressor decompressor = new RequestDecompressor(1000, 10);
+    assertSame(body, decompressor.decompress(body, null));
+    assertSame(body, decompressor.decompress(body, "identity"));
+  }
+
+  @Test
+  public void gzipAndDeflate() throws Exception {
+    final RequestDecompressor decompressor = new RequestDecompressor(1000, 10);
+    assertEquals(CONTENT, StringHelper.inputStreamToString(decompressor.decompress(
+        new ByteArrayInputStream(gzip(CONTENT.getBytes("utf-8"))), "gzip")));
+    assertEquals(CONTENT, StringHelper.inputStreamToString(decompressor.decompress(
+        new ByteArrayInputStream(deflate(CONTENT.getBytes("utf-8"))), "Deflate")));
+  }
+
+  @Test(expected = ODataUnsupportedMediaTypeException.class)
+  public void unsupportedEncoding() throws Exception {
+    new RequestDecompressor(1000, 10).decompress(new ByteArrayInputStream(new byte[0]), "br");
+  }
+
+  @Test(expected = ODataBadRequestException.class)
+  public void invalidGzip() throws Exception {
+    new RequestDecompressor(1000, 10).decompress(new ByteArrayInputStream(CONTENT.getBytes("utf-8")), "gzip");
+  }
+
+  @Test
+  public void maxSize() throws Exception {
+    final InputStream body = new RequestDecompressor(1000, 1000).decompress(
+        new ByteArrayInputStream(gzip(new byte[1001])), "gzip");
+    try {
+      readAll(body);
+      fail("Expected IOException");
+    } catch (IOException e) {
+      assertEquals("Decompressed request body exceeds 1000 bytes.", e.getMessage());
+    }
+  }
+
+  @Test
+  public void maxRatio() throws Exception {
+    final byte[] zeros = new byte[5 * 1024 * 1024];
+    assertEquals(zeros.length, readAll(new RequestDecompressor(Long.MAX_VALUE, 10000).decompress(
+        new ByteArrayInputStream(gzip(zeros)), "gzip")));
+    try {
+      readAll(new RequestDecompressor(Long.MAX_VALUE, 100).decompress(
+          new ByteArrayInputStream(gzip(zeros)), "gzip"));
+      fail("Expected IOException");
+    } catch (IOException e) {
+      assertEquals("Compression ratio of the request body exceeds 100.", e.getMessage());
+    }
+  }
+}
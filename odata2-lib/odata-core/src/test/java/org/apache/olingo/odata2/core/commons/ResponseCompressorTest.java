@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.servlet.ServletConfig;
+
+import org.apache.olingo.odata2.api.ODataServiceFactory;
+import org.apache.olingo.odata2.api.commons.HttpContentType;
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.testutil.helper.StringHelper;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ *  
+ */
+public class ResponseCompressorTest {
+
+  private static String createContent(final int length) {
+    StringBuilder content = new StringBuilder();
+    while (content.length() < length) {
+      content.append("<entry>").append(content.length()).append("</entry>");
+    }
+    return content.toString();
+  }
+
+  private static ODataResponse createResponse(final String contentType, final Object entity) {
+    return ODataResponse.status(HttpStatusCodes.OK).contentHeader(contentType).entity(entity).build();
+  }
+
+  @Test
+  public void negotiate() {
+    assertNull(ResponseCompressor.negotiate(null));
+    assertNull(ResponseCompressor.negotiate("identity"));
+    assertNull(ResponseCompressor.negotiate("gzip;q=0, deflate;q=0"));
+    assertEquals(ResponseCompressor.GZIP, ResponseCompressor.negotiate("gzip, deflate"));
+    assertEquals(ResponseCompressor.GZIP, ResponseCompressor.negotiate("deflate, GZIP"));
+    assertEquals(ResponseCompressor.GZIP, ResponseCompressor.negotiate("*"));
+    assertEquals(ResponseCompressor.DEFLATE, ResponseCompressor.negotiate("gzip;q=0.5, deflate"));
+    assertEquals(ResponseCompressor.DEFLATE, ResponseCompressor.negotiate("deflate, *;q=0"));
+  }
+
+  @Test
+  public void gzipStream() throws Exception {
+    final String content = createContent(100000);
+    final ODataResponse response = new ResponseCompressor(1024, 6).compress(
+        createResponse(HttpContentType.APPLICATION_ATOM_XML_FEED_UTF8,
+            new ByteArrayInputStream(content.getBytes("utf-8"))), "gzip, deflate");
+
+    assertEquals(ResponseCompressor.GZIP, response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+    assertEquals(content, StringHelper.inputStreamToString(new GZIPInputStream((InputStream) response.getEntity())));
+  }
+
+  @Test
+  public void deflateString() throws Exception {
+    final String content = createContent(5000);
+    final ODataResponse response = new ResponseCompressor(1024, 1).compress(
+        ODataResponse.fromResponse(createResponse(HttpContentType.APPLICATION_JSON, content))
+            .header(HttpHeaders.CONTENT_LENGTH, "5000").header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build(),
+        "deflate");
+
+    assertEquals(ResponseCompressor.DEFLATE, response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertNull(response.getHeader(HttpHeaders.CONTENT_LENGTH));
+    assertEquals(HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+    assertEquals(content,
+        StringHelper.inputStreamToString(new InflaterInputStream((InputStream) response.getEntity())));
+  }
+
+  @Test
+  public void belowMinimumSize() throws Exception {
+    final ODataResponse response = new ResponseCompressor(1024, 6).compress(
+        createResponse(HttpContentType.APPLICATION_XML, new ByteArrayInputStream("<a/>".getBytes("utf-8"))), "gzip");
+
+    assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+    assertEquals("<a/>", StringHelper.inputStreamToString((InputStream) response.getEntity()));
+  }
+
+  @Test
+  public void notCompressed() throws Exception {
+    ResponseCompressor compressor = new ResponseCompressor(0, 6);
+    compressor.setLevel(HttpContentType.APPLICATION_JSON, 0);
+    final String content = createContent(2000);
+
+    ODataResponse original = createResponse("image/png", new ByteArrayInputStream(new byte[2000]));
+    assertSame(original, compressor.compress(original, "gzip"));
+    original = createResponse(HttpContentType.APPLICATION_JSON_UTF8, content);
+    assertSame(original, compressor.compress(original, "gzip"));
+    original = ODataResponse.status(HttpStatusCodes.NO_CONTENT).build();
+    assertSame(original, compressor.compress(original, "gzip"));
+
+    final ODataResponse response = compressor.compress(createResponse(HttpContentType.TEXT_PLAIN, content), null);
+    assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+  }
+
+  @Test
+  public void create() throws Exception {
+    ServletConfig config = Mockito.mock(ServletConfig.class);
+    assertNull(ResponseCompressor.create(config));
+
+    Mockito.when(config.getInitParameter(ODataServiceFactory.COMPRESSION_LABEL)).thenReturn("true");
+    Mockito.when(config.getInitParameter(ODataServiceFactory.COMPRESSION_MIN_SIZE_LABEL)).thenReturn("10");
+    Mockito.when(config.getInitParameter(ODataServiceFactory.COMPRESSION_LEVELS_LABEL))
+        .thenReturn("application/json=0, image/svg+xml=9");
+    ResponseCompressor compressor = ResponseCompressor.create(config);
+
+    final String content = createContent(20);
+    assertEquals(ResponseCompressor.GZIP, compressor.compress(createResponse("image/svg+xml", content), "gzip")
+        .getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertNull(compressor.compress(createResponse(HttpContentType.APPLICATION_JSON, content), "gzip")
+        .getHeader(HttpHeaders.CONTENT_ENCODING));
+  }
+}
@@ -19,24 +19,39 @@
 package org.apache.olingo.odata2.core.edm.provider;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.olingo.odata2.api.edm.EdmAssociation;
 import org.apache.olingo.odata2.api.edm.EdmComplexType;
+import org.apache.olingo.odata2.api.edm.EdmEntityContainer;
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
 import org.apache.olingo.odata2.api.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmNavigationProperty;
 import org.apache.olingo.odata2.api.edm.FullQualifiedName;
 import org.apache.olingo.odata2.api.edm.provider.AliasInfo;
 import org.apache.olingo.odata2.api.edm.provider.Association;
+import org.apache.olingo.odata2.api.edm.provider.AssociationSet;
 import org.apache.olingo.odata2.api.edm.provider.ComplexType;
 import org.apache.olingo.odata2.api.edm.provider.EdmProvider;
 import org.apache.olingo.odata2.api.edm.provider.EntityContainerInfo;
+import org.apache.olingo.odata2.api.edm.provider.EntitySet;
 import org.apache.olingo.odata2.api.edm.provider.EntityType;
+import org.apache.olingo.odata2.api.edm.provider.FunctionImport;
+import org.apache.olingo.odata2.api.edm.provider.Schema;
+import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.testutil.fit.BaseTest;
+import org.apache.olingo.odata2.testutil.mock.EdmTestProvider;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -132,4 +147,133 @@ public class EdmImplProvTest extends BaseTest {
   public void testDefaultEntityContainer() throws EdmException {
     assertEquals(edm.getEntityContainer("Container1"), edm.getDefaultEntityContainer());
   }
+
+  @Test
+  public void compiledModelDoesNotCallProvider() throws Exception {
+    final LockableEdmProvider provider = new LockableEdmProvider();
+    final EdmImplProv compiledEdm = new EdmImplProv(provider).compile();
+    provider.locked = true;
+
+    final EdmEntityContainer container = compiledEdm.getDefaultEntityContainer();
+    assertSame(container, compiledEdm.getEntityContainer("Container1"));
+    final EdmEntitySet employees = container.getEntitySet("Employees");
+    assertSame(employees, compiledEdm.getEntitySets().get(0));
+    final EdmEntityType employee = employees.getEntityType();
+    assertSame(employee, compiledEdm.getEntityType("RefScenario", "Employee"));
+    assertEquals("EmployeeId", employee.getKeyProperties().get(0).getName());
+    assertNotNull(employee.getProperty("Location"));
+    assertNotNull(compiledEdm.getComplexType("RefScenario", "c_Location").getProperty("City"));
+
+    final EdmNavigationProperty navigationProperty = (EdmNavigationProperty) employee.getProperty("ne_Manager");
+    final EdmEntitySet managers = employees.getRelatedEntitySet(navigationProperty);
+    assertSame(container.getEntitySet("Managers"), managers);
+    assertSame(managers, employees.getRelatedEntitySet(navigationProperty));
+
+    assertNotNull(container.getFunctionImport("EmployeeSearch"));
+    assertNotNull(compiledEdm.getEntityContainer("Container2").getEntitySet("Photos"));
+    assertEquals(compiledEdm.getEntitySets().size(), compiledEdm.getServiceMetadata().getEntitySetInfos().size());
+  }
+
+  @Test(expected = EdmException.class)
+  public void compileWithoutSchemas() throws Exception {
+    EdmProvider edmProvider = mock(EdmProvider.class);
+    when(edmProvider.getSchemas()).thenReturn(null);
+    new EdmImplProv(edmProvider).compile();
+  }
+
+  @Test
+  public void concurrentAccessReturnsSameInstances() throws Exception {
+    final EdmImplProv sharedEdm = new EdmImplProv(new EdmTestProvider());
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<EdmEntitySet>> futures = new ArrayList<Future<EdmEntitySet>>();
+      for (int i = 0; i < 32; i++) {
+        futures.add(executor.submit(new Callable<EdmEntitySet>() {
+          @Override
+          public EdmEntitySet call() throws Exception {
+            final EdmEntitySet employees = sharedEdm.getDefaultEntityContainer().getEntitySet("Employees");
+            final EdmNavigationProperty navigationProperty =
+                (EdmNavigationProperty) employees.getEntityType().getProperty("ne_Team");
+            return employees.getRelatedEntitySet(navigationProperty);
+          }
+        }));
+      }
+      final EdmEntitySet teams = sharedEdm.getDefaultEntityContainer().getEntitySet("Teams");
+      for (Future<EdmEntitySet> future : futures) {
+        assertSame(teams, future.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Provider that fails on every call once it is locked.
+   */
+  private static class LockableEdmProvider extends EdmTestProvider {
+
+    private boolean locked;
+
+    private void checkUnlocked() {
+      if (locked) {
+        throw new IllegalStateException("provider called after compilation");
+      }
+    }
+
+    @Override
+    public List<AliasInfo> getAliasInfos() {
+      checkUnlocked();
+      return super.getAliasInfos();
+    }
+
+    @Override
+    public List<Schema> getSchemas() throws ODataException {
+      checkUnlocked();
+      return super.getSchemas();
+    }
+
+    @Override
+    public EntityType getEntityType(final FullQualifiedName edmFQName) throws ODataException {
+      checkUnlocked();
+      return super.getEntityType(edmFQName);
+    }
+
+    @Override
+    public ComplexType getComplexType(final FullQualifiedName edmFQName) throws ODataException {
+      checkUnlocked();
+      return super.getComplexType(edmFQName);
+    }
+
+    @Override
+    public Association getAssociation(final FullQualifiedName edmFQName) throws ODataException {
+      checkUnlocked();
+      return super.getAssociation(edmFQName);
+    }
+
+    @Override
+    public EntityContainerInfo getEntityContainerInfo(final String name) throws ODataException {
+      checkUnlocked();
+      return super.getEntityContainerInfo(name);
+    }
+
+    @Override
+    public EntitySet getEntitySet(final String entityContainer, final String name) throws ODataException {
+      checkUnlocked();
+      return super.getEntitySet(entityContainer, name);
+    }
+
+    @Override
+    public AssociationSet getAssociationSet(final String entityContainer, final FullQualifiedName association,
+        final String sourceEntitySetName, final String sourceEntitySetRole) throws ODataException {
+      checkUnlocked();
+      return super.getAssociationSet(entityContainer, association, sourceEntitySetName, sourceEntitySetRole);
+    }
+
+    @Override
+    public FunctionImport getFunctionImport(final String entityContainer, final String name)
+        throws ODataException {
+      checkUnlocked();
+      return super.getFunctionImport(entityContainer, name);
+    }
+  }
 }
@@ -24,10 +24,13 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -84,6 +87,7 @@ public class EdmServiceMetadataImplProvTest extends BaseTest {
 
     EdmProvider edmProvider = mock(EdmProvider.class);
     when(edmProvider.getSchemas()).thenReturn(schemas);
+    when(edmProvider.getEntityContainers()).thenCallRealMethod();
 
     EdmServiceMetadata serviceMetadata = new EdmServiceMetadataImplProv(edmProvider);
 
@@ -104,6 +108,7 @@ public class EdmServiceMetadataImplProvTest extends BaseTest {
 
     EdmProvider edmProvider = mock(EdmProvider.class);
     when(edmProvider.getSchemas()).thenReturn(schemas);
+    when(edmProvider.getEntityContainers()).thenCallRealMethod();
 
     EdmServiceMetadata serviceMetadata = new EdmServiceMetadataImplProv(edmProvider);
 
@@ -112,6 +117,22 @@ public class EdmServiceMetadataImplProvTest extends BaseTest {
     assertTrue(infos.isEmpty());
   }
 
+  @Test
+  public void entitySetInfosWithoutSchemas() throws Exception {
+    EntityContainer container = new EntityContainer().setDefaultEntityContainer(true).setName("Container")
+        .setEntitySets(Arrays.asList(new EntitySet().setName("Employees")));
+    EdmProvider edmProvider = mock(EdmProvider.class);
+    when(edmProvider.getEntityContainers()).thenReturn(Arrays.asList(container));
+
+    EdmImplProv edm = new EdmImplProv(edmProvider);
+    List<EdmEntitySetInfo> infos = edm.getServiceMetadata().getEntitySetInfos();
+    assertEquals(1, infos.size());
+    assertEquals("Employees", infos.get(0).getEntitySetName());
+    assertEquals("Employees", edm.getEntitySets().get(0).getName());
+    assertTrue(edm.getFunctionImports().isEmpty());
+    verify(edmProvider, never()).getSchemas();
+  }
+
   @Test
   public void oneEntitySetOneContainerForInfo() throws Exception {
     String entitySetUriString = new URI("Employees").toASCIIString();
@@ -130,6 +151,7 @@ public class EdmServiceMetadataImplProvTest extends BaseTest {
 
     EdmProvider edmProvider = mock(EdmProvider.class);
     when(edmProvider.getSchemas()).thenReturn(schemas);
+    when(edmProvider.getEntityContainers()).thenCallRealMethod();
 
     EdmServiceMetadata serviceMetadata = new EdmServiceMetadataImplProv(edmProvider);
 
@@ -160,6 +182,7 @@ public class EdmServiceMetadataImplProvTest extends BaseTest {
 
     EdmProvider edmProvider = mock(EdmProvider.class);
     when(edmProvider.getSchemas()).thenReturn(schemas);
+    when(edmProvider.getEntityContainers()).thenCallRealMethod();
 
     EdmServiceMetadata serviceMetadata = new EdmServiceMetadataImplProv(edmProvider);
 
@@ -191,6 +214,7 @@ public class EdmServiceMetadataImplProvTest extends BaseTest {
 
     EdmProvider edmProvider = mock(EdmProvider.class);
     when(edmProvider.getSchemas()).thenReturn(schemas);
+    when(edmProvider.getEntityContainers()).thenCallRealMethod();
 
     EdmServiceMetadata serviceMetadata = new EdmServiceMetadataImplProv(edmProvider);
 
@@ -226,6 +250,7 @@ public class EdmServiceMetadataImplProvTest extends BaseTest {
 
     EdmProvider edmProvider = mock(EdmProvider.class);
     when(edmProvider.getSchemas()).thenReturn(schemas);
+    when(edmProvider.getEntityContainers()).thenCallRealMethod();
 
     EdmServiceMetadata serviceMetadata = new EdmServiceMetadataImplProv(edmProvider);
 
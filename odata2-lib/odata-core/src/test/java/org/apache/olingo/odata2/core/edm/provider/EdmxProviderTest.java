@@ -21,8 +21,17 @@ package org.apache.olingo.odata2.core.edm.provider;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.util.Date;
 import java.util.List;
 
 import org.apache.olingo.odata2.api.edm.Edm;
@@ -41,6 +50,7 @@ import org.apache.olingo.odata2.api.edm.provider.EntityContainerInfo;
 import org.apache.olingo.odata2.api.edm.provider.EntityType;
 import org.apache.olingo.odata2.api.edm.provider.Schema;
 import org.apache.olingo.odata2.api.ep.EntityProvider;
+import org.apache.olingo.odata2.api.ep.EntityProviderException;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
 import org.apache.olingo.odata2.testutil.mock.EdmTestProvider;
 import org.junit.Test;
@@ -294,6 +304,71 @@ public class EdmxProviderTest {
     assertEquals(7, functionImports.size());
   }
 
+  @Test
+  public void providerLookupWithAlias() throws Exception {
+    final EdmxProvider provider = createProvider();
+    final EntityType employee = provider.getEntityType(new FullQualifiedName("RefScenario", "Employee"));
+    assertNotNull(employee);
+    assertSame(employee, provider.getEntityType(new FullQualifiedName("Self", "Employee")));
+    assertNotNull(provider.getComplexType(new FullQualifiedName("Self", "c_City")));
+    assertNotNull(provider.getAssociation(new FullQualifiedName("Self", "TeamEmployees")));
+    assertNull(provider.getEntityType(new FullQualifiedName("RefScenario", "Unknown")));
+    assertNull(provider.getEntitySet("Unknown", "Employees"));
+
+    // both ends of an association set are found
+    final FullQualifiedName association = new FullQualifiedName("RefScenario", "ManagerEmployees");
+    final AssociationSet associationSet = provider.getAssociationSet("Container1", association, "Managers",
+        "r_Manager");
+    assertNotNull(associationSet);
+    assertSame(associationSet, provider.getAssociationSet("Container1", association, "Employees", "r_Employees"));
+    assertNull(provider.getAssociationSet("Container1", association, "Employees", "r_Manager"));
+  }
+
+  @Test
+  public void snapshot() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    createProvider().writeSnapshot(out);
+
+    final EdmxProvider provider = new EdmxProvider().readSnapshot(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(2, provider.getSchemas().size());
+    assertEquals("Container1", provider.getEntityContainerInfo(null).getName());
+    assertNotNull(provider.getEntitySet("Container2", "Photos"));
+    assertNotNull(provider.getFunctionImport("Container1", "EmployeeSearch"));
+    assertEquals(1, provider.getAliasInfos().size());
+
+    final Edm edm = new EdmImplProv(provider);
+    assertEquals(6, edm.getEntitySets().size());
+    assertNotNull(edm.getEntityType("Self", "Employee").getProperty("EmployeeName"));
+  }
+
+  @Test(expected = EntityProviderException.class)
+  public void invalidSnapshot() throws Exception {
+    new EdmxProvider().readSnapshot(new ByteArrayInputStream("<edmx:Edmx/>".getBytes("UTF-8")));
+  }
+
+  @Test
+  public void snapshotWithForeignClass() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    DataOutputStream dataOutput = new DataOutputStream(out);
+    dataOutput.writeInt(0x4F454458);
+    dataOutput.writeInt(1);
+    ObjectOutputStream objectOutput = new ObjectOutputStream(dataOutput);
+    objectOutput.writeObject(new Date());
+    objectOutput.flush();
+
+    try {
+      new EdmxProvider().readSnapshot(new ByteArrayInputStream(out.toByteArray()));
+      fail("Expected EntityProviderException");
+    } catch (final EntityProviderException e) {
+      assertTrue(e.getCause() instanceof InvalidClassException);
+    }
+  }
+
+  private EdmxProvider createProvider() throws Exception {
+    ODataResponse response = EntityProvider.writeMetadata(new EdmTestProvider().getSchemas(), null);
+    return new EdmxProvider().parse((InputStream) response.getEntity(), true);
+  }
+
   private Edm createEdm() throws Exception {
     EdmProvider testProvider = new EdmTestProvider();
     ODataResponse response = EntityProvider.writeMetadata(testProvider.getSchemas(), null);
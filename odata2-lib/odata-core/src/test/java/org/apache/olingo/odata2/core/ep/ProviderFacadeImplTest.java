@@ -22,6 +22,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
@@ -380,6 +381,15 @@ public class ProviderFacadeImplTest extends AbstractConsumerTest {
     assertEquals(HttpStatusCodes.NO_CONTENT, result.getStatus());
   }
 
+  @Test
+  public void writeBinaryStream() throws Exception {
+    final InputStream data = new ByteArrayInputStream(new byte[] { 102, 111, 111 });
+    final ODataResponse result =
+        new ProviderFacadeImpl().writeBinaryStream(HttpContentType.APPLICATION_OCTET_STREAM, data);
+    assertEquals(HttpContentType.APPLICATION_OCTET_STREAM, result.getContentHeader());
+    assertSame(data, result.getEntity());
+  }
+
   @Test
   public void writeFunctionImport() throws Exception {
     final EdmFunctionImport function =
@@ -21,6 +21,7 @@ package org.apache.olingo.odata2.core.ep.producer;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathEvaluatesTo;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathExists;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathNotExists;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.mock;
@@ -29,6 +30,10 @@ import static org.mockito.Mockito.when;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.olingo.odata2.api.commons.InlineCount;
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
@@ -215,4 +220,42 @@ public class AtomFeedProducerTest extends AbstractProviderTest {
     assertXpathExists("/a:feed/a:entry[103]", xmlString);
   }
 
+  @Test
+  public void streamedFeed() throws Exception {
+    initializeRoomData(103);
+    final boolean[] iterated = new boolean[1];
+    List<Map<String, Object>> data = new ArrayList<Map<String, Object>>(roomsData) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      public Iterator<Map<String, Object>> iterator() {
+        iterated[0] = true;
+        return super.iterator();
+      }
+    };
+
+    AtomEntityProvider ser = createAtomEntityProvider();
+    EntityProviderWriteProperties properties =
+        EntityProviderWriteProperties.serviceRoot(BASE_URI).nextLink("http://thisisanextlink").streamFeed(true)
+            .build();
+    ODataResponse response = ser.writeFeed(view.getTargetEntitySet(), data, properties);
+    assertFalse(iterated[0]);
+    String xmlString = verifyResponse(response);
+
+    assertXpathExists("/a:feed/a:entry[1]", xmlString);
+    assertXpathExists("/a:feed/a:entry[103]", xmlString);
+    assertXpathNotExists("/a:feed/a:entry[104]", xmlString);
+    assertXpathEvaluatesTo("http://thisisanextlink", "/a:feed/a:link[@rel='next']/@href", xmlString);
+  }
+
+  @Test(expected = IOException.class)
+  public void streamedFeedWithError() throws Exception {
+    AtomEntityProvider ser = createAtomEntityProvider();
+    EntityProviderWriteProperties properties =
+        EntityProviderWriteProperties.serviceRoot(BASE_URI).streamFeed(true).build();
+    List<Map<String, Object>> data = new ArrayList<Map<String, Object>>();
+    data.add(null);
+    ODataResponse response = ser.writeFeed(view.getTargetEntitySet(), data, properties);
+    StringHelper.inputStreamToString((InputStream) response.getEntity());
+  }
 }
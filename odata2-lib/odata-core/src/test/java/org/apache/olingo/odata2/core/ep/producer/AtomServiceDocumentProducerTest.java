@@ -73,6 +73,7 @@ public class AtomServiceDocumentProducerTest extends AbstractXmlProducerTestHelp
 
     EdmProvider edmProvider = mock(EdmProvider.class);
     when(edmProvider.getSchemas()).thenReturn(schemas);
+    when(edmProvider.getEntityContainers()).thenCallRealMethod();
 
     EdmServiceMetadata edmServiceMetadata = new EdmServiceMetadataImplProv(edmProvider);
 
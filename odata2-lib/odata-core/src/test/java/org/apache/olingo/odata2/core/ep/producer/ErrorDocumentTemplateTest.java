@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.ep.producer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.util.Locale;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.olingo.odata2.api.ep.EntityProvider;
+import org.apache.olingo.odata2.api.processor.ODataErrorContext;
+import org.apache.olingo.odata2.testutil.fit.BaseTest;
+import org.junit.Test;
+
+/**
+ *  
+ */
+public class ErrorDocumentTemplateTest extends BaseTest {
+
+  @Test
+  public void jsonSameAsProducer() throws Exception {
+    final String message = "Entity \"a\\b\" not found\n";
+    StringWriter writer = new StringWriter();
+    new JsonErrorDocumentProducer().writeErrorDocument(writer, "code", message, Locale.GERMANY, null);
+
+    ErrorDocumentTemplate template = ErrorDocumentTemplate.getJsonTemplate("code", Locale.GERMANY);
+    assertSame(template, ErrorDocumentTemplate.getJsonTemplate("code", Locale.GERMANY));
+    assertEquals(writer.toString(), new String(template.render(message), "UTF-8"));
+  }
+
+  @Test
+  public void xmlIsReadable() throws Exception {
+    final String message = "<a> & </a> ä";
+    ErrorDocumentTemplate template = ErrorDocumentTemplate.getXmlTemplate("C", Locale.GERMANY);
+    ODataErrorContext context = EntityProvider.readErrorDocument(
+        new ByteArrayInputStream(template.render(message)), "application/xml");
+    assertEquals(message, context.getMessage());
+    assertEquals("C", context.getErrorCode());
+    assertEquals(Locale.GERMANY, context.getLocale());
+  }
+
+  @Test
+  public void xmlSameAsProducer() throws Exception {
+    final String message = "Entity 'a' not found.";
+    StringWriter writer = new StringWriter();
+    XMLStreamWriter xmlWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+    new XmlErrorDocumentProducer().writeErrorDocument(xmlWriter, "c", message, null, null);
+    xmlWriter.flush();
+
+    final String rendered = new String(ErrorDocumentTemplate.getXmlTemplate("c", null).render(message), "UTF-8");
+    final String expected = writer.toString();
+    assertEquals(expected.substring(expected.indexOf("?>")), rendered.substring(rendered.indexOf("?>")));
+  }
+}
@@ -78,6 +78,32 @@ public class JsonFeedEntityProducerTest extends BaseTest {
         json);
   }
 
+  @Test
+  public void streamedFeed() throws Exception {
+    final EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Teams");
+    List<Map<String, Object>> teamsData = new ArrayList<Map<String, Object>>();
+    for (int i = 1; i <= 3; i++) {
+      Map<String, Object> teamData = new HashMap<String, Object>();
+      teamData.put("Id", String.valueOf(i));
+      teamData.put("isScrumTeam", i % 2 == 0);
+      teamsData.add(teamData);
+    }
+    EntityProviderWriteProperties properties =
+        EntityProviderWriteProperties.fromProperties(DEFAULT_PROPERTIES).nextLink("Teams?$skiptoken=3").build();
+    final String expected = StringHelper.inputStreamToString((InputStream) new JsonEntityProvider()
+        .writeFeed(entitySet, teamsData, properties).getEntity());
+
+    final ODataResponse response = new JsonEntityProvider().writeFeed(entitySet, teamsData,
+        EntityProviderWriteProperties.fromProperties(properties).streamFeed(true).build());
+    assertEquals(expected, StringHelper.inputStreamToString((InputStream) response.getEntity()));
+
+    final ODataResponse emptyResponse = new JsonEntityProvider().writeFeed(entitySet,
+        new ArrayList<Map<String, Object>>(), EntityProviderWriteProperties.fromProperties(DEFAULT_PROPERTIES)
+            .streamFeed(true).build());
+    assertEquals("{\"d\":{\"results\":[]}}", StringHelper.inputStreamToString((InputStream) emptyResponse
+        .getEntity()));
+  }
+
   @Test
   public void omitJsonWrapperMustHaveNoEffect() throws Exception {
     final EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Teams");
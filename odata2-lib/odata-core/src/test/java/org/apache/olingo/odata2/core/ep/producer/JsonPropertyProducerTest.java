@@ -22,6 +22,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -29,6 +30,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.apache.commons.codec.binary.Base64;
 import org.apache.olingo.odata2.api.ODataServiceVersion;
 import org.apache.olingo.odata2.api.commons.ODataHttpHeaders;
 import org.apache.olingo.odata2.api.edm.EdmProperty;
@@ -95,6 +97,19 @@ public class JsonPropertyProducerTest extends BaseTest {
     assertEquals("{\"d\":{\"Image\":\"KtY=\"}}", StringHelper.inputStreamToString((InputStream) response.getEntity()));
   }
 
+  @Test
+  public void serializeBinaryStream() throws Exception {
+    final EdmProperty property =
+        (EdmProperty) MockFacade.getMockEdm().getEntityType("RefScenario", "Building").getProperty("Image");
+    byte[] data = new byte[10000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    final ODataResponse response = new JsonEntityProvider().writeProperty(property, new ByteArrayInputStream(data));
+    assertEquals("{\"d\":{\"Image\":\"" + Base64.encodeBase64String(data) + "\"}}",
+        StringHelper.inputStreamToString((InputStream) response.getEntity()));
+  }
+
   @Test
   public void serializeBinaryWithContentType() throws Exception {
     final EdmProperty property =
@@ -20,9 +20,12 @@ package org.apache.olingo.odata2.core.ep.producer;
 
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathExists;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathNotExists;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -32,6 +35,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+
 import org.apache.olingo.odata2.api.ODataCallback;
 import org.apache.olingo.odata2.api.edm.Edm;
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
@@ -54,6 +60,7 @@ import org.apache.olingo.odata2.api.uri.UriInfo;
 import org.apache.olingo.odata2.core.ODataPathSegmentImpl;
 import org.apache.olingo.odata2.core.ep.AbstractProviderTest;
 import org.apache.olingo.odata2.core.ep.AtomEntityProvider;
+import org.apache.olingo.odata2.core.ep.aggregator.EntityInfoAggregator;
 import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 import org.apache.olingo.odata2.core.uri.ExpandSelectTreeCreator;
 import org.apache.olingo.odata2.core.uri.UriParserImpl;
@@ -478,6 +485,40 @@ public class XmlExpandProducerTest extends AbstractProviderTest {
     }
   }
 
+  @Test
+  public void expandedRoomAggregatedOncePerFeed() throws Exception {
+    final EdmEntitySet employeesSet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Employees");
+    ExpandSelectTreeNode selectTree = getSelectExpandTree("Employees", null, "ne_Room");
+    EntityProviderWriteProperties properties =
+        EntityProviderWriteProperties.serviceRoot(BASE_URI).expandSelectTree(selectTree)
+            .callbacks(createCallbacks("Employees")).build();
+    final List<EntityInfoAggregator> inlineEntityInfos = new ArrayList<EntityInfoAggregator>();
+    InlineEntityInfoCache cache = new InlineEntityInfoCache() {
+      @Override
+      public EntityInfoAggregator get(final EdmEntitySet entitySet, final ExpandSelectTreeNode expandSelectTree)
+          throws EntityProviderException {
+        final EntityInfoAggregator entityInfo = super.get(entitySet, expandSelectTree);
+        inlineEntityInfos.add(entityInfo);
+        return entityInfo;
+      }
+    };
+
+    ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+    XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outStream, "utf-8");
+    new AtomFeedProducer(properties, cache).append(writer, EntityInfoAggregator.create(employeesSet, selectTree),
+        employeesData, false);
+    writer.flush();
+
+    // one lookup per parent entry, all served by the same entity information
+    assertEquals(employeesData.size(), inlineEntityInfos.size());
+    for (EntityInfoAggregator entityInfo : inlineEntityInfos) {
+      assertSame(inlineEntityInfos.get(0), entityInfo);
+    }
+    assertEquals("Rooms", inlineEntityInfos.get(0).getEntitySetName());
+    final String xmlString = new String(outStream.toByteArray(), "utf-8");
+    assertXpathExists("/a:feed/a:entry[2]/a:link[@title='ne_Room']/m:inline/a:entry", xmlString);
+  }
+
   private String verifyResponse(final ODataResponse response) throws IOException {
     assertNotNull(response);
     assertNotNull(response.getEntity());
@@ -23,8 +23,10 @@ import static org.custommonkey.xmlunit.XMLAssert.assertXpathExists;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 
+import org.apache.commons.codec.binary.Base64;
 import org.apache.olingo.odata2.api.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.edm.EdmProperty;
 import org.apache.olingo.odata2.api.edm.EdmTyped;
@@ -131,6 +133,20 @@ public class XmlPropertyProducerTest extends AbstractProviderTest {
     assertXpathEvaluatesTo("image/jpeg", "/d:BinaryData/@m:MimeType", xml);
   }
 
+  @Test
+  public void serializeBinaryStream() throws Exception {
+    final EdmProperty property =
+        (EdmProperty) MockFacade.getMockEdm().getEntityType("RefScenario", "Building").getProperty("Image");
+    byte[] data = new byte[10000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    ODataResponse response = createAtomEntityProvider().writeProperty(property, new ByteArrayInputStream(data));
+
+    final String xml = StringHelper.inputStreamToString((InputStream) response.getEntity());
+    assertXpathEvaluatesTo(Base64.encodeBase64String(data), "/d:Image/text()", xml);
+  }
+
   @Test
   public void serializeLocation() throws Exception {
     AtomEntityProvider s = createAtomEntityProvider();
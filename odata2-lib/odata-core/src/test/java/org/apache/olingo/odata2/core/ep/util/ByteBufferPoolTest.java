@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.ep.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ *  
+ */
+public class ByteBufferPoolTest {
+
+  @Test
+  public void sizeClasses() {
+    ByteBufferPool pool = new ByteBufferPool(2, false);
+    assertEquals(ByteBufferPool.MIN_CAPACITY, pool.acquire(1).capacity());
+    assertEquals(ByteBufferPool.MIN_CAPACITY, pool.acquire(ByteBufferPool.MIN_CAPACITY).capacity());
+    assertEquals(ByteBufferPool.MIN_CAPACITY * 2, pool.acquire(ByteBufferPool.MIN_CAPACITY + 1).capacity());
+    assertEquals(ByteBufferPool.MAX_CAPACITY + 1, pool.acquire(ByteBufferPool.MAX_CAPACITY + 1).capacity());
+    assertEquals(3, pool.getMissCount());
+  }
+
+  @Test
+  public void reuse() {
+    ByteBufferPool pool = new ByteBufferPool(2, false);
+    ByteBuffer buffer = pool.acquire(100);
+    buffer.put((byte) 1);
+    pool.release(buffer);
+    assertEquals(1, pool.getPooledBuffers());
+    assertEquals(ByteBufferPool.MIN_CAPACITY, pool.getPooledBytes());
+
+    ByteBuffer reused = pool.acquire(ByteBufferPool.MIN_CAPACITY);
+    assertSame(buffer, reused);
+    assertEquals(0, reused.position());
+    assertEquals(1, pool.getHitCount());
+    assertEquals(1, pool.getMissCount());
+    assertEquals(0, pool.getPooledBuffers());
+  }
+
+  @Test
+  public void bounded() {
+    ByteBufferPool pool = new ByteBufferPool(2, false);
+    for (int i = 0; i < 5; i++) {
+      pool.release(ByteBuffer.allocate(ByteBufferPool.MIN_CAPACITY));
+    }
+    pool.release(ByteBuffer.allocate(100));
+    pool.release(ByteBuffer.allocateDirect(ByteBufferPool.MIN_CAPACITY));
+    pool.release(ByteBuffer.allocate(ByteBufferPool.MAX_CAPACITY * 2));
+    assertEquals(2, pool.getPooledBuffers());
+
+    ByteBufferPool disabled = new ByteBufferPool(0, false);
+    disabled.release(ByteBuffer.allocate(ByteBufferPool.MIN_CAPACITY));
+    assertEquals(0, disabled.getPooledBuffers());
+  }
+
+  @Test
+  public void direct() {
+    ByteBufferPool pool = new ByteBufferPool(1, true);
+    assertTrue(pool.isDirect());
+    ByteBuffer buffer = pool.acquire(ByteBufferPool.MIN_CAPACITY);
+    assertTrue(buffer.isDirect());
+    pool.release(buffer);
+    pool.release(ByteBuffer.allocate(ByteBufferPool.MIN_CAPACITY));
+    assertEquals(1, pool.getPooledBuffers());
+    assertFalse(new ByteBufferPool(1, false).acquire(1).isDirect());
+  }
+
+  @Test
+  public void circleStreamBufferReturnsBuffers() throws Exception {
+    ByteBufferPool pool = new ByteBufferPool(4, false);
+    CircleStreamBuffer csb = new CircleStreamBuffer(ByteBufferPool.MIN_CAPACITY, pool);
+    byte[] data = new byte[ByteBufferPool.MAX_CAPACITY + 10];
+    data[data.length - 1] = 42;
+    csb.getOutputStream().write(data);
+    csb.closeWrite();
+
+    byte[] read = new byte[data.length];
+    int offset = 0;
+    int count;
+    while ((count = csb.getInputStream().read(read, offset, read.length - offset)) > 0) {
+      offset += count;
+    }
+    assertEquals(data.length, offset);
+    assertEquals(42, read[data.length - 1]);
+    csb.getInputStream().close();
+    final int pooled = pool.getPooledBuffers();
+    assertTrue(pooled > 0);
+
+    // a second buffer of the same kind is served from the pool
+    CircleStreamBuffer second = new CircleStreamBuffer(ByteBufferPool.MIN_CAPACITY, pool);
+    second.getOutputStream().write(data, 0, 10);
+    second.close();
+    assertTrue(pool.getHitCount() > 0);
+    assertEquals(pooled, pool.getPooledBuffers());
+  }
+
+  @Test
+  public void writeAfterCloseRead() throws Exception {
+    ByteBufferPool pool = new ByteBufferPool(4, false);
+    CircleStreamBuffer csb = new CircleStreamBuffer(ByteBufferPool.MIN_CAPACITY, pool);
+    csb.closeRead();
+    final int pooled = pool.getPooledBuffers();
+    csb.getOutputStream().write(new byte[100]);
+    csb.getOutputStream().write(1);
+    assertEquals(pooled, pool.getPooledBuffers());
+    assertEquals(0, csb.getInputStream().available());
+  }
+}
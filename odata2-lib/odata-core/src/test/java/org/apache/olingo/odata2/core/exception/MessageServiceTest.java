@@ -19,12 +19,14 @@
 package org.apache.olingo.odata2.core.exception;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.util.Locale;
 
 import org.apache.olingo.odata2.api.exception.MessageReference;
 import org.apache.olingo.odata2.api.exception.ODataMessageException;
 import org.apache.olingo.odata2.core.exception.MessageService.Message;
+import org.apache.olingo.odata2.core.exception.MessageService.MessageTemplate;
 import org.apache.olingo.odata2.testutil.fit.BaseTest;
 import org.junit.Test;
 
@@ -121,4 +123,21 @@ public class MessageServiceTest extends BaseTest {
     assertEquals("First was [first] and second was [second]!", ms.getText());
   }
 
+  @Test
+  public void sharedInstance() throws Exception {
+    assertSame(MessageService.getInstance(DEFAULT_LANGUAGE), MessageService.getInstance(DEFAULT_LANGUAGE));
+  }
+
+  @Test
+  public void template() throws Exception {
+    assertEquals("b a b", MessageTemplate.compile("%2$s %1$s %2$s").format(Locale.ENGLISH, "a", "b"));
+    assertEquals("[null]", MessageTemplate.compile("[%1$s]").format(Locale.ENGLISH, (Object) null));
+    assertEquals("no place holder", MessageTemplate.compile("no place holder").format(Locale.ENGLISH));
+  }
+
+  @Test
+  public void templateWithOtherSpecifiers() throws Exception {
+    assertEquals("100% of 3", MessageTemplate.compile("100%% of %1$d").format(Locale.ENGLISH, 3));
+    assertEquals("A", MessageTemplate.compile("%s").format(Locale.ENGLISH, "A"));
+  }
 }
@@ -19,6 +19,8 @@
 package org.apache.olingo.odata2.core.rt;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import org.apache.olingo.odata2.api.rt.RuntimeDelegate;
 import org.apache.olingo.odata2.testutil.fit.BaseTest;
@@ -31,4 +33,14 @@ public class RuntimeDelegateTest extends BaseTest {
     assertNotNull(RuntimeDelegate.createODataResponseBuilder());
   }
 
+  @Test
+  public void testSharedEntityProvider() {
+    assertSame(RuntimeDelegate.createEntityProvider(), RuntimeDelegate.createEntityProvider());
+  }
+
+  @Test
+  public void testNewResponseBuilder() {
+    assertNotSame(RuntimeDelegate.createODataResponseBuilder(), RuntimeDelegate.createODataResponseBuilder());
+  }
+
 }
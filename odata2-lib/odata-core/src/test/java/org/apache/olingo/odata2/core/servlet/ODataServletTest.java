@@ -22,10 +22,16 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.GenericServlet;
 import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -41,7 +47,10 @@ import org.apache.olingo.odata2.api.processor.ODataResponse;
 import org.apache.olingo.odata2.core.ODataResponseImpl;
 import org.apache.olingo.odata2.core.rest.ODataServiceFactoryImpl;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 /**
  *
@@ -174,6 +183,214 @@ public class ODataServletTest {
     Assert.assertEquals(ODataServiceFactoryImpl.class, servlet.getServiceFactory(reqMock).getClass());
   }
 
+  @Test
+  public void handleAsync() throws Exception {
+    ODataServlet servlet = new ODataServlet() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected Executor getAsyncExecutor() {
+        return new Executor() {
+          @Override
+          public void execute(final Runnable command) {
+            command.run();
+          }
+        };
+      }
+    };
+    prepareServlet(servlet);
+    Mockito.when(configMock.getInitParameter(ODataServlet.ASYNC_LABEL)).thenReturn("true");
+    Mockito.when(configMock.getInitParameter(ODataServlet.ASYNC_TIMEOUT_LABEL)).thenReturn("1000");
+    servlet.init();
+    AsyncRequest asyncReqMock = Mockito.mock(AsyncRequest.class);
+    prepareRequest(asyncReqMock);
+    AsyncContextMock asyncContext = Mockito.mock(AsyncContextMock.class);
+    Mockito.when(asyncReqMock.isAsyncSupported()).thenReturn(true);
+    Mockito.when(asyncReqMock.startAsync()).thenReturn(asyncContext);
+
+    servlet.service(asyncReqMock, respMock);
+
+    Mockito.verify(asyncContext).setTimeout(1000);
+    Mockito.verify(respMock).setStatus(HttpStatusCodes.TEMPORARY_REDIRECT.getStatusCode());
+    Mockito.verify(asyncContext).complete();
+  }
+
+  @Test
+  public void handleAsyncTimeout() throws Exception {
+    final List<Runnable> queued = new ArrayList<Runnable>();
+    ODataServlet servlet = new ODataServlet() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected Executor getAsyncExecutor() {
+        return new Executor() {
+          @Override
+          public void execute(final Runnable command) {
+            queued.add(command);
+          }
+        };
+      }
+    };
+    prepareServlet(servlet);
+    Mockito.when(configMock.getInitParameter(ODataServlet.ASYNC_LABEL)).thenReturn("true");
+    AsyncRequest asyncReqMock = Mockito.mock(AsyncRequest.class);
+    prepareRequest(asyncReqMock);
+    AsyncContextMock asyncContext = Mockito.mock(AsyncContextMock.class);
+    Mockito.when(asyncReqMock.isAsyncSupported()).thenReturn(true);
+    Mockito.when(asyncReqMock.startAsync()).thenReturn(asyncContext);
+
+    servlet.service(asyncReqMock, respMock);
+    ArgumentCaptor<AsyncListenerMock> listener = ArgumentCaptor.forClass(AsyncListenerMock.class);
+    Mockito.verify(asyncContext).addListener(listener.capture());
+    listener.getValue().onTimeout(null);
+    // the cancelled request is neither processed nor completed again
+    queued.get(0).run();
+
+    Mockito.verify(respMock).setStatus(HttpStatusCodes.SERVICE_UNAVAILABLE.getStatusCode());
+    Mockito.verify(respMock, Mockito.never()).setStatus(HttpStatusCodes.TEMPORARY_REDIRECT.getStatusCode());
+    Mockito.verify(asyncContext, Mockito.times(1)).complete();
+  }
+
+  @Test
+  public void handleAsyncTimeoutWhileRunning() throws Exception {
+    ODataServlet servlet = new ODataServlet() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected Executor getAsyncExecutor() {
+        return new Executor() {
+          @Override
+          public void execute(final Runnable command) {
+            new Thread(command).start();
+          }
+        };
+      }
+    };
+    prepareServlet(servlet);
+    Mockito.when(configMock.getInitParameter(ODataServlet.ASYNC_LABEL)).thenReturn("true");
+    servlet.init();
+    AsyncRequest asyncReqMock = Mockito.mock(AsyncRequest.class);
+    prepareRequest(asyncReqMock);
+    AsyncContextMock asyncContext = Mockito.mock(AsyncContextMock.class);
+    Mockito.when(asyncReqMock.isAsyncSupported()).thenReturn(true);
+    Mockito.when(asyncReqMock.startAsync()).thenReturn(asyncContext);
+    final CountDownLatch started = new CountDownLatch(1);
+    Mockito.doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(final InvocationOnMock invocation) throws Throwable {
+        started.countDown();
+        try {
+          // processing blocks until the worker is interrupted
+          new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return null;
+      }
+    }).when(respMock).setStatus(HttpStatusCodes.TEMPORARY_REDIRECT.getStatusCode());
+
+    servlet.service(asyncReqMock, respMock);
+    Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+    ArgumentCaptor<AsyncListenerMock> listener = ArgumentCaptor.forClass(AsyncListenerMock.class);
+    Mockito.verify(asyncContext).addListener(listener.capture());
+    listener.getValue().onTimeout(null);
+
+    // the worker has completed the context before the timeout handling returns
+    Mockito.verify(asyncContext).setTimeout(-1);
+    Mockito.verify(respMock).setStatus(HttpStatusCodes.SERVICE_UNAVAILABLE.getStatusCode());
+    Mockito.verify(asyncContext, Mockito.times(1)).complete();
+  }
+
+  @Test
+  public void handleAsyncQueueFull() throws Exception {
+    ODataServlet servlet = new ODataServlet();
+    prepareServlet(servlet);
+    Mockito.when(configMock.getInitParameter(ODataServlet.ASYNC_LABEL)).thenReturn("true");
+    Mockito.when(configMock.getInitParameter(ODataServlet.ASYNC_THREADS_LABEL)).thenReturn("1");
+    Mockito.when(configMock.getInitParameter(ODataServlet.ASYNC_QUEUE_LABEL)).thenReturn("0");
+    servlet.init();
+    final CountDownLatch blocked = new CountDownLatch(1);
+    servlet.getAsyncExecutor().execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          blocked.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    AsyncRequest asyncReqMock = Mockito.mock(AsyncRequest.class);
+    prepareRequest(asyncReqMock);
+    AsyncContextMock asyncContext = Mockito.mock(AsyncContextMock.class);
+    Mockito.when(asyncReqMock.isAsyncSupported()).thenReturn(true);
+    Mockito.when(asyncReqMock.startAsync()).thenReturn(asyncContext);
+
+    try {
+      // the only thread is busy and no request may wait, so the request is processed at once
+      servlet.service(asyncReqMock, respMock);
+
+      Mockito.verify(respMock).setStatus(HttpStatusCodes.TEMPORARY_REDIRECT.getStatusCode());
+      Mockito.verify(asyncContext).complete();
+    } finally {
+      blocked.countDown();
+      servlet.destroy();
+    }
+  }
+
+  @Test
+  public void invalidAsyncInitParameter() throws Exception {
+    ODataServlet servlet = new ODataServlet();
+    prepareServlet(servlet);
+    for (String value : new String[] { "many", "0", "-1" }) {
+      Mockito.when(configMock.getInitParameter(ODataServlet.ASYNC_THREADS_LABEL)).thenReturn(value);
+      try {
+        servlet.init();
+        Assert.fail("Expected a ServletException for " + value);
+      } catch (ServletException e) {
+        Assert.assertTrue(e.getMessage().contains(ODataServlet.ASYNC_THREADS_LABEL));
+      }
+    }
+  }
+
+  @Test
+  public void handleAsyncNotSupported() throws Exception {
+    ODataServlet servlet = new ODataServlet();
+    prepareServlet(servlet);
+    Mockito.when(configMock.getInitParameter(ODataServlet.ASYNC_LABEL)).thenReturn("true");
+    prepareRequest(reqMock);
+    servlet.service(reqMock, respMock);
+
+    Mockito.verify(respMock).setStatus(HttpStatusCodes.TEMPORARY_REDIRECT.getStatusCode());
+  }
+
+  /** Request of a Servlet 3.0 container */
+  public interface AsyncRequest extends HttpServletRequest {
+    boolean isAsyncSupported();
+
+    AsyncContextMock startAsync();
+  }
+
+  /** Asynchronous context of a Servlet 3.0 container */
+  public interface AsyncContextMock {
+    void setTimeout(long timeout);
+
+    void complete();
+
+    void addListener(AsyncListenerMock listener);
+  }
+
+  /** Asynchronous listener of a Servlet 3.0 container */
+  public interface AsyncListenerMock {
+    void onComplete(Object event);
+
+    void onTimeout(Object event);
+
+    void onError(Object event);
+
+    void onStartAsync(Object event);
+  }
+
 
   private void prepareResponseMockToWrite(final HttpServletResponse response) throws IOException {
     Mockito.when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
@@ -21,7 +21,9 @@ package org.apache.olingo.odata2.core.servlet;
 import junit.framework.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 public class RestUtilTest {
@@ -56,4 +58,30 @@ public class RestUtilTest {
     Assert.assertEquals("v2", result.get("some").get(1));
     Assert.assertEquals("v", result.get("another").get(0));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void extractAllQueryParametersEmptyParts() throws Exception {
+    Map<String, List<String>> result = RestUtil.extractAllQueryParameters("a=1&&b&");
+    Assert.assertEquals(3, result.size());
+    Assert.assertEquals("1", result.get("a").get(0));
+    Assert.assertEquals("", result.get("b").get(0));
+    Assert.assertEquals("", result.get("").get(0));
+
+    Assert.assertTrue(RestUtil.extractAllQueryParameters("&").isEmpty());
+    Assert.assertEquals("x=y", RestUtil.extractQueryParameters("%24filter=x%3Dy").get("$filter"));
+  }
+
+  @Test
+  public void extractAcceptHeaders() throws Exception {
+    Assert.assertEquals(Arrays.asList("text/plain", "bad", "application/json;odata=verbose", "*/*", "a/b;q=2"),
+        RestUtil.extractAcceptHeaders("*/*;q=0.1, application/json;odata=verbose; q=0.5, text/plain, bad, a/b;q=2"));
+    Assert.assertTrue(RestUtil.extractAcceptHeaders(null).isEmpty());
+  }
+
+  @Test
+  public void extractAcceptableLanguage() throws Exception {
+    Assert.assertEquals(Arrays.asList(new Locale("fr", "CH"), new Locale("fr"), new Locale("de", "DE")),
+        RestUtil.extractAcceptableLanguage("de-de;q=0.2, fr-CH, fr;q=0.9, en_US"));
+    Assert.assertTrue(RestUtil.extractAcceptableLanguage("").isEmpty());
+  }
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+
+public class ServletRequestHeadersTest {
+
+  @Test
+  public void detachedFromRequest() throws Exception {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getHeaderNames()).thenReturn(Collections.enumeration(Arrays.asList("Accept")));
+    when(request.getHeaders("Accept")).thenReturn(Collections.enumeration(Arrays.asList("a", "b")));
+
+    Map<String, List<String>> headers = RestUtil.extractRequestHeaders(request);
+    reset(request);
+    assertEquals(Arrays.asList("a", "b"), headers.get("Accept"));
+    assertEquals(Arrays.asList("a", "b"), headers.get("ACCEPT"));
+    assertNull(headers.get("Content-Type"));
+    verifyZeroInteractions(request);
+  }
+
+  @Test
+  public void iterate() throws Exception {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getHeaderNames()).thenReturn(Collections.enumeration(Arrays.asList("Accept", "Host")));
+    when(request.getHeaders("Accept")).thenReturn(Collections.enumeration(Arrays.asList("a")));
+    when(request.getHeaders("Host")).thenReturn(Collections.enumeration(Arrays.asList("h")));
+
+    Map<String, List<String>> headers = RestUtil.extractRequestHeaders(request);
+    assertEquals(2, headers.size());
+    assertTrue(headers.containsKey("Host"));
+    assertEquals(Arrays.asList("h"), headers.get("host"));
+    assertEquals(Arrays.asList("a"), headers.get("Accept"));
+  }
+
+  @Test
+  public void concurrentReads() throws Exception {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getHeaderNames()).thenReturn(Collections.enumeration(Arrays.asList("Accept", "Host")));
+    when(request.getHeaders("Accept")).thenReturn(Collections.enumeration(Arrays.asList("a")));
+    when(request.getHeaders("Host")).thenReturn(Collections.enumeration(Arrays.asList("h")));
+    final Map<String, List<String>> headers = RestUtil.extractRequestHeaders(request);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+      for (int i = 0; i < 100; i++) {
+        results.add(executor.submit(new Callable<Boolean>() {
+          @Override
+          public Boolean call() {
+            return Arrays.asList("a").equals(headers.get("ACCEPT")) && Arrays.asList("h").equals(headers.get("host"))
+                && headers.get("Content-Type") == null && headers.entrySet().size() == 2;
+          }
+        }));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void readOnly() throws Exception {
+    RestUtil.extractRequestHeaders(mock(HttpServletRequest.class)).put("a", Arrays.asList("b"));
+  }
+}
@@ -129,6 +129,29 @@ public class ScenarioEdmProvider extends EdmProvider {
     associations.add(getAssociation(ASSOCIATION_1_4));
     schema.setAssociations(associations);
 
+    schema.setEntityContainers(Arrays.asList(createEntityContainer1()));
+
+    schemas.add(schema);
+
+    schema = new Schema();
+    schema.setNamespace(NAMESPACE_2);
+
+    schema.setEntityTypes(Arrays.asList(getEntityType(ENTITY_TYPE_2_1)));
+
+    schema.setEntityContainers(Arrays.asList(createEntityContainer2()));
+
+    schemas.add(schema);
+
+    return schemas;
+  }
+
+  @Override
+  public List<EntityContainer> getEntityContainers() throws ODataException {
+    // the service document needs no types
+    return Arrays.asList(createEntityContainer1(), createEntityContainer2());
+  }
+
+  private EntityContainer createEntityContainer1() throws ODataException {
     EntityContainer entityContainer = new EntityContainer();
     entityContainer.setName(ENTITY_CONTAINER_1).setDefaultEntityContainer(true);
 
@@ -157,23 +180,12 @@ public class ScenarioEdmProvider extends EdmProvider {
     functionImports.add(getFunctionImport(ENTITY_CONTAINER_1, FUNCTION_IMPORT_7));
     entityContainer.setFunctionImports(functionImports);
 
-    schema.setEntityContainers(Arrays.asList(entityContainer));
-
-    schemas.add(schema);
-
-    schema = new Schema();
-    schema.setNamespace(NAMESPACE_2);
-
-    schema.setEntityTypes(Arrays.asList(getEntityType(ENTITY_TYPE_2_1)));
-
-    entityContainer = new EntityContainer();
-    entityContainer.setName(ENTITY_CONTAINER_2);
-    entityContainer.setEntitySets(Arrays.asList(getEntitySet(ENTITY_CONTAINER_2, ENTITY_SET_2_1)));
-    schema.setEntityContainers(Arrays.asList(entityContainer));
-
-    schemas.add(schema);
+    return entityContainer;
+  }
 
-    return schemas;
+  private EntityContainer createEntityContainer2() throws ODataException {
+    return new EntityContainer().setName(ENTITY_CONTAINER_2)
+        .setEntitySets(Arrays.asList(getEntitySet(ENTITY_CONTAINER_2, ENTITY_SET_2_1)));
   }
 
   @Override